@@ -0,0 +1,122 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.core.utils.collections.PackedQuadTree;
+import org.matsim.core.utils.collections.QuadTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the queries of the {@link QuadTree} and the {@link PackedQuadTree}, with up to 20M
+ * points uniformly distributed over a 100km x 100km area, i.e. about the size of the facility set
+ * of a large scenario.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class QuadTreeBenchmark {
+
+	private static final double EXTENT = 100_000;
+	private static final int QUERIES = 10_000;
+
+	@Param({"1000000", "20000000"})
+	public int numberOfPoints;
+
+	@Param({"QuadTree", "PackedQuadTree"})
+	public String implementation;
+
+	private QuadTree<Integer> quadTree;
+	private final double[] queryX = new double[QUERIES];
+	private final double[] queryY = new double[QUERIES];
+	private final List<Integer> buffer = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(20190412L);
+		this.quadTree = "PackedQuadTree".equals(this.implementation) ? new PackedQuadTree<>(0, 0, EXTENT, EXTENT) : new QuadTree<>(0, 0, EXTENT, EXTENT);
+		for (int i = 0; i < this.numberOfPoints; i++) {
+			this.quadTree.put(random.nextDouble() * EXTENT, random.nextDouble() * EXTENT, i);
+		}
+		for (int i = 0; i < QUERIES; i++) {
+			this.queryX[i] = random.nextDouble() * EXTENT;
+			this.queryY[i] = random.nextDouble() * EXTENT;
+		}
+		this.quadTree.getClosest(0, 0); // builds the index of the PackedQuadTree
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public int getClosest() {
+		int sum = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			sum += this.quadTree.getClosest(this.queryX[i], this.queryY[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public int getKNearest10() {
+		int sum = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			this.buffer.clear();
+			sum += this.quadTree.getKNearest(this.queryX[i], this.queryY[i], 10, this.buffer).size();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public int getDisk500m() {
+		int sum = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			this.buffer.clear();
+			sum += this.quadTree.getDisk(this.queryX[i], this.queryY[i], 500, this.buffer).size();
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(QuadTreeBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
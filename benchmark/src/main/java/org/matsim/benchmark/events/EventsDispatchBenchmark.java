@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the reflective and the generated event dispatch of {@link EventsManagerImpl}.
+ * <code>LinkEnterEvent</code>s are covered by the hard-coded fast path of the reflective mode,
+ * while the custom event is always called through {@link java.lang.reflect.Method#invoke(Object, Object...)}
+ * in the reflective mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EventsDispatchBenchmark {
+
+	@Param({"reflective", "generated"})
+	public EventsManagerImpl.DispatchMode dispatchMode;
+
+	@Param({"1", "4"})
+	public int numberOfHandlers;
+
+	private EventsManagerImpl events;
+	private LinkEnterEvent linkEnterEvent;
+	private CustomEvent customEvent;
+
+	@Setup
+	public void setup() {
+		this.events = new EventsManagerImpl(this.dispatchMode);
+		for (int i = 0; i < this.numberOfHandlers; i++) {
+			this.events.addHandler(new CountingHandler());
+		}
+		this.linkEnterEvent = new LinkEnterEvent(3600.0, Id.create("veh", Vehicle.class), Id.create("link", Link.class));
+		this.customEvent = new CustomEvent(3600.0);
+	}
+
+	@Benchmark
+	public void linkEnterEvent() {
+		this.events.processEvent(this.linkEnterEvent);
+	}
+
+	@Benchmark
+	public void customEvent() {
+		this.events.processEvent(this.customEvent);
+	}
+
+	@Benchmark
+	public void mixedEvents() {
+		this.events.processEvent(this.linkEnterEvent);
+		this.events.processEvent(this.customEvent);
+	}
+
+	public static class CustomEvent extends Event {
+		public CustomEvent(final double time) {
+			super(time);
+		}
+
+		@Override
+		public String getEventType() {
+			return "custom";
+		}
+	}
+
+	public interface CustomEventHandler extends EventHandler {
+		void handleEvent(CustomEvent event);
+	}
+
+	private static class CountingHandler implements LinkEnterEventHandler, CustomEventHandler, BasicEventHandler {
+		private long count = 0;
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(CustomEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			this.count++;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			this.count = 0;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EventsDispatchBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,127 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup.WaitStrategy;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the events/s the parallel events managers can hand to their handler threads, with one
+ * handler per thread. The events are created in {@value #SIM_STEPS} time steps, as done by the mobsim.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelEventsThroughputBenchmark {
+
+	private static final int SIM_STEPS = 1000;
+	private static final int EVENTS_PER_SIM_STEP = 1000;
+
+	@Param({"1", "2", "4", "8", "16", "32"})
+	public int numberOfThreads;
+
+	@Param({"false", "true"})
+	public boolean useRingBuffer;
+
+	@Param({"true", "false"})
+	public boolean synchronizeOnSimSteps;
+
+	@Param({"park"})
+	public WaitStrategy waitStrategy;
+
+	private EventsManager events;
+	private Event[] eventsOfSimStep;
+
+	@Setup
+	public void setup() {
+		Config config = ConfigUtils.createConfig();
+		config.parallelEventHandling().setNumberOfThreads(this.numberOfThreads);
+		config.parallelEventHandling().setSynchronizeOnSimSteps(this.synchronizeOnSimSteps);
+		config.parallelEventHandling().setUseRingBuffer(this.useRingBuffer);
+		config.parallelEventHandling().setWaitStrategy(this.waitStrategy);
+		this.events = EventsUtils.createEventsManager(config);
+		for (int i = 0; i < this.numberOfThreads; i++) {
+			this.events.addHandler(new CountingHandler());
+		}
+		this.eventsOfSimStep = new Event[EVENTS_PER_SIM_STEP];
+		for (int i = 0; i < EVENTS_PER_SIM_STEP; i++) {
+			this.eventsOfSimStep[i] = new LinkEnterEvent(0.0, Id.createVehicleId(i), Id.createLinkId(i));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIM_STEPS * EVENTS_PER_SIM_STEP)
+	public void processIteration() {
+		this.events.initProcessing();
+		for (int step = 0; step < SIM_STEPS; step++) {
+			for (Event event : this.eventsOfSimStep) {
+				this.events.processEvent(event);
+			}
+			this.events.afterSimStep(step);
+		}
+		this.events.finishProcessing();
+	}
+
+	private static class CountingHandler implements BasicEventHandler {
+		private long count = 0;
+
+		@Override
+		public void handleEvent(Event event) {
+			this.count++;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			this.count = 0;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ParallelEventsThroughputBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
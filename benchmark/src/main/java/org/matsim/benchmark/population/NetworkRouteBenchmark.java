@@ -0,0 +1,104 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.population;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.population.routes.LinkNetworkRouteFactory;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.PackedNetworkRouteFactory;
+import org.matsim.core.population.routes.RouteFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time per link to walk along network routes link by link, the way the drivers in the
+ * mobsim do it, for the different implementations of {@link NetworkRoute}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NetworkRouteBenchmark {
+
+	private static final int NUMBER_OF_LINKS = 50000;
+	private static final int NUMBER_OF_ROUTES = 10000;
+	private static final int LINKS_PER_ROUTE = 40;
+
+	@Param({"LinkNetworkRoute", "PackedNetworkRoute"})
+	public String networkRouteType;
+
+	private NetworkRoute[] routes;
+
+	@Setup
+	public void setup() {
+		RouteFactory factory = "PackedNetworkRoute".equals(this.networkRouteType) ? new PackedNetworkRouteFactory() : new LinkNetworkRouteFactory();
+		Random random = new Random(4711);
+		this.routes = new NetworkRoute[NUMBER_OF_ROUTES];
+		for (int r = 0; r < NUMBER_OF_ROUTES; r++) {
+			List<Id<Link>> linkIds = new ArrayList<>(LINKS_PER_ROUTE);
+			for (int i = 0; i < LINKS_PER_ROUTE; i++) {
+				linkIds.add(Id.createLinkId(random.nextInt(NUMBER_OF_LINKS)));
+			}
+			Id<Link> startLinkId = Id.createLinkId(random.nextInt(NUMBER_OF_LINKS));
+			Id<Link> endLinkId = Id.createLinkId(random.nextInt(NUMBER_OF_LINKS));
+			NetworkRoute route = (NetworkRoute) factory.createRoute(startLinkId, endLinkId);
+			route.setLinkIds(startLinkId, linkIds, endLinkId);
+			this.routes[r] = route;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_ROUTES * LINKS_PER_ROUTE)
+	public int nextLinkId() {
+		int sum = 0;
+		for (NetworkRoute route : this.routes) {
+			for (int currentLinkIndex = 0; currentLinkIndex < route.getLinkIds().size(); currentLinkIndex++) {
+				sum += route.getLinkIds().get(currentLinkIndex).index();
+			}
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(NetworkRouteBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
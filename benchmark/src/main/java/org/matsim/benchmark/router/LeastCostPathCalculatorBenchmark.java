@@ -0,0 +1,157 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.router;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.ContractionHierarchiesFactory;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the query times of {@link ContractionHierarchiesFactory contraction hierarchies} and
+ * {@link FastAStarLandmarksFactory FastAStarLandmarks} for random origin-destination pairs.
+ * <p>
+ * By default, a grid network with random link speeds is generated.  To use a real network, pass its
+ * file name, e.g. <code>-p networkFile=network.xml.gz</code>.  The preprocessing of both routers is done
+ * in the setup and not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class LeastCostPathCalculatorBenchmark {
+
+	private static final int NUMBER_OF_QUERIES = 1000;
+
+	@Param({""})
+	public String networkFile;
+
+	@Param({"300"})
+	public int gridSize;
+
+	@Param({"FastAStarLandmarks", "ContractionHierarchies"})
+	public String router;
+
+	private LeastCostPathCalculator calculator;
+	private Node[] fromNodes;
+	private Node[] toNodes;
+
+	@Setup
+	public void setup() {
+		Network network;
+		if (this.networkFile.isEmpty()) {
+			network = createGridNetwork(this.gridSize, new Random(4711));
+		} else {
+			network = NetworkUtils.createNetwork();
+			new MatsimNetworkReader(network).readFile(this.networkFile);
+		}
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculatorFactory factory = this.router.equals("ContractionHierarchies")
+				? new ContractionHierarchiesFactory() : new FastAStarLandmarksFactory(Runtime.getRuntime().availableProcessors());
+		this.calculator = factory.createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		Random random = new Random(42);
+		this.fromNodes = new Node[NUMBER_OF_QUERIES];
+		this.toNodes = new Node[NUMBER_OF_QUERIES];
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			this.fromNodes[i] = nodes[random.nextInt(nodes.length)];
+			this.toNodes[i] = nodes[random.nextInt(nodes.length)];
+		}
+		// the costs of the contraction hierarchies are computed with the first query of a time bin
+		this.calculator.calcLeastCostPath(this.fromNodes[0], this.toNodes[0], 8 * 3600, null, null);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_QUERIES)
+	public double route() {
+		double cost = 0;
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			Path path = this.calculator.calcLeastCostPath(this.fromNodes[i], this.toNodes[i], 8 * 3600, null, null);
+			if (path != null) {
+				cost += path.travelCost;
+			}
+		}
+		return cost;
+	}
+
+	private static Network createGridNetwork(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.create(x + "_" + y, Node.class), new Coord(x * 200, y * 200));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y], random);
+				}
+				if (y + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinks(final Network network, final Node node1, final Node node2, final Random random) {
+		double length = 200 + random.nextInt(100);
+		double freespeed = 5 + random.nextInt(30);
+		NetworkUtils.createAndAddLink(network, Id.create(node1.getId() + "-" + node2.getId(), Link.class), node1, node2, length, freespeed, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create(node2.getId() + "-" + node1.getId(), Link.class), node2, node1, length, freespeed, 1000, 1);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LeastCostPathCalculatorBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,196 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.pt.router.ArrayTransitRouter;
+import org.matsim.pt.router.FakeFacility;
+import org.matsim.pt.router.TransitRouter;
+import org.matsim.pt.router.TransitRouterConfig;
+import org.matsim.pt.router.TransitRouterImpl;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the query times of {@link TransitRouterImpl} and {@link ArrayTransitRouter} for random
+ * origin-destination pairs and departure times.
+ * <p>
+ * By default, a schedule of horizontal and vertical lines on a grid is generated, with a stop at every crossing.
+ * To use a real schedule, pass its file name, e.g. <code>-p scheduleFile=transitSchedule.xml.gz</code>.  The
+ * preprocessing of both routers is done in the setup and not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TransitRouterBenchmark {
+
+	private static final int NUMBER_OF_QUERIES = 200;
+	private static final double STOP_DISTANCE = 500;
+
+	@Param({""})
+	public String scheduleFile;
+
+	@Param({"20"})
+	public int gridSize;
+
+	@Param({"TransitRouterImpl", "ArrayTransitRouter"})
+	public String router;
+
+	private TransitRouter transitRouter;
+	private FakeFacility[] fromFacilities;
+	private FakeFacility[] toFacilities;
+	private double[] departureTimes;
+
+	@Setup
+	public void setup() {
+		Config config = ConfigUtils.createConfig();
+		TransitSchedule schedule;
+		if (this.scheduleFile.isEmpty()) {
+			schedule = createGridSchedule(this.gridSize);
+		} else {
+			config.transit().setUseTransit(true);
+			Scenario scenario = ScenarioUtils.createScenario(config);
+			new TransitScheduleReader(scenario).readFile(this.scheduleFile);
+			schedule = scenario.getTransitSchedule();
+		}
+		TransitRouterConfig trConfig = new TransitRouterConfig(config);
+		this.transitRouter = this.router.equals("ArrayTransitRouter")
+				? new ArrayTransitRouter(trConfig, schedule) : new TransitRouterImpl(trConfig, schedule);
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (TransitStopFacility stop : schedule.getFacilities().values()) {
+			minX = Math.min(minX, stop.getCoord().getX());
+			minY = Math.min(minY, stop.getCoord().getY());
+			maxX = Math.max(maxX, stop.getCoord().getX());
+			maxY = Math.max(maxY, stop.getCoord().getY());
+		}
+		Random random = new Random(42);
+		this.fromFacilities = new FakeFacility[NUMBER_OF_QUERIES];
+		this.toFacilities = new FakeFacility[NUMBER_OF_QUERIES];
+		this.departureTimes = new double[NUMBER_OF_QUERIES];
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			this.fromFacilities[i] = new FakeFacility(new Coord(minX + random.nextDouble() * (maxX - minX), minY + random.nextDouble() * (maxY - minY)));
+			this.toFacilities[i] = new FakeFacility(new Coord(minX + random.nextDouble() * (maxX - minX), minY + random.nextDouble() * (maxY - minY)));
+			this.departureTimes[i] = 6 * 3600 + random.nextInt(14 * 3600);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_QUERIES)
+	public int route() {
+		int legs = 0;
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			List<Leg> route = this.transitRouter.calcRoute(this.fromFacilities[i], this.toFacilities[i], this.departureTimes[i], null);
+			if (route != null) {
+				legs += route.size();
+			}
+		}
+		return legs;
+	}
+
+	/*package*/ static TransitSchedule createGridSchedule(final int size) {
+		TransitSchedule schedule = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getTransitSchedule();
+		TransitScheduleFactory factory = schedule.getFactory();
+		TransitStopFacility[][] stops = new TransitStopFacility[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				stops[x][y] = factory.createTransitStopFacility(Id.create(x + "_" + y, TransitStopFacility.class),
+						new Coord(x * STOP_DISTANCE, y * STOP_DISTANCE), false);
+				stops[x][y].setLinkId(Id.create(x + "_" + y, Link.class));
+				schedule.addStopFacility(stops[x][y]);
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			List<TransitStopFacility> horizontal = new ArrayList<>();
+			List<TransitStopFacility> vertical = new ArrayList<>();
+			for (int j = 0; j < size; j++) {
+				horizontal.add(stops[j][i]);
+				vertical.add(stops[i][j]);
+			}
+			addLine(schedule, "h" + i, horizontal, 600 + 60 * (i % 5));
+			addLine(schedule, "v" + i, vertical, 600 + 60 * ((i + 2) % 5));
+		}
+		return schedule;
+	}
+
+	private static void addLine(final TransitSchedule schedule, final String name, final List<TransitStopFacility> stops, final double headway) {
+		TransitScheduleFactory factory = schedule.getFactory();
+		TransitLine line = factory.createTransitLine(Id.create(name, TransitLine.class));
+		for (int direction = 0; direction < 2; direction++) {
+			List<TransitRouteStop> routeStops = new ArrayList<>();
+			for (int i = 0; i < stops.size(); i++) {
+				TransitStopFacility stop = stops.get(direction == 0 ? i : stops.size() - 1 - i);
+				double offset = i * 90;
+				routeStops.add(factory.createTransitRouteStop(stop, offset, offset + 20));
+			}
+			TransitRoute route = factory.createTransitRoute(Id.create(name + "_" + direction, TransitRoute.class), null, routeStops, "pt");
+			for (double time = 5 * 3600; time < 23 * 3600; time += headway) {
+				route.addDeparture(factory.createDeparture(Id.create(name + "_" + direction + "_" + (int) time, Departure.class), time));
+			}
+			line.addRoute(route);
+		}
+		schedule.addTransitLine(line);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TransitRouterBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -20,11 +20,17 @@
 package org.matsim.contrib.accessibility;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -86,77 +92,161 @@ public final class AccessibilityCalculator {
 	public final void computeAccessibilities(Double departureTime, ActivityFacilities opportunities) {
 		AggregationObject[] aggregatedOpportunities = aggregateOpportunities(opportunities, network);
 
-		Map<String,Double> expSums = new HashMap<>();
-		for (String mode : calculators.keySet()) {
-			expSums.put(mode, 0.);
-		}
-
 		// Condense measuring points (origins) that have the same nearest node on the network
 		Map<Id<Node>, ArrayList<ActivityFacility>> aggregatedOrigins = aggregateMeasurePointsWithSameNearestNode();
 
-		LOG.info("Iterating over all aggregated measuring points...");
+		int numberOfThreads = Math.min(acg.getNumberOfThreads(), aggregatedOrigins.size());
+		List<Map<String, AccessibilityContributionCalculator>> calculatorSets = null;
+		if (numberOfThreads > 1) {
+			calculatorSets = duplicateCalculators(numberOfThreads);
+			if (calculatorSets == null) {
+				numberOfThreads = 1;
+			}
+		}
+		LOG.info("Iterating over all aggregated measuring points" + (numberOfThreads > 1 ? " using " + numberOfThreads + " threads..." : "..."));
 		ProgressBar progressBar = new ProgressBar(aggregatedOrigins.size());
-		
-		// Go through all nodes (keys) that have a measuring point (origin) assigned
-		for (Id<Node> nodeId : aggregatedOrigins.keySet()) {
-			progressBar.update();
 
-			Node fromNode = network.getNodes().get(nodeId);
+		if (numberOfThreads > 1) {
+			computeAccessibilitiesInParallel(departureTime, aggregatedOpportunities, aggregatedOrigins, calculatorSets, progressBar);
+		} else {
+			// Go through all nodes (keys) that have a measuring point (origin) assigned
+			for (Map.Entry<Id<Node>, ArrayList<ActivityFacility>> entry : aggregatedOrigins.entrySet()) {
+				progressBar.update();
+				double[][] expSums = computeExpSums(this.calculators, entry.getKey(), entry.getValue(), departureTime, aggregatedOpportunities);
+				setFacilityAccessibilities(entry.getValue(), expSums, departureTime);
+			}
+		}
+		for (FacilityDataExchangeInterface zoneDataExchangeInterface : this.zoneDataExchangeListeners) {
+			zoneDataExchangeInterface.finish();
+		}
+	}
 
-			for (AccessibilityContributionCalculator calculator : calculators.values()) {
-				Gbl.assertNotNull(calculator);
-				calculator.notifyNewOriginNode(fromNode, departureTime);
+	/**
+	 * @return one set of contribution calculators per thread, the first being the original one, or <code>null</code> if
+	 *         one of the calculators does not support {@link AccessibilityContributionCalculator#duplicate()}
+	 */
+	private List<Map<String, AccessibilityContributionCalculator>> duplicateCalculators(int numberOfThreads) {
+		List<Map<String, AccessibilityContributionCalculator>> calculatorSets = new ArrayList<>(numberOfThreads);
+		calculatorSets.add(this.calculators);
+		for (int i = 1; i < numberOfThreads; i++) {
+			Map<String, AccessibilityContributionCalculator> duplicates = new LinkedHashMap<>();
+			for (Map.Entry<String, AccessibilityContributionCalculator> entry : this.calculators.entrySet()) {
+				try {
+					duplicates.put(entry.getKey(), entry.getValue().duplicate());
+				} catch (UnsupportedOperationException e) {
+					LOG.warn("The accessibility contribution calculator for " + entry.getKey() + " cannot be used in parallel ("
+							+ e.getMessage() + "). Computing the accessibilities with one thread instead of " + numberOfThreads + ".");
+					return null;
+				}
 			}
+			calculatorSets.add(duplicates);
+		}
+		return calculatorSets;
+	}
 
-			// Get list with measuring points that are assigned to "fromNode"
-			// Go through all measuring points assigned to current node
-			for (ActivityFacility origin : aggregatedOrigins.get(nodeId)) {
-				assert(origin.getCoord() != null);
+	/**
+	 * Distributes the origin nodes over the threads.  Each thread works with its own set of contribution calculators
+	 * and sums up the contributions on its own.  The listeners are informed by the calling thread, in the same order
+	 * as without threads.
+	 */
+	private void computeAccessibilitiesInParallel(Double departureTime, AggregationObject[] aggregatedOpportunities,
+			Map<Id<Node>, ArrayList<ActivityFacility>> aggregatedOrigins, List<Map<String, AccessibilityContributionCalculator>> calculatorSetList,
+			ProgressBar progressBar) {
+		int numberOfThreads = calculatorSetList.size();
+		BlockingQueue<Map<String, AccessibilityContributionCalculator>> calculatorSets = new ArrayBlockingQueue<>(numberOfThreads, false, calculatorSetList);
 
-				for (String key : expSums.keySet()) { // Is it really necessary to reset here?
-					expSums.put(key, 0.);
-				}
-				
-				// Gbl.assertIf(aggregatedOpportunities.length > 0);
-				// yyyyyy a test fails when this line is made active; cannot say why an execution path where there are now opportunities can make sense for a test.  kai, mar'17
-				
-				// Go through all aggregated facilities (i.e. network nodes to which at least one facility is assigned)
-				for (final AggregationObject aggregatedFacility : aggregatedOpportunities) {
-					// Go through all calculators
-					for (String mode : calculators.keySet()) {
-						final double expVhk = calculators.get(mode).computeContributionOfOpportunity(origin, aggregatedFacility, departureTime);
-						expSums.put(mode, expSums.get(mode) + expVhk);
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<double[][]>> results = new ArrayList<>(aggregatedOrigins.size());
+			for (Map.Entry<Id<Node>, ArrayList<ActivityFacility>> entry : aggregatedOrigins.entrySet()) {
+				results.add(executor.submit(() -> {
+					// there are as many calculator sets as threads, so there is always one available
+					Map<String, AccessibilityContributionCalculator> calculatorSet = calculatorSets.take();
+					try {
+						return computeExpSums(calculatorSet, entry.getKey(), entry.getValue(), departureTime, aggregatedOpportunities);
+					} finally {
+						calculatorSets.add(calculatorSet);
 					}
-				}
-				// What does the aggregation of the starting locations save if we do the just ended loop for all starting
-				// points separately anyways? Answer: The trees need to be computed only once. (But one could save more.) kai, feb'14
-
-				// aggregated value
-				Map<String, Double> accessibilities  = new LinkedHashMap<>();
-
-				for (String mode : calculators.keySet()) {
-					if (acg.getAccessibilityMeasureType() == AccessibilityMeasureType.logSum) {
-						accessibilities.put(mode, (1/this.cnScoringGroup.getBrainExpBeta()) * Math.log(expSums.get(mode)));
-					} else if (acg.getAccessibilityMeasureType() == AccessibilityMeasureType.rawSum) {
-						// this was used by IVT within SustainCity. Not sure if we should maintain this; they could, after all, just exp the log results. kai, may'15
-						// The above comment is from the time when the switch "isUsingRawSumsWithoutLn" was a "special case". I think the question is
-						// now resolved as "rawSum" has become one of the "AccessibilityMeasureType" options aiming to provide a means to use
-						// other potentially useful measure types. dz, july'17
-						accessibilities.put(mode, expSums.get(mode));
-					} else if (acg.getAccessibilityMeasureType() == AccessibilityMeasureType.gravity) {
-						throw new IllegalArgumentException("This accessibility measure is not yet implemented.");
-					} else {
-						throw new IllegalArgumentException("No valid accessibility measure type chosen.");
-					}
-				}
-				
-				for (FacilityDataExchangeInterface zoneDataExchangeInterface : this.zoneDataExchangeListeners) {
-					zoneDataExchangeInterface.setFacilityAccessibilities(origin, departureTime, accessibilities);
+				}));
+			}
+			int i = 0;
+			for (ArrayList<ActivityFacility> origins : aggregatedOrigins.values()) {
+				double[][] expSums = results.get(i).get();
+				results.set(i, null);
+				i++;
+				progressBar.update();
+				setFacilityAccessibilities(origins, expSums, departureTime);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return for each measuring point assigned to the node, the sums of the contributions of all opportunities, in the order of the calculators
+	 */
+	private double[][] computeExpSums(Map<String, AccessibilityContributionCalculator> calculatorSet, Id<Node> nodeId,
+			List<ActivityFacility> origins, Double departureTime, AggregationObject[] aggregatedOpportunities) {
+		Node fromNode = network.getNodes().get(nodeId);
+		AccessibilityContributionCalculator[] calculatorArray = calculatorSet.values().toArray(new AccessibilityContributionCalculator[0]);
+
+		for (AccessibilityContributionCalculator calculator : calculatorArray) {
+			Gbl.assertNotNull(calculator);
+			calculator.notifyNewOriginNode(fromNode, departureTime);
+		}
+
+		// Go through all measuring points assigned to current node
+		double[][] expSums = new double[origins.size()][calculatorArray.length];
+		for (int o = 0; o < expSums.length; o++) {
+			ActivityFacility origin = origins.get(o);
+			assert(origin.getCoord() != null);
+
+			// Gbl.assertIf(aggregatedOpportunities.length > 0);
+			// yyyyyy a test fails when this line is made active; cannot say why an execution path where there are now opportunities can make sense for a test.  kai, mar'17
+
+			// Go through all aggregated facilities (i.e. network nodes to which at least one facility is assigned)
+			for (final AggregationObject aggregatedFacility : aggregatedOpportunities) {
+				// Go through all calculators
+				for (int m = 0; m < calculatorArray.length; m++) {
+					expSums[o][m] += calculatorArray[m].computeContributionOfOpportunity(origin, aggregatedFacility, departureTime);
 				}
 			}
+			// What does the aggregation of the starting locations save if we do the just ended loop for all starting
+			// points separately anyways? Answer: The trees need to be computed only once. (But one could save more.) kai, feb'14
 		}
-		for (FacilityDataExchangeInterface zoneDataExchangeInterface : this.zoneDataExchangeListeners) {
-			zoneDataExchangeInterface.finish();
+		return expSums;
+	}
+
+	private void setFacilityAccessibilities(List<ActivityFacility> origins, double[][] expSums, Double departureTime) {
+		for (int o = 0; o < expSums.length; o++) {
+			// aggregated value
+			Map<String, Double> accessibilities  = new LinkedHashMap<>();
+
+			int m = 0;
+			for (String mode : calculators.keySet()) {
+				if (acg.getAccessibilityMeasureType() == AccessibilityMeasureType.logSum) {
+					accessibilities.put(mode, (1/this.cnScoringGroup.getBrainExpBeta()) * Math.log(expSums[o][m]));
+				} else if (acg.getAccessibilityMeasureType() == AccessibilityMeasureType.rawSum) {
+					// this was used by IVT within SustainCity. Not sure if we should maintain this; they could, after all, just exp the log results. kai, may'15
+					// The above comment is from the time when the switch "isUsingRawSumsWithoutLn" was a "special case". I think the question is
+					// now resolved as "rawSum" has become one of the "AccessibilityMeasureType" options aiming to provide a means to use
+					// other potentially useful measure types. dz, july'17
+					accessibilities.put(mode, expSums[o][m]);
+				} else if (acg.getAccessibilityMeasureType() == AccessibilityMeasureType.gravity) {
+					throw new IllegalArgumentException("This accessibility measure is not yet implemented.");
+				} else {
+					throw new IllegalArgumentException("No valid accessibility measure type chosen.");
+				}
+				m++;
+			}
+
+			for (FacilityDataExchangeInterface zoneDataExchangeInterface : this.zoneDataExchangeListeners) {
+				zoneDataExchangeInterface.setFacilityAccessibilities(origins.get(o), departureTime, accessibilities);
+			}
 		}
 	}
 	
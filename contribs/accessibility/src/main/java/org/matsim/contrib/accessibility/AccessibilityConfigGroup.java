@@ -58,6 +58,8 @@ public final class AccessibilityConfigGroup extends ReflectiveConfigGroup{
 	private boolean useOpportunityWeights = false;
 	private static final String WEIGHT_EXPONENT = "weightExponent";
 	private Double weightExponent = 1.;
+	private static final String NUMBER_OF_THREADS = "numberOfThreads";
+	private int numberOfThreads = 1;
 	
 //	private static final String ACCESSIBILITY_DESTINATION_SAMPLING_RATE = "accessibilityDestinationSamplingRate";
 //	private Double accessibilityDestinationSamplingRate;
@@ -127,6 +129,8 @@ public final class AccessibilityConfigGroup extends ReflectiveConfigGroup{
 //				"(reduces accuracy -- not recommended except when necessary for computational speed reasons)");
 		
 		map.put(ACCESSIBILITY_MEASURE_TYPE, "defines type of measure for accessibility computation.");
+		map.put(NUMBER_OF_THREADS, "number of threads over which the measuring points are distributed. If the contribution calculator of "
+				+ "a mode does not support AccessibilityContributionCalculator.duplicate(), one thread is used. Default: 1");
 		
 		map.put(USING_CUSTOM_BOUNDING_BOX, "true if custom bounding box should be used for accessibility computation (otherwise e.g. extent of network will be used)");
 		map.put(BOUNDING_BOX_BOTTOM,"custom bounding box parameters for accessibility computation (if enabled)");
@@ -229,6 +233,14 @@ public final class AccessibilityConfigGroup extends ReflectiveConfigGroup{
     public void setWeightExponent(double weightExponent) {
     	this.weightExponent = weightExponent;
     }
+    @StringGetter(NUMBER_OF_THREADS)
+    public int getNumberOfThreads() {
+    	return numberOfThreads;
+    }
+    @StringSetter(NUMBER_OF_THREADS)
+    public void setNumberOfThreads(int numberOfThreads) {
+    	this.numberOfThreads = numberOfThreads;
+    }
     @StringGetter(BOUNDING_BOX_TOP)
     public double getBoundingBoxTop() {
         return this.boundingBoxTop;
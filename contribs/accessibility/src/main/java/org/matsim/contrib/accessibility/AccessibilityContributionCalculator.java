@@ -42,4 +42,15 @@ public interface AccessibilityContributionCalculator {
 	double computeContributionOfOpportunity(ActivityFacility origin, AggregationObject destination, Double departureTime);
 	// yyyy I am somewhat sceptic if we tryly need both "fromNode" (above) and origin.
 	// yyyy And I am quite confident that we do not need the departure time twice.
+
+	/**
+	 * Creates a calculator with the same parameters, but with its own state (e.g. least-cost path tree), so that
+	 * the accessibilities of several origin nodes can be computed in parallel, each thread with its own calculator.
+	 *
+	 * @throws UnsupportedOperationException if the calculator cannot be used in parallel; the
+	 *         {@link AccessibilityCalculator} then computes the accessibilities with one thread
+	 */
+	default AccessibilityContributionCalculator duplicate() {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support parallel accessibility computation.");
+	}
 }
\ No newline at end of file
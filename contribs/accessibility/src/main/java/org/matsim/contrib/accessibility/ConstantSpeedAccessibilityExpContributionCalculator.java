@@ -85,6 +85,24 @@ public final class ConstantSpeedAccessibilityExpContributionCalculator implement
 		this.walkSpeed_m_h = config.plansCalcRoute().getTeleportedModeSpeeds().get(TransportMode.walk) * 3600;
 	}
 
+
+	private ConstantSpeedAccessibilityExpContributionCalculator(ConstantSpeedAccessibilityExpContributionCalculator other) {
+		this.network = other.network;
+		this.logitScaleParameter = other.logitScaleParameter;
+		this.betaModeTT = other.betaModeTT;
+		this.betaModeTD = other.betaModeTD;
+		this.constMode = other.constMode;
+		this.modeSpeed_m_h = other.modeSpeed_m_h;
+		this.betaWalkTT = other.betaWalkTT;
+		this.betaWalkTD = other.betaWalkTD;
+		this.walkSpeed_m_h = other.walkSpeed_m_h;
+	}
+
+	@Override
+	public AccessibilityContributionCalculator duplicate() {
+		return new ConstantSpeedAccessibilityExpContributionCalculator(this);
+	}
+
 	
 	@Override
 	public void notifyNewOriginNode(Node fromNode, Double departureTime) {
@@ -1,5 +1,7 @@
 package org.matsim.contrib.accessibility;
 
+import javax.inject.Provider;
+
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.accessibility.utils.AggregationObject;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
@@ -12,13 +14,37 @@ import org.matsim.facilities.ActivityFacility;
  */
 public final class LeastCostPathCalculatorAccessibilityContributionCalculator implements AccessibilityContributionCalculator {
 	private final LeastCostPathCalculator leastCostPathCalculator;
+	private final Provider<LeastCostPathCalculator> leastCostPathCalculatorProvider;
 	private final PlanCalcScoreConfigGroup planCalcScoreConfigGroup;
 	private Node fromNode;
 	private Double departureTime;
 
+	/**
+	 * Calculators created with this constructor cannot be {@link #duplicate() duplicated}, as the least-cost path
+	 * calculator may not be thread-safe.
+	 */
 	public LeastCostPathCalculatorAccessibilityContributionCalculator(PlanCalcScoreConfigGroup planCalcScoreConfigGroup, LeastCostPathCalculator leastCostPathCalculator) {
 		this.planCalcScoreConfigGroup = planCalcScoreConfigGroup;
 		this.leastCostPathCalculator = leastCostPathCalculator;
+		this.leastCostPathCalculatorProvider = null;
+	}
+
+	/**
+	 * @param leastCostPathCalculatorProvider creates a new least-cost path calculator for this calculator and each of
+	 *        its {@link #duplicate() duplicates}
+	 */
+	public LeastCostPathCalculatorAccessibilityContributionCalculator(PlanCalcScoreConfigGroup planCalcScoreConfigGroup, Provider<LeastCostPathCalculator> leastCostPathCalculatorProvider) {
+		this.planCalcScoreConfigGroup = planCalcScoreConfigGroup;
+		this.leastCostPathCalculator = leastCostPathCalculatorProvider.get();
+		this.leastCostPathCalculatorProvider = leastCostPathCalculatorProvider;
+	}
+
+	@Override
+	public AccessibilityContributionCalculator duplicate() {
+		if (this.leastCostPathCalculatorProvider == null) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " needs to be created with a Provider<LeastCostPathCalculator> to support parallel accessibility computation.");
+		}
+		return new LeastCostPathCalculatorAccessibilityContributionCalculator(this.planCalcScoreConfigGroup, this.leastCostPathCalculatorProvider);
 	}
 
 	@Override
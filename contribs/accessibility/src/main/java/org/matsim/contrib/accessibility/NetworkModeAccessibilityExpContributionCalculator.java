@@ -42,6 +42,7 @@ import org.matsim.roadpricing.RoadPricingSchemeImpl;
 
 	private final Network network;
 	private final TravelTime travelTime;
+	private final TravelDisutilityFactory travelDisutilityFactory;
 
 	private final double betaWalkTT;
 	private final double betaWalkTD;
@@ -58,6 +59,7 @@ import org.matsim.roadpricing.RoadPricingSchemeImpl;
 		final PlanCalcScoreConfigGroup planCalcScoreConfigGroup = scenario.getConfig().planCalcScore();
 		this.scheme = (RoadPricingScheme) scenario.getScenarioElement( RoadPricingScheme.ELEMENT_NAME );
 		this.travelTime = travelTime;		
+		this.travelDisutilityFactory = travelDisutilityFactory;
 
 		Gbl.assertNotNull(travelDisutilityFactory);
 		TravelDisutility travelDisutility = travelDisutilityFactory.createTravelDisutility(travelTime);
@@ -83,6 +85,28 @@ import org.matsim.roadpricing.RoadPricingSchemeImpl;
 	}
 
 
+	private NetworkModeAccessibilityExpContributionCalculator(NetworkModeAccessibilityExpContributionCalculator other) {
+		this.network = other.network;
+		this.scheme = other.scheme;
+		this.travelTime = other.travelTime;
+		this.travelDisutilityFactory = other.travelDisutilityFactory;
+		this.lcpt = new LeastCostPathTreeExtended(travelTime, travelDisutilityFactory.createTravelDisutility(travelTime), scheme);
+		this.logitScaleParameter = other.logitScaleParameter;
+		this.betaCarTT = other.betaCarTT;
+		this.betaCarTD = other.betaCarTD;
+		this.betaCarTMC = other.betaCarTMC;
+		this.constCar = other.constCar;
+		this.betaWalkTT = other.betaWalkTT;
+		this.betaWalkTD = other.betaWalkTD;
+		this.walkSpeed_m_s = other.walkSpeed_m_s;
+	}
+
+	@Override
+	public AccessibilityContributionCalculator duplicate() {
+		return new NetworkModeAccessibilityExpContributionCalculator(this);
+	}
+
+
 	@Override
 	public void notifyNewOriginNode(Node fromNode, Double departureTime) {
 		this.fromNode = fromNode;
@@ -15,7 +15,7 @@ public final class PtMatrixAccessibilityUtils {
 			final Config config) {
 		return new LeastCostPathCalculatorAccessibilityContributionCalculator(
 				config.planCalcScore(),
-				ptMatrix.asPathCalculator(config.planCalcScore()));
+				() -> ptMatrix.asPathCalculator(config.planCalcScore()));
 	}
 
 }
@@ -20,6 +20,8 @@ package org.matsim.contrib.accessibility;
 
 import java.util.List;
 
+import javax.inject.Provider;
+
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
@@ -39,15 +41,35 @@ import org.matsim.facilities.ActivityFacility;
 public class TripRouterAccessibilityContributionCalculator implements AccessibilityContributionCalculator {
 	
 	private TripRouter tripRouter ;
+	private Provider<TripRouter> tripRouterProvider;
 	private String mode;
 	private PlanCalcScoreConfigGroup planCalcScoreConfigGroup;
 	
+	/**
+	 * Calculators created with this constructor cannot be {@link #duplicate() duplicated}, as the trip router is not thread-safe.
+	 */
 	public TripRouterAccessibilityContributionCalculator( String mode, TripRouter tripRouter, PlanCalcScoreConfigGroup planCalcScoreConfigGroup) {
 		this.mode = mode ;
 		this.tripRouter = tripRouter;
 		this.planCalcScoreConfigGroup = planCalcScoreConfigGroup;
 	}
 
+	/**
+	 * @param tripRouterProvider creates a new trip router for this calculator and each of its {@link #duplicate() duplicates}
+	 */
+	public TripRouterAccessibilityContributionCalculator( String mode, Provider<TripRouter> tripRouterProvider, PlanCalcScoreConfigGroup planCalcScoreConfigGroup) {
+		this(mode, tripRouterProvider.get(), planCalcScoreConfigGroup);
+		this.tripRouterProvider = tripRouterProvider;
+	}
+
+	@Override
+	public AccessibilityContributionCalculator duplicate() {
+		if (this.tripRouterProvider == null) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " needs to be created with a Provider<TripRouter> to support parallel accessibility computation.");
+		}
+		return new TripRouterAccessibilityContributionCalculator(this.mode, this.tripRouterProvider, this.planCalcScoreConfigGroup);
+	}
+
 	@Override
 	public void notifyNewOriginNode(Node fromNode, Double departureTime) {
 		// at this point, do nothing (inefficient)
@@ -0,0 +1,127 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AccessibilityCalculatorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.accessibility;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.accessibility.gis.GridUtils;
+import org.matsim.contrib.accessibility.interfaces.FacilityDataExchangeInterface;
+import org.matsim.contrib.accessibility.run.TinyAccessibilityTest;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.TeleportationRoutingModule;
+import org.matsim.core.router.TripRouter;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.scenario.MutableScenario;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacilitiesImpl;
+import org.matsim.facilities.ActivityFacility;
+
+public class AccessibilityCalculatorTest {
+
+	private final AtomicInteger createdPathCalculators = new AtomicInteger();
+
+	@Test
+	public void testComputeAccessibilities_sameResultsWithSeveralThreads() {
+		Map<Id<ActivityFacility>, Map<String, Double>> expected = computeAccessibilities(1, true);
+		Assert.assertEquals(1, this.createdPathCalculators.getAndSet(0));
+
+		Map<Id<ActivityFacility>, Map<String, Double>> actual = computeAccessibilities(4, true);
+		Assert.assertEquals("every thread should have its own least-cost path calculator", 4, this.createdPathCalculators.get());
+
+		Assert.assertFalse(expected.isEmpty());
+		Assert.assertEquals(4, expected.values().iterator().next().size());
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testComputeAccessibilities_oneThreadIfCalculatorCannotBeDuplicated() {
+		Map<Id<ActivityFacility>, Map<String, Double>> expected = computeAccessibilities(1, true);
+		Map<Id<ActivityFacility>, Map<String, Double>> actual = computeAccessibilities(4, false);
+		Assert.assertEquals(expected, actual);
+	}
+
+	/**
+	 * @param duplicable whether the least-cost path based calculator is created with a provider, and so supports duplicate()
+	 * @return the accessibilities per mode of each measuring point, in the order in which they were reported
+	 */
+	private Map<Id<ActivityFacility>, Map<String, Double>> computeAccessibilities(int numberOfThreads, boolean duplicable) {
+		Config config = ConfigUtils.createConfig();
+		AccessibilityConfigGroup acg = ConfigUtils.addOrGetModule(config, AccessibilityConfigGroup.class);
+		acg.setNumberOfThreads(numberOfThreads);
+
+		MutableScenario scenario = (MutableScenario) ScenarioUtils.createScenario(config);
+		Network network = TinyAccessibilityTest.createLessSymmetricTestNetwork();
+		scenario.setNetwork(network);
+
+		ActivityFacilities opportunities = new ActivityFacilitiesImpl("opportunities");
+		opportunities.addActivityFacility(opportunities.getFactory().createActivityFacility(Id.create("1", ActivityFacility.class), new Coord(200, 0)));
+		opportunities.addActivityFacility(opportunities.getFactory().createActivityFacility(Id.create("2", ActivityFacility.class), new Coord(200, 200)));
+		opportunities.addActivityFacility(opportunities.getFactory().createActivityFacility(Id.create("3", ActivityFacility.class), new Coord(60, 110)));
+		ActivityFacilities measuringPoints = GridUtils.createGridLayerByGridSizeByBoundingBoxV2(0, 0, 200, 200, 25);
+
+		TravelTime travelTime = new FreeSpeedTravelTime();
+		OnlyTimeDependentTravelDisutilityFactory travelDisutilityFactory = new OnlyTimeDependentTravelDisutilityFactory();
+
+		AccessibilityCalculator calculator = new AccessibilityCalculator(scenario, measuringPoints, network);
+		calculator.putAccessibilityContributionCalculator(TransportMode.walk, new ConstantSpeedAccessibilityExpContributionCalculator(TransportMode.walk, config, network));
+		calculator.putAccessibilityContributionCalculator("freespeed", new NetworkModeAccessibilityExpContributionCalculator(travelTime, travelDisutilityFactory, scenario, network));
+		if (duplicable) {
+			calculator.putAccessibilityContributionCalculator("leastCostPath", new LeastCostPathCalculatorAccessibilityContributionCalculator(config.planCalcScore(), () -> {
+				this.createdPathCalculators.incrementAndGet();
+				return new DijkstraFactory().createPathCalculator(network, travelDisutilityFactory.createTravelDisutility(travelTime), travelTime);
+			}));
+		} else {
+			LeastCostPathCalculator pathCalculator = new DijkstraFactory().createPathCalculator(network, travelDisutilityFactory.createTravelDisutility(travelTime), travelTime);
+			calculator.putAccessibilityContributionCalculator("leastCostPath", new LeastCostPathCalculatorAccessibilityContributionCalculator(config.planCalcScore(), pathCalculator));
+		}
+		calculator.putAccessibilityContributionCalculator(TransportMode.bike, new TripRouterAccessibilityContributionCalculator(TransportMode.bike, () -> new TripRouter.Builder(config)
+				.setRoutingModule(TransportMode.bike, new TeleportationRoutingModule(TransportMode.bike, scenario, 4.0, 1.3))
+				.build(), config.planCalcScore()));
+
+		Map<Id<ActivityFacility>, Map<String, Double>> accessibilities = new LinkedHashMap<>();
+		calculator.addFacilityDataExchangeListener(new FacilityDataExchangeInterface() {
+			@Override
+			public void setFacilityAccessibilities(ActivityFacility measurePoint, Double timeOfDay, Map<String, Double> values) {
+				Assert.assertNull(accessibilities.put(measurePoint.getId(), new LinkedHashMap<>(values)));
+			}
+
+			@Override
+			public void finish() {
+			}
+		});
+		calculator.computeAccessibilities(8 * 3600., opportunities);
+		return accessibilities;
+	}
+}
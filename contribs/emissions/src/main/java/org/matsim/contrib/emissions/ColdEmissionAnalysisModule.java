@@ -36,6 +36,8 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleType;
+import org.matsim.vehicles.Vehicles;
 
 
 /**
@@ -79,9 +81,14 @@ final class ColdEmissionAnalysisModule {
 	private int vehAttributesNotSpecifiedCnt = 0;
 	private static final int maxWarnCnt = 3;
 	private int vehInfoWarnMotorCylceCnt = 0;
-	private final Set<String> coldPollutants;
+	private final String[] coldPollutants;
   private int noVehWarnCnt = 0;
 
+	// the lookup tables resolved once per vehicle description, see getColdEmissionFactors
+	private final Map<String, ColdEmissionFactors> coldEmissionFactors = new HashMap<>();
+	// the above by Id.index() of the vehicle types known at construction; null if not known
+	private ColdEmissionFactors[] coldEmissionFactorsOfVehicleType = new ColdEmissionFactors[0];
+
 	public static class ColdEmissionAnalysisModuleParameter {
 		public final Map<HbefaColdEmissionFactorKey, HbefaColdEmissionFactor> avgHbefaColdTable;
 		public final Map<HbefaColdEmissionFactorKey, HbefaColdEmissionFactor> detailedHbefaColdTable;
@@ -104,12 +111,38 @@ final class ColdEmissionAnalysisModule {
 
 		this.avgHbefaColdTable = parameterObject.avgHbefaColdTable;
 		this.detailedHbefaColdTable = parameterObject.detailedHbefaColdTable;
-		this.coldPollutants = parameterObject.coldPollutants;
+		this.coldPollutants = parameterObject.coldPollutants.toArray(new String[0]);
 		this.ecg = parameterObject.ecg;
 		this.eventsManager = emissionEventsManager;
 		this.emissionEfficiencyFactor = emissionEfficiencyFactor;
 	}
 
+	/**
+	 * Also resolves the emission factors of the vehicle types once, so they are not looked up by their vehicle description per event.
+	 * Vehicle types without a valid vehicle description at this time are still resolved per event, as before.
+	 */
+	ColdEmissionAnalysisModule(
+			ColdEmissionAnalysisModuleParameter parameterObject,
+			EventsManager emissionEventsManager, Double emissionEfficiencyFactor, Vehicles vehicles) {
+		this(parameterObject, emissionEventsManager, emissionEfficiencyFactor);
+
+		int maxIndex = -1;
+		for (VehicleType vehicleType : vehicles.getVehicleTypes().values()) {
+			maxIndex = Math.max(maxIndex, vehicleType.getId().index());
+		}
+		this.coldEmissionFactorsOfVehicleType = new ColdEmissionFactors[maxIndex + 1];
+		for (VehicleType vehicleType : vehicles.getVehicleTypes().values()) {
+			if(this.ecg.isUsingVehicleTypeIdAsVehicleDescription() ) {
+				EmissionUtils.setHbefaVehicleDescriptionFromVehicleTypeId(vehicleType);
+			}
+			String vehicleDescription = vehicleType.getDescription();
+			if (EmissionUtils.containsEmissionSpecification(vehicleDescription)
+					&& EmissionUtils.convertVehicleDescription2VehicleInformationTuple(vehicleDescription).getFirst() != null) {
+				this.coldEmissionFactorsOfVehicleType[vehicleType.getId().index()] = getColdEmissionFactors(null, vehicleDescription);
+			}
+		}
+	}
+
 	public void reset() {
 		logger.info("resetting counters...");
 		vehInfoWarnHDVCnt = 0;
@@ -143,63 +176,23 @@ final class ColdEmissionAnalysisModule {
 							
 		} else {
 			
-			if(this.ecg.isUsingVehicleTypeIdAsVehicleDescription() ) {
-				if(vehicle.getType().getDescription()==null) { // emission specification is in vehicle type id
-					vehicle.getType().setDescription(EmissionSpecificationMarker.BEGIN_EMISSIONS
-							+vehicle.getType().getId().toString()+ EmissionSpecificationMarker.END_EMISSIONS);
-				} else if( vehicle.getType().getDescription().contains(EmissionSpecificationMarker.BEGIN_EMISSIONS.toString()) ) {
-					// emission specification is in vehicle type id and in vehicle description too.
-				} else {
-					String vehicleDescription = vehicle.getType().getDescription() + EmissionSpecificationMarker.BEGIN_EMISSIONS
-							+ vehicle.getType().getId().toString()+ EmissionSpecificationMarker.END_EMISSIONS;
-					vehicle.getType().setDescription(vehicleDescription);
-				}
-			}
-
-			String vehicleDescription = vehicle.getType().getDescription();
-
-		if(vehicle.getType().getDescription() == null){
-			throw new RuntimeException("Vehicle type description for vehicle " + vehicle + "is missing. " +
-					"Please make sure that requirements for emission vehicles in "
-					+ EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
-		}
-		Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple = EmissionUtils.convertVehicleDescription2VehicleInformationTuple(vehicleDescription);
-		if (vehicleInformationTuple.getFirst() == null){
-			throw new RuntimeException("Vehicle category for vehicle " + vehicle + " is not valid. " +
-					"Please make sure that requirements for emission vehicles in " + 
-					EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
-		}
+		ColdEmissionFactors factors = getColdEmissionFactors(vehicle);
 		
-		Map<String, Double> coldEmissions = getColdPollutantDoubleMap( vehicle.getId(), parkingDuration, vehicleInformationTuple, distance_km );
+		Map<String, Double> coldEmissions = getColdPollutantDoubleMap( vehicle.getId(), parkingDuration, factors, distance_km );
 
 			// a basic apporach to introduce emission reduced cars:
 			if(emissionEfficiencyFactor != null){
-				coldEmissions = rescaleColdEmissions(coldEmissions);
+				coldEmissions.replaceAll((pollutant, emissions) -> emissionEfficiencyFactor * emissions);
 			}
 			Event coldEmissionEvent = new ColdEmissionEvent(eventTime, coldEmissionEventLinkId, vehicle.getId(), coldEmissions);
 			this.eventsManager.processEvent(coldEmissionEvent);
 		}
 	}
 
-	private Map<String, Double> rescaleColdEmissions(Map<String, Double> coldEmissions) {
-		Map<String, Double> rescaledColdEmissions = new HashMap<>();
-		
-		for(String wp : coldEmissions.keySet()){
-			Double orgValue = coldEmissions.get(wp);
-			Double rescaledValue = emissionEfficiencyFactor * orgValue;
-			rescaledColdEmissions.put(wp, rescaledValue);
-		}
-		return rescaledColdEmissions;
-	}
-
-    private Map<String, Double> getColdPollutantDoubleMap(Id<Vehicle> vehicleId, double parkingDuration, Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple, int distance_km) {
+    private Map<String, Double> getColdPollutantDoubleMap(Id<Vehicle> vehicleId, double parkingDuration, ColdEmissionFactors factors, int distance_km) {
         final Map<String, Double> coldEmissionsOfEvent = new HashMap<>();
 
-        HbefaColdEmissionFactorKey key = new HbefaColdEmissionFactorKey();
-
-        if(vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE)){
-            key.setHbefaVehicleCategory(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE);
-            key.setHbefaVehicleCategory(HbefaVehicleCategory.PASSENGER_CAR);
+        if(factors.vehicleCategory.equals(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE)){
             if(vehInfoWarnHDVCnt < maxWarnCnt) {
                 vehInfoWarnHDVCnt++;
                 logger.warn("HBEFA 3.1 does not provide cold start emission factors for " +
@@ -207,12 +200,12 @@ final class ColdEmissionAnalysisModule {
                         ". Setting vehicle category to " + HbefaVehicleCategory.PASSENGER_CAR + "...");
                 if(vehInfoWarnHDVCnt == maxWarnCnt) logger.warn(Gbl.FUTURE_SUPPRESSED);
             }
-        } else if(vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.ZERO_EMISSION_VEHICLE)) {
+        } else if(factors.vehicleCategory.equals(HbefaVehicleCategory.ZERO_EMISSION_VEHICLE)) {
 			for (String cp : coldPollutants){
 				coldEmissionsOfEvent.put( cp, 0.0 );
 			}
 			return coldEmissionsOfEvent;
-		} else if (vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.MOTORCYCLE)) {
+		} else if (factors.vehicleCategory.equals(HbefaVehicleCategory.MOTORCYCLE)) {
 			if(vehInfoWarnMotorCylceCnt == 0) {
 				vehInfoWarnMotorCylceCnt++;
 				logger.warn("HBEFA 3.1 does not provide cold start emission factors for " +
@@ -224,58 +217,130 @@ final class ColdEmissionAnalysisModule {
 				coldEmissionsOfEvent.put( cp, 0.0 );
 			}
 			return coldEmissionsOfEvent;
-		} else {
-            key.setHbefaVehicleCategory(HbefaVehicleCategory.PASSENGER_CAR);
-        }
+		}
 
         int parkingDuration_h = Math.max(1, (int) (parkingDuration / 3600));
         if (parkingDuration_h >= 12) parkingDuration_h = 13;
 
-        key.setHbefaParkingTime(parkingDuration_h);
-
-        for (String coldPollutant : coldPollutants) {
+        for (int i = 0; i < coldPollutants.length; i++) {
             double generatedEmissions;
             if (distance_km == 1) {
-               generatedEmissions = getTableEmissions(vehicleId, vehicleInformationTuple, 1, key, coldPollutant);
+               generatedEmissions = getTableEmissions(vehicleId, factors, parkingDuration_h, 1, i);
             } else {
-               generatedEmissions = getTableEmissions(vehicleId, vehicleInformationTuple, 2, key, coldPollutant) - getTableEmissions(vehicleId, vehicleInformationTuple, 1, key, coldPollutant);
+               generatedEmissions = getTableEmissions(vehicleId, factors, parkingDuration_h, 2, i) - getTableEmissions(vehicleId, factors, parkingDuration_h, 1, i);
             }
-            coldEmissionsOfEvent.put(coldPollutant, generatedEmissions);
+            coldEmissionsOfEvent.put(coldPollutants[i], generatedEmissions);
         }
         return coldEmissionsOfEvent;
     }
 
-    private double getTableEmissions(Id<Vehicle> vehicleId, Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple, int distance_km, HbefaColdEmissionFactorKey key, String coldPollutant) {
-        key.setHbefaDistance(distance_km);
-        HbefaColdEmissionFactor generatedEmissions = null;
-
-        key.setHbefaComponent(coldPollutant);
-		key.setHbefaVehicleAttributes(vehicleInformationTuple.getSecond());
-
-        if(this.detailedHbefaColdTable != null && key.getHbefaVehicleAttributes().isDetailed()) { // check if detailed emission factors file is set in config
-//		  HbefaVehicleAttributes hbefaVehicleAttributes = createHbefaVehicleAttributes( vehicleInformationTuple.getSecond() );
-			generatedEmissions = this.detailedHbefaColdTable.get(key);
-		}
-		if(generatedEmissions == null){
+    private double getTableEmissions(Id<Vehicle> vehicleId, ColdEmissionFactors factors, int parkingDuration_h, int distance_km, int pollutantIndex) {
+		int index = ColdEmissionFactors.getIndex(parkingDuration_h, distance_km, pollutantIndex, coldPollutants.length);
+		if(factors.sources[index] != ColdEmissionFactors.DETAILED){
 			if(vehAttributesNotSpecifiedCnt < maxWarnCnt) {
 				vehAttributesNotSpecifiedCnt++;
-				logger.warn("No detailed entry (for vehicle `" + vehicleId + "') corresponds to `" + vehicleInformationTuple.getSecond() + "'. Falling back on fleet average values.");
+				logger.warn("No detailed entry (for vehicle `" + vehicleId + "') corresponds to `" + factors.vehicleAttributes + "'. Falling back on fleet average values.");
 				if(vehAttributesNotSpecifiedCnt == maxWarnCnt) logger.warn(Gbl.FUTURE_SUPPRESSED);
 			}
+			if(factors.sources[index] == ColdEmissionFactors.MISSING){
+				throw new RuntimeException("No cold emission factor found for " + coldPollutants[pollutantIndex] + ", vehicle attributes `"
+						+ factors.vehicleAttributes + "', parking time " + parkingDuration_h + " h and distance " + distance_km + " km. Aborting...");
+			}
+		}
+		return factors.factors[index];
+	}
 
-			//try just with engine technoogy
-			HbefaVehicleAttributes hbva = new HbefaVehicleAttributes();
-			hbva.setHbefaTechnology(key.getHbefaVehicleAttributes().getHbefaTechnology());
-			key.setHbefaVehicleAttributes(hbva);
-			generatedEmissions = this.avgHbefaColdTable.get(key);
+	private ColdEmissionFactors getColdEmissionFactors(Vehicle vehicle) {
+		int typeIndex = vehicle.getType().getId().index();
+		if (typeIndex < this.coldEmissionFactorsOfVehicleType.length && this.coldEmissionFactorsOfVehicleType[typeIndex] != null) {
+			return this.coldEmissionFactorsOfVehicleType[typeIndex];
+		}
 
-        }
-		if (generatedEmissions == null) {
-			//revert way back to fleet averages, not just fuel type
-			key.setHbefaVehicleAttributes(new HbefaVehicleAttributes());
-			generatedEmissions = this.avgHbefaColdTable.get(key);
+		if(this.ecg.isUsingVehicleTypeIdAsVehicleDescription() ) {
+			EmissionUtils.setHbefaVehicleDescriptionFromVehicleTypeId(vehicle.getType());
 		}
-        return generatedEmissions.getColdEmissionFactor();
+
+		String vehicleDescription = vehicle.getType().getDescription();
+
+		if(vehicle.getType().getDescription() == null){
+			throw new RuntimeException("Vehicle type description for vehicle " + vehicle + "is missing. " +
+					"Please make sure that requirements for emission vehicles in "
+					+ EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
+		}
+		return getColdEmissionFactors(vehicle, vehicleDescription);
+	}
+
+	/**
+	 * @return the emission factors for the given vehicle description, which are looked up in the HBEFA tables when they are
+	 * needed for the first time
+	 */
+	private ColdEmissionFactors getColdEmissionFactors(Vehicle vehicle, String vehicleDescription) {
+		ColdEmissionFactors factors = this.coldEmissionFactors.get(vehicleDescription);
+		if (factors == null) {
+			Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple = EmissionUtils.convertVehicleDescription2VehicleInformationTuple(vehicleDescription);
+			if (vehicleInformationTuple.getFirst() == null){
+				throw new RuntimeException("Vehicle category for vehicle " + vehicle + " is not valid. " +
+						"Please make sure that requirements for emission vehicles in " + 
+						EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
+			}
+			factors = compileColdEmissionFactors(vehicleInformationTuple);
+			this.coldEmissionFactors.put(vehicleDescription, factors);
+		}
+		return factors;
+	}
+
+	private ColdEmissionFactors compileColdEmissionFactors(Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple) {
+		HbefaVehicleCategory vehicleCategory = vehicleInformationTuple.getFirst();
+		if (vehicleCategory.equals(HbefaVehicleCategory.ZERO_EMISSION_VEHICLE) || vehicleCategory.equals(HbefaVehicleCategory.MOTORCYCLE)) {
+			// no factors needed, see getColdPollutantDoubleMap
+			return new ColdEmissionFactors(vehicleCategory, vehicleInformationTuple.getSecond(), null, null);
+		}
+
+		// there are no cold start emission factors for heavy goods vehicles, see getColdPollutantDoubleMap
+		HbefaColdEmissionFactorKey key = new HbefaColdEmissionFactorKey();
+		key.setHbefaVehicleCategory(HbefaVehicleCategory.PASSENGER_CAR);
+
+		double[] factors = new double[ColdEmissionFactors.getIndex(ColdEmissionFactors.PARKING_TIMES + 1, 1, 0, coldPollutants.length)];
+		byte[] sources = new byte[factors.length];
+		for (int parkingDuration_h = 1; parkingDuration_h <= ColdEmissionFactors.PARKING_TIMES; parkingDuration_h++) {
+			key.setHbefaParkingTime(parkingDuration_h);
+			for (int distance_km = 1; distance_km <= ColdEmissionFactors.DISTANCES; distance_km++) {
+				key.setHbefaDistance(distance_km);
+				for (int i = 0; i < coldPollutants.length; i++) {
+					key.setHbefaComponent(coldPollutants[i]);
+					key.setHbefaVehicleAttributes(vehicleInformationTuple.getSecond());
+
+					HbefaColdEmissionFactor generatedEmissions = null;
+					if(this.detailedHbefaColdTable != null && key.getHbefaVehicleAttributes().isDetailed()) { // check if detailed emission factors file is set in config
+						generatedEmissions = this.detailedHbefaColdTable.get(key);
+					}
+					byte source = ColdEmissionFactors.DETAILED;
+					if(generatedEmissions == null){
+						source = ColdEmissionFactors.AVERAGE;
+						//try just with engine technoogy
+						HbefaVehicleAttributes hbva = new HbefaVehicleAttributes();
+						hbva.setHbefaTechnology(key.getHbefaVehicleAttributes().getHbefaTechnology());
+						key.setHbefaVehicleAttributes(hbva);
+						generatedEmissions = this.avgHbefaColdTable.get(key);
+					}
+					if (generatedEmissions == null) {
+						//revert way back to fleet averages, not just fuel type
+						key.setHbefaVehicleAttributes(new HbefaVehicleAttributes());
+						generatedEmissions = this.avgHbefaColdTable.get(key);
+					}
+
+					int index = ColdEmissionFactors.getIndex(parkingDuration_h, distance_km, i, coldPollutants.length);
+					if (generatedEmissions == null) {
+						sources[index] = ColdEmissionFactors.MISSING;
+						factors[index] = Double.NaN;
+					} else {
+						sources[index] = source;
+						factors[index] = generatedEmissions.getColdEmissionFactor();
+					}
+				}
+			}
+		}
+		return new ColdEmissionFactors(vehicleCategory, vehicleInformationTuple.getSecond(), factors, sources);
 	    
 	    // yy when thinking about the above, it is actually not so clear what that "fallback" actually means ... since
 	    // the exact key now just needs to be in the avg table.  So it is not really a fallback, but rather just
@@ -292,5 +357,35 @@ final class ColdEmissionAnalysisModule {
 		vehAtt.setHbefaEmConcept( hbefaEmConcept );
 		return vehAtt;
 	}
+
+	/**
+	 * The cold emission factors of one vehicle description, so that the lookup tables need not be queried for each cold start.
+	 */
+	private static final class ColdEmissionFactors {
+		private static final byte DETAILED = 0;
+		private static final byte AVERAGE = 1;
+		private static final byte MISSING = 2;
+
+		private static final int PARKING_TIMES = 13;
+		private static final int DISTANCES = 2;
+
+		private final HbefaVehicleCategory vehicleCategory;
+		private final HbefaVehicleAttributes vehicleAttributes;
+		/** in g by parking time, distance and pollutant */
+		private final double[] factors;
+		/** the table the factors are from */
+		private final byte[] sources;
+
+		ColdEmissionFactors(HbefaVehicleCategory vehicleCategory, HbefaVehicleAttributes vehicleAttributes, double[] factors, byte[] sources) {
+			this.vehicleCategory = vehicleCategory;
+			this.vehicleAttributes = vehicleAttributes;
+			this.factors = factors;
+			this.sources = sources;
+		}
+
+		static int getIndex(int parkingDuration_h, int distance_km, int pollutantIndex, int numberOfPollutants) {
+			return ((parkingDuration_h - 1) * DISTANCES + distance_km - 1) * numberOfPollutants + pollutantIndex;
+		}
+	}
 	
 }
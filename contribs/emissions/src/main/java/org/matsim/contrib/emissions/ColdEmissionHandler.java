@@ -68,7 +68,7 @@ final class ColdEmissionHandler implements LinkLeaveEventHandler, VehicleLeavesT
 
         this.vehicles = vehicles;
         this.network = network;
-        this.coldEmissionAnalysisModule = new ColdEmissionAnalysisModule(parameterObject2, emissionEventsManager, emissionEfficiencyFactor);
+        this.coldEmissionAnalysisModule = new ColdEmissionAnalysisModule(parameterObject2, emissionEventsManager, emissionEfficiencyFactor, vehicles);
         emissionEventsManager.addHandler(this);
 
     }
@@ -22,7 +22,6 @@ package org.matsim.contrib.emissions;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Scenario;
-import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.emissions.ColdEmissionAnalysisModule.ColdEmissionAnalysisModuleParameter;
 import org.matsim.contrib.emissions.WarmEmissionAnalysisModule.WarmEmissionAnalysisModuleParameter;
 import org.matsim.contrib.emissions.utils.EmissionsConfigGroup;
@@ -76,6 +75,9 @@ public final class EmissionModule {
 	private Set<String> warmPollutants = new HashSet<>();
 	private Set<String> coldPollutants = new HashSet<>();
 
+	private WarmEmissionAnalysisModuleParameter warmEmissionParameter;
+	private ColdEmissionAnalysisModuleParameter coldEmissionParameter;
+
 	@Inject
 	public EmissionModule(final Scenario scenario, final EventsManager eventsManager) {
 		this.scenario = scenario;
@@ -155,21 +157,34 @@ public final class EmissionModule {
 	private void createEmissionHandler() {
 		logger.info("entering createEmissionHandler");
 		
-		Network network = scenario.getNetwork() ;
-
 		loadRoadTypeMappings();
 
-		WarmEmissionAnalysisModuleParameter parameterObject =
+		warmEmissionParameter =
 				new WarmEmissionAnalysisModuleParameter(avgHbefaWarmTable, detailedHbefaWarmTable, hbefaRoadTrafficSpeeds, warmPollutants,
 				emissionConfigGroup);
-		ColdEmissionAnalysisModuleParameter parameterObject2 = new ColdEmissionAnalysisModuleParameter(avgHbefaColdTable, detailedHbefaColdTable, coldPollutants,
+		coldEmissionParameter = new ColdEmissionAnalysisModuleParameter(avgHbefaColdTable, detailedHbefaColdTable, coldPollutants,
 				emissionConfigGroup);
 
-		warmEmissionHandler = new WarmEmissionHandler(vehicles,	network, parameterObject, eventsManager, emissionConfigGroup
+		warmEmissionHandler = createWarmEmissionHandler(eventsManager);
+		coldEmissionHandler = createColdEmissionHandler(eventsManager);
+		logger.info("leaving createEmissionHandler");
+	}
+
+	/**
+	 * @return a new warm emission handler which uses the lookup tables of this module, but has its own state. It is added to the
+	 * given events manager and throws its emission events there.
+	 */
+	/*package*/ WarmEmissionHandler createWarmEmissionHandler(EventsManager emissionEventsManager) {
+		return new WarmEmissionHandler(vehicles, scenario.getNetwork(), warmEmissionParameter, emissionEventsManager, emissionConfigGroup
 				.getEmissionEfficiencyFactor());
-		coldEmissionHandler = new ColdEmissionHandler(vehicles, network, parameterObject2, eventsManager, emissionConfigGroup
+	}
+
+	/**
+	 * @return a new cold emission handler, see {@link #createWarmEmissionHandler(EventsManager)}
+	 */
+	/*package*/ ColdEmissionHandler createColdEmissionHandler(EventsManager emissionEventsManager) {
+		return new ColdEmissionHandler(vehicles, scenario.getNetwork(), coldEmissionParameter, emissionEventsManager, emissionConfigGroup
 				.getEmissionEfficiencyFactor());
-		logger.info("leaving createEmissionHandler");
 	}
 
 	private void loadRoadTypeMappings() {
@@ -0,0 +1,356 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EmissionOfflineCalculation.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.emissions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.contrib.emissions.utils.EmissionsConfigGroup;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleType;
+
+/**
+ * Computes the warm and cold emission events of an events file, e.g. of an archived run, with several threads.
+ * <p>
+ * The events file is read once. The events are distributed to shards by their vehicle id and each shard is
+ * processed by its own thread, with its own {@link WarmEmissionHandler} and {@link ColdEmissionHandler}. As these
+ * keep their state per vehicle, the shards are independent of each other. The emission events of the shards are
+ * merged in the order of the events which caused them, so the emission events are the same, and in the same order,
+ * as when the events file is read into the events manager of an {@link EmissionModule}.
+ * <p>
+ * Usage:
+ * <pre>
+ * EventWriterXML emissionEventWriter = new EventWriterXML(emissionEventsFile);
+ * EventsManager emissionEvents = EventsUtils.createEventsManager();
+ * emissionEvents.addHandler(emissionEventWriter);
+ * new EmissionOfflineCalculation(scenario, emissionEvents).readFile(eventsFile);
+ * emissionEventWriter.closeFile();
+ * </pre>
+ */
+public final class EmissionOfflineCalculation {
+	private static final Logger log = Logger.getLogger(EmissionOfflineCalculation.class);
+
+	private static final int EVENTS_PER_BATCH = 10000;
+
+	private final Scenario scenario;
+	private final EventsManager emissionEventsManager;
+	private final int numberOfThreads;
+	private final EmissionModule emissionModule;
+
+	private long eventCounter = 0;
+	private long emissionEventCounter = 0;
+
+	/**
+	 * Uses the global number of threads of the config.
+	 */
+	public EmissionOfflineCalculation(Scenario scenario, EventsManager emissionEventsManager) {
+		this(scenario, emissionEventsManager, scenario.getConfig().global().getNumberOfThreads());
+	}
+
+	/**
+	 * @param emissionEventsManager receives the emission events, all from the thread calling {@link #readFile(String)}
+	 */
+	public EmissionOfflineCalculation(Scenario scenario, EventsManager emissionEventsManager, int numberOfThreads) {
+		this.scenario = scenario;
+		this.emissionEventsManager = emissionEventsManager;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+		// the module loads the lookup tables; its own handlers are not used
+		this.emissionModule = new EmissionModule(scenario, EventsUtils.createEventsManager());
+	}
+
+	public void readFile(String eventsFile) {
+		prepareVehicleTypes();
+
+		Shard[] shards = new Shard[this.numberOfThreads];
+		ExecutorService[] executors = new ExecutorService[this.numberOfThreads];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard(this.emissionModule);
+			// one thread per shard, so the batches of a shard are processed in order
+			executors[i] = Executors.newSingleThreadExecutor();
+		}
+
+		log.info("Computing emissions with " + this.numberOfThreads + " threads from events file " + eventsFile + " ...");
+		this.eventCounter = 0;
+		this.emissionEventCounter = 0;
+		long start = System.nanoTime();
+		try {
+			BatchDistributor distributor = new BatchDistributor(shards, executors, start);
+			EventsManager events = EventsUtils.createEventsManager();
+			events.addHandler(distributor);
+			new MatsimEventsReader(events).readFile(eventsFile);
+			distributor.finish();
+		} finally {
+			for (ExecutorService executor : executors) {
+				executor.shutdownNow();
+			}
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		int linkLeaveCnt = 0;
+		int linkLeaveWarnCnt = 0;
+		for (Shard shard : shards) {
+			linkLeaveCnt += shard.warmEmissionHandler.getLinkLeaveCnt();
+			linkLeaveWarnCnt += shard.warmEmissionHandler.getLinkLeaveWarnCnt();
+		}
+		log.info("Warm emissions were not calculated for " + linkLeaveWarnCnt + " of " + linkLeaveCnt
+				+ " link leave events (no corresponding link enter event).");
+		log.info("Computing emissions... Done. " + this.eventCounter + " events, " + this.emissionEventCounter + " emission events, "
+				+ String.format("%.1f", seconds) + " s, " + (long) (this.eventCounter / Math.max(seconds, 1e-9)) + " events/s.");
+	}
+
+	/**
+	 * The analysis modules put the vehicle type id into the description of the vehicle type when it is used for the
+	 * first time. This is done here for all vehicle types, so the shards do not modify the vehicle types concurrently.
+	 */
+	private void prepareVehicleTypes() {
+		EmissionsConfigGroup ecg = ConfigUtils.addOrGetModule(this.scenario.getConfig(), EmissionsConfigGroup.class);
+		if (ecg.isUsingVehicleTypeIdAsVehicleDescription()) {
+			for (VehicleType vehicleType : this.scenario.getVehicles().getVehicleTypes().values()) {
+				EmissionUtils.setHbefaVehicleDescriptionFromVehicleTypeId(vehicleType);
+			}
+			for (Vehicle vehicle : this.scenario.getVehicles().getVehicles().values()) {
+				EmissionUtils.setHbefaVehicleDescriptionFromVehicleTypeId(vehicle.getType());
+			}
+		}
+	}
+
+	private static Id<Vehicle> getVehicleId(Event event) {
+		if (event instanceof LinkEnterEvent) {
+			return ((LinkEnterEvent) event).getVehicleId();
+		} else if (event instanceof LinkLeaveEvent) {
+			return ((LinkLeaveEvent) event).getVehicleId();
+		} else if (event instanceof VehicleEntersTrafficEvent) {
+			return ((VehicleEntersTrafficEvent) event).getVehicleId();
+		} else if (event instanceof VehicleLeavesTrafficEvent) {
+			return ((VehicleLeavesTrafficEvent) event).getVehicleId();
+		}
+		// not handled by the emission handlers
+		return null;
+	}
+
+	/**
+	 * Collects the events read into batches, hands the batches to the shards and passes the emission events of the
+	 * processed batches on, in the order of the batches.
+	 */
+	private final class BatchDistributor implements BasicEventHandler {
+		private final Shard[] shards;
+		private final ExecutorService[] executors;
+		private final Deque<List<Future<ShardResult>>> pendingBatches = new ArrayDeque<>();
+		private final int maxPendingBatches;
+		private final long start;
+		private long nextReport = EVENTS_PER_BATCH;
+
+		private List<Event>[] shardEvents;
+		private int[][] shardEventIndices;
+		private int[] shardSizes;
+		private int batchSize = 0;
+
+		@SuppressWarnings("unchecked")
+		BatchDistributor(Shard[] shards, ExecutorService[] executors, long start) {
+			this.shards = shards;
+			this.executors = executors;
+			this.maxPendingBatches = 2 * shards.length;
+			this.start = start;
+			this.shardEvents = new List[shards.length];
+			this.shardEventIndices = new int[shards.length][];
+			this.shardSizes = new int[shards.length];
+			newBatch();
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			eventCounter++;
+			Id<Vehicle> vehicleId = getVehicleId(event);
+			if (vehicleId != null) {
+				int shard = vehicleId.index() % this.shards.length;
+				int size = this.shardSizes[shard];
+				if (size == this.shardEventIndices[shard].length) {
+					this.shardEventIndices[shard] = Arrays.copyOf(this.shardEventIndices[shard], 2 * size);
+				}
+				this.shardEvents[shard].add(event);
+				this.shardEventIndices[shard][size] = this.batchSize;
+				this.shardSizes[shard] = size + 1;
+				this.batchSize++;
+				if (this.batchSize == EVENTS_PER_BATCH) {
+					submitBatch();
+				}
+			}
+		}
+
+		void finish() {
+			if (this.batchSize > 0) {
+				submitBatch();
+			}
+			while (!this.pendingBatches.isEmpty()) {
+				processEmissionEvents(this.pendingBatches.removeFirst());
+			}
+		}
+
+		private void newBatch() {
+			for (int i = 0; i < this.shards.length; i++) {
+				this.shardEvents[i] = new ArrayList<>();
+				this.shardEventIndices[i] = new int[Math.max(16, 2 * EVENTS_PER_BATCH / this.shards.length)];
+				this.shardSizes[i] = 0;
+			}
+			this.batchSize = 0;
+		}
+
+		private void submitBatch() {
+			List<Future<ShardResult>> futures = new ArrayList<>(this.shards.length);
+			for (int i = 0; i < this.shards.length; i++) {
+				Shard shard = this.shards[i];
+				List<Event> events = this.shardEvents[i];
+				int[] eventIndices = this.shardEventIndices[i];
+				futures.add(this.executors[i].submit(() -> shard.process(events, eventIndices)));
+			}
+			this.pendingBatches.addLast(futures);
+			newBatch();
+
+			while (this.pendingBatches.size() > this.maxPendingBatches) {
+				processEmissionEvents(this.pendingBatches.removeFirst());
+			}
+
+			if (eventCounter >= this.nextReport) {
+				double seconds = (System.nanoTime() - this.start) / 1e9;
+				log.info("events # " + eventCounter + ", emission events # " + emissionEventCounter + ", "
+						+ (long) (eventCounter / Math.max(seconds, 1e-9)) + " events/s");
+				this.nextReport *= 2;
+			}
+		}
+
+		/**
+		 * Merges the emission events of the shards for one batch by the index of the events which caused them.
+		 */
+		private void processEmissionEvents(List<Future<ShardResult>> futures) {
+			ShardResult[] results = new ShardResult[futures.size()];
+			try {
+				for (int i = 0; i < results.length; i++) {
+					results[i] = futures.get(i).get();
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+
+			int[] positions = new int[results.length];
+			while (true) {
+				int next = -1;
+				for (int i = 0; i < results.length; i++) {
+					if (positions[i] < results[i].emissionEvents.size()
+							&& (next < 0 || results[i].causeIndices[positions[i]] < results[next].causeIndices[positions[next]])) {
+						next = i;
+					}
+				}
+				if (next < 0) {
+					break;
+				}
+				// the emission events of one cause are all from the same shard and stay in their order
+				int cause = results[next].causeIndices[positions[next]];
+				while (positions[next] < results[next].emissionEvents.size() && results[next].causeIndices[positions[next]] == cause) {
+					emissionEventsManager.processEvent(results[next].emissionEvents.get(positions[next]));
+					emissionEventCounter++;
+					positions[next]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The emission handlers of the vehicles of one shard. Only accessed by the thread of the shard.
+	 */
+	private static final class Shard implements BasicEventHandler {
+		private final EventsManager events = EventsUtils.createEventsManager();
+		private final WarmEmissionHandler warmEmissionHandler;
+		private final ColdEmissionHandler coldEmissionHandler;
+
+		private Event currentEvent;
+		private int currentEventIndex;
+		private List<Event> emissionEvents;
+		private int[] causeIndices;
+
+		Shard(EmissionModule emissionModule) {
+			// in the same order as in the emission module, so the emission events of one event are thrown in the same order
+			this.warmEmissionHandler = emissionModule.createWarmEmissionHandler(this.events);
+			this.coldEmissionHandler = emissionModule.createColdEmissionHandler(this.events);
+			this.events.addHandler(this);
+		}
+
+		ShardResult process(List<Event> batchEvents, int[] eventIndices) {
+			this.emissionEvents = new ArrayList<>();
+			this.causeIndices = new int[16];
+			for (int i = 0; i < batchEvents.size(); i++) {
+				this.currentEvent = batchEvents.get(i);
+				this.currentEventIndex = eventIndices[i];
+				this.events.processEvent(this.currentEvent);
+			}
+			this.currentEvent = null;
+			return new ShardResult(this.emissionEvents, this.causeIndices);
+		}
+
+		/**
+		 * Collects the emission events, which the handlers throw while processing the current event.
+		 */
+		@Override
+		public void handleEvent(Event event) {
+			if (event != this.currentEvent) {
+				int size = this.emissionEvents.size();
+				if (size == this.causeIndices.length) {
+					this.causeIndices = Arrays.copyOf(this.causeIndices, 2 * size);
+				}
+				this.causeIndices[size] = this.currentEventIndex;
+				this.emissionEvents.add(event);
+			}
+		}
+	}
+
+	private static final class ShardResult {
+		private final List<Event> emissionEvents;
+		/** for each emission event, the index of the event in the batch which caused it */
+		private final int[] causeIndices;
+
+		ShardResult(List<Event> emissionEvents, int[] causeIndices) {
+			this.emissionEvents = emissionEvents;
+			this.causeIndices = causeIndices;
+		}
+	}
+
+}
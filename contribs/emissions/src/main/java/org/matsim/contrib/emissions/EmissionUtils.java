@@ -178,7 +178,37 @@ public final class EmissionUtils {
 							hbefaVehicleDescription +
 			EmissionSpecificationMarker.END_EMISSIONS.toString() );
 	}
+
+	/**
+	 * Puts the id of the vehicle type into its description, enclosed by the {@link EmissionSpecificationMarker}s, unless the
+	 * description already contains an emission specification.
+	 */
+	static void setHbefaVehicleDescriptionFromVehicleTypeId( final VehicleType vt ) {
+		if(vt.getDescription()==null) { // emission specification is in vehicle type id
+			vt.setDescription(EmissionSpecificationMarker.BEGIN_EMISSIONS
+					+vt.getId().toString()+ EmissionSpecificationMarker.END_EMISSIONS);
+		} else if( vt.getDescription().contains(EmissionSpecificationMarker.BEGIN_EMISSIONS.toString()) ) {
+			// emission specification is in vehicle type id and in vehicle description too.
+		} else {
+			String vehicleDescription = vt.getDescription() + EmissionSpecificationMarker.BEGIN_EMISSIONS
+					+ vt.getId().toString()+ EmissionSpecificationMarker.END_EMISSIONS;
+			vt.setDescription(vehicleDescription);
+		}
+	}
 	
+	/**
+	 * @return whether the description contains an emission specification enclosed by the {@link EmissionSpecificationMarker}s,
+	 * so it can be converted by {@link #convertVehicleDescription2VehicleInformationTuple(String)}
+	 */
+	static boolean containsEmissionSpecification( String vehicleDescription ) {
+		if (vehicleDescription == null) {
+			return false;
+		}
+		int startIndex = vehicleDescription.indexOf(EmissionSpecificationMarker.BEGIN_EMISSIONS.toString());
+		return startIndex >= 0 && vehicleDescription.lastIndexOf(EmissionSpecificationMarker.END_EMISSIONS.toString())
+				>= startIndex + EmissionSpecificationMarker.BEGIN_EMISSIONS.toString().length();
+	}
+
 	static Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> convertVehicleDescription2VehicleInformationTuple( String vehicleDescription ) {
 		// yyyy what is the advantage of having this as a tuple over just using a class with four entries?  kai, oct'18
 		
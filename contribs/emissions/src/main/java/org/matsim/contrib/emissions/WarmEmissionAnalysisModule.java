@@ -25,14 +25,20 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.emissions.events.WarmEmissionEvent;
 import org.matsim.contrib.emissions.utils.EmissionsConfigGroup;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleType;
+import org.matsim.vehicles.Vehicles;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -50,7 +56,17 @@ public final class WarmEmissionAnalysisModule {
 	private final Map<HbefaWarmEmissionFactorKey, HbefaWarmEmissionFactor>  avgHbefaWarmTable;
 	private final Map<HbefaWarmEmissionFactorKey, HbefaWarmEmissionFactor> detailedHbefaWarmTable;
 	private final Map<HbefaRoadVehicleCategoryKey, Map<HbefaTrafficSituation, Double>> hbefaRoadTrafficSpeeds;
-	private final Set<String> warmPollutants;
+	private final String[] warmPollutants;
+
+	// the lookup tables resolved once per road category and vehicle description, see getWarmEmissionFactors
+	private final Map<String, Integer> roadCategoryIndices = new HashMap<>();
+	private final List<String> roadCategories = new ArrayList<>();
+	private final Map<String, Integer> vehicleIndices = new HashMap<>();
+	private final List<Tuple<HbefaVehicleCategory, HbefaVehicleAttributes>> vehicleInformation = new ArrayList<>();
+	private WarmEmissionFactors[][] warmEmissionFactors = new WarmEmissionFactors[0][];
+	// the above indices by Id.index() of the links and vehicle types known at construction, plus one; 0 if not known
+	private int[] roadCategoryIndexOfLink = new int[0];
+	private int[] vehicleIndexOfVehicleType = new int[0];
 
 	private final EventsManager eventsManager;
 	private final Double emissionEfficiencyFactor;
@@ -118,12 +134,51 @@ public final class WarmEmissionAnalysisModule {
 		this.avgHbefaWarmTable = parameterObject.avgHbefaWarmTable;
 		this.detailedHbefaWarmTable = parameterObject.detailedHbefaWarmTable;
 		this.hbefaRoadTrafficSpeeds = parameterObject.hbefaRoadTrafficSpeeds;
-		this.warmPollutants = parameterObject.warmPollutants;
+		this.warmPollutants = parameterObject.warmPollutants.toArray(new String[0]);
 		this.eventsManager = emissionEventsManager;
 		this.emissionEfficiencyFactor = emissionEfficiencyFactor;
 		this.ecg = parameterObject.ecg;
 	}
 
+	/**
+	 * Also resolves the road category of the links and the vehicle description of the vehicle types once, so they are not looked up
+	 * by name per event. Links without road category and vehicle types without a valid vehicle description at this time are still
+	 * resolved per event, as before.
+	 */
+	WarmEmissionAnalysisModule(
+			WarmEmissionAnalysisModuleParameter parameterObject,
+			EventsManager emissionEventsManager, Double emissionEfficiencyFactor, Network network, Vehicles vehicles) {
+		this(parameterObject, emissionEventsManager, emissionEfficiencyFactor);
+
+		int maxIndex = -1;
+		for (Link link : network.getLinks().values()) {
+			maxIndex = Math.max(maxIndex, link.getId().index());
+		}
+		this.roadCategoryIndexOfLink = new int[maxIndex + 1];
+		for (Link link : network.getLinks().values()) {
+			String roadCategory = EmissionUtils.getHbefaRoadType(link);
+			if (roadCategory != null) {
+				this.roadCategoryIndexOfLink[link.getId().index()] = getRoadCategoryIndex(roadCategory) + 1;
+			}
+		}
+
+		maxIndex = -1;
+		for (VehicleType vehicleType : vehicles.getVehicleTypes().values()) {
+			maxIndex = Math.max(maxIndex, vehicleType.getId().index());
+		}
+		this.vehicleIndexOfVehicleType = new int[maxIndex + 1];
+		for (VehicleType vehicleType : vehicles.getVehicleTypes().values()) {
+			if(this.ecg.isUsingVehicleTypeIdAsVehicleDescription() ) {
+				EmissionUtils.setHbefaVehicleDescriptionFromVehicleTypeId(vehicleType);
+			}
+			String vehicleDescription = vehicleType.getDescription();
+			if (EmissionUtils.containsEmissionSpecification(vehicleDescription)
+					&& convertVehicleTypeId2VehicleInformationTuple(vehicleDescription).getFirst() != null) {
+				this.vehicleIndexOfVehicleType[vehicleType.getId().index()] = getVehicleIndex(null, vehicleDescription) + 1;
+			}
+		}
+	}
+
 	public void reset() {
 		logger.info("resetting counters...");
 		vehAttributesNotSpecifiedCnt = 0;
@@ -151,99 +206,37 @@ public final class WarmEmissionAnalysisModule {
 			Link link,
 			double travelTime) {
 
-		if(this.ecg.isUsingVehicleTypeIdAsVehicleDescription() ) {
-			if(vehicle.getType().getDescription()==null) { // emission specification is in vehicle type id
-				vehicle.getType().setDescription(EmissionSpecificationMarker.BEGIN_EMISSIONS
-						+vehicle.getType().getId().toString()+ EmissionSpecificationMarker.END_EMISSIONS);
-			} else if( vehicle.getType().getDescription().contains(EmissionSpecificationMarker.BEGIN_EMISSIONS.toString()) ) {
-				// emission specification is in vehicle type id and in vehicle description too.
-			} else {
-				String vehicleDescription = vehicle.getType().getDescription() + EmissionSpecificationMarker.BEGIN_EMISSIONS
-						+ vehicle.getType().getId().toString()+ EmissionSpecificationMarker.END_EMISSIONS;
-				vehicle.getType().setDescription(vehicleDescription);
-			}
-		}
-
-		Map<String, Double> warmEmissions = new HashMap<>();
-		if(vehicle == null ||
-				(vehicle.getType() == null && vehicle.getType().getDescription() == null) // if both are null together; no vehicle type information.
-				) {
-			throw new RuntimeException("Vehicle type description for vehicle " + vehicle + " is missing. " +
-					"Please make sure that requirements for emission vehicles in "
-					+ EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
-		}
-
-		String vehicleDescription = vehicle.getType().getDescription();
-
-		Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple = convertVehicleTypeId2VehicleInformationTuple(vehicleDescription);
-		if (vehicleInformationTuple.getFirst() == null){
-			throw new RuntimeException("Vehicle category for vehicle " + vehicle + " is not valid. " +
-					"Please make sure that requirements for emission vehicles in " + 
-					EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
-		}
+		int vehicleIndex = getVehicleIndex(vehicle);
 
 		double freeVelocity = link.getFreespeed(); //TODO: what about time dependence
 		double linkLength = link.getLength();
-		String roadType = EmissionUtils.getHbefaRoadType(link);
+		int roadCategoryIndex = getRoadCategoryIndex(link);
 
-		warmEmissions = calculateWarmEmissions(vehicle.getId(), travelTime, roadType, freeVelocity, linkLength, vehicleInformationTuple);
+		Map<String, Double> warmEmissions = calculateWarmEmissions(vehicle.getId(), travelTime, freeVelocity, linkLength, getWarmEmissionFactors(roadCategoryIndex, vehicleIndex));
 
 		// a basic apporach to introduce emission reduced cars:
 		if(emissionEfficiencyFactor != null){
-			warmEmissions = rescaleWarmEmissions(warmEmissions);
+			warmEmissions.replaceAll((pollutant, emissions) -> emissionEfficiencyFactor * emissions);
 		}
 		return warmEmissions;
 	}
-	
-	private Map<String, Double> rescaleWarmEmissions(Map<String, Double> warmEmissions) {
-		Map<String, Double> rescaledWarmEmissions = new HashMap<>();
-		
-		for(String wp : warmEmissions.keySet()){
-			Double orgValue = warmEmissions.get(wp);
-			Double rescaledValue = emissionEfficiencyFactor * orgValue;
-			rescaledWarmEmissions.put(wp, rescaledValue);
-		}
-		return rescaledWarmEmissions;
-	}
 
 	private Map<String, Double> calculateWarmEmissions(
 			Id<Vehicle> vehicleId,
 			double travelTime,
-			String roadType,
 			double freeVelocity,
 			double linkLength,
-			Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple) {
+			WarmEmissionFactors factors) {
 
 		Map<String, Double> warmEmissionsOfEvent = new HashMap<>();
 
-		final String hbefaRoadTypeName ;
-			hbefaRoadTypeName = roadType;
-
-		HbefaWarmEmissionFactorKey efkey = new HbefaWarmEmissionFactorKey();
-
-		if(vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE)){
-			efkey.setHbefaVehicleCategory(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE);
-		} else if (vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.MOTORCYCLE)) {
-			efkey.setHbefaVehicleCategory(HbefaVehicleCategory.MOTORCYCLE);
-		} else if(vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.ZERO_EMISSION_VEHICLE)) {
+		if(factors.zeroEmissionVehicle) {
 			for (String warmPollutant : warmPollutants) {
 				warmEmissionsOfEvent.put( warmPollutant, 0.0 );
 			}
 			return warmEmissionsOfEvent;
-		} else {
-			efkey.setHbefaVehicleCategory(HbefaVehicleCategory.PASSENGER_CAR);
 		}
 
-		efkey.setHbefaRoadCategory(hbefaRoadTypeName);
-
-		if(this.detailedHbefaWarmTable != null){ // check if detailed emission factors file is set in config
-			HbefaVehicleAttributes hbefaVehicleAttributes = new HbefaVehicleAttributes();
-			hbefaVehicleAttributes.setHbefaTechnology(vehicleInformationTuple.getSecond().getHbefaTechnology());
-			hbefaVehicleAttributes.setHbefaSizeClass(vehicleInformationTuple.getSecond().getHbefaSizeClass());
-			hbefaVehicleAttributes.setHbefaEmConcept(vehicleInformationTuple.getSecond().getHbefaEmConcept());
-			efkey.setHbefaVehicleAttributes(hbefaVehicleAttributes);
-		}
-		
 		double linkLength_km = linkLength / 1000;
 		double travelTime_h = travelTime / 3600;
 		double freeFlowSpeed_kmh = freeVelocity * 3.6;
@@ -263,31 +256,28 @@ public final class WarmEmissionAnalysisModule {
 			}
 		}
 
-		HbefaTrafficSituation trafficSituation = getTrafficSituation(efkey, averageSpeed_kmh, freeFlowSpeed_kmh);
-		efkey.setHbefaTrafficSituation(trafficSituation);
+		HbefaTrafficSituation trafficSituation = getTrafficSituation(factors, averageSpeed_kmh);
 
+		int index = trafficSituation.ordinal() * warmPollutants.length;
 		for (String warmPollutant : warmPollutants) {
 			double generatedEmissions;
 
-			efkey.setHbefaComponent(warmPollutant);
-
-			//TODO: opportunity for refactor of logic here jm oct '18
 			//The logic has changed here, now it will fall back to aggregate factors per traffic scenario, instead of if any scenarios are missing.
-			if(this.detailedHbefaWarmTable != null && this.detailedHbefaWarmTable.get(efkey) != null){
-					ef_gpkm = this.detailedHbefaWarmTable.get(efkey).getWarmEmissionFactor();
-
-			} else {
+			if(factors.sources[index] != WarmEmissionFactors.DETAILED){
 				vehAttributesNotSpecifiedCnt++;
-				efkey.setHbefaVehicleAttributes(new HbefaVehicleAttributes()); //want to check for average vehicle
-				ef_gpkm = this.avgHbefaWarmTable.get(efkey).getWarmEmissionFactor();
+				if(factors.sources[index] == WarmEmissionFactors.MISSING) {
+					throw new RuntimeException("No warm emission factor found for " + warmPollutant + " and " + factors.key
+							+ " in traffic situation " + trafficSituation + ". Aborting...");
+				}
 
 				int maxWarnCnt = 3;
 				if(this.detailedHbefaWarmTable != null && vehAttributesNotSpecifiedCnt <= maxWarnCnt) {
 					logger.warn("Detailed vehicle attributes are not specified correctly for vehicle " + vehicleId + ": " +
-							"`" + vehicleInformationTuple.getSecond() + "'. Using fleet average values instead.");
+							"`" + factors.vehicleAttributes + "'. Using fleet average values instead.");
 					if(vehAttributesNotSpecifiedCnt == maxWarnCnt) logger.warn(Gbl.FUTURE_SUPPRESSED);
 				}
 			}
+			ef_gpkm = factors.factors[index++];
 
 			generatedEmissions = linkLength_km * ef_gpkm;
 			warmEmissionsOfEvent.put(warmPollutant, generatedEmissions);
@@ -298,31 +288,170 @@ public final class WarmEmissionAnalysisModule {
 	}
 
 	//TODO: this is based on looking at the speeds in the HBEFA files, using an MFP, maybe from A.Loder would be nicer, jm  oct'18
-	private HbefaTrafficSituation getTrafficSituation(HbefaWarmEmissionFactorKey efkey, double averageSpeed_kmh, double freeFlowSpeed_kmh) {
-		//TODO: should this be generated only once much earlier?
-		HbefaRoadVehicleCategoryKey roadTrafficKey = new HbefaRoadVehicleCategoryKey(efkey);
-		Map<HbefaTrafficSituation, Double> trafficSpeeds = this.hbefaRoadTrafficSpeeds.get(roadTrafficKey);
+	private HbefaTrafficSituation getTrafficSituation(WarmEmissionFactors factors, double averageSpeed_kmh) {
+		double[] trafficSpeeds = factors.speeds;
 
-		if (trafficSpeeds == null || !trafficSpeeds.containsKey(FREEFLOW)) {
+		if (trafficSpeeds == null) {
 			throw new RuntimeException("At least the FREEFLOW condition must be specifed for all emission factor keys. " +
-					"It was not found for " + efkey);
+					"It was not found for " + factors.key);
 		}
 
+		// speeds which are not in the table are NaN, so the comparisons below fail for them
 		HbefaTrafficSituation trafficSituation  = FREEFLOW;
-		if (trafficSpeeds.containsKey(HEAVY) && averageSpeed_kmh <= trafficSpeeds.get(HEAVY)) {
+		if (averageSpeed_kmh <= trafficSpeeds[HEAVY.ordinal()]) {
 			trafficSituation = HEAVY;
 		}
-		if (trafficSpeeds.containsKey(SATURATED) && averageSpeed_kmh <= trafficSpeeds.get(SATURATED)) {
+		if (averageSpeed_kmh <= trafficSpeeds[SATURATED.ordinal()]) {
 			trafficSituation = SATURATED;
 		}
-		if (trafficSpeeds.containsKey(STOPANDGO) && averageSpeed_kmh <= trafficSpeeds.get(STOPANDGO)) {
-			if (averageSpeed_kmh != trafficSpeeds.get(FREEFLOW)) { //handle case testCheckVehicleInfoAndCalculateWarmEmissions_and_throwWarmEmissionEvent6
+		if (averageSpeed_kmh <= trafficSpeeds[STOPANDGO.ordinal()]) {
+			if (averageSpeed_kmh != trafficSpeeds[FREEFLOW.ordinal()]) { //handle case testCheckVehicleInfoAndCalculateWarmEmissions_and_throwWarmEmissionEvent6
 				trafficSituation = STOPANDGO;
 			}
 		}
 		return trafficSituation;
 	}
 
+	private int getVehicleIndex(Vehicle vehicle) {
+		VehicleType vehicleType = vehicle == null ? null : vehicle.getType();
+		if (vehicleType != null) {
+			int typeIndex = vehicleType.getId().index();
+			if (typeIndex < this.vehicleIndexOfVehicleType.length && this.vehicleIndexOfVehicleType[typeIndex] > 0) {
+				return this.vehicleIndexOfVehicleType[typeIndex] - 1;
+			}
+		}
+
+		if(this.ecg.isUsingVehicleTypeIdAsVehicleDescription() ) {
+			EmissionUtils.setHbefaVehicleDescriptionFromVehicleTypeId(vehicle.getType());
+		}
+
+		if(vehicle == null ||
+				(vehicle.getType() == null && vehicle.getType().getDescription() == null) // if both are null together; no vehicle type information.
+				) {
+			throw new RuntimeException("Vehicle type description for vehicle " + vehicle + " is missing. " +
+					"Please make sure that requirements for emission vehicles in "
+					+ EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
+		}
+
+		return getVehicleIndex(vehicle, vehicle.getType().getDescription());
+	}
+
+	private int getVehicleIndex(Vehicle vehicle, String vehicleDescription) {
+		Integer index = this.vehicleIndices.get(vehicleDescription);
+		if (index == null) {
+			Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple = convertVehicleTypeId2VehicleInformationTuple(vehicleDescription);
+			if (vehicleInformationTuple.getFirst() == null){
+				throw new RuntimeException("Vehicle category for vehicle " + vehicle + " is not valid. " +
+						"Please make sure that requirements for emission vehicles in " + 
+						EmissionsConfigGroup.GROUP_NAME + " config group are met. Aborting...");
+			}
+			index = this.vehicleInformation.size();
+			this.vehicleInformation.add(vehicleInformationTuple);
+			this.vehicleIndices.put(vehicleDescription, index);
+		}
+		return index;
+	}
+
+	private int getRoadCategoryIndex(Link link) {
+		int linkIndex = link.getId().index();
+		if (linkIndex < this.roadCategoryIndexOfLink.length && this.roadCategoryIndexOfLink[linkIndex] > 0) {
+			return this.roadCategoryIndexOfLink[linkIndex] - 1;
+		}
+		return getRoadCategoryIndex(EmissionUtils.getHbefaRoadType(link));
+	}
+
+	private int getRoadCategoryIndex(String roadCategory) {
+		Integer index = this.roadCategoryIndices.get(roadCategory);
+		if (index == null) {
+			index = this.roadCategories.size();
+			this.roadCategories.add(roadCategory);
+			this.roadCategoryIndices.put(roadCategory, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the emission factors for the given road category and vehicle description, which are looked up in the HBEFA tables
+	 * when they are needed for the first time
+	 */
+	private WarmEmissionFactors getWarmEmissionFactors(int roadCategoryIndex, int vehicleIndex) {
+		if (roadCategoryIndex >= this.warmEmissionFactors.length) {
+			this.warmEmissionFactors = Arrays.copyOf(this.warmEmissionFactors, this.roadCategories.size());
+		}
+		WarmEmissionFactors[] roadCategoryFactors = this.warmEmissionFactors[roadCategoryIndex];
+		if (roadCategoryFactors == null) {
+			roadCategoryFactors = new WarmEmissionFactors[this.vehicleInformation.size()];
+			this.warmEmissionFactors[roadCategoryIndex] = roadCategoryFactors;
+		} else if (vehicleIndex >= roadCategoryFactors.length) {
+			roadCategoryFactors = Arrays.copyOf(roadCategoryFactors, this.vehicleInformation.size());
+			this.warmEmissionFactors[roadCategoryIndex] = roadCategoryFactors;
+		}
+		WarmEmissionFactors factors = roadCategoryFactors[vehicleIndex];
+		if (factors == null) {
+			factors = compileWarmEmissionFactors(this.roadCategories.get(roadCategoryIndex), this.vehicleInformation.get(vehicleIndex));
+			roadCategoryFactors[vehicleIndex] = factors;
+		}
+		return factors;
+	}
+
+	private WarmEmissionFactors compileWarmEmissionFactors(String hbefaRoadTypeName, Tuple<HbefaVehicleCategory, HbefaVehicleAttributes> vehicleInformationTuple) {
+		HbefaWarmEmissionFactorKey efkey = new HbefaWarmEmissionFactorKey();
+
+		if(vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE)){
+			efkey.setHbefaVehicleCategory(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE);
+		} else if (vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.MOTORCYCLE)) {
+			efkey.setHbefaVehicleCategory(HbefaVehicleCategory.MOTORCYCLE);
+		} else if(vehicleInformationTuple.getFirst().equals(HbefaVehicleCategory.ZERO_EMISSION_VEHICLE)) {
+			return new WarmEmissionFactors(efkey, vehicleInformationTuple.getSecond(), true, null, null, null);
+		} else {
+			efkey.setHbefaVehicleCategory(HbefaVehicleCategory.PASSENGER_CAR);
+		}
+
+		efkey.setHbefaRoadCategory(hbefaRoadTypeName);
+
+		if(this.detailedHbefaWarmTable != null){ // check if detailed emission factors file is set in config
+			HbefaVehicleAttributes hbefaVehicleAttributes = new HbefaVehicleAttributes();
+			hbefaVehicleAttributes.setHbefaTechnology(vehicleInformationTuple.getSecond().getHbefaTechnology());
+			hbefaVehicleAttributes.setHbefaSizeClass(vehicleInformationTuple.getSecond().getHbefaSizeClass());
+			hbefaVehicleAttributes.setHbefaEmConcept(vehicleInformationTuple.getSecond().getHbefaEmConcept());
+			efkey.setHbefaVehicleAttributes(hbefaVehicleAttributes);
+		}
+
+		Map<HbefaTrafficSituation, Double> trafficSpeeds = this.hbefaRoadTrafficSpeeds.get(new HbefaRoadVehicleCategoryKey(efkey));
+		if (trafficSpeeds == null || !trafficSpeeds.containsKey(FREEFLOW)) {
+			// no emissions can be computed, see getTrafficSituation
+			return new WarmEmissionFactors(efkey, vehicleInformationTuple.getSecond(), false, null, null, null);
+		}
+
+		HbefaTrafficSituation[] trafficSituations = HbefaTrafficSituation.values();
+		double[] speeds = new double[trafficSituations.length];
+		double[] factors = new double[trafficSituations.length * warmPollutants.length];
+		byte[] sources = new byte[factors.length];
+		int index = 0;
+		for (HbefaTrafficSituation trafficSituation : trafficSituations) {
+			speeds[trafficSituation.ordinal()] = trafficSpeeds.getOrDefault(trafficSituation, Double.NaN);
+
+			HbefaWarmEmissionFactorKey situationKey = new HbefaWarmEmissionFactorKey(efkey);
+			situationKey.setHbefaTrafficSituation(trafficSituation);
+			for (String warmPollutant : warmPollutants) {
+				situationKey.setHbefaComponent(warmPollutant);
+
+				HbefaWarmEmissionFactor factor = this.detailedHbefaWarmTable == null ? null : this.detailedHbefaWarmTable.get(situationKey);
+				if (factor != null) {
+					sources[index] = WarmEmissionFactors.DETAILED;
+				} else {
+					// once the average vehicle is used, it is also used for all further pollutants of the traffic situation
+					situationKey.setHbefaVehicleAttributes(new HbefaVehicleAttributes()); //want to check for average vehicle
+					factor = this.avgHbefaWarmTable.get(situationKey);
+					sources[index] = factor == null ? WarmEmissionFactors.MISSING : WarmEmissionFactors.AVERAGE;
+				}
+				factors[index] = factor == null ? Double.NaN : factor.getWarmEmissionFactor();
+				index++;
+			}
+		}
+		return new WarmEmissionFactors(efkey, vehicleInformationTuple.getSecond(), false, speeds, factors, sources);
+	}
+
 	private void incrementCounters(HbefaTrafficSituation trafficSituation, double linkLength_km) {
 
 		kmCounter = kmCounter + linkLength_km;
@@ -432,4 +561,35 @@ public final class WarmEmissionAnalysisModule {
 		return ecg;
 	}
 
+	/**
+	 * The warm emission factors of one road category and vehicle description, so that the lookup tables need not be queried
+	 * for each link leave event.
+	 */
+	private static final class WarmEmissionFactors {
+		private static final byte DETAILED = 0;
+		private static final byte AVERAGE = 1;
+		private static final byte MISSING = 2;
+
+		/** the key without traffic situation and pollutant */
+		private final HbefaWarmEmissionFactorKey key;
+		private final HbefaVehicleAttributes vehicleAttributes;
+		private final boolean zeroEmissionVehicle;
+		/** in km/h by traffic situation, <code>NaN</code> if not in the table; <code>null</code> if there is no free flow speed */
+		private final double[] speeds;
+		/** in g/km by traffic situation and pollutant */
+		private final double[] factors;
+		/** the table the factors are from */
+		private final byte[] sources;
+
+		WarmEmissionFactors(HbefaWarmEmissionFactorKey key, HbefaVehicleAttributes vehicleAttributes, boolean zeroEmissionVehicle,
+				double[] speeds, double[] factors, byte[] sources) {
+			this.key = key;
+			this.vehicleAttributes = vehicleAttributes;
+			this.zeroEmissionVehicle = zeroEmissionVehicle;
+			this.speeds = speeds;
+			this.factors = factors;
+			this.sources = sources;
+		}
+	}
+
 }
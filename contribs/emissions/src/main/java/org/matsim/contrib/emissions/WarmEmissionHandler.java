@@ -74,7 +74,7 @@ class WarmEmissionHandler implements LinkEnterEventHandler, LinkLeaveEventHandle
 
 		this.emissionVehicles = emissionVehicles;
 		this.network = network;
-		this.warmEmissionAnalysisModule = new WarmEmissionAnalysisModule(parameterObject, emissionEventsManager, emissionEfficiencyFactor);
+		this.warmEmissionAnalysisModule = new WarmEmissionAnalysisModule(parameterObject, emissionEventsManager, emissionEfficiencyFactor, network, emissionVehicles);
 		// add event handlers here and restrict the access outside the emission Module.  Amit Apr'17.
 		emissionEventsManager.addHandler(this);
 	}
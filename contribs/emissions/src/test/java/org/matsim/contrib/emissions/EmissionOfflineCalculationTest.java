@@ -0,0 +1,78 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EmissionOfflineCalculationTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.emissions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.contrib.emissions.events.ColdEmissionEvent;
+import org.matsim.contrib.emissions.events.WarmEmissionEvent;
+import org.matsim.contrib.emissions.utils.EmissionsConfigGroup;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/*
+ * test for EmissionOfflineCalculation
+ * the emission events have to be the same, and in the same order, as the ones of the emission module, for any number of threads
+ */
+
+public class EmissionOfflineCalculationTest {
+	private static final String configFile = "./test/input/org/matsim/contrib/emissions/config_detailed.xml";
+	private static final String eventsFile = "./test/input/org/matsim/contrib/emissions/5.events.xml.gz";
+
+	@Test
+	public final void testSameEmissionEventsAsEmissionModule() {
+		Config config = ConfigUtils.loadConfig(configFile, new EmissionsConfigGroup());
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EmissionModule emissionModule = new EmissionModule(scenario, eventsManager);
+		List<String> expected = collectEmissionEvents(emissionModule.getEmissionEventsManager());
+		new MatsimEventsReader(eventsManager).readFile(eventsFile);
+		Assert.assertFalse("no emission events in the test scenario", expected.isEmpty());
+
+		for (int numberOfThreads : new int[] {1, 3}) {
+			EventsManager emissionEventsManager = EventsUtils.createEventsManager();
+			List<String> actual = collectEmissionEvents(emissionEventsManager);
+			new EmissionOfflineCalculation(scenario, emissionEventsManager, numberOfThreads).readFile(eventsFile);
+			Assert.assertEquals("different emission events with " + numberOfThreads + " threads", expected, actual);
+		}
+	}
+
+	private static List<String> collectEmissionEvents(EventsManager eventsManager) {
+		List<String> emissionEvents = new ArrayList<>();
+		eventsManager.addHandler((BasicEventHandler) event -> {
+			if (event instanceof WarmEmissionEvent || event instanceof ColdEmissionEvent) {
+				emissionEvents.add(event.getAttributes().toString());
+			}
+		});
+		return emissionEvents;
+	}
+
+}
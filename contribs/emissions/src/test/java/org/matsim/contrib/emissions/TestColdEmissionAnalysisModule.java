@@ -27,12 +27,15 @@ import org.junit.Test;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.emissions.ColdEmissionAnalysisModule.ColdEmissionAnalysisModuleParameter;
+import org.matsim.contrib.emissions.events.ColdEmissionEventHandler;
 import org.matsim.contrib.emissions.utils.EmissionsConfigGroup;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 import org.matsim.vehicles.VehicleUtils;
+import org.matsim.vehicles.Vehicles;
 
 import static org.matsim.contrib.emissions.HbefaVehicleCategory.*;
 
@@ -232,6 +235,71 @@ public class TestColdEmissionAnalysisModule {
 		
 	}
 	
+	@Test
+	public void calculateColdEmissionsAndThrowEventTest_vehicleTypesResolvedAtConstruction() {
+		
+		/*
+		 * the module which resolves the vehicle types at construction must give the same emissions as the one which resolves
+		 * them per event
+		 */
+		
+		Map<HbefaColdEmissionFactorKey, HbefaColdEmissionFactor> avgHbefaColdTable = new HashMap<>();
+		Map<HbefaColdEmissionFactorKey, HbefaColdEmissionFactor> detailedHbefaColdTable = new HashMap<>();
+		fillAveragesTable( avgHbefaColdTable );
+		fillDetailedTable( detailedHbefaColdTable );
+		
+		EmissionsConfigGroup ecg = new EmissionsConfigGroup();
+		ecg.setUsingVehicleTypeIdAsVehicleDescription( true );
+		
+		Vehicles vehicles = VehicleUtils.createVehiclesContainer();
+		// detailed entry, average entry, no entry for the parking duration below, zero emission vehicle
+		VehicleType detailedVehicleType = vehicles.getFactory().createVehicleType( Id.create( passengercar + ";" + petrol_technology2 + ";" + leq14l_sizeClass + ";" + PC_P_Euro_1_emConcept, VehicleType.class ) );
+		VehicleType averageVehicleType = vehicles.getFactory().createVehicleType( Id.create( passengercar + ";" + petrol_technology + ";" + none_sizeClass + ";" + none_emConcept, VehicleType.class ) );
+		VehicleType zeroEmissionVehicleType = vehicles.getFactory().createVehicleType( Id.create( ZERO_EMISSION_VEHICLE + ";;;", VehicleType.class ) );
+		vehicles.addVehicleType( detailedVehicleType );
+		vehicles.addVehicleType( averageVehicleType );
+		vehicles.addVehicleType( zeroEmissionVehicleType );
+		
+		List<Map<String, Double>> expectedColdEmissions = new ArrayList<>();
+		EventsManager expectedEventsManager = EventsUtils.createEventsManager();
+		expectedEventsManager.addHandler( (ColdEmissionEventHandler) event -> expectedColdEmissions.add( event.getColdEmissions() ) );
+		ColdEmissionAnalysisModule ceam = new ColdEmissionAnalysisModule( new ColdEmissionAnalysisModuleParameter( avgHbefaColdTable, detailedHbefaColdTable, pollutants, ecg ), expectedEventsManager, null );
+		
+		List<Map<String, Double>> coldEmissions = new ArrayList<>();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler( (ColdEmissionEventHandler) event -> coldEmissions.add( event.getColdEmissions() ) );
+		ColdEmissionAnalysisModule resolvedCeam = new ColdEmissionAnalysisModule( new ColdEmissionAnalysisModuleParameter( avgHbefaColdTable, detailedHbefaColdTable, pollutants, ecg ), eventsManager, null, vehicles );
+		
+		Id<Link> linkId = Id.create( "link resolved", Link.class );
+		for ( VehicleType vehicleType : Arrays.asList( detailedVehicleType, averageVehicleType, zeroEmissionVehicleType ) ) {
+			Vehicle vehicle = vehicles.getFactory().createVehicle( Id.create( "vehicle " + vehicleType.getId(), Vehicle.class ), vehicleType );
+			ceam.calculateColdEmissionsAndThrowEvent( linkId, vehicle, startTime, parkingDuration, tableAccDistance );
+			resolvedCeam.calculateColdEmissionsAndThrowEvent( linkId, vehicle, startTime, parkingDuration, tableAccDistance );
+		}
+		Assert.assertEquals( detailedPetrolFactor, expectedColdEmissions.get( 0 ).get( "CO" ), MatsimTestUtils.EPSILON );
+		Assert.assertEquals( averagePetrolFactor, expectedColdEmissions.get( 1 ).get( "CO" ), MatsimTestUtils.EPSILON );
+		Assert.assertEquals( 0., expectedColdEmissions.get( 2 ).get( "CO" ), MatsimTestUtils.EPSILON );
+		Assert.assertEquals( expectedColdEmissions, coldEmissions );
+		
+		// no entry for a parking duration of two hours
+		Vehicle vehicle = vehicles.getFactory().createVehicle( Id.create( "vehicle missing", Vehicle.class ), detailedVehicleType );
+		String expectedMessage = null;
+		try {
+			ceam.calculateColdEmissionsAndThrowEvent( linkId, vehicle, startTime, 2 * 3600., tableAccDistance );
+		} catch ( RuntimeException e ) {
+			expectedMessage = e.getMessage();
+		}
+		Assert.assertNotNull( expectedMessage );
+		String message = null;
+		try {
+			resolvedCeam.calculateColdEmissionsAndThrowEvent( linkId, vehicle, startTime, 2 * 3600., tableAccDistance );
+		} catch ( RuntimeException e ) {
+			message = e.getMessage();
+		}
+		Assert.assertEquals( expectedMessage, message );
+		
+	}
+	
 	@Test
 	public void rescaleColdEmissionsTest() {
 		
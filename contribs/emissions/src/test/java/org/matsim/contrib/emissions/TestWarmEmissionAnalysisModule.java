@@ -22,8 +22,10 @@ package org.matsim.contrib.emissions;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.emissions.WarmEmissionAnalysisModule.WarmEmissionAnalysisModuleParameter;
 import org.matsim.contrib.emissions.utils.EmissionsConfigGroup;
@@ -33,6 +35,7 @@ import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 import org.matsim.vehicles.VehicleUtils;
+import org.matsim.vehicles.Vehicles;
 import org.matsim.vehicles.VehiclesFactory;
 
 import java.util.*;
@@ -754,6 +757,74 @@ public class TestWarmEmissionAnalysisModule {
 		//> ff speed - has been tested to throw runtime exceptions
 	}
 	
+	@Test
+	public void testCheckVehicleInfoAndCalculateWarmEmissions_indicesResolvedAtConstruction(){
+		//-- set up tables, event handler, parameters, module
+		setUp();
+
+		// the module which resolves road categories and vehicle types at construction must give the same results as the one which
+		// resolves them per event
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0., 0.));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000., 0.));
+		double linkLength = 1000.;
+		Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId("link resolved"), node1, node2, linkLength, petrolSpeedFf / 3.6, 1800, 1);
+		EmissionUtils.setHbefaRoadType(link, "URB");
+
+		Vehicles vehicles = VehicleUtils.createVehiclesContainer();
+		VehiclesFactory vehFac = vehicles.getFactory();
+		VehicleType petrolVehicleType = vehFac.createVehicleType(Id.create(passengercar + ";" + petrolTechnology + ";" + petrolSizeClass + ";" + petrolConcept, VehicleType.class));
+		VehicleType dieselVehicleType = vehFac.createVehicleType(Id.create(passengercar + ";" + dieselTechnology + ";" + dieselSizeClass + ";" + dieselConcept, VehicleType.class));
+		VehicleType hgvVehicleType = vehFac.createVehicleType(Id.create(HbefaVehicleCategory.HEAVY_GOODS_VEHICLE + ";" + petrolTechnology + ";" + petrolSizeClass + ";" + petrolConcept, VehicleType.class));
+		VehicleType zeroEmissionVehicleType = vehFac.createVehicleType(Id.create(HbefaVehicleCategory.ZERO_EMISSION_VEHICLE + ";;;", VehicleType.class));
+		vehicles.addVehicleType(petrolVehicleType);
+		vehicles.addVehicleType(dieselVehicleType);
+		vehicles.addVehicleType(hgvVehicleType);
+		vehicles.addVehicleType(zeroEmissionVehicleType);
+
+		EmissionsConfigGroup ecg = new EmissionsConfigGroup();
+		ecg.setUsingVehicleTypeIdAsVehicleDescription(true);
+		WarmEmissionAnalysisModuleParameter warmEmissionParameterObject = new WarmEmissionAnalysisModuleParameter(
+				avgHbefaWarmTable, detailedHbefaWarmTable, hbefaRoadTrafficSpeeds, pollutants, ecg);
+		WarmEmissionAnalysisModule resolvedWeam = new WarmEmissionAnalysisModule(warmEmissionParameterObject,
+				new HandlerToTestEmissionAnalysisModules(), null, network, vehicles);
+
+		// detailed entry
+		Vehicle petrolVehicle = vehFac.createVehicle(Id.create("veh petrol", Vehicle.class), petrolVehicleType);
+		warmEmissions = weam.checkVehicleInfoAndCalculateWarmEmissions(petrolVehicle, link, linkLength/petrolSpeedFf*3.6);
+		Assert.assertEquals(detailedPetrolFactorFf*linkLength/1000., warmEmissions.get("CO2(total)"), MatsimTestUtils.EPSILON);
+		Assert.assertEquals(warmEmissions, resolvedWeam.checkVehicleInfoAndCalculateWarmEmissions(petrolVehicle, link, linkLength/petrolSpeedFf*3.6));
+
+		// fall back on the average table
+		Vehicle dieselVehicle = vehFac.createVehicle(Id.create("veh diesel", Vehicle.class), dieselVehicleType);
+		warmEmissions = weam.checkVehicleInfoAndCalculateWarmEmissions(dieselVehicle, link, linkLength/dieselFreeVelocity*3.6);
+		Assert.assertEquals(avgPcFactorFf*linkLength/1000., warmEmissions.get("PM"), MatsimTestUtils.EPSILON);
+		Assert.assertEquals(warmEmissions, resolvedWeam.checkVehicleInfoAndCalculateWarmEmissions(dieselVehicle, link, linkLength/dieselFreeVelocity*3.6));
+
+		// no emission factor in any table
+		Vehicle hgvVehicle = vehFac.createVehicle(Id.create("veh hgv", Vehicle.class), hgvVehicleType);
+		String expectedMessage = null;
+		try{
+			weam.checkVehicleInfoAndCalculateWarmEmissions(hgvVehicle, link, linkLength/petrolSpeedFf*3.6);
+		}catch(RuntimeException e){
+			expectedMessage = e.getMessage();
+		}
+		Assert.assertNotNull(expectedMessage);
+		String message = null;
+		try{
+			resolvedWeam.checkVehicleInfoAndCalculateWarmEmissions(hgvVehicle, link, linkLength/petrolSpeedFf*3.6);
+		}catch(RuntimeException e){
+			message = e.getMessage();
+		}
+		Assert.assertEquals(expectedMessage, message);
+
+		// zero emission vehicle
+		Vehicle zeroEmissionVehicle = vehFac.createVehicle(Id.create("veh zero emission", Vehicle.class), zeroEmissionVehicleType);
+		warmEmissions = weam.checkVehicleInfoAndCalculateWarmEmissions(zeroEmissionVehicle, link, linkLength/petrolSpeedFf*3.6);
+		Assert.assertEquals(0., warmEmissions.get("CO2(total)"), MatsimTestUtils.EPSILON);
+		Assert.assertEquals(warmEmissions, resolvedWeam.checkVehicleInfoAndCalculateWarmEmissions(zeroEmissionVehicle, link, linkLength/petrolSpeedFf*3.6));
+	}
+
 	@Test 
 	public void rescaleWarmEmissionsTest() {
 		// can not use the setUp method here because the efficiency factor is not null
@@ -86,6 +86,7 @@ public final class NoiseConfigGroup extends ReflectiveConfigGroup {
 	private static final String CONSIDER_NOISE_BARRIERS = "considerNoiseBarriers";
 	private static final String NOISE_BARRIERS_GEOJSON_FILE = "noiseBarriersGeojsonPath";
 	private static final String NETWORK_MODES_TO_IGNORE = "networkModesToIgnore";
+	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 
     public NoiseConfigGroup() {
 		super(GROUP_NAME);
@@ -134,6 +135,8 @@ public final class NoiseConfigGroup extends ReflectiveConfigGroup {
 
 	private boolean considerNoiseBarriers = false;
     private String noiseBarriersFilePath = null;
+
+	private int numberOfThreads = 1;
     
     // ########################################################################################################
 	
@@ -189,6 +192,9 @@ public final class NoiseConfigGroup extends ReflectiveConfigGroup {
 
         comments.put(NETWORK_MODES_TO_IGNORE, "Specifies the network modes to be excluded from the noise computation, e.g. 'bike'.");
 
+		comments.put(NUMBER_OF_THREADS, "Number of threads over which the receiver points are distributed when computing immissions and damages per time bin. "
+				+ "The results do not depend on the number of threads. Default: 1");
+
 		return comments;
 	}
 
@@ -784,4 +790,14 @@ public final class NoiseConfigGroup extends ReflectiveConfigGroup {
         this.noiseBarriersFilePath = noiseBarriersFilePath;
     }
     
+	@StringGetter(NUMBER_OF_THREADS)
+	public int getNumberOfThreads() {
+		return this.numberOfThreads;
+	}
+
+	@StringSetter(NUMBER_OF_THREADS)
+	public void setNumberOfThreads(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 }
@@ -21,6 +21,7 @@ package org.matsim.contrib.noise;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.contrib.noise.data.NoiseContext;
 import org.matsim.contrib.noise.handler.LinkSpeedCalculation;
 import org.matsim.contrib.noise.handler.NoiseTimeTracker;
@@ -31,9 +32,18 @@ import org.matsim.core.controler.OutputDirectoryLogging;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
 import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.handler.BasicEventHandler;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * (1) Computes noise emissions, immissions, person activities and damages based on a standard events file.
@@ -45,6 +55,9 @@ import java.io.IOException;
 public class NoiseOfflineCalculation {
 	private static final Logger log = Logger.getLogger(NoiseOfflineCalculation.class);
 
+	private static final int EVENTS_PER_BATCH = 10000;
+	private static final int MAX_PENDING_BATCHES = 4;
+
 	private String outputDirectory;
 	private Scenario scenario;
 	
@@ -116,14 +129,17 @@ public class NoiseOfflineCalculation {
 		}
 		
 		log.info("Reading events file...");
-		MatsimEventsReader reader = new MatsimEventsReader(events);
 		String eventsFile;
 		if (this.scenario.getConfig().controler().getRunId() == null || this.scenario.getConfig().controler().getRunId().equals("")) {
 			eventsFile = this.scenario.getConfig().controler().getOutputDirectory() + "output_events.xml.gz";
 		} else {
 			eventsFile = this.scenario.getConfig().controler().getOutputDirectory() + this.scenario.getConfig().controler().getRunId() + ".output_events.xml.gz";
 		}
-		reader.readFile(eventsFile);
+		if (noiseContext.getNoiseParams().getNumberOfThreads() > 1) {
+			readFileInBatches(events, eventsFile);
+		} else {
+			new MatsimEventsReader(events).readFile(eventsFile);
+		}
 		log.info("Reading events file... Done.");
 		
 		timeTracker.computeFinalTimeIntervals();
@@ -135,6 +151,92 @@ public class NoiseOfflineCalculation {
 		
 	}
 
+	/**
+	 * Reads the events file on the calling thread and hands the events on in batches to another thread, which passes
+	 * them to the noise handlers while the next batch is read. The handlers get the events in the same order, and all
+	 * from one thread, as when reading the events file directly into their events manager.
+	 * <p>
+	 * The handlers cannot be split up by link, as the noise time tracker computes the immissions of all links together
+	 * at the end of each time interval; that computation itself uses the configured number of threads.
+	 */
+	private static void readFileInBatches(EventsManager events, String eventsFile) {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			BatchDistributor distributor = new BatchDistributor(events, executor);
+			EventsManager readEvents = EventsUtils.createEventsManager();
+			readEvents.addHandler(distributor);
+			new MatsimEventsReader(readEvents).readFile(eventsFile);
+			distributor.finish();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class BatchDistributor implements BasicEventHandler {
+		private final EventsManager events;
+		private final ExecutorService executor;
+		private final Deque<Future<?>> pendingBatches = new ArrayDeque<>();
+		private final long start = System.nanoTime();
+		private List<Event> batch = new ArrayList<>(EVENTS_PER_BATCH);
+		private long eventCounter = 0;
+		private long nextReport = EVENTS_PER_BATCH;
+
+		BatchDistributor(EventsManager events, ExecutorService executor) {
+			this.events = events;
+			this.executor = executor;
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			this.batch.add(event);
+			this.eventCounter++;
+			if (this.batch.size() == EVENTS_PER_BATCH) {
+				submitBatch();
+			}
+			if (this.eventCounter == this.nextReport) {
+				log.info("events # " + this.eventCounter + ", " + getEventsPerSecond() + " events/s");
+				this.nextReport *= 2;
+			}
+		}
+
+		void finish() {
+			submitBatch();
+			while (!this.pendingBatches.isEmpty()) {
+				waitFor(this.pendingBatches.removeFirst());
+			}
+			log.info(this.eventCounter + " events processed, " + getEventsPerSecond() + " events/s.");
+		}
+
+		private void submitBatch() {
+			List<Event> batchEvents = this.batch;
+			this.batch = new ArrayList<>(EVENTS_PER_BATCH);
+			this.pendingBatches.addLast(this.executor.submit(() -> {
+				for (Event event : batchEvents) {
+					this.events.processEvent(event);
+				}
+			}));
+			// do not read too far ahead of the handlers
+			while (this.pendingBatches.size() > MAX_PENDING_BATCHES) {
+				waitFor(this.pendingBatches.removeFirst());
+			}
+		}
+
+		private long getEventsPerSecond() {
+			double seconds = (System.nanoTime() - this.start) / 1e9;
+			return (long) (this.eventCounter / Math.max(seconds, 1e-9));
+		}
+
+		private static void waitFor(Future<?> future) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
 	public NoiseTimeTracker getTimeTracker() {
 		return timeTracker;
 	}
@@ -119,6 +119,29 @@ public final class NoiseEquations {
 		return resultingNoiseImmission;
 	}
 
+	/**
+	 * Same as {@link #calculateResultingNoiseImmission(Collection)} for the first <code>length</code> values of an array.
+	 */
+	public static double calculateResultingNoiseImmission (double[] isolatedImmissions, int length){
+
+		double resultingNoiseImmission = 0.;
+
+		if (length > 0) {
+			double sumTmp = 0.;
+			for (int i = 0; i < length; i++) {
+				double noiseImmission = isolatedImmissions[i];
+				if (noiseImmission > 0.) {
+					sumTmp = sumTmp + (Math.pow(10, (0.1 * noiseImmission)));
+				}
+			}
+			resultingNoiseImmission = 10 * Math.log10(sumTmp);
+			if (resultingNoiseImmission < 0) {
+				resultingNoiseImmission = 0.;
+			}
+		}
+		return resultingNoiseImmission;
+	}
+
 	public static double calculateLCar(double vCar) {
 
 		double lCar = 27.7 + (10 * Math.log10(1.0 + Math.pow(0.02 * vCar, 3.0)));
@@ -1,15 +1,15 @@
 package org.matsim.contrib.noise.handler;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.network.Link;
 
 /**
  * A class which holds some information needed for noise-computation during a timestep
+ * <p>
+ * The isolated immissions are stored in arrays which are aligned with the links of a
+ * {@link NoiseReceiverPointLinks}, i.e. entry <code>i</code> refers to the link with index <code>i</code>
+ * of the receiver point. One instance is reused for all receiver points processed by the same thread.
  * 
  * @author droeder / Senozon Deutschland GmbH
  *
@@ -19,41 +19,56 @@ final class NoiseReceiverPointImmision {
 	@SuppressWarnings("unused")
 	private static final Logger log = Logger.getLogger(NoiseReceiverPointImmision.class);
 	
-	private Map<Id<Link>, Double> linkId2IsolatedImmission = new HashMap<>(0);
-	private Map<Id<Link>, Double> linkId2IsolatedImmissionPlusOneCar = new HashMap<>(0);
-	private Map<Id<Link>, Double> linkId2IsolatedImmissionPlusOneHGV = new HashMap<>(0); 
+	private double[] isolatedImmission = new double[0];
+	private double[] isolatedImmissionPlusOneCar = new double[0];
+	private double[] isolatedImmissionPlusOneHGV = new double[0];
+	private int size = 0;
 
 	NoiseReceiverPointImmision() {
 
 	}
 
-	public Map<Id<Link>, Double> getLinkId2IsolatedImmission() {
-		return Collections.unmodifiableMap(linkId2IsolatedImmission);
+	/**
+	 * Prepares this object for a receiver point with <code>size</code> relevant links.
+	 */
+	void reset(int size) {
+		if (this.isolatedImmission.length < size) {
+			int capacity = Math.max(size, 2 * this.isolatedImmission.length);
+			this.isolatedImmission = new double[capacity];
+			this.isolatedImmissionPlusOneCar = new double[capacity];
+			this.isolatedImmissionPlusOneHGV = new double[capacity];
+		}
+		this.size = size;
 	}
 
-	public void setLinkId2IsolatedImmission(Id<Link> linkId, Double isolatedImmission) {
-		this.linkId2IsolatedImmission.put(linkId, isolatedImmission);
+	int size() {
+		return this.size;
 	}
-	
-	public Map<Id<Link>, Double> getLinkId2IsolatedImmissionPlusOneCar() {
-		return Collections.unmodifiableMap(linkId2IsolatedImmissionPlusOneCar);
+
+	double[] getIsolatedImmission() {
+		return this.isolatedImmission;
 	}
 
-	public void setLinkId2IsolatedImmissionPlusOneCar(
-			Map<Id<Link>, Double> linkId2IsolatedImmissionPlusOneCar) {
-		this.linkId2IsolatedImmissionPlusOneCar = linkId2IsolatedImmissionPlusOneCar;
+	double[] getIsolatedImmissionPlusOneCar() {
+		return this.isolatedImmissionPlusOneCar;
 	}
 
-	public Map<Id<Link>, Double> getLinkId2IsolatedImmissionPlusOneHGV() {
-		return Collections.unmodifiableMap(linkId2IsolatedImmissionPlusOneHGV);
+	double[] getIsolatedImmissionPlusOneHGV() {
+		return this.isolatedImmissionPlusOneHGV;
 	}
 
-	public void setLinkId2IsolatedImmissionPlusOneHGV(
-			Map<Id<Link>, Double> linkId2IsolatedImmissionPlusOneHGV) {
-		this.linkId2IsolatedImmissionPlusOneHGV = linkId2IsolatedImmissionPlusOneHGV;
+	void setIsolatedImmissions(int i, double isolatedImmission, double isolatedImmissionPlusOneCar, double isolatedImmissionPlusOneHGV) {
+		this.isolatedImmission[i] = isolatedImmission;
+		this.isolatedImmissionPlusOneCar[i] = isolatedImmissionPlusOneCar;
+		this.isolatedImmissionPlusOneHGV[i] = isolatedImmissionPlusOneHGV;
 	}
 
+	@Override
+	public String toString() {
+		return "NoiseReceiverPointImmision [isolatedImmission=" + Arrays.toString(Arrays.copyOf(this.isolatedImmission, this.size))
+				+ ", isolatedImmissionPlusOneCar=" + Arrays.toString(Arrays.copyOf(this.isolatedImmissionPlusOneCar, this.size))
+				+ ", isolatedImmissionPlusOneHGV=" + Arrays.toString(Arrays.copyOf(this.isolatedImmissionPlusOneHGV, this.size)) + "]";
+	}
 
 	////////////////////////////////////////////////////////////////////////////////
 }
-
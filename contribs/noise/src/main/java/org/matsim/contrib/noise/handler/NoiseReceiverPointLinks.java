@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NoiseReceiverPointLinks.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.noise.handler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.noise.data.NoiseReceiverPoint;
+
+/**
+ * The relevant links of a {@link NoiseReceiverPoint} and their correction terms, as parallel arrays.
+ * <p>
+ * The links are stored as indices into the link list of the {@link NoiseTimeTracker}, in ascending order.
+ * This avoids the map look-ups (and the boxing) in the immission computation which is done for every
+ * receiver point and time bin, and makes the order in which the link contributions are summed up reproducible.
+ */
+final class NoiseReceiverPointLinks {
+
+	private final int[] linkIndices;
+	private final double[] distanceCorrections;
+	private final double[] angleCorrections;
+	private final double[] shieldingCorrections;
+
+	NoiseReceiverPointLinks(NoiseReceiverPoint rp, Map<Id<Link>, Integer> linkId2index, boolean considerNoiseBarriers) {
+		// sorted by link index: the maps of the receiver point are filled concurrently, so their iteration order is not reproducible
+		List<Id<Link>> linkIds = new ArrayList<>(rp.getLinkId2distanceCorrection().keySet());
+		linkIds.sort(Comparator.comparing(linkId2index::get));
+
+		int size = linkIds.size();
+		this.linkIndices = new int[size];
+		this.distanceCorrections = new double[size];
+		this.angleCorrections = new double[size];
+		this.shieldingCorrections = new double[size];
+
+		for (int i = 0; i < size; i++) {
+			Id<Link> linkId = linkIds.get(i);
+			this.linkIndices[i] = linkId2index.get(linkId);
+			this.distanceCorrections[i] = rp.getLinkId2distanceCorrection().get(linkId);
+			this.angleCorrections[i] = rp.getLinkId2angleCorrection().get(linkId);
+			if (considerNoiseBarriers) {
+				this.shieldingCorrections[i] = rp.getLinkId2ShieldingCorrection().get(linkId);
+			}
+		}
+	}
+
+	int size() {
+		return this.linkIndices.length;
+	}
+
+	int getLinkIndex(int i) {
+		return this.linkIndices[i];
+	}
+
+	double getDistanceCorrection(int i) {
+		return this.distanceCorrections[i];
+	}
+
+	double getAngleCorrection(int i) {
+		return this.angleCorrections[i];
+	}
+
+	double getShieldingCorrection(int i) {
+		return this.shieldingCorrections[i];
+	}
+
+}
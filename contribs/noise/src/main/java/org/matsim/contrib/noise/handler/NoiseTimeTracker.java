@@ -23,11 +23,16 @@
 package org.matsim.contrib.noise.handler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -69,6 +74,7 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 
 	private static final Logger log = Logger.getLogger(NoiseTimeTracker.class);
 	private static final boolean printLog = false;
+	private static final int RECEIVER_POINTS_PER_TASK = 1000;
 	
 	@Inject
 	private NoiseContext noiseContext;
@@ -92,6 +98,12 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 	private int cWarn3 = 0;
 	private int cWarn4 = 0;
 
+	// array representation of the links and receiver points, see initializeArrays()
+	private List<Id<Link>> linkIds = null;
+	private boolean[] isTunnelLink;
+	private NoiseReceiverPoint[] receiverPoints;
+	private NoiseReceiverPointLinks[] receiverPointLinks;
+
 	@Override
 	public void handleEvent(TransitDriverStartsEvent event) {
 		
@@ -223,19 +235,7 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 		if (printLog) log.info("Calculating the number of affected agent units...");
 		if (printLog) log.info("Calculating noise damage costs...");
 
-		for(NoiseReceiverPoint rp : this.noiseContext.getReceiverPoints().values()) {
-			NoiseReceiverPointImmision immisions = calculateNoiseImmission(rp);
-			if (this.noiseContext.getNoiseParams().isComputePopulationUnits()) {
-				calculateAffectedAgentUnits(rp);
-				if (this.noiseContext.getNoiseParams().isComputeNoiseDamages()) {
-					calculateDamagePerReceiverPoint(rp);
-				}
-				if (this.noiseContext.getNoiseParams().isComputeCausingAgents()) {
-					computeAverageDamageCost(rp, immisions);
-					calculateMarginalDamageCost(rp, immisions);
-				}
-			}
-		}
+		calculateReceiverPoints();
 		calculateCostsPerVehiclePerLinkPerTimeInterval();
 		
 		finishNoiseDamageCosts();
@@ -256,6 +256,99 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 			
 	}
 		
+	private void initializeArrays() {
+		this.linkIds = new ArrayList<>(this.noiseContext.getScenario().getNetwork().getLinks().keySet());
+		Map<Id<Link>, Integer> linkId2index = new HashMap<>();
+		this.isTunnelLink = new boolean[this.linkIds.size()];
+		for (int i = 0; i < this.linkIds.size(); i++) {
+			linkId2index.put(this.linkIds.get(i), i);
+			this.isTunnelLink[i] = this.noiseContext.getNoiseParams().getTunnelLinkIDsSet().contains(this.linkIds.get(i));
+		}
+
+		boolean considerNoiseBarriers = this.noiseContext.getNoiseParams().isConsiderNoiseBarriers();
+		this.receiverPoints = this.noiseContext.getReceiverPoints().values().toArray(new NoiseReceiverPoint[0]);
+		this.receiverPointLinks = new NoiseReceiverPointLinks[this.receiverPoints.length];
+		for (int i = 0; i < this.receiverPoints.length; i++) {
+			this.receiverPointLinks[i] = new NoiseReceiverPointLinks(this.receiverPoints[i], linkId2index, considerNoiseBarriers);
+		}
+	}
+
+	/*
+	 * Immissions, affected agent units and damages per receiver point; the link-based costs are summed up in the order of the receiver points.
+	 * 
+	 * The receiver points are processed in blocks. With more than one thread, the blocks are distributed over a thread pool;
+	 * each block collects its contributions to the link-based costs and these are added to the noise links in the order of the blocks,
+	 * so the (floating point) sums are exactly the same as in the sequential computation.
+	 */
+	private void calculateReceiverPoints() {
+		if (this.linkIds == null) {
+			initializeArrays();
+		}
+
+		// after the emission computation, there is a noise link for each link of the network
+		NoiseLink[] noiseLinks = new NoiseLink[this.linkIds.size()];
+		for (int i = 0; i < noiseLinks.length; i++) {
+			noiseLinks[i] = this.noiseContext.getNoiseLinks().get(this.linkIds.get(i));
+		}
+
+		int numberOfThreads = this.noiseContext.getNoiseParams().getNumberOfThreads();
+		int numberOfReceiverPoints = this.receiverPoints.length;
+
+		if (numberOfThreads <= 1 || numberOfReceiverPoints <= RECEIVER_POINTS_PER_TASK) {
+			for (int from = 0; from < numberOfReceiverPoints; from += RECEIVER_POINTS_PER_TASK) {
+				int to = Math.min(from + RECEIVER_POINTS_PER_TASK, numberOfReceiverPoints);
+				calculateReceiverPoints(from, to, noiseLinks).addTo(noiseLinks);
+			}
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<LinkCostContributions>> results = new ArrayList<>();
+			for (int from = 0; from < numberOfReceiverPoints; from += RECEIVER_POINTS_PER_TASK) {
+				final int fromIndex = from;
+				final int toIndex = Math.min(from + RECEIVER_POINTS_PER_TASK, numberOfReceiverPoints);
+				results.add(executor.submit(() -> calculateReceiverPoints(fromIndex, toIndex, noiseLinks)));
+			}
+			for (Future<LinkCostContributions> result : results) {
+				result.get().addTo(noiseLinks);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * Processes the receiver points with index from (inclusive) to (exclusive).
+	 * Only the receiver points themselves are modified; the contributions to the noise links are returned.
+	 */
+	private LinkCostContributions calculateReceiverPoints(int from, int to, NoiseLink[] noiseLinks) {
+		NoiseConfigGroup noiseParams = this.noiseContext.getNoiseParams();
+		NoiseReceiverPointImmision immisions = new NoiseReceiverPointImmision();
+		LinkCostContributions contributions = new LinkCostContributions();
+
+		for (int i = from; i < to; i++) {
+			NoiseReceiverPoint rp = this.receiverPoints[i];
+			NoiseReceiverPointLinks links = this.receiverPointLinks[i];
+			calculateNoiseImmission(rp, links, noiseLinks, immisions);
+			if (noiseParams.isComputePopulationUnits()) {
+				calculateAffectedAgentUnits(rp);
+				if (noiseParams.isComputeNoiseDamages()) {
+					calculateDamagePerReceiverPoint(rp);
+				}
+				if (noiseParams.isComputeCausingAgents()) {
+					calculateCostSharesPerLinkPerTimeInterval(rp, links, immisions, contributions);
+					calculateMarginalDamageCost(rp, links, immisions, contributions);
+				}
+			}
+		}
+		return contributions;
+	}
+
 	private boolean writeOutput() {
 		if (this.noiseContext.getNoiseParams().getWriteOutputIteration() == 0) {
 			return false;
@@ -432,51 +525,22 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 	/*
 	 * Noise allocation approach: AverageCost
 	 */
-	private void computeAverageDamageCost(NoiseReceiverPoint rp, NoiseReceiverPointImmision immisions) {
-		calculateCostSharesPerLinkPerTimeInterval(rp, immisions);
-//		calculateCostsPerVehiclePerLinkPerTimeInterval();
-	}
-
-	/*
-	 * Noise allocation approach: AverageCost
-	 */
-	private void calculateCostSharesPerLinkPerTimeInterval(NoiseReceiverPoint rp, NoiseReceiverPointImmision immisions) {
+	private void calculateCostSharesPerLinkPerTimeInterval(NoiseReceiverPoint rp, NoiseReceiverPointLinks links, NoiseReceiverPointImmision immisions, LinkCostContributions contributions) {
 		
-		Map<Id<Link>, Double> linkId2costShare = new HashMap<Id<Link>, Double>();
-
-//		for (NoiseReceiverPoint rp : this.noiseContext.getReceiverPoints().values()) {
-										
-							
-			if (rp.getDamageCosts() != 0.) {
-				for (Id<Link> linkId : immisions.getLinkId2IsolatedImmission().keySet()) {
-										
-					double noiseImmission = immisions.getLinkId2IsolatedImmission().get(linkId);
-					double costs = 0.;
-						
-					if (!(noiseImmission == 0.)) {
-						double costShare = NoiseEquations.calculateShareOfResultingNoiseImmission(noiseImmission, rp.getFinalImmission());
-						costs = costShare * rp.getDamageCosts();	
-					}
-					linkId2costShare.put(linkId, costs);
-				}
-			}
-			
-//		}
-		
-		// summing up the link-based costs
-//		for (NoiseReceiverPoint rp : this.noiseContext.getReceiverPoints().values()) {
-
-			if (rp.getDamageCosts() != 0.) {
+		if (rp.getDamageCosts() != 0.) {
+			double[] isolatedImmission = immisions.getIsolatedImmission();
+			for (int i = 0; i < links.size(); i++) {
+				
+				double noiseImmission = isolatedImmission[i];
+				double costs = 0.;
 				
-				for (Id<Link> linkId : rp.getLinkId2distanceCorrection().keySet()) {
-					NoiseLink noiseLink = this.noiseContext.getNoiseLinks().get(linkId); 
-					if ( noiseLink != null) {
-						double sum = noiseLink.getDamageCost() + linkId2costShare.get(linkId);
-						noiseLink.setDamageCost(sum);
-					}		
+				if (!(noiseImmission == 0.)) {
+					double costShare = NoiseEquations.calculateShareOfResultingNoiseImmission(noiseImmission, rp.getFinalImmission());
+					costs = costShare * rp.getDamageCosts();	
 				}
+				contributions.addDamageCost(links.getLinkIndex(i), costs);
 			}
-//		}
+		}
 	}
 
 	/*
@@ -569,14 +633,15 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 	/*
 	 * Noise allocation approach: MarginalCost
 	 */
-	private void calculateMarginalDamageCost(NoiseReceiverPoint rp, NoiseReceiverPointImmision immision) {
-//		for (NoiseReceiverPoint rp : this.noiseContext.getReceiverPoints().values()) {
+	private void calculateMarginalDamageCost(NoiseReceiverPoint rp, NoiseReceiverPointLinks links, NoiseReceiverPointImmision immision, LinkCostContributions contributions) {
 
 			if (rp.getAffectedAgentUnits() != 0.) {
-				for (Id<Link> thisLink : immision.getLinkId2IsolatedImmission().keySet()) {
+				for (int i = 0; i < links.size(); i++) {
+					int thisLinkIndex = links.getLinkIndex(i);
+					Id<Link> thisLink = this.linkIds.get(thisLinkIndex);
 										
-					double noiseImmissionPlusOneCarThisLink = NoiseEquations.calculateResultingNoiseImmissionPlusOneVehicle(rp.getFinalImmission(), immision.getLinkId2IsolatedImmission().get(thisLink), immision.getLinkId2IsolatedImmissionPlusOneCar().get(thisLink));
-					double noiseImmissionPlusOneHGVThisLink = NoiseEquations.calculateResultingNoiseImmissionPlusOneVehicle(rp.getFinalImmission(), immision.getLinkId2IsolatedImmission().get(thisLink), immision.getLinkId2IsolatedImmissionPlusOneHGV().get(thisLink));
+					double noiseImmissionPlusOneCarThisLink = NoiseEquations.calculateResultingNoiseImmissionPlusOneVehicle(rp.getFinalImmission(), immision.getIsolatedImmission()[i], immision.getIsolatedImmissionPlusOneCar()[i]);
+					double noiseImmissionPlusOneHGVThisLink = NoiseEquations.calculateResultingNoiseImmissionPlusOneVehicle(rp.getFinalImmission(), immision.getIsolatedImmission()[i], immision.getIsolatedImmissionPlusOneHGV()[i]);
 					
 					double damageCostsPlusOneCarThisLink = NoiseEquations.calculateDamageCosts(noiseImmissionPlusOneCarThisLink, rp.getAffectedAgentUnits(), this.noiseContext.getCurrentTimeBinEndTime(), this.noiseContext.getNoiseParams().getAnnualCostRate(), this.noiseContext.getNoiseParams().getTimeBinSizeNoiseComputation());
 					double marginalDamageCostCarThisLink = (damageCostsPlusOneCarThisLink - rp.getDamageCosts()) / this.noiseContext.getNoiseParams().getScaleFactor();
@@ -615,15 +680,9 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 							marginalDamageCostHGVThisLink = 0.;
 						}
 					}
-					NoiseLink noiseLink = this.noiseContext.getNoiseLinks().get(thisLink);
-					double marginalDamageCostCarSum = noiseLink.getMarginalDamageCostPerCar() + marginalDamageCostCarThisLink;
-					noiseLink.setMarginalDamageCostPerCar(marginalDamageCostCarSum);
-					
-					double marginalDamageCostHGVSum = noiseLink.getMarginalDamageCostPerHgv() + marginalDamageCostHGVThisLink;
-					noiseLink.setMarginalDamageCostPerHgv(marginalDamageCostHGVSum);
+					contributions.addMarginalDamageCost(thisLinkIndex, marginalDamageCostCarThisLink, marginalDamageCostHGVThisLink);
 				}			
 			}	
-//		}
 	}
 
 	private void throwNoiseEventsCaused() {
@@ -698,86 +757,64 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 	/*
 	 * Immission
 	 */
-	private NoiseReceiverPointImmision calculateNoiseImmission(NoiseReceiverPoint rp) {
-		NoiseConfigGroup noiseParams = this.noiseContext.getNoiseParams();
-		NoiseReceiverPointImmision immision = new NoiseReceiverPointImmision();
+	private void calculateNoiseImmission(NoiseReceiverPoint rp, NoiseReceiverPointLinks links, NoiseLink[] noiseLinks, NoiseReceiverPointImmision immision) {
+		immision.reset(links.size());
 		
-//		for (NoiseReceiverPoint rp : this.noiseContext.getReceiverPoints().values()) {
-					
-//			Map<Id<Link>, Double> linkId2isolatedImmission = new HashMap<Id<Link>, Double>();
-			Map<Id<Link>, Double> linkId2isolatedImmissionPlusOneCar = new HashMap<Id<Link>, Double>();
-			Map<Id<Link>, Double> linkId2isolatedImmissionPlusOneHGV = new HashMap<Id<Link>, Double>();
-			
-			for(Id<Link> linkId : rp.getLinkId2distanceCorrection().keySet()) {
-				double distanceCorrection = rp.getLinkId2distanceCorrection().get(linkId);
-				double angleCorrection = rp.getLinkId2angleCorrection().get(linkId);
-				double shieldingCorrection = 0.;
-				if(noiseParams.isConsiderNoiseBarriers()) {
-					shieldingCorrection = rp.getLinkId2ShieldingCorrection().get(linkId);
-				}
+		for (int i = 0; i < links.size(); i++) {
+			int linkIndex = links.getLinkIndex(i);
+			double distanceCorrection = links.getDistanceCorrection(i);
+			double angleCorrection = links.getAngleCorrection(i);
+			double shieldingCorrection = links.getShieldingCorrection(i);
 
-				if (noiseParams.getTunnelLinkIDsSet().contains(linkId)) {
-					immision.setLinkId2IsolatedImmission(linkId, 0.);
-					linkId2isolatedImmissionPlusOneCar.put(linkId, 0.);
-					linkId2isolatedImmissionPlusOneHGV.put(linkId, 0.);
-								 			
-			 	} else {
-				
-			 		double noiseImmission = 0.;
-			 		double noiseImmissionPlusOneCar = 0.;
-			 		double noiseImmissionPlusOneHGV = 0.;
-			 		NoiseLink noiseLink = this.noiseContext.getNoiseLinks().get(linkId);
-			 		if (noiseLink != null) {
-						if (!(noiseLink.getEmission() == 0.)) {
-							noiseImmission = noiseLink.getEmission()
-									+ distanceCorrection + angleCorrection - shieldingCorrection;
-							
-							if (noiseImmission < 0.) {
-								noiseImmission = 0.;
-							}
-						}
+			if (this.isTunnelLink[linkIndex]) {
+				immision.setIsolatedImmissions(i, 0., 0., 0.);
+							 			
+		 	} else {
+			
+		 		double noiseImmission = 0.;
+		 		double noiseImmissionPlusOneCar = 0.;
+		 		double noiseImmissionPlusOneHGV = 0.;
+		 		NoiseLink noiseLink = noiseLinks[linkIndex];
+		 		if (noiseLink != null) {
+					if (!(noiseLink.getEmission() == 0.)) {
+						noiseImmission = noiseLink.getEmission()
+								+ distanceCorrection + angleCorrection - shieldingCorrection;
 						
-						if (!(noiseLink.getEmissionPlusOneCar() == 0.)) {
-							noiseImmissionPlusOneCar = noiseLink.getEmissionPlusOneCar()
-									+ distanceCorrection + angleCorrection - shieldingCorrection;
-							
-							if (noiseImmissionPlusOneCar < 0.) {
-								noiseImmissionPlusOneCar = 0.;
-							}
+						if (noiseImmission < 0.) {
+							noiseImmission = 0.;
 						}
+					}
+					
+					if (!(noiseLink.getEmissionPlusOneCar() == 0.)) {
+						noiseImmissionPlusOneCar = noiseLink.getEmissionPlusOneCar()
+								+ distanceCorrection + angleCorrection - shieldingCorrection;
 						
-						if (!(noiseLink.getEmissionPlusOneHGV() == 0.)) {
-							noiseImmissionPlusOneHGV = noiseLink.getEmissionPlusOneHGV()
-									+ distanceCorrection + angleCorrection - shieldingCorrection;
-							
-							if (noiseImmissionPlusOneHGV < 0.) {
-								noiseImmissionPlusOneHGV = 0.;
-							}
+						if (noiseImmissionPlusOneCar < 0.) {
+							noiseImmissionPlusOneCar = 0.;
 						}
-
 					}
-			 		
-			 		if (noiseImmissionPlusOneCar < noiseImmission || noiseImmissionPlusOneHGV < noiseImmission) {
-						throw new RuntimeException("noise immission: " + noiseImmission + " - noise immission plus one car: " + noiseImmissionPlusOneCar + " - noise immission plus one hgv: " + noiseImmissionPlusOneHGV + ". This should not happen. Aborting..."); 
+					
+					if (!(noiseLink.getEmissionPlusOneHGV() == 0.)) {
+						noiseImmissionPlusOneHGV = noiseLink.getEmissionPlusOneHGV()
+								+ distanceCorrection + angleCorrection - shieldingCorrection;
+						
+						if (noiseImmissionPlusOneHGV < 0.) {
+							noiseImmissionPlusOneHGV = 0.;
+						}
 					}
-			 		
-			 		immision.setLinkId2IsolatedImmission(linkId, noiseImmission);
-					linkId2isolatedImmissionPlusOneCar.put(linkId, noiseImmissionPlusOneCar);
-					linkId2isolatedImmissionPlusOneHGV.put(linkId, noiseImmissionPlusOneHGV);
-			 	}
-			}
-			
-			double finalNoiseImmission = 0.;
-			Map<Id<Link>, Double> linkId2isolatedImmission = immision.getLinkId2IsolatedImmission();
-			if (linkId2isolatedImmission != null && !linkId2isolatedImmission.isEmpty()) {
-				finalNoiseImmission = NoiseEquations.calculateResultingNoiseImmission(linkId2isolatedImmission.values());
-			}
-			
-			rp.setFinalImmission(finalNoiseImmission);
-			immision.setLinkId2IsolatedImmissionPlusOneCar(linkId2isolatedImmissionPlusOneCar);
-			immision.setLinkId2IsolatedImmissionPlusOneHGV(linkId2isolatedImmissionPlusOneHGV);
-			return immision;
-//		}
+
+				}
+		 		
+		 		if (noiseImmissionPlusOneCar < noiseImmission || noiseImmissionPlusOneHGV < noiseImmission) {
+					throw new RuntimeException("noise immission: " + noiseImmission + " - noise immission plus one car: " + noiseImmissionPlusOneCar + " - noise immission plus one hgv: " + noiseImmissionPlusOneHGV + ". This should not happen. Aborting..."); 
+				}
+		 		
+		 		immision.setIsolatedImmissions(i, noiseImmission, noiseImmissionPlusOneCar, noiseImmissionPlusOneHGV);
+		 	}
+		}
+		
+		double finalNoiseImmission = NoiseEquations.calculateResultingNoiseImmission(immision.getIsolatedImmission(), immision.size());
+		rp.setFinalImmission(finalNoiseImmission);
 	}
 	
 	/*
@@ -961,6 +998,7 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 
 	public void setNoiseContext(NoiseContext noiseContext) {
 		this.noiseContext = noiseContext;
+		this.linkIds = null;
 	}
 
 	public void setEvents(EventsManager events) {
@@ -982,4 +1020,63 @@ public class NoiseTimeTracker implements VehicleEntersTrafficEventHandler, Perso
 	
 	
 	
+	/**
+	 * The contributions of a block of receiver points to the link-based damage costs, in the order in which
+	 * they were computed. Adding them to the noise links block by block gives the same sums as adding them
+	 * directly in the sequential computation.
+	 */
+	private static final class LinkCostContributions {
+
+		private int[] damageCostLinks = new int[16];
+		private double[] damageCosts = new double[16];
+		private int damageCostSize = 0;
+
+		private int[] marginalDamageCostLinks = new int[16];
+		private double[] marginalDamageCostsCar = new double[16];
+		private double[] marginalDamageCostsHgv = new double[16];
+		private int marginalDamageCostSize = 0;
+
+		void addDamageCost(int linkIndex, double damageCost) {
+			if (this.damageCostSize == this.damageCostLinks.length) {
+				int capacity = 2 * this.damageCostSize;
+				this.damageCostLinks = Arrays.copyOf(this.damageCostLinks, capacity);
+				this.damageCosts = Arrays.copyOf(this.damageCosts, capacity);
+			}
+			this.damageCostLinks[this.damageCostSize] = linkIndex;
+			this.damageCosts[this.damageCostSize] = damageCost;
+			this.damageCostSize++;
+		}
+
+		void addMarginalDamageCost(int linkIndex, double marginalDamageCostCar, double marginalDamageCostHgv) {
+			if (this.marginalDamageCostSize == this.marginalDamageCostLinks.length) {
+				int capacity = 2 * this.marginalDamageCostSize;
+				this.marginalDamageCostLinks = Arrays.copyOf(this.marginalDamageCostLinks, capacity);
+				this.marginalDamageCostsCar = Arrays.copyOf(this.marginalDamageCostsCar, capacity);
+				this.marginalDamageCostsHgv = Arrays.copyOf(this.marginalDamageCostsHgv, capacity);
+			}
+			this.marginalDamageCostLinks[this.marginalDamageCostSize] = linkIndex;
+			this.marginalDamageCostsCar[this.marginalDamageCostSize] = marginalDamageCostCar;
+			this.marginalDamageCostsHgv[this.marginalDamageCostSize] = marginalDamageCostHgv;
+			this.marginalDamageCostSize++;
+		}
+
+		void addTo(NoiseLink[] noiseLinks) {
+			for (int i = 0; i < this.damageCostSize; i++) {
+				NoiseLink noiseLink = noiseLinks[this.damageCostLinks[i]];
+				if (noiseLink != null) {
+					double sum = noiseLink.getDamageCost() + this.damageCosts[i];
+					noiseLink.setDamageCost(sum);
+				}
+			}
+			for (int i = 0; i < this.marginalDamageCostSize; i++) {
+				NoiseLink noiseLink = noiseLinks[this.marginalDamageCostLinks[i]];
+				double marginalDamageCostCarSum = noiseLink.getMarginalDamageCostPerCar() + this.marginalDamageCostsCar[i];
+				noiseLink.setMarginalDamageCostPerCar(marginalDamageCostCarSum);
+				
+				double marginalDamageCostHGVSum = noiseLink.getMarginalDamageCostPerHgv() + this.marginalDamageCostsHgv[i];
+				noiseLink.setMarginalDamageCostPerHgv(marginalDamageCostHGVSum);
+			}
+		}
+	}
+
 }
@@ -1152,6 +1152,71 @@ public class NoiseIT {
 		}
 	 }
 	
+	// same scenario as test 2a, computed with one and with several threads; the results must not depend on the number of threads
+	@Test
+	public final void test2d(){
+		
+		// start a simple MATSim run with a single iteration
+		String configFile = testUtils.getPackageInputDirectory() + "NoiseTest/config2.xml";
+		Controler controler = new Controler(configFile);
+		controler.getConfig().controler().setOutputDirectory(testUtils.getOutputDirectory());
+		controler.getConfig().controler().setOverwriteFileSetting(OutputDirectoryHierarchy.OverwriteFileSetting.deleteDirectoryIfExists );
+		controler.run();
+		
+		String runDirectory = controler.getConfig().controler().getOutputDirectory() + "/";
+		int lastIteration = controler.getConfig().controler().getLastIteration();
+		
+		NoiseOfflineCalculation sequential = runOfflineNoiseCalculation(runDirectory, lastIteration, 1);
+		NoiseOfflineCalculation parallel = runOfflineNoiseCalculation(runDirectory, lastIteration, 4);
+		
+		// a small receiver point gap, so the receiver points are distributed over several blocks
+		Assert.assertTrue("Too few receiver points to test the parallel computation.", sequential.getNoiseContext().getReceiverPoints().size() > 4000);
+		Assert.assertEquals("Wrong total caused noise cost.", sequential.getTimeTracker().getTotalCausedNoiseCost(), parallel.getTimeTracker().getTotalCausedNoiseCost(), 0.);
+		Assert.assertEquals("Wrong total affected noise cost.", sequential.getTimeTracker().getTotalAffectedNoiseCost(), parallel.getTimeTracker().getTotalAffectedNoiseCost(), 0.);
+		
+		List<NoiseEventCaused> causedSequential = sequential.getTimeTracker().getNoiseEventsCaused();
+		List<NoiseEventCaused> causedParallel = parallel.getTimeTracker().getNoiseEventsCaused();
+		Assert.assertTrue("No noise event caused found to be tested.", causedSequential.size() > 0);
+		Assert.assertEquals("Wrong number of noise events caused.", causedSequential.size(), causedParallel.size());
+		for (int i = 0; i < causedSequential.size(); i++) {
+			Assert.assertEquals("Wrong causing vehicle.", causedSequential.get(i).getCausingVehicleId(), causedParallel.get(i).getCausingVehicleId());
+			Assert.assertEquals("Wrong amount.", causedSequential.get(i).getAmount(), causedParallel.get(i).getAmount(), 0.);
+		}
+		
+		List<NoiseEventAffected> affectedSequential = sequential.getTimeTracker().getNoiseEventsAffected();
+		List<NoiseEventAffected> affectedParallel = parallel.getTimeTracker().getNoiseEventsAffected();
+		Assert.assertTrue("No noise event affected found to be tested.", affectedSequential.size() > 0);
+		Assert.assertEquals("Wrong number of noise events affected.", affectedSequential.size(), affectedParallel.size());
+		for (int i = 0; i < affectedSequential.size(); i++) {
+			Assert.assertEquals("Wrong affected agent.", affectedSequential.get(i).getAffectedAgentId(), affectedParallel.get(i).getAffectedAgentId());
+			Assert.assertEquals("Wrong amount.", affectedSequential.get(i).getAmount(), affectedParallel.get(i).getAmount(), 0.);
+		}
+	}
+	
+	private static NoiseOfflineCalculation runOfflineNoiseCalculation(String runDirectory, int lastIteration, int numberOfThreads) {
+		Config config = ConfigUtils.createConfig(new NoiseConfigGroup());
+		config.network().setInputFile(runDirectory + "output_network.xml.gz");
+		config.plans().setInputFile(runDirectory + "output_plans.xml.gz");
+		config.controler().setOutputDirectory(runDirectory);
+		config.controler().setLastIteration(lastIteration);
+		
+		NoiseConfigGroup noiseParameters = (NoiseConfigGroup) config.getModule("noise");
+		noiseParameters.setReceiverPointGap(10.);
+		
+		String[] consideredActivities = {"home", "work"};
+		noiseParameters.setConsideredActivitiesForDamageCalculationArray(consideredActivities);
+		
+		noiseParameters.setScaleFactor(1.);
+		noiseParameters.setUseActualSpeedLevel(false);
+		noiseParameters.setAllowForSpeedsOutsideTheValidRange(true);
+		noiseParameters.setNumberOfThreads(numberOfThreads);
+		
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		NoiseOfflineCalculation noiseCalculation = new NoiseOfflineCalculation(scenario, runDirectory);
+		noiseCalculation.run();
+		return noiseCalculation;
+	}
+	
 	// tests the static methods within class "noiseEquations"
 	@Test
 	public final void test3(){
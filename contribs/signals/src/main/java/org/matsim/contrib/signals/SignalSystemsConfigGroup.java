@@ -19,6 +19,8 @@
  * *********************************************************************** */
 package org.matsim.contrib.signals;
 
+import java.util.Map;
+
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ReflectiveConfigGroup;
 
@@ -43,6 +45,7 @@ public final class SignalSystemsConfigGroup extends ReflectiveConfigGroup {
 	public static final String USE_INTERGREEN_TIMES = "useIntergreentimes";
 	public static final String ACTION_ON_INTERGREEN_VIOLATION = "actionOnIntergreenViolation";
 	public static final String ACTION_ON_CONFLICTING_DIRECTION_VIOLATION = "actionOnConflictingDirectionViolation";
+	public static final String USE_EVENT_DRIVEN_CONTROL_UPDATES = "useEventDrivenControlUpdates";
 	public enum ActionOnSignalSpecsViolation{
 		WARN, EXCEPTION
 	}
@@ -69,11 +72,21 @@ public final class SignalSystemsConfigGroup extends ReflectiveConfigGroup {
 	private IntersectionLogic intersectionLogic = IntersectionLogic.NONE;
 	private ActionOnSignalSpecsViolation actionOnIntergreenViolation = ActionOnSignalSpecsViolation.WARN;
 	private ActionOnSignalSpecsViolation actionOnConflictingDirectionViolation = ActionOnSignalSpecsViolation.WARN;
+	private boolean useEventDrivenControlUpdates = false;
 	
 	public SignalSystemsConfigGroup() {
 		super(GROUP_NAME);
 	}
 
+	@Override
+	public Map<String, String> getComments() {
+		Map<String, String> map = super.getComments();
+		map.put(USE_EVENT_DRIVEN_CONTROL_UPDATES, "If true, a signal system is only updated when its controller or a pending state change requires it, "
+				+ "instead of in every time step. Fixed-time controllers announce their next onset or dropping, adaptive ones are "
+				+ "still updated in every time step. Default is false.");
+		return map;
+	}
+
 	@Override
 	protected void checkConsistency(Config config) {
 		if ((this.signalSystemFile == null) && (this.signalControlFile != null)) {
@@ -221,5 +234,15 @@ public final class SignalSystemsConfigGroup extends ReflectiveConfigGroup {
 	public void setIntersectionLogic(IntersectionLogic intersectionLogic) {
 		this.intersectionLogic = intersectionLogic;
 	}
+
+	@StringGetter( USE_EVENT_DRIVEN_CONTROL_UPDATES )
+	public boolean isUseEventDrivenControlUpdates() {
+		return this.useEventDrivenControlUpdates;
+	}
+
+	@StringSetter( USE_EVENT_DRIVEN_CONTROL_UPDATES )
+	public void setUseEventDrivenControlUpdates(boolean useEventDrivenControlUpdates) {
+		this.useEventDrivenControlUpdates = useEventDrivenControlUpdates;
+	}
 }
 
@@ -147,7 +147,8 @@ class FromDataBuilder implements Provider<SignalSystemsManager>{
 	@Override
 	public SignalSystemsManager get() {
 		// 1.) SignalSystemsManager
-		SignalSystemsManager manager = new SignalSystemsManagerImpl(signalsData, events);
+		SignalSystemsManager manager = new SignalSystemsManagerImpl(signalsData, events,
+				ConfigUtils.addOrGetModule(this.scenario.getConfig(), SignalSystemsConfigGroup.GROUP_NAME, SignalSystemsConfigGroup.class).isUseEventDrivenControlUpdates());
 		// 2.) SignalSystems
 		this.createAndAddSignalSystemsFromData(manager);
 		// 3.) Signals then SignalGroups then SignalController
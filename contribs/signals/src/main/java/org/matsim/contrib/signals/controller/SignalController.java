@@ -37,6 +37,20 @@ public interface SignalController {
 	 */
 	public void updateState(double timeSeconds);
 
+	/**
+	 * Is used if the signal systems are only updated when they are due (see
+	 * {@link org.matsim.contrib.signals.SignalSystemsConfigGroup#isUseEventDrivenControlUpdates()}):
+	 * controllers that know their next state change in advance, e.g. fixed-time controllers, return its time here.
+	 * The default is to be updated in every time step, which is what adaptive controllers need.
+	 * 
+	 * @param timeSeconds the time of the last call of {@link #updateState(double)}
+	 * @return the time at which {@link #updateState(double)} should be called next. A time not after
+	 * <code>timeSeconds</code> means the next time step.
+	 */
+	public default double getNextUpdateTime(double timeSeconds) {
+		return timeSeconds;
+	}
+
 	public void addPlan(SignalPlan plan);
 
 	public void simulationInitialized(double simStartTimeSeconds);
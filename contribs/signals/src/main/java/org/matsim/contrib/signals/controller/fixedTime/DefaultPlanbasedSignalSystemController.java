@@ -82,6 +82,16 @@ public class DefaultPlanbasedSignalSystemController extends AbstractSignalContro
 		}
 	}
 	
+	@Override
+	public double getNextUpdateTime(double timeSeconds) {
+		// the next plan check, or the next onset or dropping of the active plan
+		double next = this.nextActivePlanCheckTime;
+		if (this.activePlan != null) {
+			next = Math.min(next, this.activePlan.getNextOnsetOrDroppingTime(timeSeconds));
+		}
+		return next;
+	}
+	
 	private void processOnsetGroupIds(double timeSeconds, List<Id<SignalGroup>> onsetGroupIds) {
 		if (onsetGroupIds != null){
 			for (Id<SignalGroup> id : onsetGroupIds){
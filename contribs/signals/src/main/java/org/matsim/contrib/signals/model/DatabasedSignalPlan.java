@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.contrib.signals.data.signalgroups.v20.SignalGroupSettingsData;
@@ -42,6 +44,9 @@ public class DatabasedSignalPlan implements SignalPlan {
 	private Map<Integer, List<Id<SignalGroup>>> secondInPlanOnsetsMap = new HashMap<>();
 
 	private Map<Integer, List<Id<SignalGroup>>> secondInPlanDroppingsMap = new HashMap<>();
+
+	/** the seconds in plan with onsets or droppings, sorted */
+	private int[] secondsInPlanWithChanges;
 	
 	public DatabasedSignalPlan(SignalPlanData planData) {
 		this.data = planData;
@@ -82,6 +87,9 @@ public class DatabasedSignalPlan implements SignalPlan {
 				droppingSgIds.add(sgdata.getSignalGroupId());
 			}
 		}
+		Set<Integer> secondsWithChanges = new TreeSet<>(this.secondInPlanOnsetsMap.keySet());
+		secondsWithChanges.addAll(this.secondInPlanDroppingsMap.keySet());
+		this.secondsInPlanWithChanges = secondsWithChanges.stream().mapToInt(Integer::intValue).toArray();
 	}
 
 	private int getPositiveModuloByCycleTime(int dividend) {
@@ -104,6 +112,22 @@ public class DatabasedSignalPlan implements SignalPlan {
 	}
 
 	
+	@Override
+	public double getNextOnsetOrDroppingTime(double timeSeconds) {
+		if (this.secondsInPlanWithChanges.length == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double second = Math.floor(timeSeconds);
+		int currentSecondInPlan = (int) (second % this.cycle);
+		for (int secondInPlan : this.secondsInPlanWithChanges) {
+			if (secondInPlan > currentSecondInPlan) {
+				return second + secondInPlan - currentSecondInPlan;
+			}
+		}
+		// the first change in the next cycle
+		return second + this.cycle - currentSecondInPlan + this.secondsInPlanWithChanges[0];
+	}
+
 	@Override
 	public double getEndTime() {
 		return this.data.getEndTime();
@@ -34,6 +34,14 @@ public interface SignalPlan {
 
 	public List<Id<SignalGroup>> getOnsets(double timeSeconds);
 
+	/**
+	 * @return the next second after <code>timeSeconds</code> with onsets or droppings. The default is the next
+	 * second, i.e. the plan does not know in advance.
+	 */
+	public default double getNextOnsetOrDroppingTime(double timeSeconds) {
+		return Math.floor(timeSeconds) + 1;
+	}
+
 	public double getEndTime();
 	
 	public double getStartTime();
@@ -36,6 +36,15 @@ public interface SignalSystem extends Identifiable<SignalSystem> {
 
 	public void updateState(double now);
 
+	/**
+	 * @return the time at which the system should be updated next, after it was updated at <code>now</code>. A time
+	 * not after <code>now</code> means the next time step.
+	 * @see SignalController#getNextUpdateTime(double)
+	 */
+	public default double getNextUpdateTime(double now) {
+		return now;
+	}
+
 	public void setSignalSystemController(SignalController controller);
 
 	public void addSignal(Signal signal);
@@ -98,6 +98,20 @@ public class SignalSystemImpl implements SignalSystem {
 		}
 	}
 	
+	@Override
+	public double getNextUpdateTime(double now) {
+		if (!this.requests.isEmpty()) {
+			// requested from outside of the update, not yet sorted
+			return now;
+		}
+		double next = this.signalController.getNextUpdateTime(now);
+		SignalGroupStateChangeRequest request = this.sortedRequests.peek();
+		if (request != null) {
+			next = Math.min(next, request.getTimeOfDay());
+		}
+		return next;
+	}
+
 	@Override
 	public void switchOff(double timeSeconds) {
 		Set<SignalGroupStateChangeRequest> req = new HashSet<SignalGroupStateChangeRequest>();
@@ -19,7 +19,11 @@
  * *********************************************************************** */
 package org.matsim.contrib.signals.model;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -41,11 +45,25 @@ public class SignalSystemsManagerImpl implements SignalSystemsManager {
 	private SignalsData signalData;
 
 	private IntergreensLogic intergreensLogic = null;
+
+	/**
+	 * if not null, the signal systems are only updated when they are due, see {@link #requestControlUpdate(double)}
+	 */
+	private final PriorityQueue<ScheduledUpdate> agenda;
 	
 	public SignalSystemsManagerImpl(SignalsData signalData, EventsManager eventsManager) {
+		this(signalData, eventsManager, false);
+	}
+
+	/**
+	 * @param useEventDrivenControlUpdates if true, a signal system is only updated when it is due according to
+	 * {@link SignalSystem#getNextUpdateTime(double)}, otherwise all systems are updated in every time step
+	 */
+	public SignalSystemsManagerImpl(SignalsData signalData, EventsManager eventsManager, boolean useEventDrivenControlUpdates) {
 //		this.signalData = (SignalsData) scenario.getScenarioElement(SignalsData.ELEMENT_NAME);
 		this.signalData = signalData;
 		this.eventsManager = eventsManager;
+		this.agenda = useEventDrivenControlUpdates ? new PriorityQueue<>() : null;
 	}
 	
 	@Override
@@ -55,8 +73,24 @@ public class SignalSystemsManagerImpl implements SignalSystemsManager {
 	
 	@Override
 	public void requestControlUpdate(double time_sec) {
-		for (SignalSystem system : this.signalSystems.values()){
+		if (this.agenda == null) {
+			for (SignalSystem system : this.signalSystems.values()){
+				system.updateState(time_sec);
+			}
+			return;
+		}
+		// only the systems which are due are updated, in the same order as above
+		List<SignalSystem> dueSystems = new ArrayList<>();
+		while (!this.agenda.isEmpty() && this.agenda.peek().time <= time_sec) {
+			dueSystems.add(this.agenda.poll().system);
+		}
+		if (dueSystems.size() > 1) {
+			dueSystems.sort(Comparator.comparing(SignalSystem::getId));
+		}
+		for (SignalSystem system : dueSystems) {
 			system.updateState(time_sec);
+			// a time not after now means the next time step, which is due as this entry is not processed again in this step
+			this.agenda.add(new ScheduledUpdate(Math.max(time_sec, system.getNextUpdateTime(time_sec)), system));
 		}
 	}
 
@@ -68,6 +102,10 @@ public class SignalSystemsManagerImpl implements SignalSystemsManager {
 	@Override
 	public void addSignalSystem(SignalSystem system) {
 		this.signalSystems.put(system.getId(), system);
+		if (this.agenda != null) {
+			// due with the first update
+			this.agenda.add(new ScheduledUpdate(Double.NEGATIVE_INFINITY, system));
+		}
 	}
 
 	@Override
@@ -95,4 +133,19 @@ public class SignalSystemsManagerImpl implements SignalSystemsManager {
 		this.intergreensLogic = logic;
 	}
 
+	private static final class ScheduledUpdate implements Comparable<ScheduledUpdate> {
+		private final double time;
+		private final SignalSystem system;
+
+		private ScheduledUpdate(double time, SignalSystem system) {
+			this.time = time;
+			this.system = system;
+		}
+
+		@Override
+		public int compareTo(ScheduledUpdate o) {
+			return Double.compare(this.time, o.time);
+		}
+	}
+
 }
@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.contrib.signals.SignalSystemsConfigGroup;
 import org.matsim.contrib.signals.data.SignalsData;
 import org.matsim.contrib.signals.data.signalgroups.v20.SignalGroupSettingsData;
 import org.matsim.contrib.signals.data.signalgroups.v20.SignalPlanData;
@@ -37,6 +38,7 @@ import org.matsim.core.api.experimental.events.LaneEnterEvent;
 import org.matsim.core.api.experimental.events.LaneLeaveEvent;
 import org.matsim.core.api.experimental.events.handler.LaneEnterEventHandler;
 import org.matsim.core.api.experimental.events.handler.LaneLeaveEventHandler;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.PrepareForSimUtils;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.mobsim.qsim.QSimBuilder;
@@ -96,6 +98,30 @@ public class QSimSignalTest implements
 		runQSimWithSignals(scenario, true);
 	}
 	
+	/**
+	 * Tests the same setup as {@link #testSignalSystems1AgentGreenAtSec100()}, but with the signal system only being updated when it is due.
+	 */
+	@Test
+	public void testSignalSystems1AgentGreenAtSec100EventDrivenControlUpdates() {
+		// configure and load standard scenario
+		Scenario scenario = new Fixture().createAndLoadTestScenarioOneSignal(false );
+		ConfigUtils.addOrGetModule(scenario.getConfig(), SignalSystemsConfigGroup.GROUP_NAME, SignalSystemsConfigGroup.class).setUseEventDrivenControlUpdates(true);
+		// modify scenario
+		SignalsData signalsData = (SignalsData) scenario.getScenarioElement(SignalsData.ELEMENT_NAME);
+		SignalSystemControllerData controllerData = signalsData.getSignalControlData().getSignalSystemControllerDataBySystemId().get(
+				Fixture.signalSystemId2 );
+		SignalPlanData planData = controllerData.getSignalPlanData().get( Fixture.signalPlanId2 );
+		planData.setStartTime(0.0);
+		planData.setEndTime(0.0);
+		planData.setCycleTime(5 * 3600);
+		SignalGroupSettingsData groupData = planData.getSignalGroupSettingsDataByGroupId().get( Fixture.signalGroupId100 );
+		groupData.setDropping(0);
+		groupData.setOnset(100);
+
+		this.link2EnterTime = 100.0;
+		runQSimWithSignals(scenario, true);
+	}
+	
 	/**
 	 * Tests the setup with a traffic light that shows red less than the specified intergreen time of five seconds.
 	 */
@@ -153,6 +153,14 @@ public final class IterationStopWatch {
 		this.currentMeasuredOperations.push(identifier);
 	}
 
+	/**
+	 * @param identifier The name of an operation.
+	 * @return whether the operation has already begun in the current iteration.
+	 */
+	public boolean isOperationBegun(final String identifier) {
+		return this.currentIterationValues != null && this.currentIterationValues.containsKey("BEGIN " + identifier);
+	}
+
 	/**
 	 * Tells the stop watch that an operation ends. The operation must have been started before with
 	 * {@link #beginOperation(String)}.
@@ -20,6 +20,7 @@
 
 package org.matsim.api.core.v01;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -36,11 +37,24 @@ import org.matsim.vehicles.Vehicle;
  * Note that Ids should not contain any whitespace characters (spaces, tabs, newlines, ...), 
  * as this may lead to problems when Ids are written to file and read back in.
  * 
+ * Every Id gets a dense index when it is created, counting from 0 separately for each type.
+ * See {@link #index()}, and {@link IdMap} and {@link IdSet} which use it to store data in arrays.
+ * 
  *  @author mrieser / Senozon AG
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
-	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static Map<Class<?>, TypeCache> cache = new ConcurrentHashMap<Class<?>, TypeCache>();
+	
+	/**
+	 * The Ids of one type, by their key and by their index. New Ids are only added while holding the lock
+	 * on the TypeCache, so the indices are dense and every key gets exactly one index.
+	 */
+	private static final class TypeCache {
+		private final Map<String, Id<?>> byKey = new ConcurrentHashMap<String, Id<?>>();
+		private volatile Id<?>[] byIndex = new Id<?>[16];
+		private volatile int size = 0;
+	}
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -58,21 +72,79 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	 * This method supports a cache where ids are stored and re-used per type.   
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
-		Map<String, Id<?>> map = cache.get(type);
-		if (map == null) {
-			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
-		}
+		TypeCache typeCache = getTypeCache(type);
 		Gbl.assertNotNull(key);
-		Id<?> id = map.get(key);
+		Id<?> id = typeCache.byKey.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
-			map.put(key, id);
+			synchronized (typeCache) {
+				id = typeCache.byKey.get(key);
+				if (id == null) {
+					int index = typeCache.size;
+					id = new IdImpl<T>(key, index, type);
+					Id<?>[] byIndex = typeCache.byIndex;
+					if (index == byIndex.length) {
+						byIndex = Arrays.copyOf(byIndex, byIndex.length * 2);
+					}
+					byIndex[index] = id;
+					typeCache.byIndex = byIndex;
+					typeCache.size = index + 1;
+					typeCache.byKey.put(key, id);
+				}
+			}
 		}
 		
 		return (Id<T>) id;
 	}
 	
+	/**
+	 * @return the Id with the given key, or <code>null</code> if no such Id of the given type was created so far.
+	 */
+	public static <T> Id<T> get(final String key, final Class<T> type) {
+		TypeCache typeCache = cache.get(type);
+		if (typeCache == null) {
+			return null;
+		}
+		return (Id<T>) typeCache.byKey.get(key);
+	}
+	
+	/**
+	 * @return the Id of the given type with the given {@link #index()}.
+	 * 
+	 * @throws IndexOutOfBoundsException if no Id of this type with this index was created so far.
+	 */
+	public static <T> Id<T> get(final int index, final Class<T> type) {
+		TypeCache typeCache = cache.get(type);
+		if (typeCache == null || index >= typeCache.size) {
+			throw new IndexOutOfBoundsException("no " + (type == null ? null : type.getSimpleName()) + "-Id with index " + index);
+		}
+		return (Id<T>) typeCache.byIndex[index];
+	}
+	
+	/**
+	 * @return the number of Ids created so far for the given type. All Ids of this type have an
+	 * {@link #index()} smaller than this number.
+	 */
+	public static <T> int getNumberOfIds(final Class<T> type) {
+		TypeCache typeCache = cache.get(type);
+		return typeCache == null ? 0 : typeCache.size;
+	}
+	
+	private static TypeCache getTypeCache(final Class<?> type) {
+		TypeCache typeCache = cache.get(type);
+		if (typeCache == null) {
+			typeCache = cache.computeIfAbsent(type, t -> new TypeCache());
+		}
+		return typeCache;
+	}
+	
+	/**
+	 * @return a number that identifies this Id among all Ids of the same type. The indices are assigned
+	 * in the order the Ids are created, starting with 0, and never change.
+	 */
+	public abstract int index();
+	
+	/*package*/ abstract Class<?> type();
+	
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
 	 * 
@@ -113,9 +185,23 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
+		private final Class<T> type;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index, final Class<T> type) {
 			this.id = id;
+			this.index = index;
+			this.type = type;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
+		}
+
+		@Override
+		/*package*/ Class<?> type() {
+			return this.type;
 		}
 
 		@Override
@@ -0,0 +1,359 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdMap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map with {@link Id}s as keys, which stores the values in an array at the position
+ * given by {@link Id#index()}. Lookups do not need to compute hash codes or compare Strings,
+ * and no entry object is allocated per mapping.
+ * <p>
+ * The array grows up to the largest index of the keys, so the map is best used when a large
+ * share of all Ids of the type will be added to it (e.g. data per link of the network).
+ * Iteration is in the order of the Ids' indices, i.e. in the order the Ids were created.
+ * <p>
+ * <code>null</code> values are not supported: putting <code>null</code> removes the mapping.
+ * This class is not thread-safe. Concurrent calls to {@link #get(Object)} while another
+ * thread adds mappings do not fail, but may not see the new mappings.
+ *
+ * @param <T> the type of the Ids
+ * @param <V> the type of the values
+ */
+public final class IdMap<T, V> extends AbstractMap<Id<T>, V> {
+
+	private final Class<T> idClass;
+	private Object[] data;
+	private int size = 0;
+	private int modCount = 0;
+
+	public IdMap(final Class<T> idClass) {
+		this(idClass, Math.max(Id.getNumberOfIds(idClass), 16));
+	}
+
+	public IdMap(final Class<T> idClass, final int initialCapacity) {
+		this.idClass = idClass;
+		this.data = new Object[initialCapacity];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+		if (value == null) {
+			return false;
+		}
+		for (Object o : this.data) {
+			if (value.equals(o)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(final Object key) {
+		int index = indexOf(key);
+		Object[] data = this.data;
+		if (index < 0 || index >= data.length) {
+			return null;
+		}
+		return (V) data[index];
+	}
+
+	/**
+	 * Same as {@link #get(Object)}, but with the index of the Id instead of the Id itself.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final int index) {
+		Object[] data = this.data;
+		if (index >= data.length) {
+			return null;
+		}
+		return (V) data[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(final Id<T> key, final V value) {
+		if (value == null) {
+			return remove(key);
+		}
+		int index = indexOf(key);
+		if (index < 0) {
+			throw new IllegalArgumentException("Id " + key + " is not of type " + this.idClass.getName());
+		}
+		if (index >= this.data.length) {
+			int newLength = Math.max(index + 1, Math.max(Id.getNumberOfIds(this.idClass), this.data.length + (this.data.length >> 1)));
+			this.data = Arrays.copyOf(this.data, newLength);
+		}
+		V old = (V) this.data[index];
+		this.data[index] = value;
+		if (old == null) {
+			this.size++;
+			this.modCount++;
+		}
+		return old;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(final Object key) {
+		int index = indexOf(key);
+		if (index < 0 || index >= this.data.length) {
+			return null;
+		}
+		V old = (V) this.data[index];
+		if (old != null) {
+			this.data[index] = null;
+			this.size--;
+			this.modCount++;
+		}
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.data, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Set<Entry<Id<T>, V>> entrySet() {
+		return new EntrySet();
+	}
+
+	/**
+	 * Returns the index of the given key in the array, or -1 if the key cannot be stored in this map.
+	 * As {@link Id#equals(Object)} compares Ids of different types by their String representation,
+	 * a key of a different type is looked up by its String representation.
+	 */
+	private int indexOf(final Object key) {
+		if (!(key instanceof Id)) {
+			return -1;
+		}
+		Id<?> id = (Id<?>) key;
+		if (id.type() == this.idClass) {
+			return id.index();
+		}
+		Id<T> sameKey = Id.get(id.toString(), this.idClass);
+		return sameKey == null ? -1 : sameKey.index();
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<Id<T>, V>> {
+
+		@Override
+		public Iterator<Entry<Id<T>, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return IdMap.this.size;
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			V value = get(e.getKey());
+			return value != null && value.equals(e.getValue());
+		}
+
+		@Override
+		public void clear() {
+			IdMap.this.clear();
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Entry<Id<T>, V>> {
+
+		private int expectedModCount = IdMap.this.modCount;
+		private int nextIndex = -1;
+		private int lastIndex = -1;
+
+		EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			Object[] data = IdMap.this.data;
+			do {
+				this.nextIndex++;
+			} while (this.nextIndex < data.length && data[this.nextIndex] == null);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.nextIndex < IdMap.this.data.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Entry<Id<T>, V> next() {
+			if (IdMap.this.modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.lastIndex = this.nextIndex;
+			advance();
+			return new IdEntry(this.lastIndex);
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastIndex < 0) {
+				throw new IllegalStateException();
+			}
+			if (IdMap.this.modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			IdMap.this.data[this.lastIndex] = null;
+			IdMap.this.size--;
+			IdMap.this.modCount++;
+			this.expectedModCount = IdMap.this.modCount;
+			this.lastIndex = -1;
+		}
+	}
+
+	/**
+	 * Looks up its Id only when the key is asked for, so iterating over the values does not look up any Ids.
+	 */
+	private final class IdEntry implements Entry<Id<T>, V> {
+
+		private final int index;
+
+		IdEntry(final int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Id<T> getKey() {
+			return Id.get(this.index, IdMap.this.idClass);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getValue() {
+			return (V) IdMap.this.data[this.index];
+		}
+
+		@Override
+		public V setValue(final V value) {
+			if (value == null) {
+				throw new NullPointerException("null values are not supported.");
+			}
+			@SuppressWarnings("unchecked")
+			V old = (V) IdMap.this.data[this.index];
+			IdMap.this.data[this.index] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			V value = getValue();
+			return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			V value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+	/**
+	 * Values in the order of the Ids' indices. Iterating over them does not look up the Ids, but allocates
+	 * an entry per value, as the iteration is based on {@link #entrySet()}.
+	 */
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<Entry<Id<T>, V>> entries = entrySet().iterator();
+				return new Iterator<V>() {
+					@Override
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return entries.next().getValue();
+					}
+
+					@Override
+					public void remove() {
+						entries.remove();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return IdMap.this.size;
+			}
+
+			@Override
+			public void clear() {
+				IdMap.this.clear();
+			}
+		};
+	}
+
+}
@@ -156,6 +156,13 @@ public final class ConfigConsistencyCheckerImpl implements ConfigConsistencyChec
 				config.controler().getRoutingAlgorithmType() != RoutingAlgorithmType.Dijkstra ) {
 			log.warn("We don't know if non-Dijkstra routing works together with LinkToLink routing.");
 		}
+
+		if ( config.controler().getRoutingAlgorithmType() == RoutingAlgorithmType.ContractionHierarchies &&
+				config.plansCalcRoute().getRoutingRandomness() != 0. ) {
+			throw new IllegalStateException("ContractionHierarchies does not support person-dependent travel disutilities, " +
+					"but routingRandomness is " + config.plansCalcRoute().getRoutingRandomness() + ". The default travel " +
+					"disutility would fail on the first route; set routingRandomness to 0.");
+		}
 		
 	}
 
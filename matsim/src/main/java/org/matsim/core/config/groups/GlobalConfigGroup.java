@@ -42,11 +42,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String REPLANNING_EXECUTION = "replanningExecution";
+
+	public enum ReplanningExecution { roundRobin, workStealing }
 
 	private long randomSeed = 4711L;
 	@PositiveOrZero
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis" ;
+	private ReplanningExecution replanningExecution = ReplanningExecution.roundRobin;
 	// see https://matsim.atlassian.net/browse/MATSIM-898
 
 	@Override
@@ -55,6 +59,11 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(REPLANNING_EXECUTION, "How multi-threaded replanning modules distribute the plans to their threads.  "
+				+ ReplanningExecution.roundRobin + ": plans are assigned to the threads in turn before the threads are started; reproducible.  "
+				+ ReplanningExecution.workStealing + ": the threads of a persistent pool take chunks of plans from a shared list until all plans are handled; "
+				+ "faster if the plans differ a lot in their computational cost, but the assignment of plans to threads (and thus e.g. random numbers) "
+				+ "is not reproducible.") ;
 		return map ;
 	}
 
@@ -79,6 +88,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter( REPLANNING_EXECUTION )
+	public ReplanningExecution getReplanningExecution() {
+		return this.replanningExecution;
+	}
+	@StringSetter( REPLANNING_EXECUTION )
+	public void setReplanningExecution(final ReplanningExecution replanningExecution) {
+		this.replanningExecution = replanningExecution;
+	}
+
 	@StringGetter( COORDINATE_SYSTEM )
 	public String getCoordinateSystem() {
 		return this.coordinateSystem;
@@ -20,6 +20,7 @@
 
 package org.matsim.core.config.groups;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import org.matsim.core.config.ReflectiveConfigGroup;
@@ -44,6 +45,17 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 	
 	private final static String ONE_THREAD_PER_HANDLER = "oneThreadPerHandler"; 
 	private Boolean oneThreadPerHandler = false;
+
+	private final static String USE_RING_BUFFER = "useRingBuffer";
+	private Boolean useRingBuffer = false;
+
+	private final static String RING_BUFFER_SIZE = "ringBufferSize";
+	private int ringBufferSize = 65536;
+
+	public enum WaitStrategy { busySpin, threadYield, park }
+
+	private final static String WAIT_STRATEGY = "waitStrategy";
+	private WaitStrategy waitStrategy = WaitStrategy.park;
 	
 	private boolean locked = false;
 
@@ -60,6 +72,11 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 				+ "before the next time step is simulated. E.g. neccessary when within-day replanning is used.");
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
+		comments.put(USE_RING_BUFFER, "If enabled (and " + NUMBER_OF_THREADS + " is set), events are handed to the handler threads through a preallocated "
+				+ "ring buffer instead of blocking queues. " + SYNCHRONIZE_ON_SIMSTEPS + " is respected. This feature is still experimental!");
+		comments.put(RING_BUFFER_SIZE, "Number of events the ring buffer can hold. Rounded up to the next power of two.");
+		comments.put(WAIT_STRATEGY, "How threads of the ring buffer wait for events or free slots. Possible values: " + Arrays.toString(WaitStrategy.values())
+				+ ". " + WaitStrategy.busySpin + " gives the lowest latency but needs one core per thread, " + WaitStrategy.park + " frees the cores while waiting.");
 		return comments;
 	}
 
@@ -127,6 +144,48 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 		}
 	}
 	
+	@StringGetter( USE_RING_BUFFER )
+	public Boolean getUseRingBuffer() {
+		return this.useRingBuffer;
+	}
+
+	@StringSetter( USE_RING_BUFFER )
+	public void setUseRingBuffer(Boolean useRingBuffer) {
+		if ( !this.locked ) {
+			this.useRingBuffer = useRingBuffer;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
+	@StringGetter( RING_BUFFER_SIZE )
+	public int getRingBufferSize() {
+		return this.ringBufferSize;
+	}
+
+	@StringSetter( RING_BUFFER_SIZE )
+	public void setRingBufferSize(int ringBufferSize) {
+		if ( !this.locked ) {
+			this.ringBufferSize = ringBufferSize;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
+	@StringGetter( WAIT_STRATEGY )
+	public WaitStrategy getWaitStrategy() {
+		return this.waitStrategy;
+	}
+
+	@StringSetter( WAIT_STRATEGY )
+	public void setWaitStrategy(WaitStrategy waitStrategy) {
+		if ( !this.locked ) {
+			this.waitStrategy = waitStrategy;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
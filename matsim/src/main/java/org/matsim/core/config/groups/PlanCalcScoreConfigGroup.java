@@ -64,6 +64,7 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 	private static final String WAITING_PT = "waitingPt";
 
 	private static final String WRITE_EXPERIENCED_PLANS = "writeExperiencedPlans";
+	private static final String NUMBER_OF_SCORING_THREADS = "numberOfScoringThreads";
 
 	private static final String MARGINAL_UTL_OF_MONEY = "marginalUtilityOfMoney";
 
@@ -405,6 +406,9 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 				"[utils/unit_of_money] conversion of money (e.g. toll, distance cost) into utils. Normall positive (i.e. toll/cost/fare are processed as negative amounts of money).");
 		map.put(WRITE_EXPERIENCED_PLANS,
 				"write a plans file in each iteration directory which contains what each agent actually did, and the score it received.");
+		map.put(NUMBER_OF_SCORING_THREADS,
+				"number of threads the persons are distributed to for scoring, each thread processing the events of its persons.  "
+						+ "0 or 1: the events are scored on the events handling thread.  The scores are the same in both cases.");
 
 		return map;
 	}
@@ -757,6 +761,14 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 		delegate.setWriteExperiencedPlans(writeExperiencedPlans);
 	}
 
+	public int getNumberOfScoringThreads() {
+		return delegate.getNumberOfScoringThreads();
+	}
+
+	public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+		delegate.setNumberOfScoringThreads(numberOfScoringThreads);
+	}
+
 	public double getMarginalUtlOfWaiting_utils_hr() {
 		if (getScoringParameters(null) != null)
 			return getScoringParameters(null).getMarginalUtlOfWaiting_utils_hr();
@@ -1527,6 +1539,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 
 		private boolean writeExperiencedPlans = false;
 
+		private int numberOfScoringThreads = 0;
+
 		private Double fractionOfIterationsToStartScoreMSA = null;
 
 		private boolean usingOldScoringBelowZeroUtilityDuration = false;
@@ -1600,5 +1614,16 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 			this.writeExperiencedPlans = writeExperiencedPlans;
 		}
 
+		@StringGetter(NUMBER_OF_SCORING_THREADS)
+		public int getNumberOfScoringThreads() {
+			return numberOfScoringThreads;
+		}
+
+		@StringSetter(NUMBER_OF_SCORING_THREADS)
+		public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+			testForLocked();
+			this.numberOfScoringThreads = numberOfScoringThreads;
+		}
+
 	}
 }
@@ -34,9 +34,11 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	public abstract static class NetworkRouteType {
 		public static final String LinkNetworkRoute = "LinkNetworkRoute";
 		public static final String CompressedNetworkRoute = "CompressedNetworkRoute";
+		public static final String PackedNetworkRoute = "PackedNetworkRoute";
 	}
 
 	public enum ActivityDurationInterpretation { minOfDurationAndEndTime, tryEndTimeThenDuration, @Deprecated endTimeOnly }
+	public enum PlansStorage { objects, compact }
 	private static final String INPUT_FILE = "inputPlansFile";
 	private static final String INPUT_PERSON_ATTRIBUTES_FILE = "inputPersonAttributesFile";
 	private static final String NETWORK_ROUTE_TYPE = "networkRouteType";
@@ -67,7 +69,10 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				NETWORK_ROUTE_TYPE,
 				"Defines how routes are stored in memory. Currently supported: " +
 				NetworkRouteType.LinkNetworkRoute + ", " +
-				NetworkRouteType.CompressedNetworkRoute + ".");
+				NetworkRouteType.CompressedNetworkRoute + ", " +
+				NetworkRouteType.PackedNetworkRoute + ". " +
+				NetworkRouteType.PackedNetworkRoute + " needs less memory than " + NetworkRouteType.LinkNetworkRoute +
+				", but accessing the links of a route is slower.");
 //		comments.put(
 //				INPUT_PERSON_ATTRIBUTES_FILE,
 //				"Path to a file containing person attributes (required file format: ObjectAttributes).");
@@ -87,6 +92,14 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		comments.put(REMOVING_UNNECESSARY_PLAN_ATTRIBUTES, "(not tested) will remove plan attributes that are presumably not used, such as " +
                 "activityStartTime. default=false. Use with Caution!");
 
+		comments.put(PLANS_STORAGE, "Defines how the plans of the population are stored in memory. " + PlansStorage.objects
+				+ ": one object per activity and leg. " + PlansStorage.compact + ": the activities and legs of the plans read "
+				+ "from file are stored in arrays, which needs considerably less memory for large populations. Plans created in "
+				+ "replanning are stored as objects in both cases.");
+
+		comments.put(NUMBER_OF_THREADS_FOR_READING, "Number of threads used to read population_v6 files. With more than one thread, "
+				+ "the file is decompressed in a separate thread, and the persons are created in parallel. default=1.");
+
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
@@ -180,6 +193,31 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.removingUnneccessaryPlanAttributes = removingUnneccessaryPlanAttributes;
 	}
 
+	// ---
+
+	private static final String PLANS_STORAGE = "plansStorage";
+	private PlansStorage plansStorage = PlansStorage.objects;
+	@StringGetter(PLANS_STORAGE)
+	public PlansStorage getPlansStorage() {
+		return this.plansStorage;
+	}
+	@StringSetter(PLANS_STORAGE)
+	public void setPlansStorage(final PlansStorage plansStorage) {
+		this.plansStorage = plansStorage;
+	}
+
+	// ---
+
+	private static final String NUMBER_OF_THREADS_FOR_READING = "numberOfThreadsForReading";
+	private int numberOfThreadsForReading = 1;
+	@StringGetter(NUMBER_OF_THREADS_FOR_READING)
+	public int getNumberOfThreadsForReading() {
+		return this.numberOfThreadsForReading;
+	}
+	@StringSetter(NUMBER_OF_THREADS_FOR_READING)
+	public void setNumberOfThreadsForReading(final int numberOfThreadsForReading) {
+		this.numberOfThreadsForReading = numberOfThreadsForReading;
+	}
 
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
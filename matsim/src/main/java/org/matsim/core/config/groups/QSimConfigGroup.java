@@ -270,6 +270,14 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(USE_PERSON_ID_FOR_MISSING_VEHICLE_ID, "If a route does not reference a vehicle, agents will use the vehicle with the same id as their own.");
 		map.put(USING_THREADPOOL, "if the qsim should use as many runners as there are threads (Christoph's dissertation version)"
 				+ " or more of them, together with a thread pool (seems to be faster in some situations, but is not tested).") ;
+		map.put(NETWORK_PARTITIONING, "How the nodes and links of the network are distributed to the runners of the QNetsimEngine. "
+				+ NetworkPartitioning.roundRobin + " assigns the nodes one after the other to the next runner, "
+				+ NetworkPartitioning.spatial + " assigns neighbouring nodes to the same runner while giving each runner "
+				+ "a similar amount of work. Only relevant if " + NUMBER_OF_THREADS + " > 1. Default is " + NetworkPartitioning.roundRobin + ".") ;
+		map.put(RUNNER_REBALANCING_INTERVAL, "If larger than zero, the time (in seconds of simulated time) after which the nodes and links "
+				+ "are redistributed to the runners of the QNetsimEngine, based on the time it took to move them since the last redistribution. "
+				+ "Neighbouring nodes are kept on the same runner. Measuring the times has a small overhead, and as the result depends on "
+				+ "the measured times, runs are no longer exactly reproducible. Default is 0.0, i.e. no rebalancing.") ;
 		map.put(FAST_CAPACITY_UPDATE, "If false, the qsim accumulates fractional flows up to one flow unit in every time step.  If true, "
 				+ "flows are updated only if an agent wants to enter the link or an agent is added to buffer. "
 				+ "Default is true.") ;
@@ -534,6 +542,34 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.usingThreadpool = val ;
 	}
 
+	// ---
+	private static final String NETWORK_PARTITIONING = "networkPartitioning" ;
+	public enum NetworkPartitioning { roundRobin, spatial }
+	private NetworkPartitioning networkPartitioning = NetworkPartitioning.roundRobin ;
+	@StringGetter(NETWORK_PARTITIONING)
+	public NetworkPartitioning getNetworkPartitioning() {
+		return this.networkPartitioning ;
+	}
+	@StringSetter(NETWORK_PARTITIONING)
+	public void setNetworkPartitioning( NetworkPartitioning networkPartitioning ) {
+		this.networkPartitioning = networkPartitioning ;
+	}
+	// ---
+	private static final String RUNNER_REBALANCING_INTERVAL = "runnerRebalancingInterval" ;
+	@PositiveOrZero
+	private double runnerRebalancingInterval = 0.0 ;
+	@StringGetter(RUNNER_REBALANCING_INTERVAL)
+	public double getRunnerRebalancingInterval() {
+		return this.runnerRebalancingInterval ;
+	}
+	@StringSetter(RUNNER_REBALANCING_INTERVAL)
+	public void setRunnerRebalancingInterval( double runnerRebalancingInterval ) {
+		if ( runnerRebalancingInterval < 0 ) {
+			throw new IllegalArgumentException( "Runner rebalancing interval must not be negative, got " + runnerRebalancingInterval );
+		}
+		this.runnerRebalancingInterval = runnerRebalancingInterval ;
+	}
+
 	private static final String USE_LANES="useLanes" ;
 	private boolean useLanes = false ;
 
@@ -42,7 +42,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 
 	public static final String GROUPNAME = "travelTimeCalculator";
 
-	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap}
+	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap,TravelTimeCalculatorStripedArray}
+
+	public enum TravelTimeSmoothing { none, exponential, msa }
 
 	private static final String TRAVEL_TIME_CALCULATOR = "travelTimeCalculator";
 	private static final String TRAVEL_TIME_BIN_SIZE = "travelTimeBinSize";
@@ -57,6 +59,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private static final String FILTERMODES = "filterModes";
 	private static final String SEPARATEMODES = "separateModes";
 
+	private static final String TRAVEL_TIME_SMOOTHING = "travelTimeSmoothing";
+	private static final String TRAVEL_TIME_SMOOTHING_FACTOR = "travelTimeSmoothingFactor";
+
 	private TravelTimeCalculatorType travelTimeCalculator = TravelTimeCalculatorType.TravelTimeCalculatorArray;
 	private String travelTimeAggregator = "optimistic";
 	private String travelTimeGetter = "average";
@@ -70,6 +75,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private boolean filterModes = false;
 	private boolean separateModes = true;
 
+	private TravelTimeSmoothing travelTimeSmoothing = TravelTimeSmoothing.none;
+	private double travelTimeSmoothingFactor = 0.3;
+
 	public TravelTimeCalculatorConfigGroup() {
 		super(GROUPNAME);
 		analyzedModes.add( TransportMode.car ) ;
@@ -90,6 +98,13 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 							 "respected by the travel time collector. 'car' is default which includes also buses from the pt simulation module.");
 		map.put(FILTERMODES, "(only for backwards compatiblity; only used if " + SEPARATEMODES + "==false)  Only modes included in analyzedModes are included." ) ;
 		map.put(SEPARATEMODES, "(only for backwards compatibility) If false, link travel times are measured and aggregated over all vehicles using the link." ) ;
+		map.put(TRAVEL_TIME_SMOOTHING, "If not `none', the link travel times are kept over the iterations and the travel times of each new " +
+				"iteration are blended into them, instead of starting from scratch in every iteration: `exponential' uses " + TRAVEL_TIME_SMOOTHING_FACTOR +
+				" as weight of the new iteration, `msa' (method of successive averages) uses 1/n in the n-th iteration. " +
+				"Requires " + TRAVEL_TIME_CALCULATOR + "=" + TravelTimeCalculatorType.TravelTimeCalculatorStripedArray + ". Possible values: " +
+				Arrays.stream( TravelTimeSmoothing.values() ).map( type -> type.toString() + ' ' ).collect( Collectors.joining() ) );
+		map.put(TRAVEL_TIME_SMOOTHING_FACTOR, "(only used with " + TRAVEL_TIME_SMOOTHING + "=exponential) The weight (0 < alpha <= 1) of the " +
+				"travel times of the latest iteration. 1.0 means no smoothing.");
 		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + Arrays.stream( TravelTimeCalculatorType.values() ).map( type -> type.toString() + ' ' ).collect( Collectors.joining() ) );
 		return map;
 	}
@@ -213,5 +228,28 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	public void setSeparateModes(boolean separateModes) {
 		this.separateModes = separateModes;
 	}
+	// ---
+	@StringGetter(TRAVEL_TIME_SMOOTHING)
+	public TravelTimeSmoothing getTravelTimeSmoothing() {
+		return this.travelTimeSmoothing;
+	}
+
+	@StringSetter(TRAVEL_TIME_SMOOTHING)
+	public void setTravelTimeSmoothing(final TravelTimeSmoothing travelTimeSmoothing) {
+		this.travelTimeSmoothing = travelTimeSmoothing;
+	}
+	// ---
+	@StringGetter(TRAVEL_TIME_SMOOTHING_FACTOR)
+	public double getTravelTimeSmoothingFactor() {
+		return this.travelTimeSmoothingFactor;
+	}
+
+	@StringSetter(TRAVEL_TIME_SMOOTHING_FACTOR)
+	public void setTravelTimeSmoothingFactor(final double travelTimeSmoothingFactor) {
+		if (travelTimeSmoothingFactor <= 0.0 || travelTimeSmoothingFactor > 1.0) {
+			throw new IllegalArgumentException(TRAVEL_TIME_SMOOTHING_FACTOR + " must be in (0, 1], but is " + travelTimeSmoothingFactor);
+		}
+		this.travelTimeSmoothingFactor = travelTimeSmoothingFactor;
+	}
 
 }
@@ -28,6 +28,7 @@ import org.apache.log4j.Logger;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.ControlerConfigGroup.EventsFileFormat;
+import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
@@ -36,7 +37,9 @@ import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.events.algorithms.AsyncEventWriterXML;
 import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.algorithms.EventWriterBinary;
 import org.matsim.core.events.algorithms.EventWriterXML;
 
 import com.google.inject.Inject;
@@ -60,10 +63,14 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 
 	private int writeMoreUntilIteration;
 
+	private final boolean writeAsynchronously;
+	private final int numberOfThreads;
+
 	@Inject
 	EventsHandlingImpl(
 			final EventsManager eventsManager,
 			final ControlerConfigGroup config,
+			final GlobalConfigGroup globalConfig,
 			final OutputDirectoryHierarchy controlerIO) {
 		this.eventsManager = eventsManager;
 		this.writeEventsInterval = config.getWriteEventsInterval();
@@ -71,6 +78,8 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 		this.eventsFileFormats = config.getEventsFileFormats();
 		this.controlerIO = controlerIO;
 		this.writeMoreUntilIteration = config.getWriteEventsUntilIteration() ;
+		this.writeAsynchronously = config.isWriteEventsAsynchronously();
+		this.numberOfThreads = globalConfig.getNumberOfThreads();
 	}
 
 	@Override
@@ -85,8 +94,17 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 			for (EventsFileFormat format : eventsFileFormats) {
 				switch (format) {
 				case xml:
-					this.eventWriters.add(new EventWriterXML(controlerIO.getIterationFilename(event.getIteration(), 
-							Controler.FILENAME_EVENTS_XML)));
+					if (this.writeAsynchronously) {
+						this.eventWriters.add(new AsyncEventWriterXML(controlerIO.getIterationFilename(event.getIteration(),
+								Controler.FILENAME_EVENTS_XML), this.numberOfThreads));
+					} else {
+						this.eventWriters.add(new EventWriterXML(controlerIO.getIterationFilename(event.getIteration(),
+								Controler.FILENAME_EVENTS_XML)));
+					}
+					break;
+				case bin:
+					this.eventWriters.add(new EventWriterBinary(controlerIO.getIterationFilename(event.getIteration(), 
+							Controler.FILENAME_EVENTS_BIN)));
 					break;
 				default:
 					log.warn("Unknown events file format specified: " + format.toString() + ".");
@@ -77,8 +77,9 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 			final String inputCRS = config.plans().getInputCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
 
+			final PopulationWriter writer;
 			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_POPULATION));
+				writer = new PopulationWriter(population, network);
 			}
 			else {
 				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
@@ -88,8 +89,10 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 								internalCRS,
 								inputCRS );
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_POPULATION));
+				writer = new PopulationWriter(transformation, population, network);
 			}
+			writer.setNumberOfThreads(config.global().getNumberOfThreads());
+			writer.write(controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_POPULATION));
 			log.info("finished plans dump.");
 			stopwatch.endOperation("dump all plans");
 		}
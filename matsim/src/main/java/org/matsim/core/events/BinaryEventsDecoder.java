@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryEventsDecoder.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Decodes the dictionaries and data sections of binary events files, see {@link BinaryEventsFormat}.
+ * The events are created by {@link EventsReaderXMLv1} from their attributes, so they are exactly the same
+ * as when reading an events file written by {@link org.matsim.core.events.algorithms.EventWriterXML},
+ * including the custom event mappers.
+ *
+ * @see EventsReaderBinary
+ * @see MappedEventsReaderBinary
+ */
+/*package*/ final class BinaryEventsDecoder {
+
+	private static final String CDATA = "CDATA";
+
+	private final List<String> strings = new ArrayList<>();
+	private final List<String> schemaTypes = new ArrayList<>();
+	private final List<String[]> schemaKeys = new ArrayList<>();
+	private final List<byte[]> schemaKinds = new ArrayList<>();
+
+	private final AttributesImpl atts = new AttributesImpl();
+
+	/*package*/ BinaryEventsDecoder() {
+		for (int schema = 0; schema < BinaryEventsFormat.FIXED_SCHEMA_COUNT; schema++) {
+			this.schemaTypes.add(BinaryEventsFormat.getFixedSchemaType(schema));
+			this.schemaKeys.add(BinaryEventsFormat.getFixedSchemaKeys(schema));
+			this.schemaKinds.add(BinaryEventsFormat.getFixedSchemaKinds(schema));
+		}
+	}
+
+	/*package*/ void readDictionary(final ByteBuffer dictionary) {
+		int newStrings = BinaryEventsFormat.readVarInt(dictionary);
+		for (int i = 0; i < newStrings; i++) {
+			int length = BinaryEventsFormat.readVarInt(dictionary);
+			String string;
+			if (dictionary.hasArray()) {
+				string = new String(dictionary.array(), dictionary.arrayOffset() + dictionary.position(), length, StandardCharsets.UTF_8);
+				dictionary.position(dictionary.position() + length);
+			} else {
+				byte[] bytes = new byte[length];
+				dictionary.get(bytes);
+				string = new String(bytes, StandardCharsets.UTF_8);
+			}
+			this.strings.add(string);
+		}
+		int newSchemas = BinaryEventsFormat.readVarInt(dictionary);
+		for (int i = 0; i < newSchemas; i++) {
+			String type = this.strings.get(BinaryEventsFormat.readVarInt(dictionary));
+			int attributeCount = BinaryEventsFormat.readVarInt(dictionary);
+			String[] keys = new String[attributeCount];
+			byte[] kinds = new byte[attributeCount];
+			for (int a = 0; a < attributeCount; a++) {
+				keys[a] = this.strings.get(BinaryEventsFormat.readVarInt(dictionary));
+				kinds[a] = dictionary.get();
+			}
+			this.schemaTypes.add(type);
+			this.schemaKeys.add(keys);
+			this.schemaKinds.add(kinds);
+		}
+	}
+
+	/**
+	 * Creates the events of a data section which are between <code>fromTime</code> and <code>toTime</code>
+	 * (both inclusive) and passes them to the events manager of the given reader.
+	 */
+	/*package*/ void processEvents(final ByteBuffer data, final int eventCount, final double fromTime, final double toTime, final EventsReaderXMLv1 delegate) {
+		int start = data.position();
+		ByteBuffer schemaColumn = data.duplicate();
+		schemaColumn.position(start + data.getInt(start));
+		ByteBuffer stringColumn = data.duplicate();
+		stringColumn.position(start + data.getInt(start + 4));
+		ByteBuffer doubleColumn = data.duplicate();
+		doubleColumn.position(start + data.getInt(start + 8));
+		int timeColumn = start + BinaryEventsFormat.DATA_HEADER_SIZE;
+
+		for (int i = 0; i < eventCount; i++) {
+			double time = data.getDouble(timeColumn + 8 * i);
+			int schema = BinaryEventsFormat.readVarInt(schemaColumn);
+			String[] keys = this.schemaKeys.get(schema);
+			byte[] kinds = this.schemaKinds.get(schema);
+			if (time < fromTime || time > toTime) {
+				// skip the values of this event
+				for (byte kind : kinds) {
+					if (kind == BinaryEventsFormat.KIND_DOUBLE) {
+						doubleColumn.position(doubleColumn.position() + 8);
+					} else {
+						BinaryEventsFormat.readVarInt(stringColumn);
+					}
+				}
+				continue;
+			}
+			this.atts.clear();
+			this.atts.addAttribute("", Event.ATTRIBUTE_TIME, Event.ATTRIBUTE_TIME, CDATA, Double.toString(time));
+			this.atts.addAttribute("", Event.ATTRIBUTE_TYPE, Event.ATTRIBUTE_TYPE, CDATA, this.schemaTypes.get(schema));
+			for (int a = 0; a < keys.length; a++) {
+				String value;
+				if (kinds[a] == BinaryEventsFormat.KIND_DOUBLE) {
+					value = Double.toString(doubleColumn.getDouble());
+				} else {
+					int string = BinaryEventsFormat.readVarInt(stringColumn);
+					if (string == BinaryEventsFormat.NULL_STRING) {
+						continue;
+					}
+					value = this.strings.get(string - 1);
+				}
+				this.atts.addAttribute("", keys[a], keys[a], CDATA, value);
+			}
+			delegate.startTag(EventsReaderXMLv1.EVENT, this.atts, null);
+		}
+	}
+
+}
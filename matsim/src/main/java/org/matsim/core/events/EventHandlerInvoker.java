@@ -0,0 +1,115 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventHandlerInvoker.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Directly calls one specific <code>handleEvent</code> method of an event handler interface.
+ * Instances are generated once per handler method with {@link LambdaMetafactory}, so calling
+ * {@link #invoke(EventHandler, Event)} is a plain interface call (which the JIT can inline)
+ * instead of a reflective {@link Method#invoke(Object, Object...)}.
+ */
+interface EventHandlerInvoker {
+
+	void invoke(EventHandler handler, Event event);
+
+	final class Factory {
+
+		private static final Logger log = Logger.getLogger(EventHandlerInvoker.class);
+
+		private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, EventHandler.class, Event.class);
+
+		private static final Map<Method, EventHandlerInvoker> cache = new ConcurrentHashMap<>();
+
+		/** placeholder for methods that cannot be called through a generated invoker, as the cache does not accept null values. */
+		private static final EventHandlerInvoker UNSUPPORTED = (handler, event) -> {
+			throw new UnsupportedOperationException();
+		};
+
+		private Factory() {
+		}
+
+		/**
+		 * @return an invoker calling the given <code>handleEvent</code> method, or <code>null</code> if
+		 * no invoker can be generated for it (e.g. because the handler interface is not public). In this
+		 * case, the method must be called by reflection.
+		 */
+		static EventHandlerInvoker getInvoker(final Method method) {
+			EventHandlerInvoker invoker = cache.computeIfAbsent(method, Factory::createInvoker);
+			return invoker == UNSUPPORTED ? null : invoker;
+		}
+
+		private static EventHandlerInvoker createInvoker(final Method method) {
+			Class<?> handlerClass = method.getDeclaringClass();
+			Class<?>[] params = method.getParameterTypes();
+			if (params.length != 1 || !EventHandler.class.isAssignableFrom(handlerClass) || !Event.class.isAssignableFrom(params[0])) {
+				return UNSUPPORTED;
+			}
+			Class<?> eventClass = params[0];
+			if (!isAccessible(handlerClass) || !isAccessible(eventClass)) {
+				log.info("no generated invoker for " + handlerClass.getName() + ": handler or event class not accessible, using reflection.");
+				return UNSUPPORTED;
+			}
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodHandle target = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "invoke",
+						MethodType.methodType(EventHandlerInvoker.class), INVOKER_TYPE, target,
+						MethodType.methodType(void.class, handlerClass, eventClass));
+				return (EventHandlerInvoker) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				log.warn("could not generate invoker for " + handlerClass.getName() + ".handleEvent(" + eventClass.getName() + "), using reflection.", e);
+				return UNSUPPORTED;
+			}
+		}
+
+		/**
+		 * The generated class lives next to this class, so it must be able to load and access
+		 * both the handler interface and the event class.
+		 */
+		private static boolean isAccessible(final Class<?> klass) {
+			for (Class<?> c = klass; c != null; c = c.getEnclosingClass()) {
+				if (!Modifier.isPublic(c.getModifiers())) {
+					return false;
+				}
+			}
+			try {
+				return Class.forName(klass.getName(), false, EventHandlerInvoker.class.getClassLoader()) == klass;
+			} catch (ClassNotFoundException | LinkageError e) {
+				return false;
+			}
+		}
+	}
+
+}
@@ -77,6 +77,12 @@ import org.matsim.core.events.handler.EventHandler;
  * up execution!</li>
  * </ol>
  *
+ * By default ({@link DispatchMode#generated}), each <code>handleEvent</code>-method of a handler interface
+ * is called through an {@link EventHandlerInvoker} that is generated once per method, so neither
+ * callHandlerFast() nor reflection is used while processing events. Handler interfaces that are not
+ * accessible to the generated invokers (e.g. non-public interfaces) fall back to the reflective path,
+ * which is also used for all handlers in {@link DispatchMode#reflective}.
+ *
  * @author dstrippgen
  * @author mrieser
  */
@@ -84,14 +90,23 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private static final Logger log = Logger.getLogger(EventsManagerImpl.class);
 
+	public enum DispatchMode {
+		/** calls handlers through callHandlerFast() and {@link Method#invoke(Object, Object...)} */
+		reflective,
+		/** calls handlers through invokers generated once per handler method */
+		generated
+	}
+
 	static private class HandlerData {
 
 		protected Class<?> eventklass;
 		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
 		protected Method method;
-		protected HandlerData(final Class<?> eventklass, final Method method) {
+		protected EventHandlerInvoker invoker;
+		protected HandlerData(final Class<?> eventklass, final Method method, final EventHandlerInvoker invoker) {
 			this.eventklass = eventklass;
 			this.method = method;
+			this.invoker = invoker;
 		}
 		protected void removeHandler(final EventHandler handler) {
 			this.handlerList.remove(handler);
@@ -102,14 +117,18 @@ public final class EventsManagerImpl implements EventsManager {
 		protected final Class<?> eventClass;
 		protected final EventHandler eventHandler;
 		protected final Method method;
+		protected final EventHandlerInvoker invoker;
 
-		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method) {
+		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method, final EventHandlerInvoker invoker) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
 			this.method = method;
+			this.invoker = invoker;
 		}
 	}
 
+	private final DispatchMode dispatchMode;
+
 	private final List<HandlerData> handlerData = new ArrayList<HandlerData>();
 
 	private final Map<Class<?>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<Class<?>, HandlerInfo[]>(15);
@@ -117,6 +136,14 @@ public final class EventsManagerImpl implements EventsManager {
 	private long counter = 0;
 	private long nextCounterMsg = 1;
 
+	public EventsManagerImpl() {
+		this(DispatchMode.generated);
+	}
+
+	public EventsManagerImpl(final DispatchMode dispatchMode) {
+		this.dispatchMode = dispatchMode;
+	}
+
 	private HandlerData findHandler(final Class<?> evklass) {
 		for (HandlerData handler : this.handlerData) {
 			if (handler.eventklass == evklass) {
@@ -207,7 +234,8 @@ public final class EventsManagerImpl implements EventsManager {
 					log.info("    > " + eventClass.getName());
 					HandlerData dat = findHandler(eventClass);
 					if (dat == null) {
-						dat = new HandlerData(eventClass, method);
+						EventHandlerInvoker invoker = this.dispatchMode == DispatchMode.generated ? EventHandlerInvoker.Factory.getInvoker(method) : null;
+						dat = new HandlerData(eventClass, method, invoker);
 						this.handlerData.add(dat);
 					}
 					dat.handlerList.add(handler);
@@ -219,6 +247,14 @@ public final class EventsManagerImpl implements EventsManager {
 	private void computeEvent(final Event event) {
 		for (HandlerInfo info : getHandlersForClass(event.getClass())) {
 			synchronized(info.eventHandler) {
+				if (info.invoker != null) {
+					try {
+						info.invoker.invoke(info.eventHandler, event);
+					} catch (RuntimeException | Error e) {
+						throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
+					}
+					continue;
+				}
 				if (callHandlerFast(info.eventClass, event, info.eventHandler)) {
 					continue;
 				}
@@ -246,7 +282,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(klass);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(klass, handler, dat.method));
+					info.add(new HandlerInfo(klass, handler, dat.method, dat.invoker));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -256,7 +292,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(intfc);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(intfc, handler, dat.method));
+					info.add(new HandlerInfo(intfc, handler, dat.method, dat.invoker));
 				}
 			}
 		}
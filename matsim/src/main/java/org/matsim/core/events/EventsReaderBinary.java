@@ -0,0 +1,122 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Reads events files written by {@link EventWriterBinary} sequentially from a stream.
+ * Use {@link MappedEventsReaderBinary} to read only the events of some time period from a file.
+ */
+public final class EventsReaderBinary implements MatsimReader {
+
+	private final BinaryEventsDecoder decoder = new BinaryEventsDecoder();
+	private final EventsReaderXMLv1 delegate;
+	private final LZ4FastDecompressor decompressor = BinaryEventsFormat.getLZ4Factory().fastDecompressor();
+	private byte[] compressed = new byte[0];
+	private byte[] dictionary = new byte[0];
+	private byte[] data = new byte[0];
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.delegate = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(final String eventType, final CustomEventMapper<?> mapper) {
+		this.delegate.addCustomEventMapper(eventType, mapper);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		try (InputStream stream = IOUtils.getInputStream(filename)) {
+			parse(stream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		try (InputStream stream = IOUtils.getInputStream(url)) {
+			parse(stream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void parse(final InputStream stream) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+			if (in.readInt() != BinaryEventsFormat.MAGIC) {
+				throw new IllegalArgumentException("The stream does not contain binary events.");
+			}
+			int version = in.readInt();
+			if (version != BinaryEventsFormat.VERSION) {
+				throw new IllegalArgumentException("Unsupported version of binary events: " + version);
+			}
+			int first;
+			while ((first = in.read()) >= 0) {
+				int eventCount = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+				in.readDouble(); // min time
+				in.readDouble(); // max time
+				int dictionaryLength = in.readInt();
+				int compressedDictionaryLength = in.readInt();
+				int dataLength = in.readInt();
+				int compressedDataLength = in.readInt();
+
+				this.dictionary = readSection(in, compressedDictionaryLength, this.dictionary, dictionaryLength);
+				this.decoder.readDictionary(ByteBuffer.wrap(this.dictionary, 0, dictionaryLength));
+				this.data = readSection(in, compressedDataLength, this.data, dataLength);
+				this.decoder.processEvents(ByteBuffer.wrap(this.data, 0, dataLength), eventCount, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, this.delegate);
+			}
+		} catch (EOFException e) {
+			throw new UncheckedIOException("Unexpected end of binary events, the file may be truncated.", e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private byte[] readSection(final DataInputStream in, final int compressedLength, final byte[] buffer, final int length) throws IOException {
+		if (this.compressed.length < compressedLength) {
+			this.compressed = new byte[compressedLength];
+		}
+		in.readFully(this.compressed, 0, compressedLength);
+		byte[] target = buffer.length < length ? new byte[length] : buffer;
+		this.decompressor.decompress(this.compressed, 0, target, 0, length);
+		return target;
+	}
+
+}
@@ -0,0 +1,221 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsRingBuffer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup.WaitStrategy;
+
+/**
+ * A preallocated ring buffer that hands events to a fixed number of consumers. Every consumer sees
+ * every event, in the order of the sequence numbers assigned when publishing.
+ * <p>
+ * Publishing only needs one atomic increment to claim a sequence number, so several threads may publish
+ * concurrently. A slot is only reused after all consumers have moved past it. Consumers read all
+ * published events that are available in one batch and only then advance their sequence, so the
+ * shared state is touched once per batch and not once per event.
+ *
+ * @see RingBufferParallelEventsManager
+ */
+/*package*/ final class EventsRingBuffer {
+
+	private static final long PARK_NANOS = 50_000;
+
+	private final Event[] entries;
+	private final int mask;
+	private final int indexShift;
+	/** for each slot, the round (sequence / size) of the event that was last published into it */
+	private final AtomicIntegerArray published;
+	private final AtomicLong claimed = new AtomicLong(-1);
+	private final Sequence[] consumerSequences;
+	private final WaitStrategy waitStrategy;
+
+	private volatile long cachedMinConsumerSequence = -1;
+
+	/*package*/ EventsRingBuffer(final int minimalSize, final int numberOfConsumers, final WaitStrategy waitStrategy) {
+		int size = Integer.highestOneBit(Math.max(minimalSize, 2) - 1) << 1;
+		this.entries = new Event[size];
+		this.mask = size - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(size);
+		this.published = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			this.published.set(i, -1);
+		}
+		this.consumerSequences = new Sequence[numberOfConsumers];
+		for (int i = 0; i < numberOfConsumers; i++) {
+			this.consumerSequences[i] = new Sequence();
+		}
+		this.waitStrategy = waitStrategy;
+	}
+
+	/*package*/ int getSize() {
+		return this.entries.length;
+	}
+
+	/*package*/ Sequence getConsumerSequence(final int consumer) {
+		return this.consumerSequences[consumer];
+	}
+
+	/**
+	 * @return the sequence number of the event
+	 */
+	/*package*/ long publish(final Event event) {
+		long sequence = this.claimed.incrementAndGet();
+		awaitFreeSlot(sequence);
+		int index = (int) sequence & this.mask;
+		this.entries[index] = event;
+		this.published.lazySet(index, (int) (sequence >>> this.indexShift));
+		return sequence;
+	}
+
+	/**
+	 * Publishes <code>count</code> events with consecutive sequence numbers.
+	 *
+	 * @return the sequence number of the last event
+	 */
+	/*package*/ long publish(final Event[] events, final int count) {
+		if (count == 0) {
+			return this.claimed.get();
+		}
+		long last = this.claimed.addAndGet(count);
+		long first = last - count + 1;
+		int done = 0;
+		while (done < count) {
+			// a batch may be larger than the ring, so wait for the slots chunk by chunk
+			int chunk = Math.min(count - done, this.entries.length);
+			awaitFreeSlot(first + done + chunk - 1);
+			for (int i = 0; i < chunk; i++) {
+				long sequence = first + done + i;
+				this.entries[(int) sequence & this.mask] = events[done + i];
+			}
+			for (int i = 0; i < chunk; i++) {
+				long sequence = first + done + i;
+				this.published.lazySet((int) sequence & this.mask, (int) (sequence >>> this.indexShift));
+			}
+			done += chunk;
+		}
+		return last;
+	}
+
+	/**
+	 * @return the highest sequence number claimed by any publisher so far.
+	 */
+	/*package*/ long getClaimedSequence() {
+		return this.claimed.get();
+	}
+
+	/**
+	 * @return the highest sequence <code>s &gt;= from</code> such that all events from <code>from</code> to
+	 * <code>s</code> are published, or <code>from - 1</code> if the event <code>from</code> is not yet published.
+	 */
+	/*package*/ long getHighestPublishedSequence(final long from) {
+		long claimed = this.claimed.get();
+		long sequence = from;
+		while (sequence <= claimed && isPublished(sequence)) {
+			sequence++;
+		}
+		return sequence - 1;
+	}
+
+	/*package*/ Event get(final long sequence) {
+		return this.entries[(int) sequence & this.mask];
+	}
+
+	/**
+	 * Blocks until all consumers have processed the event with the given sequence number.
+	 */
+	/*package*/ void awaitConsumers(final long sequence) {
+		int counter = 0;
+		while (getMinimumConsumerSequence() < sequence) {
+			idle(counter++);
+		}
+	}
+
+	/*package*/ void clear() {
+		for (int i = 0; i < this.entries.length; i++) {
+			this.entries[i] = null;
+		}
+	}
+
+	/*package*/ void idle(final int counter) {
+		switch (this.waitStrategy) {
+			case busySpin:
+				break;
+			case threadYield:
+				Thread.yield();
+				break;
+			case park:
+				// spin and yield for a short while, as new events typically arrive within microseconds
+				if (counter < 100) {
+					break;
+				} else if (counter < 200) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+				break;
+			default:
+				throw new RuntimeException("unknown wait strategy " + this.waitStrategy);
+		}
+	}
+
+	private boolean isPublished(final long sequence) {
+		return this.published.get((int) sequence & this.mask) == (int) (sequence >>> this.indexShift);
+	}
+
+	private void awaitFreeSlot(final long sequence) {
+		long wrapPoint = sequence - this.entries.length;
+		if (wrapPoint > this.cachedMinConsumerSequence) {
+			int counter = 0;
+			long minSequence;
+			while (wrapPoint > (minSequence = getMinimumConsumerSequence())) {
+				idle(counter++);
+			}
+			this.cachedMinConsumerSequence = minSequence;
+		}
+	}
+
+	private long getMinimumConsumerSequence() {
+		long min = Long.MAX_VALUE;
+		for (Sequence sequence : this.consumerSequences) {
+			min = Math.min(min, sequence.get());
+		}
+		return min;
+	}
+
+	/**
+	 * The sequence number of the last event processed by a consumer. Padded to
+	 * avoid false sharing between the consumers' cache lines.
+	 */
+	/*package*/ static final class Sequence extends AtomicLong {
+		private static final long serialVersionUID = 1L;
+		@SuppressWarnings("unused")
+		private long p1, p2, p3, p4, p5, p6, p7;
+
+		Sequence() {
+			super(-1);
+		}
+	}
+
+}
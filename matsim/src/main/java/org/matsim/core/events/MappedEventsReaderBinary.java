@@ -0,0 +1,288 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MappedEventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Reads uncompressed (i.e. not gzipped) events files written by {@link EventWriterBinary} by mapping
+ * them into memory. When opening the file, only the block headers and the dictionaries are read; the
+ * events of a time period can then be read without decompressing the blocks outside of it, e.g.
+ * <pre>
+ * try (MappedEventsReaderBinary reader = new MappedEventsReaderBinary("events.bin")) {
+ *     reader.readEvents(events, 8 * 3600, 9 * 3600);
+ * }
+ * </pre>
+ * As the blocks are in the order of the events, the blocks of a time period can be found by binary search
+ * if the events in the file are sorted by time, as they are when written during the simulation.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class MappedEventsReaderBinary implements Closeable {
+
+	private static final long MAX_MAPPED_SIZE = 1L << 30;
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private MappedByteBuffer mapped = null;
+	private long mappedStart = 0;
+	private long mappedEnd = 0;
+
+	private final long[] blockOffsets;
+	private final int[] eventCounts;
+	private final double[] minTimes;
+	private final double[] maxTimes;
+	private final boolean sortedBlocks;
+	private final long numberOfEvents;
+
+	private final BinaryEventsDecoder decoder = new BinaryEventsDecoder();
+	private final Map<String, CustomEventMapper<?>> customEventMappers = new LinkedHashMap<>();
+	private final LZ4FastDecompressor decompressor = BinaryEventsFormat.getLZ4Factory().fastDecompressor();
+	private ByteBuffer data = ByteBuffer.allocate(0);
+
+	/**
+	 * Opens the file and reads the block headers and the dictionaries. Events are only created by
+	 * {@link #readEvents(EventsManager)} and {@link #readEvents(EventsManager, double, double)}.
+	 */
+	public MappedEventsReaderBinary(final String filename) {
+		try {
+			this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+			this.fileSize = this.channel.size();
+
+			ByteBuffer header = map(0, BinaryEventsFormat.FILE_HEADER_SIZE);
+			if (header.getInt() != BinaryEventsFormat.MAGIC) {
+				throw new IllegalArgumentException("The file " + filename + " does not contain binary events.");
+			}
+			int version = header.getInt();
+			if (version != BinaryEventsFormat.VERSION) {
+				throw new IllegalArgumentException("Unsupported version of binary events: " + version);
+			}
+
+			int blocks = 0;
+			long[] offsets = new long[16];
+			int[] counts = new int[16];
+			double[] mins = new double[16];
+			double[] maxs = new double[16];
+			boolean sorted = true;
+			long events = 0;
+			long offset = BinaryEventsFormat.FILE_HEADER_SIZE;
+			ByteBuffer dictionary = ByteBuffer.allocate(0);
+			while (offset < this.fileSize) {
+				ByteBuffer block = map(offset, BinaryEventsFormat.BLOCK_HEADER_SIZE);
+				int eventCount = block.getInt();
+				double minTime = block.getDouble();
+				double maxTime = block.getDouble();
+				int dictionaryLength = block.getInt();
+				int compressedDictionaryLength = block.getInt();
+				block.getInt(); // data length
+				int compressedDataLength = block.getInt();
+
+				if (blocks == offsets.length) {
+					offsets = Arrays.copyOf(offsets, blocks * 2);
+					counts = Arrays.copyOf(counts, blocks * 2);
+					mins = Arrays.copyOf(mins, blocks * 2);
+					maxs = Arrays.copyOf(maxs, blocks * 2);
+				}
+				if (blocks > 0 && (minTime < maxs[blocks - 1])) {
+					sorted = false;
+				}
+				offsets[blocks] = offset;
+				counts[blocks] = eventCount;
+				mins[blocks] = minTime;
+				maxs[blocks] = maxTime;
+				blocks++;
+				events += eventCount;
+
+				if (dictionary.capacity() < dictionaryLength) {
+					dictionary = ByteBuffer.allocate(dictionaryLength);
+				}
+				dictionary.clear().limit(dictionaryLength);
+				ByteBuffer source = map(offset + BinaryEventsFormat.BLOCK_HEADER_SIZE, compressedDictionaryLength);
+				this.decompressor.decompress(source, source.position(), dictionary, 0, dictionaryLength);
+				this.decoder.readDictionary(dictionary);
+
+				offset += BinaryEventsFormat.BLOCK_HEADER_SIZE + compressedDictionaryLength + compressedDataLength;
+			}
+			if (offset != this.fileSize) {
+				throw new UncheckedIOException("Unexpected end of binary events, the file " + filename + " may be truncated.");
+			}
+			this.blockOffsets = Arrays.copyOf(offsets, blocks);
+			this.eventCounts = Arrays.copyOf(counts, blocks);
+			this.minTimes = Arrays.copyOf(mins, blocks);
+			this.maxTimes = Arrays.copyOf(maxs, blocks);
+			this.sortedBlocks = sorted;
+			this.numberOfEvents = events;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void addCustomEventMapper(final String eventType, final CustomEventMapper<?> mapper) {
+		this.customEventMappers.put(eventType, mapper);
+	}
+
+	public int getNumberOfBlocks() {
+		return this.blockOffsets.length;
+	}
+
+	public long getNumberOfEvents() {
+		return this.numberOfEvents;
+	}
+
+	/**
+	 * @return the smallest time of all events in the file, or {@link Double#NaN} if the file contains no events
+	 */
+	public double getFirstTime() {
+		double time = Double.NaN;
+		for (double t : this.minTimes) {
+			time = Double.isNaN(time) ? t : Math.min(time, t);
+		}
+		return time;
+	}
+
+	/**
+	 * @return the largest time of all events in the file, or {@link Double#NaN} if the file contains no events
+	 */
+	public double getLastTime() {
+		double time = Double.NaN;
+		for (double t : this.maxTimes) {
+			time = Double.isNaN(time) ? t : Math.max(time, t);
+		}
+		return time;
+	}
+
+	/**
+	 * Passes all events of the file to the given events manager.
+	 */
+	public void readEvents(final EventsManager events) {
+		readEvents(events, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Passes the events with <code>fromTime &lt;= time &lt;= toTime</code> to the given events manager,
+	 * in the order they are stored in the file. Blocks without such events are not decompressed.
+	 */
+	public void readEvents(final EventsManager events, final double fromTime, final double toTime) {
+		EventsReaderXMLv1 delegate = new EventsReaderXMLv1(events);
+		for (Map.Entry<String, CustomEventMapper<?>> entry : this.customEventMappers.entrySet()) {
+			delegate.addCustomEventMapper(entry.getKey(), entry.getValue());
+		}
+		int block = this.sortedBlocks ? findFirstBlock(fromTime) : 0;
+		for (; block < this.blockOffsets.length; block++) {
+			if (this.minTimes[block] > toTime) {
+				if (this.sortedBlocks) {
+					break;
+				}
+				continue;
+			}
+			if (this.maxTimes[block] < fromTime) {
+				continue;
+			}
+			readBlock(block, fromTime, toTime, delegate);
+		}
+	}
+
+	/**
+	 * @return the index of the first block with events at or after <code>time</code>
+	 */
+	private int findFirstBlock(final double time) {
+		int low = 0;
+		int high = this.maxTimes.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.maxTimes[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void readBlock(final int block, final double fromTime, final double toTime, final EventsReaderXMLv1 delegate) {
+		try {
+			long offset = this.blockOffsets[block];
+			ByteBuffer header = map(offset, BinaryEventsFormat.BLOCK_HEADER_SIZE);
+			header.position(header.position() + 24); // skip event count, times and dictionary length
+			int compressedDictionaryLength = header.getInt();
+			int dataLength = header.getInt();
+			int compressedDataLength = header.getInt();
+
+			if (this.data.capacity() < dataLength) {
+				this.data = ByteBuffer.allocate(dataLength);
+			}
+			this.data.clear().limit(dataLength);
+			ByteBuffer source = map(offset + BinaryEventsFormat.BLOCK_HEADER_SIZE + compressedDictionaryLength, compressedDataLength);
+			this.decompressor.decompress(source, source.position(), this.data, 0, dataLength);
+			this.decoder.processEvents(this.data, this.eventCounts[block], fromTime, toTime, delegate);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns a buffer positioned at <code>offset</code> in the file with at least <code>length</code>
+	 * remaining bytes. The file is mapped in windows of up to {@value #MAX_MAPPED_SIZE} bytes, which
+	 * are only re-mapped when the requested range is outside of the current window.
+	 */
+	private ByteBuffer map(final long offset, final int length) throws IOException {
+		if (offset + length > this.fileSize) {
+			throw new UncheckedIOException("Unexpected end of binary events, the file may be truncated.");
+		}
+		if (this.mapped == null || offset < this.mappedStart || offset + length > this.mappedEnd) {
+			long size = Math.min(this.fileSize - offset, Math.max(MAX_MAPPED_SIZE, length));
+			this.mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+			this.mappedStart = offset;
+			this.mappedEnd = offset + size;
+		}
+		ByteBuffer buffer = this.mapped.duplicate();
+		buffer.position((int) (offset - this.mappedStart));
+		return buffer;
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.mapped = null;
+			this.channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -31,6 +31,7 @@ import org.apache.log4j.Logger;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
 import org.matsim.core.utils.io.MatsimXmlParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -71,6 +72,13 @@ public final class MatsimEventsReader implements MatsimReader {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
 		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
 			new XmlEventsReader(this.events, map ).readFile(filename );
+		} else if (lcFilename.endsWith(BinaryEventsFormat.FILE_ENDING) || lcFilename.endsWith(BinaryEventsFormat.FILE_ENDING + ".gz")
+				|| lcFilename.endsWith(BinaryEventsFormat.FILE_ENDING + ".lz4")) {
+			EventsReaderBinary reader = new EventsReaderBinary(this.events);
+			for (Map.Entry<String, CustomEventMapper> entry : map.entrySet()) {
+				reader.addCustomEventMapper(entry.getKey(), entry.getValue());
+			}
+			reader.readFile(filename);
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -0,0 +1,300 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferParallelEventsManager.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup.WaitStrategy;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.gbl.Gbl;
+
+/**
+ * An EventsManager that hands all events to its handler threads through one preallocated
+ * {@link EventsRingBuffer} instead of one blocking queue per thread. Handlers are distributed
+ * round-robin over the threads; every thread sees every event.
+ * <p>
+ * If <code>syncOnSimSteps</code> is true, {@link #afterSimStep(double)} publishes a {@link LastEventOfSimStep}
+ * and only returns once all threads have processed all events of the time step, including events
+ * that were created by event handlers while processing the time step. {@link #finishProcessing()} does the
+ * same with a {@link LastEventOfIteration} and stops the threads.
+ * <p>
+ * Events created by event handlers are not put into the ring buffer directly by the handler threads,
+ * as a handler thread waiting for a free slot could wait for itself. They are collected in a separate
+ * queue and published by the next call to {@link #processEvent(Event)} from outside, or at the end of
+ * the time step.
+ *
+ * Usage via config.xml:
+ *
+ * <pre>
+ * &lt;module name="parallelEventHandling"&gt;
+ *  &lt;param name="numberOfThreads" value="4" /&gt;
+ *  &lt;param name="useRingBuffer" value="true" /&gt;
+ *  &lt;param name="waitStrategy" value="park" /&gt;
+ * &lt;/module&gt;
+ * </pre>
+ */
+public final class RingBufferParallelEventsManager implements EventsManager {
+
+	private final static Logger log = Logger.getLogger(RingBufferParallelEventsManager.class);
+
+	private final int numOfThreads;
+	private final boolean syncOnSimSteps;
+	private final int ringBufferSize;
+	private final WaitStrategy waitStrategy;
+
+	private final EventsManagerImpl delegate;
+	private final EventsManagerImpl[] eventsManagers;
+	private int handlerCount = 0;
+
+	private EventsRingBuffer ringBuffer;
+	private ProcessEventsThread[] threads;
+	private final ConcurrentLinkedQueue<Event> eventsFromHandlers = new ConcurrentLinkedQueue<>();
+	private Event[] drainBuffer = new Event[256];
+
+	private volatile boolean parallelMode = false;
+	private AtomicReference<Throwable> hadException = new AtomicReference<>();
+	private long startTime;
+
+	@Inject
+	RingBufferParallelEventsManager(ParallelEventHandlingConfigGroup config) {
+		this(config.getNumberOfThreads() != null ? config.getNumberOfThreads() : 1,
+				config.getSynchronizeOnSimSteps() != null ? config.getSynchronizeOnSimSteps() : true,
+				config.getRingBufferSize(), config.getWaitStrategy());
+	}
+
+	public RingBufferParallelEventsManager(final int numOfThreads, final boolean syncOnSimSteps) {
+		this(numOfThreads, syncOnSimSteps, 65536, WaitStrategy.park);
+	}
+
+	public RingBufferParallelEventsManager(final int numOfThreads, final boolean syncOnSimSteps, final int ringBufferSize, final WaitStrategy waitStrategy) {
+		this.numOfThreads = numOfThreads;
+		this.syncOnSimSteps = syncOnSimSteps;
+		this.ringBufferSize = ringBufferSize;
+		this.waitStrategy = waitStrategy;
+		log.info("number of threads=" + numOfThreads + ", ring buffer size=" + ringBufferSize + ", wait strategy=" + waitStrategy);
+
+		this.delegate = new EventsManagerImpl();
+		this.eventsManagers = new EventsManagerImpl[numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) this.eventsManagers[i] = new EventsManagerImpl();
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		if (!this.parallelMode) {
+			this.delegate.processEvent(event);
+		} else if (Thread.currentThread() instanceof ProcessEventsThread) {
+			this.eventsFromHandlers.add(event);
+		} else {
+			if (!this.eventsFromHandlers.isEmpty()) {
+				publishEventsFromHandlers();
+			}
+			this.ringBuffer.publish(event);
+		}
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		this.delegate.addHandler(handler);
+
+		this.eventsManagers[this.handlerCount % this.numOfThreads].addHandler(handler);
+		this.handlerCount++;
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		this.delegate.removeHandler(handler);
+
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
+
+		this.ringBuffer = new EventsRingBuffer(this.ringBufferSize, this.numOfThreads, this.waitStrategy);
+		this.hadException = new AtomicReference<>();
+		ExceptionHandler uncaughtExceptionHandler = new ExceptionHandler(this.hadException);
+
+		this.threads = new ProcessEventsThread[this.numOfThreads];
+		for (int i = 0; i < this.numOfThreads; i++) {
+			this.threads[i] = new ProcessEventsThread(this.eventsManagers[i], this.ringBuffer, i);
+			this.threads[i].setDaemon(true);
+			this.threads[i].setUncaughtExceptionHandler(uncaughtExceptionHandler);
+			this.threads[i].start();
+		}
+
+		this.startTime = System.currentTimeMillis();
+		this.parallelMode = true;
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		/*
+		 * If an exception occurred, at least one of the events processing threads
+		 * has crashed. Its sequence is set to Long.MAX_VALUE, so waiting would not block,
+		 * but there is no point in waiting for the remaining threads.
+		 */
+		if (!this.syncOnSimSteps || !this.parallelMode || this.hadException.get() != null) {
+			return;
+		}
+		awaitAllEventsProcessed(new LastEventOfSimStep(time));
+	}
+
+	@Override
+	public synchronized void finishProcessing() {
+		if (this.parallelMode) {
+			awaitAllEventsProcessed(new LastEventOfSimStep(Double.POSITIVE_INFINITY));
+			this.ringBuffer.publish(new LastEventOfIteration(Double.POSITIVE_INFINITY));
+			try {
+				for (Thread thread : this.threads) thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+
+			/*
+			 * After the simulation Events are processed in
+			 * the Main Thread.
+			 */
+			this.parallelMode = false;
+			this.ringBuffer.clear();
+
+			long processed = this.threads[0].processedEvents;
+			double seconds = Math.max(System.currentTimeMillis() - this.startTime, 1) / 1000.0;
+			log.info("processed " + processed + " events in " + seconds + " seconds (" + (long) (processed / seconds) + " events/s).");
+		}
+
+		this.delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
+		Throwable throwable = this.hadException.get();
+		if (throwable != null) {
+			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", throwable);
+		}
+	}
+
+	/**
+	 * Publishes the given marker and waits until all threads have processed it. As event handlers might
+	 * have created additional events in the meantime, this is repeated until no such events are left.
+	 */
+	private void awaitAllEventsProcessed(final LastEventOfSimStep marker) {
+		do {
+			publishEventsFromHandlers();
+			long sequence = this.ringBuffer.publish(marker);
+			this.ringBuffer.awaitConsumers(sequence);
+		} while (!this.eventsFromHandlers.isEmpty());
+	}
+
+	private synchronized void publishEventsFromHandlers() {
+		int count = 0;
+		Event event;
+		while ((event = this.eventsFromHandlers.poll()) != null) {
+			if (count == this.drainBuffer.length) {
+				this.ringBuffer.publish(this.drainBuffer, count);
+				count = 0;
+			}
+			this.drainBuffer[count++] = event;
+		}
+		this.ringBuffer.publish(this.drainBuffer, count);
+		for (int i = 0; i < count; i++) this.drainBuffer[i] = null;
+	}
+
+	private static class ProcessEventsThread extends Thread {
+
+		private final EventsManager eventsManager;
+		private final EventsRingBuffer ringBuffer;
+		private final EventsRingBuffer.Sequence sequence;
+		/*package*/ long processedEvents = 0;
+
+		ProcessEventsThread(EventsManager eventsManager, EventsRingBuffer ringBuffer, int index) {
+			super(ProcessEventsThread.class.getSimpleName() + index);
+			this.eventsManager = eventsManager;
+			this.ringBuffer = ringBuffer;
+			this.sequence = ringBuffer.getConsumerSequence(index);
+		}
+
+		@Override
+		public void run() {
+			try {
+				long next = this.sequence.get() + 1;
+				int idleCounter = 0;
+				while (true) {
+					long available = this.ringBuffer.getHighestPublishedSequence(next);
+					if (available < next) {
+						this.ringBuffer.idle(idleCounter++);
+						continue;
+					}
+					idleCounter = 0;
+					for (long s = next; s <= available; s++) {
+						Event event = this.ringBuffer.get(s);
+						if (event instanceof LastEventOfSimStep) {
+							continue;
+						}
+						if (event instanceof LastEventOfIteration) {
+							this.sequence.set(s);
+							Gbl.printCurrentThreadCpuTime();
+							return;
+						}
+						this.eventsManager.processEvent(event);
+						this.processedEvents++;
+					}
+					this.sequence.lazySet(available);
+					next = available + 1;
+				}
+			} catch (RuntimeException | Error e) {
+				// do not block the publishing threads, they check for the exception
+				this.sequence.set(Long.MAX_VALUE);
+				throw e;
+			}
+		}
+
+	}
+
+	private static class ExceptionHandler implements UncaughtExceptionHandler {
+
+		private final AtomicReference<Throwable> hadException;
+
+		public ExceptionHandler(final AtomicReference<Throwable> hadException) {
+			this.hadException = hadException;
+		}
+
+		@Override
+		public void uncaughtException(Thread t, Throwable e) {
+			this.hadException.set(e);
+			log.error("Thread " + t.getName() + " died with exception while handling events.", e);
+		}
+
+	}
+
+}
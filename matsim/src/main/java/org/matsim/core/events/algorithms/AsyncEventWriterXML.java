@@ -0,0 +1,426 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsyncEventWriterXML.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes the same xml as {@link EventWriterXML}, but takes the writing off the thread handling the events.
+ * <p>
+ * The events are formatted directly into UTF-8 encoded byte buffers of {@value #BUFFER_SIZE} bytes. The attributes
+ * of the most frequent event types (link enter/leave, vehicle enters/leaves traffic, departure, arrival, activity
+ * start/end, person enters/leaves vehicle) are written directly from their fields, without creating the attributes
+ * map of {@link Event#getAttributes()}; all other events are written from their attributes map. Full buffers are
+ * handed to a background thread that writes them to the file, and are re-used afterwards. Gzip-compressed files are compressed in blocks by several threads (see
+ * {@link org.matsim.core.utils.io.ParallelGzipOutputStream}), other files are written (and possibly
+ * lz4-compressed) by the background thread alone.
+ * <p>
+ * At most {@value #NUMBER_OF_BUFFERS} buffers are in use. If all of them wait to be written, handling the
+ * next event blocks until a buffer becomes free, so a slow disk slows down the events handling instead of
+ * filling up the memory.
+ *
+ * @see EventWriterXML
+ */
+public final class AsyncEventWriterXML implements EventWriter, BasicEventHandler {
+
+	private static final int BUFFER_SIZE = 1 << 18;
+	private static final int NUMBER_OF_BUFFERS = 4;
+	private static final Buffer END = new Buffer();
+	private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+	private final BlockingQueue<Buffer> freeBuffers = new ArrayBlockingQueue<>(NUMBER_OF_BUFFERS);
+	private final BlockingQueue<Buffer> fullBuffers = new ArrayBlockingQueue<>(NUMBER_OF_BUFFERS + 1);
+	private final Thread writerThread;
+	private volatile Throwable exception = null;
+
+	private Buffer buffer;
+	private byte[] data;
+	private int position;
+	private char highSurrogate = 0;
+	private boolean closed = false;
+
+	public AsyncEventWriterXML(final String outfilename, final int numberOfThreads) {
+		this(IOUtils.getParallelOutputStream(outfilename, numberOfThreads));
+	}
+
+	/**
+	 * @param stream the stream the events are written to, closed with {@link #closeFile()}.
+	 */
+	public AsyncEventWriterXML(final OutputStream stream) {
+		for (int i = 0; i < NUMBER_OF_BUFFERS; i++) {
+			this.freeBuffers.add(new Buffer());
+		}
+		this.writerThread = new Thread(() -> writeBuffers(stream), "AsyncEventWriterXML");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+		nextBuffer();
+		append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+	}
+
+	private void writeBuffers(final OutputStream stream) {
+		boolean ended = false;
+		try (OutputStream out = stream) {
+			while (!ended) {
+				Buffer full = this.fullBuffers.take();
+				if (full == END) {
+					ended = true;
+				} else {
+					try {
+						out.write(full.data, 0, full.length);
+					} finally {
+						this.freeBuffers.put(full);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			this.exception = new IOException(e);
+		} catch (Throwable e) {
+			this.exception = e;
+			if (!ended) {
+				drainAfterException();
+			}
+		}
+	}
+
+	/**
+	 * Keeps returning buffers after an exception until the end is submitted, so the events handling does not
+	 * block forever.
+	 */
+	private void drainAfterException() {
+		try {
+			while (true) {
+				Buffer full = this.fullBuffers.take();
+				if (full == END) {
+					return;
+				}
+				this.freeBuffers.put(full);
+			}
+		} catch (InterruptedException e) {
+			// stop draining
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		append("\t<event ");
+		if (!appendFields(event)) {
+			Map<String, String> attr = event.getAttributes();
+			for (Map.Entry<String, String> entry : attr.entrySet()) {
+				appendAttribute(entry.getKey(), entry.getValue());
+			}
+		}
+		append(" />\n");
+	}
+
+	/**
+	 * Writes the attributes of the frequent event types in the same order as their {@link Event#getAttributes()}.
+	 * Only the exact classes are handled, as subclasses may add attributes.
+	 *
+	 * @return <code>false</code> if the event is not of one of these types, and nothing was written
+	 */
+	private boolean appendFields(final Event event) {
+		Class<?> eventClass = event.getClass();
+		if (eventClass == LinkEnterEvent.class) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(LinkEnterEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			appendAttribute(LinkEnterEvent.ATTRIBUTE_LINK, e.getLinkId());
+		} else if (eventClass == LinkLeaveEvent.class) {
+			LinkLeaveEvent e = (LinkLeaveEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(LinkLeaveEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			appendAttribute(LinkLeaveEvent.ATTRIBUTE_LINK, e.getLinkId());
+		} else if (eventClass == VehicleEntersTrafficEvent.class) {
+			VehicleEntersTrafficEvent e = (VehicleEntersTrafficEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_DRIVER, e.getPersonId());
+			appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getVehicleId() != null) {
+				appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			}
+			if (e.getNetworkMode() != null) {
+				appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE, e.getNetworkMode());
+			}
+			appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_POSITION, e.getRelativePositionOnLink());
+		} else if (eventClass == VehicleLeavesTrafficEvent.class) {
+			VehicleLeavesTrafficEvent e = (VehicleLeavesTrafficEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_DRIVER, e.getPersonId());
+			appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getVehicleId() != null) {
+				appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			}
+			if (e.getNetworkMode() != null) {
+				appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_NETWORKMODE, e.getNetworkMode());
+			}
+			appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_POSITION, e.getRelativePositionOnLink());
+		} else if (eventClass == PersonDepartureEvent.class) {
+			PersonDepartureEvent e = (PersonDepartureEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonDepartureEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonDepartureEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getLegMode() != null) {
+				appendAttribute(PersonDepartureEvent.ATTRIBUTE_LEGMODE, e.getLegMode());
+			}
+		} else if (eventClass == PersonArrivalEvent.class) {
+			PersonArrivalEvent e = (PersonArrivalEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonArrivalEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonArrivalEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getLegMode() != null) {
+				appendAttribute(PersonArrivalEvent.ATTRIBUTE_LEGMODE, e.getLegMode());
+			}
+		} else if (eventClass == ActivityStartEvent.class) {
+			ActivityStartEvent e = (ActivityStartEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(ActivityStartEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			if (e.getLinkId() != null) {
+				appendAttribute(ActivityStartEvent.ATTRIBUTE_LINK, e.getLinkId());
+			}
+			if (e.getFacilityId() != null) {
+				appendAttribute(ActivityStartEvent.ATTRIBUTE_FACILITY, e.getFacilityId());
+			}
+			appendAttribute(ActivityStartEvent.ATTRIBUTE_ACTTYPE, e.getActType());
+		} else if (eventClass == ActivityEndEvent.class) {
+			ActivityEndEvent e = (ActivityEndEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(ActivityEndEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			if (e.getLinkId() != null) {
+				appendAttribute(ActivityEndEvent.ATTRIBUTE_LINK, e.getLinkId());
+			}
+			if (e.getFacilityId() != null) {
+				appendAttribute(ActivityEndEvent.ATTRIBUTE_FACILITY, e.getFacilityId());
+			}
+			appendAttribute(ActivityEndEvent.ATTRIBUTE_ACTTYPE, e.getActType());
+		} else if (eventClass == PersonEntersVehicleEvent.class) {
+			PersonEntersVehicleEvent e = (PersonEntersVehicleEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonEntersVehicleEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonEntersVehicleEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+		} else if (eventClass == PersonLeavesVehicleEvent.class) {
+			PersonLeavesVehicleEvent e = (PersonLeavesVehicleEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonLeavesVehicleEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonLeavesVehicleEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private void appendTimeAndType(final Event event) {
+		appendAttribute(Event.ATTRIBUTE_TIME, event.getTime());
+		appendAttribute(Event.ATTRIBUTE_TYPE, event.getEventType());
+	}
+
+	private void appendAttribute(final String name, final String value) {
+		append(name);
+		append("=\"");
+		appendEncoded(value);
+		append("\" ");
+	}
+
+	private void appendAttribute(final String name, final Id<?> value) {
+		appendAttribute(name, value == null ? null : value.toString());
+	}
+
+	/**
+	 * Writes the value as {@link Double#toString(double)} does. Whole numbers below 10<sup>7</sup>, like most
+	 * event times, are written without creating a String.
+	 */
+	private void appendAttribute(final String name, final double value) {
+		append(name);
+		append("=\"");
+		if (value >= 0 && value < 1e7 && value == (long) value && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO) {
+			appendDigits((long) value);
+			append(".0");
+		} else {
+			append(Double.toString(value));
+		}
+		append("\" ");
+	}
+
+	private void appendDigits(final long value) {
+		if (value >= 10) {
+			appendDigits(value / 10);
+		}
+		appendChar((char) ('0' + (value % 10)));
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	@Override
+	public void closeFile() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			append("</events>");
+			submitBuffer();
+		} finally {
+			// also after an exception, so the writer thread ends
+			try {
+				this.fullBuffers.put(END);
+				this.writerThread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		rethrowException();
+	}
+
+	private void rethrowException() {
+		Throwable e = this.exception;
+		if (e != null) {
+			throw new UncheckedIOException("Exception while writing events.", e);
+		}
+	}
+
+	private void append(final String s) {
+		for (int i = 0, n = s.length(); i < n; i++) {
+			appendChar(s.charAt(i));
+		}
+	}
+
+	/**
+	 * Appends the value in such a way that it no longer contains characters that have a special meaning in xml,
+	 * the same as EventWriterXML does.
+	 */
+	private void appendEncoded(final String value) {
+		if (value == null) {
+			append("null");
+			return;
+		}
+		for (int i = 0, n = value.length(); i < n; i++) {
+			char ch = value.charAt(i);
+			if (ch == '<') {
+				append("&lt;");
+			} else if (ch == '>') {
+				append("&gt;");
+			} else if (ch == '\"') {
+				append("&quot;");
+			} else if (ch == '&') {
+				append("&amp;");
+			} else {
+				appendChar(ch);
+			}
+		}
+	}
+
+	/**
+	 * UTF-8 encodes the char. Surrogate pairs are encoded as one code point, unpaired surrogates are
+	 * replaced by '?', as done by the OutputStreamWriter used by EventWriterXML.
+	 */
+	private void appendChar(final char ch) {
+		if (this.position + 4 > BUFFER_SIZE) {
+			submitBuffer();
+			nextBuffer();
+		}
+		byte[] data = this.data;
+		if (this.highSurrogate != 0) {
+			char high = this.highSurrogate;
+			this.highSurrogate = 0;
+			if (Character.isLowSurrogate(ch)) {
+				int cp = Character.toCodePoint(high, ch);
+				data[this.position++] = (byte) (0xf0 | (cp >> 18));
+				data[this.position++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				data[this.position++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				data[this.position++] = (byte) (0x80 | (cp & 0x3f));
+				return;
+			}
+			data[this.position++] = '?';
+		}
+		if (ch < 0x80) {
+			data[this.position++] = (byte) ch;
+		} else if (ch < 0x800) {
+			data[this.position++] = (byte) (0xc0 | (ch >> 6));
+			data[this.position++] = (byte) (0x80 | (ch & 0x3f));
+		} else if (Character.isHighSurrogate(ch)) {
+			this.highSurrogate = ch;
+		} else if (Character.isLowSurrogate(ch)) {
+			data[this.position++] = '?';
+		} else {
+			data[this.position++] = (byte) (0xe0 | (ch >> 12));
+			data[this.position++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+			data[this.position++] = (byte) (0x80 | (ch & 0x3f));
+		}
+	}
+
+	private void submitBuffer() {
+		if (this.buffer == null) {
+			return; // no free buffer was available after an exception
+		}
+		this.buffer.length = this.position;
+		try {
+			this.fullBuffers.put(this.buffer);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		this.buffer = null;
+		this.data = null;
+	}
+
+	private void nextBuffer() {
+		// polls, so an exception of the writer thread is noticed even if it could not return the buffers
+		Buffer next = null;
+		try {
+			while (next == null) {
+				rethrowException();
+				next = this.freeBuffers.poll(100, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		this.buffer = next;
+		this.data = this.buffer.data;
+		this.position = 0;
+	}
+
+	private static final class Buffer {
+		final byte[] data = new byte[BUFFER_SIZE];
+		int length = 0;
+	}
+
+}
@@ -0,0 +1,198 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryEventsFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import net.jpountz.lz4.LZ4Factory;
+
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+
+/**
+ * Describes the binary events file format written by {@link EventWriterBinary}.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION} (both int), followed by blocks of up to
+ * {@link #EVENTS_PER_BLOCK} events. Each block starts with a header of {@link #BLOCK_HEADER_SIZE} bytes:
+ * <ul>
+ * <li>int: number of events in the block</li>
+ * <li>double: smallest and largest time of the events in the block</li>
+ * <li>int: uncompressed and compressed length of the dictionary section</li>
+ * <li>int: uncompressed and compressed length of the data section</li>
+ * </ul>
+ * followed by the two sections, each compressed with LZ4.
+ * <p>
+ * The <em>dictionary section</em> contains the strings and the event schemas first used in this block, so
+ * the dictionary of a block consists of the entries of all previous blocks plus its own ones. All Ids,
+ * event types, attribute names and other string values are stored only once in the file, and referenced
+ * by their index in the dictionary:
+ * <ul>
+ * <li>varint: number of new strings, then per string: varint length and the UTF-8 bytes</li>
+ * <li>varint: number of new schemas, then per schema: varint index of the event type, varint number of
+ * attributes, then per attribute: varint index of the attribute name and one byte with the kind of the
+ * attribute's values, {@link #KIND_STRING} or {@link #KIND_DOUBLE}</li>
+ * </ul>
+ * A schema describes the attributes of an event (besides time and type).  The schemas of the most frequent
+ * event types are fixed and not stored in the file, they have the indices below {@link #FIXED_SCHEMA_COUNT},
+ * see {@link #getFixedSchemaType(int)}.  These events are written from their getters.  All other events are
+ * written from their {@link org.matsim.api.core.v01.events.Event#getAttributes()}, with one schema per event
+ * type and combination of attribute names and kinds, numbered from {@link #FIXED_SCHEMA_COUNT} on.
+ * <p>
+ * The <em>data section</em> stores the events column by column: after three ints with the offsets of the
+ * schema, string and double columns, the times of all events (double), the schema index of each event
+ * (varint), the references to the strings of all string attributes (varint) and the values of all double
+ * attributes (double), each in the order of the events and their attributes.  A string reference is the
+ * dictionary index plus one, {@link #NULL_STRING} stands for <code>null</code>.  Attributes which are
+ * <code>null</code> are left out when reading the events.
+ * <p>
+ * All numbers are stored big-endian. Varints use 7 bits per byte, least significant group first.
+ *
+ * @see EventWriterBinary
+ * @see org.matsim.core.events.EventsReaderBinary
+ * @see org.matsim.core.events.MappedEventsReaderBinary
+ */
+public final class BinaryEventsFormat {
+
+	public static final String FILE_ENDING = ".bin";
+
+	public static final int MAGIC = 0x4d455642; // "MEVB"
+	public static final int VERSION = 2;
+	public static final int FILE_HEADER_SIZE = 8;
+	public static final int BLOCK_HEADER_SIZE = 36;
+	public static final int DATA_HEADER_SIZE = 12;
+
+	public static final int EVENTS_PER_BLOCK = 32768;
+
+	public static final byte KIND_STRING = 0;
+	public static final byte KIND_DOUBLE = 1;
+
+	public static final int NULL_STRING = 0;
+
+	/*package*/ static final int SCHEMA_LINK_ENTER = 0;
+	/*package*/ static final int SCHEMA_LINK_LEAVE = 1;
+	/*package*/ static final int SCHEMA_VEHICLE_ENTERS_TRAFFIC = 2;
+	/*package*/ static final int SCHEMA_VEHICLE_LEAVES_TRAFFIC = 3;
+	/*package*/ static final int SCHEMA_PERSON_DEPARTURE = 4;
+	/*package*/ static final int SCHEMA_PERSON_ARRIVAL = 5;
+	/*package*/ static final int SCHEMA_ACTIVITY_START = 6;
+	/*package*/ static final int SCHEMA_ACTIVITY_END = 7;
+	public static final int FIXED_SCHEMA_COUNT = 8;
+
+	private static final String[] FIXED_SCHEMA_TYPES = {
+			LinkEnterEvent.EVENT_TYPE, LinkLeaveEvent.EVENT_TYPE,
+			VehicleEntersTrafficEvent.EVENT_TYPE, VehicleLeavesTrafficEvent.EVENT_TYPE,
+			PersonDepartureEvent.EVENT_TYPE, PersonArrivalEvent.EVENT_TYPE,
+			ActivityStartEvent.EVENT_TYPE, ActivityEndEvent.EVENT_TYPE};
+
+	private static final String[][] FIXED_SCHEMA_KEYS = {
+			{LinkEnterEvent.ATTRIBUTE_VEHICLE, LinkEnterEvent.ATTRIBUTE_LINK},
+			{LinkLeaveEvent.ATTRIBUTE_VEHICLE, LinkLeaveEvent.ATTRIBUTE_LINK},
+			{VehicleEntersTrafficEvent.ATTRIBUTE_DRIVER, VehicleEntersTrafficEvent.ATTRIBUTE_LINK, VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE,
+					VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE, VehicleEntersTrafficEvent.ATTRIBUTE_POSITION},
+			{VehicleLeavesTrafficEvent.ATTRIBUTE_DRIVER, VehicleLeavesTrafficEvent.ATTRIBUTE_LINK, VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE,
+					VehicleLeavesTrafficEvent.ATTRIBUTE_NETWORKMODE, VehicleLeavesTrafficEvent.ATTRIBUTE_POSITION},
+			{PersonDepartureEvent.ATTRIBUTE_PERSON, PersonDepartureEvent.ATTRIBUTE_LINK, PersonDepartureEvent.ATTRIBUTE_LEGMODE},
+			{PersonArrivalEvent.ATTRIBUTE_PERSON, PersonArrivalEvent.ATTRIBUTE_LINK, PersonArrivalEvent.ATTRIBUTE_LEGMODE},
+			{ActivityStartEvent.ATTRIBUTE_PERSON, ActivityStartEvent.ATTRIBUTE_LINK, ActivityStartEvent.ATTRIBUTE_FACILITY, ActivityStartEvent.ATTRIBUTE_ACTTYPE},
+			{ActivityEndEvent.ATTRIBUTE_PERSON, ActivityEndEvent.ATTRIBUTE_LINK, ActivityEndEvent.ATTRIBUTE_FACILITY, ActivityEndEvent.ATTRIBUTE_ACTTYPE}};
+
+	private BinaryEventsFormat() {
+	}
+
+	public static String getFixedSchemaType(final int schema) {
+		return FIXED_SCHEMA_TYPES[schema];
+	}
+
+	public static String[] getFixedSchemaKeys(final int schema) {
+		return FIXED_SCHEMA_KEYS[schema].clone();
+	}
+
+	/**
+	 * All attributes of the fixed schemas are strings, only the relative positions of
+	 * {@link VehicleEntersTrafficEvent} and {@link VehicleLeavesTrafficEvent} are doubles.
+	 */
+	public static byte[] getFixedSchemaKinds(final int schema) {
+		String[] keys = FIXED_SCHEMA_KEYS[schema];
+		byte[] kinds = new byte[keys.length];
+		if (schema == SCHEMA_VEHICLE_ENTERS_TRAFFIC || schema == SCHEMA_VEHICLE_LEAVES_TRAFFIC) {
+			kinds[keys.length - 1] = KIND_DOUBLE;
+		}
+		return kinds;
+	}
+
+	public static LZ4Factory getLZ4Factory() {
+		return LZ4Factory.fastestInstance();
+	}
+
+	/**
+	 * Only values which are written exactly like this by {@link Double#toString(double)} can be stored as
+	 * double, otherwise the value read back would not be the same String.
+	 */
+	/*package*/ static boolean isDoubleValue(final String value) {
+		if (value == null) {
+			return false;
+		}
+		int length = value.length();
+		if (length == 0 || length > 24) {
+			return false;
+		}
+		char first = value.charAt(0);
+		if (first != '-' && (first < '0' || first > '9')) {
+			return false;
+		}
+		if (value.indexOf('.') < 0) {
+			return false; // integral values are mostly Ids, which go into the dictionary
+		}
+		try {
+			return Double.toString(Double.parseDouble(value)).equals(value);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/*package*/ static void writeVarInt(final ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7f) != 0) {
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	public static int readVarInt(final ByteBuffer buffer) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+
+}
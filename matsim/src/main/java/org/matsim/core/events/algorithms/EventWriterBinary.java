@@ -0,0 +1,328 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.jpountz.lz4.LZ4Compressor;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events in the compact binary format described in {@link BinaryEventsFormat}. The most frequent
+ * event types (link enter and leave, vehicle enters and leaves traffic, person departure and arrival,
+ * activity start and end) are written from their getters with a fixed schema.  Any other event can be
+ * written as well, then its {@link Event#getAttributes()} are stored, like in {@link EventWriterXML}, and
+ * values which look like doubles are stored as such.  Ids and other strings are stored once per file,
+ * times and double values as 8 bytes, and the events are compressed in blocks.
+ * <p>
+ * Such files can be read by {@link org.matsim.core.events.MatsimEventsReader} when they end with
+ * {@value BinaryEventsFormat#FILE_ENDING}, or by {@link org.matsim.core.events.MappedEventsReaderBinary}
+ * for reading only the events of some time period.
+ */
+public class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	private final DataOutputStream out;
+	private final LZ4Compressor compressor = BinaryEventsFormat.getLZ4Factory().fastCompressor();
+
+	private final Map<String, Integer> strings = new HashMap<>();
+	private final Map<String, Integer> schemas = new HashMap<>();
+	private final StringBuilder schemaKey = new StringBuilder();
+	private final List<String> attributeValues = new ArrayList<>();
+	private final List<String> attributeKeys = new ArrayList<>();
+	private byte[] attributeKinds = new byte[16];
+
+	// the current block
+	private int eventCount = 0;
+	private double minTime = Double.POSITIVE_INFINITY;
+	private double maxTime = Double.NEGATIVE_INFINITY;
+	private int newStringsCount = 0;
+	private final ByteArrayOutputStream newStrings = new ByteArrayOutputStream();
+	private int newSchemasCount = 0;
+	private final ByteArrayOutputStream newSchemas = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream timeColumn = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream schemaColumn = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream stringColumn = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream doubleColumn = new ByteArrayOutputStream();
+	private final ByteBuffer doubleBuffer = ByteBuffer.allocate(8);
+	private byte[] compressed = new byte[0];
+
+	public EventWriterBinary(final String outfilename) {
+		this(IOUtils.getOutputStream(outfilename));
+	}
+
+	public EventWriterBinary(final OutputStream stream) {
+		this.out = new DataOutputStream(stream);
+		try {
+			this.out.writeInt(BinaryEventsFormat.MAGIC);
+			this.out.writeInt(BinaryEventsFormat.VERSION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void closeFile() {
+		try {
+			writeBlock();
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		double time = event.getTime();
+		Class<?> eventClass = event.getClass();
+		if (eventClass == LinkEnterEvent.class) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_LINK_ENTER);
+			writeId(e.getVehicleId());
+			writeId(e.getLinkId());
+		} else if (eventClass == LinkLeaveEvent.class) {
+			LinkLeaveEvent e = (LinkLeaveEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_LINK_LEAVE);
+			writeId(e.getVehicleId());
+			writeId(e.getLinkId());
+		} else if (eventClass == VehicleEntersTrafficEvent.class) {
+			VehicleEntersTrafficEvent e = (VehicleEntersTrafficEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_VEHICLE_ENTERS_TRAFFIC);
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getVehicleId());
+			writeString(e.getNetworkMode());
+			writeDouble(this.doubleColumn, e.getRelativePositionOnLink());
+		} else if (eventClass == VehicleLeavesTrafficEvent.class) {
+			VehicleLeavesTrafficEvent e = (VehicleLeavesTrafficEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_VEHICLE_LEAVES_TRAFFIC);
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getVehicleId());
+			writeString(e.getNetworkMode());
+			writeDouble(this.doubleColumn, e.getRelativePositionOnLink());
+		} else if (eventClass == PersonDepartureEvent.class) {
+			PersonDepartureEvent e = (PersonDepartureEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_PERSON_DEPARTURE);
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (eventClass == PersonArrivalEvent.class) {
+			PersonArrivalEvent e = (PersonArrivalEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_PERSON_ARRIVAL);
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (eventClass == ActivityStartEvent.class) {
+			ActivityStartEvent e = (ActivityStartEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_ACTIVITY_START);
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getFacilityId());
+			writeString(e.getActType());
+		} else if (eventClass == ActivityEndEvent.class) {
+			ActivityEndEvent e = (ActivityEndEvent) event;
+			BinaryEventsFormat.writeVarInt(this.schemaColumn, BinaryEventsFormat.SCHEMA_ACTIVITY_END);
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getFacilityId());
+			writeString(e.getActType());
+		} else {
+			writeAttributes(event);
+		}
+		writeDouble(this.timeColumn, time);
+
+		this.eventCount++;
+		this.minTime = Math.min(this.minTime, time);
+		this.maxTime = Math.max(this.maxTime, time);
+		if (this.eventCount == BinaryEventsFormat.EVENTS_PER_BLOCK) {
+			try {
+				writeBlock();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void writeAttributes(final Event event) {
+		this.attributeKeys.clear();
+		this.attributeValues.clear();
+		String type = null;
+		for (Map.Entry<String, String> entry : event.getAttributes().entrySet()) {
+			String key = entry.getKey();
+			if (Event.ATTRIBUTE_TIME.equals(key)) {
+				continue;
+			}
+			if (Event.ATTRIBUTE_TYPE.equals(key)) {
+				type = entry.getValue();
+				continue;
+			}
+			this.attributeKeys.add(key);
+			this.attributeValues.add(entry.getValue());
+		}
+		int attributeCount = this.attributeKeys.size();
+		if (this.attributeKinds.length < attributeCount) {
+			this.attributeKinds = new byte[attributeCount * 2];
+		}
+
+		this.schemaKey.setLength(0);
+		this.schemaKey.append(type);
+		for (int i = 0; i < attributeCount; i++) {
+			byte kind = BinaryEventsFormat.isDoubleValue(this.attributeValues.get(i)) ? BinaryEventsFormat.KIND_DOUBLE : BinaryEventsFormat.KIND_STRING;
+			this.attributeKinds[i] = kind;
+			this.schemaKey.append('\n').append(kind).append(this.attributeKeys.get(i));
+		}
+		BinaryEventsFormat.writeVarInt(this.schemaColumn, getSchemaIndex(type, attributeCount));
+		for (int i = 0; i < attributeCount; i++) {
+			String value = this.attributeValues.get(i);
+			if (this.attributeKinds[i] == BinaryEventsFormat.KIND_DOUBLE) {
+				writeDouble(this.doubleColumn, Double.parseDouble(value));
+			} else {
+				writeString(value);
+			}
+		}
+	}
+
+	private void writeId(final Id<?> id) {
+		writeString(id == null ? null : id.toString());
+	}
+
+	private void writeString(final String string) {
+		BinaryEventsFormat.writeVarInt(this.stringColumn, string == null ? BinaryEventsFormat.NULL_STRING : getStringIndex(string) + 1);
+	}
+
+	private int getSchemaIndex(final String type, final int attributeCount) {
+		String key = this.schemaKey.toString();
+		Integer index = this.schemas.get(key);
+		if (index == null) {
+			index = BinaryEventsFormat.FIXED_SCHEMA_COUNT + this.schemas.size();
+			this.schemas.put(key, index);
+			BinaryEventsFormat.writeVarInt(this.newSchemas, getStringIndex(type));
+			BinaryEventsFormat.writeVarInt(this.newSchemas, attributeCount);
+			for (int i = 0; i < attributeCount; i++) {
+				BinaryEventsFormat.writeVarInt(this.newSchemas, getStringIndex(this.attributeKeys.get(i)));
+				this.newSchemas.write(this.attributeKinds[i]);
+			}
+			this.newSchemasCount++;
+		}
+		return index;
+	}
+
+	private int getStringIndex(final String string) {
+		Integer index = this.strings.get(string);
+		if (index == null) {
+			index = this.strings.size();
+			this.strings.put(string, index);
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			BinaryEventsFormat.writeVarInt(this.newStrings, bytes.length);
+			this.newStrings.write(bytes, 0, bytes.length);
+			this.newStringsCount++;
+		}
+		return index;
+	}
+
+	private void writeDouble(final ByteArrayOutputStream column, final double value) {
+		this.doubleBuffer.putDouble(0, value);
+		column.write(this.doubleBuffer.array(), 0, 8);
+	}
+
+	private void writeBlock() throws IOException {
+		if (this.eventCount == 0) {
+			return;
+		}
+		ByteArrayOutputStream dictionary = new ByteArrayOutputStream(this.newStrings.size() + this.newSchemas.size() + 10);
+		BinaryEventsFormat.writeVarInt(dictionary, this.newStringsCount);
+		this.newStrings.writeTo(dictionary);
+		BinaryEventsFormat.writeVarInt(dictionary, this.newSchemasCount);
+		this.newSchemas.writeTo(dictionary);
+		byte[] dictionaryBytes = dictionary.toByteArray();
+
+		int schemaOffset = BinaryEventsFormat.DATA_HEADER_SIZE + this.timeColumn.size();
+		int stringOffset = schemaOffset + this.schemaColumn.size();
+		int doubleOffset = stringOffset + this.stringColumn.size();
+		ByteArrayOutputStream data = new ByteArrayOutputStream(doubleOffset + this.doubleColumn.size());
+		DataOutputStream dataOut = new DataOutputStream(data);
+		dataOut.writeInt(schemaOffset);
+		dataOut.writeInt(stringOffset);
+		dataOut.writeInt(doubleOffset);
+		this.timeColumn.writeTo(data);
+		this.schemaColumn.writeTo(data);
+		this.stringColumn.writeTo(data);
+		this.doubleColumn.writeTo(data);
+		byte[] dataBytes = data.toByteArray();
+
+		int maxLength = this.compressor.maxCompressedLength(Math.max(dictionaryBytes.length, dataBytes.length));
+		if (this.compressed.length < maxLength) {
+			this.compressed = new byte[maxLength];
+		}
+		this.out.writeInt(this.eventCount);
+		this.out.writeDouble(this.minTime);
+		this.out.writeDouble(this.maxTime);
+		this.out.writeInt(dictionaryBytes.length);
+		int dictionaryLength = this.compressor.compress(dictionaryBytes, 0, dictionaryBytes.length, this.compressed, 0, this.compressed.length);
+		this.out.writeInt(dictionaryLength);
+		byte[] compressedDictionary = new byte[dictionaryLength];
+		System.arraycopy(this.compressed, 0, compressedDictionary, 0, dictionaryLength);
+		this.out.writeInt(dataBytes.length);
+		int dataLength = this.compressor.compress(dataBytes, 0, dataBytes.length, this.compressed, 0, this.compressed.length);
+		this.out.writeInt(dataLength);
+		this.out.write(compressedDictionary);
+		this.out.write(this.compressed, 0, dataLength);
+
+		this.eventCount = 0;
+		this.minTime = Double.POSITIVE_INFINITY;
+		this.maxTime = Double.NEGATIVE_INFINITY;
+		this.newStringsCount = 0;
+		this.newStrings.reset();
+		this.newSchemasCount = 0;
+		this.newSchemas.reset();
+		this.timeColumn.reset();
+		this.schemaColumn.reset();
+		this.stringColumn.reset();
+		this.doubleColumn.reset();
+	}
+
+}
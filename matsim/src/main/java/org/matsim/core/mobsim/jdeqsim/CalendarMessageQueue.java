@@ -0,0 +1,295 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CalendarMessageQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.Arrays;
+
+/**
+ * A message queue based on a calendar queue (R. Brown, 1988): the messages are distributed over buckets of a fixed
+ * time width, like the days of a calendar, and each bucket is kept sorted.  As long as the bucket width fits the
+ * distribution of the message arrival times, putting and getting a message takes constant time on average, instead
+ * of the logarithmic time of the {@link java.util.PriorityQueue} used by {@link MessageQueue}.  The number of buckets
+ * and their width are adapted whenever the number of messages in the queue doubles or halves.
+ * <br/>
+ * The messages are returned in the same order as by {@link MessageQueue}; messages with the same arrival time and
+ * priority are returned in the order they were put into the queue.
+ */
+public class CalendarMessageQueue extends MessageQueue {
+
+	private static final int MIN_BUCKET_COUNT = 16;
+	private static final int SAMPLE_SIZE = 25;
+
+	private Message[][] buckets;
+	/** index of the first message in each bucket */
+	private int[] bucketStart;
+	/** index after the last message in each bucket */
+	private int[] bucketEnd;
+	private int mask;
+	private double bucketWidth;
+
+	/** the number of the bucket, counted from time 0, which is currently served. no message is in an earlier bucket. */
+	private long currentBucket = 0;
+	/** the number of messages in the buckets, including the killed ones */
+	private int size = 0;
+	private int queueSize = 0;
+
+	public CalendarMessageQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * @param initialBucketWidth the time width of a bucket until the first adaption, in seconds
+	 */
+	public CalendarMessageQueue(double initialBucketWidth) {
+		if (!(initialBucketWidth > 0) || Double.isInfinite(initialBucketWidth)) {
+			throw new IllegalArgumentException("The bucket width must be a positive number, but is " + initialBucketWidth);
+		}
+		this.bucketWidth = initialBucketWidth;
+		allocateBuckets(MIN_BUCKET_COUNT);
+	}
+
+	@Override
+	public void putMessage(Message m) {
+		if (this.size >= 2 * this.buckets.length) {
+			resize(2 * this.buckets.length);
+		}
+		insert(m);
+		this.queueSize++;
+	}
+
+	@Override
+	public void removeMessage(Message m) {
+		// like in the super class, the message is only marked and skipped when it reaches the front of the queue
+		m.killMessage();
+		this.queueSize--;
+	}
+
+	@Override
+	public Message getNextMessage() {
+		Message m;
+		// skip over dead messages
+		while ((m = poll()) != null && !m.isAlive()) {
+		}
+		// only decrement, if message fetched
+		if (m != null) {
+			this.queueSize--;
+		}
+		if (this.buckets.length > MIN_BUCKET_COUNT && this.size < this.buckets.length / 2) {
+			resize(this.buckets.length / 2);
+		}
+		return m;
+	}
+
+	@Override
+	public Message peekNextMessage() {
+		int b;
+		// remove dead messages from the front
+		while ((b = findFirstBucket()) >= 0 && !this.buckets[b][this.bucketStart[b]].isAlive()) {
+			removeFirst(b);
+		}
+		return b < 0 ? null : this.buckets[b][this.bucketStart[b]];
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public int getQueueSize() {
+		return this.queueSize;
+	}
+
+	/*package*/ int getBucketCount() {
+		return this.buckets.length;
+	}
+
+	/*package*/ double getBucketWidth() {
+		return this.bucketWidth;
+	}
+
+	private long getBucketNumber(double time) {
+		// saturates for very large or infinite times, which keeps the order of the buckets intact
+		return (long) Math.floor(time / this.bucketWidth);
+	}
+
+	private void allocateBuckets(int bucketCount) {
+		this.buckets = new Message[bucketCount][];
+		this.bucketStart = new int[bucketCount];
+		this.bucketEnd = new int[bucketCount];
+		this.mask = bucketCount - 1;
+	}
+
+	private void insert(Message m) {
+		long bucketNumber = getBucketNumber(m.getMessageArrivalTime());
+		if (this.size == 0 || bucketNumber < this.currentBucket) {
+			this.currentBucket = bucketNumber;
+		}
+		int b = (int) (bucketNumber & this.mask);
+		Message[] bucket = this.buckets[b];
+		int start = this.bucketStart[b];
+		int end = this.bucketEnd[b];
+		if (bucket == null) {
+			bucket = new Message[2];
+			this.buckets[b] = bucket;
+		} else if (end == bucket.length) {
+			// move the messages to the front of the bucket, or into a larger one if it is more than half full
+			int count = end - start;
+			Message[] newBucket = count < bucket.length / 2 ? bucket : new Message[2 * bucket.length];
+			System.arraycopy(bucket, start, newBucket, 0, count);
+			if (newBucket == bucket) {
+				Arrays.fill(bucket, count, end, null);
+			}
+			bucket = newBucket;
+			this.buckets[b] = bucket;
+			start = 0;
+			end = count;
+			this.bucketStart[b] = start;
+		}
+
+		// insert behind all messages which do not come after m, so equal messages stay in insertion order.
+		// usually, m belongs to the end of the bucket.
+		int pos = end;
+		while (pos > start && bucket[pos - 1].compareTo(m) > 0) {
+			bucket[pos] = bucket[pos - 1];
+			pos--;
+		}
+		bucket[pos] = m;
+		this.bucketEnd[b] = end + 1;
+		this.size++;
+	}
+
+	/**
+	 * @return the first message in the queue, dead or alive, or <code>null</code> if the queue is empty
+	 */
+	private Message poll() {
+		int b = findFirstBucket();
+		return b < 0 ? null : removeFirst(b);
+	}
+
+	/**
+	 * @return the bucket holding the first message in the queue, dead or alive, or -1 if the queue is empty
+	 */
+	private int findFirstBucket() {
+		if (this.size == 0) {
+			return -1;
+		}
+		// look for a message in the current bucket, then in the following ones, for one round through the buckets
+		for (int i = 0; i < this.buckets.length; i++) {
+			long bucketNumber = this.currentBucket + i;
+			if (bucketNumber < this.currentBucket) {
+				// overflow, only happens with very large times
+				break;
+			}
+			int b = (int) (bucketNumber & this.mask);
+			if (this.bucketStart[b] < this.bucketEnd[b]
+					&& getBucketNumber(this.buckets[b][this.bucketStart[b]].getMessageArrivalTime()) == bucketNumber) {
+				this.currentBucket = bucketNumber;
+				return b;
+			}
+		}
+
+		// all messages are far in the future, search the earliest one directly
+		int minBucket = -1;
+		Message min = null;
+		for (int b = 0; b < this.buckets.length; b++) {
+			if (this.bucketStart[b] < this.bucketEnd[b]) {
+				Message first = this.buckets[b][this.bucketStart[b]];
+				if (min == null || first.compareTo(min) < 0) {
+					min = first;
+					minBucket = b;
+				}
+			}
+		}
+		this.currentBucket = getBucketNumber(min.getMessageArrivalTime());
+		return minBucket;
+	}
+
+	private Message removeFirst(int b) {
+		int start = this.bucketStart[b];
+		Message m = this.buckets[b][start];
+		this.buckets[b][start] = null;
+		start++;
+		if (start == this.bucketEnd[b]) {
+			this.bucketStart[b] = 0;
+			this.bucketEnd[b] = 0;
+		} else {
+			this.bucketStart[b] = start;
+		}
+		this.size--;
+		return m;
+	}
+
+	private void resize(int bucketCount) {
+		// the width of the buckets is estimated from the earliest messages, as they are the ones which are served next
+		Message[] sample = new Message[Math.min(this.size, SAMPLE_SIZE)];
+		for (int i = 0; i < sample.length; i++) {
+			sample[i] = poll();
+		}
+		double width = estimateBucketWidth(sample);
+		if (width > 0 && !Double.isInfinite(width)) {
+			this.bucketWidth = width;
+		}
+
+		Message[] messages = new Message[this.size];
+		int n = 0;
+		for (int b = 0; b < this.buckets.length; b++) {
+			for (int i = this.bucketStart[b]; i < this.bucketEnd[b]; i++) {
+				messages[n++] = this.buckets[b][i];
+			}
+		}
+
+		allocateBuckets(bucketCount);
+		this.size = 0;
+		for (Message m : sample) {
+			insert(m);
+		}
+		for (Message m : messages) {
+			insert(m);
+		}
+	}
+
+	/**
+	 * Returns three times the average time between subsequent messages, ignoring large gaps.
+	 *
+	 * @return the estimated width, or <code>NaN</code> if no estimate is possible
+	 */
+	private static double estimateBucketWidth(Message[] sample) {
+		if (sample.length < 2) {
+			return Double.NaN;
+		}
+		double average = (sample[sample.length - 1].getMessageArrivalTime() - sample[0].getMessageArrivalTime()) / (sample.length - 1);
+		if (!(average > 0) || Double.isInfinite(average)) {
+			return Double.NaN;
+		}
+		double sum = 0;
+		int count = 0;
+		for (int i = 1; i < sample.length; i++) {
+			double separation = sample[i].getMessageArrivalTime() - sample[i - 1].getMessageArrivalTime();
+			if (separation <= 2 * average) {
+				sum += separation;
+				count++;
+			}
+		}
+		return sum > 0 ? 3 * sum / count : 3 * average;
+	}
+
+}
@@ -57,6 +57,10 @@ public class JDEQSimConfigGroup extends ReflectiveConfigGroup {
 	public final static String CAR_SIZE = "carSize";
 	public final static String GAP_TRAVEL_SPEED = "gapTravelSpeed";
 	public final static String END_TIME = "endTime";
+	public final static String MESSAGE_QUEUE = "messageQueue";
+	public final static String NUMBER_OF_THREADS = "numberOfThreads";
+
+	public enum MessageQueueType { priorityQueue, calendarQueue }
 
 	// INPUT
 	private double simulationEndTime = Double.MAX_VALUE; // in s
@@ -71,6 +75,14 @@ public class JDEQSimConfigGroup extends ReflectiveConfigGroup {
 	 * 'stuckTime' for entering next road, it will enter the next. in seconds
 	 */
 	private double squeezeTime = 1800;
+	/**
+	 * the calendar queue is faster with many pending messages, the priority queue needs less memory.
+	 */
+	private MessageQueueType messageQueue = MessageQueueType.priorityQueue;
+	/**
+	 * with more than one thread, the roads are partitioned and simulated in parallel by the {@link ParallelScheduler}.
+	 */
+	private int numberOfThreads = 1;
 
 	public JDEQSimConfigGroup() {
 		super(NAME);
@@ -169,4 +181,27 @@ public class JDEQSimConfigGroup extends ReflectiveConfigGroup {
 		this.squeezeTime = squeezeTime;
 	}
 
+	@StringGetter(MESSAGE_QUEUE)
+	public MessageQueueType getMessageQueue() {
+		return messageQueue;
+	}
+
+	@StringSetter(MESSAGE_QUEUE)
+	public void setMessageQueue(MessageQueueType messageQueue) {
+		this.messageQueue = messageQueue;
+	}
+
+	@StringGetter(NUMBER_OF_THREADS)
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	@StringSetter(NUMBER_OF_THREADS)
+	public void setNumberOfThreads(int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1, but is " + numberOfThreads);
+		}
+		this.numberOfThreads = numberOfThreads;
+	}
+
 }
@@ -66,7 +66,14 @@ public class JDEQSimulation implements Mobsim {
 		Timer t = new Timer();
 		t.startTimer();
 
-		Scheduler scheduler = new Scheduler(new MessageQueue(), config.getSimulationEndTime());
+		Scheduler scheduler;
+		ParallelScheduler parallelScheduler = null;
+		if (config.getNumberOfThreads() > 1) {
+			parallelScheduler = new ParallelScheduler(config, events);
+			scheduler = parallelScheduler;
+		} else {
+			scheduler = new Scheduler(createMessageQueue(config), config.getSimulationEndTime());
+		}
 		Road.setAllRoads(new HashMap<Id<Link>, Road>());
 
 		// initialize network
@@ -75,6 +82,10 @@ public class JDEQSimulation implements Mobsim {
 			road = new Road(scheduler, link);
 			Road.getAllRoads().put(link.getId(), road);
 		}
+		if (parallelScheduler != null) {
+			parallelScheduler.assignRoads(Road.getAllRoads().values(), this.scenario.getPopulation(),
+					this.scenario.getConfig().network().isTimeVariantNetwork());
+		}
 
 		for (Person person : this.scenario.getPopulation().getPersons().values()) {
 			new Vehicle(scheduler, person, activityDurationInterpretation); // the vehicle registers itself to the scheduler
@@ -86,4 +97,15 @@ public class JDEQSimulation implements Mobsim {
 		log.info("Time needed for one iteration (only JDEQSimulation part): " + t.getMeasuredTime() + "[ms]");
 		events.finishProcessing();
 	}
+
+	public static MessageQueue createMessageQueue(JDEQSimConfigGroup config) {
+		switch (config.getMessageQueue()) {
+			case calendarQueue:
+				return new CalendarMessageQueue();
+			case priorityQueue:
+				return new MessageQueue();
+			default:
+				throw new IllegalArgumentException("Unknown message queue: " + config.getMessageQueue());
+		}
+	}
 }
@@ -85,6 +85,22 @@ public class MessageQueue {
 		return m;
 	}
 
+	/**
+	 * 
+	 * get the first message in the queue (with least time stamp) without
+	 * removing it
+	 *
+	 * @return
+	 */
+	public Message peekNextMessage() {
+		Message m;
+		// remove dead messages from the front
+		while ((m = queue1.peek()) != null && !m.isAlive()) {
+			queue1.poll();
+		}
+		return m;
+	}
+
 	public boolean isEmpty() {
 		return queue1.size() == 0;
 	}
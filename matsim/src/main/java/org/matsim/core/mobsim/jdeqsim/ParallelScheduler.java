@@ -0,0 +1,546 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelScheduler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.gbl.Gbl;
+import org.matsim.core.population.routes.NetworkRoute;
+
+/**
+ * A scheduler, which splits the roads into parts and simulates each part by its own thread with its own message
+ * queue (conservative parallel discrete event simulation).
+ * <br/>
+ * Each message changes the state of one road only: the road receiving it, or, for an {@link EndRoadMessage}, the road
+ * the vehicle requests to enter next. The message is processed by the thread of this road; messages to roads of other
+ * parts are passed on between time windows. In each time window, a part processes its messages up to the time before
+ * which no other part can send it a message. This time follows from the messages the other parts still have to
+ * process, or may still get from other parts:
+ * <ul>
+ * <li>an {@link EndRoadMessage} of a vehicle coming from another part, or a {@link DeadlockPreventionMessage} of a
+ * vehicle waiting to come from another part, makes the vehicle leave its road in the other part at the time of the
+ * message or later.</li>
+ * <li>all other messages reach another part only after a lookahead: the free speed travel time or the inverse outflow
+ * capacity of a road leading into another part, the gap travel time of a road entered from another part, or the
+ * travel time of a leg, which is not simulated on the network and ends in another part.</li>
+ * </ul>
+ * A part, which passes an {@link EndRoadMessage} on to another part, stops its time window at the time of the message,
+ * as the vehicle may leave its road in this part at this time.
+ * The events are buffered by each part and passed on to the events manager in the order of the times of the messages
+ * creating them. The only difference to the {@link Scheduler} is that messages with the same time may be processed in
+ * a different order; so the events are the same up to the order of events with the same time, as long as this does
+ * not change the order in which vehicles are allowed to enter a road. The {@link CalendarMessageQueue} keeps messages
+ * with the same time in the order they are scheduled, which is mostly the same in both schedulers. The results do not
+ * depend on the timing of the threads, only on the number of threads.
+ * <br/>
+ * The lookahead is small in networks with short links, and with time variant networks, the free speed travel time is
+ * not used as lookahead at all; then, the parts synchronize often and the speedup is small.
+ */
+public class ParallelScheduler extends Scheduler {
+
+	private static final Logger log = Logger.getLogger(ParallelScheduler.class);
+
+	private final JDEQSimConfigGroup config;
+	private final EventsManager events;
+	private final double simulationEndTime;
+	private final Part[] parts;
+	private final Map<Road, Part> partOfRoad = new HashMap<>();
+	private final ThreadLocal<Part> currentPart = new ThreadLocal<>();
+
+	private final Phaser startBarrier;
+	private final Phaser endBarrier;
+	private volatile boolean running = false;
+	private final AtomicReference<Throwable> exception = new AtomicReference<>();
+
+	/** the time up to which all events have been passed on to the events manager */
+	private double simTime = 0;
+	private double simulationStartTime = System.currentTimeMillis();
+	private double hourlyLogTime = 3600;
+
+	public ParallelScheduler(JDEQSimConfigGroup config, EventsManager events) {
+		// each part has its own message queue
+		super(null, config.getSimulationEndTime());
+		this.config = config;
+		this.events = events;
+		this.simulationEndTime = config.getSimulationEndTime();
+		this.parts = new Part[config.getNumberOfThreads()];
+		for (int i = 0; i < this.parts.length; i++) {
+			this.parts[i] = new Part(i, JDEQSimulation.createMessageQueue(config));
+		}
+		this.startBarrier = new Phaser(this.parts.length + 1);
+		this.endBarrier = new Phaser(this.parts.length + 1);
+	}
+
+	/**
+	 * Splits the roads into parts of neighboring roads and computes the lookahead of each part from the links and the
+	 * plans. This must be done before the vehicles are created, as they schedule their first messages.
+	 */
+	public void assignRoads(Collection<Road> roads, Population population, boolean timeVariantNetwork) {
+		assignRoads(new ArrayList<>(roads), 0, this.parts.length);
+
+		Set<Road> roadsLeadingToOtherPart = new HashSet<>();
+		Set<Road> roadsEnteredFromOtherPart = new HashSet<>();
+		for (Person person : population.getPersons().values()) {
+			Plan plan = person.getSelectedPlan();
+			if (plan == null) {
+				continue;
+			}
+			// like the vehicle, assume that activities and legs are alternating
+			List<? extends PlanElement> actsLegs = plan.getPlanElements();
+			for (int i = 1; i < actsLegs.size() - 1; i += 2) {
+				Leg leg = (Leg) actsLegs.get(i);
+				Road fromRoad = Road.getRoad(((Activity) actsLegs.get(i - 1)).getLinkId());
+				Road toRoad = Road.getRoad(((Activity) actsLegs.get(i + 1)).getLinkId());
+				if (leg.getMode().equals(TransportMode.car) && !((NetworkRoute) leg.getRoute()).getLinkIds().isEmpty()) {
+					Road road = fromRoad;
+					for (int j = 0; j <= ((NetworkRoute) leg.getRoute()).getLinkIds().size(); j++) {
+						Road nextRoad = j < ((NetworkRoute) leg.getRoute()).getLinkIds().size() ?
+								Road.getRoad(((NetworkRoute) leg.getRoute()).getLinkIds().get(j)) : toRoad;
+						if (this.partOfRoad.get(road) != this.partOfRoad.get(nextRoad)) {
+							roadsLeadingToOtherPart.add(road);
+							roadsEnteredFromOtherPart.add(nextRoad);
+						}
+						road = nextRoad;
+					}
+				} else if (this.partOfRoad.get(fromRoad) != this.partOfRoad.get(toRoad)) {
+					// see StartingLegMessage: empty car routes end without delay
+					double travelTime = leg.getMode().equals(TransportMode.car) ? 0 : leg.getTravelTime();
+					Part part = this.partOfRoad.get(fromRoad);
+					part.lookahead = Math.min(part.lookahead, travelTime > 0 ? travelTime : 0);
+				}
+			}
+		}
+
+		for (Road road : roadsLeadingToOtherPart) {
+			Part part = this.partOfRoad.get(road);
+			double freeSpeedTravelTime = timeVariantNetwork ? 0 : road.getLink().getLength() / road.getLink().getFreespeed();
+			part.lookahead = Math.min(part.lookahead, Math.min(freeSpeedTravelTime, road.inverseOutFlowCapacity));
+		}
+		for (Road road : roadsEnteredFromOtherPart) {
+			Part part = this.partOfRoad.get(road);
+			part.lookahead = Math.min(part.lookahead, road.getLink().getLength() / this.config.getGapTravelSpeed());
+		}
+		for (Part part : this.parts) {
+			log.info("part " + part.index + ": " + part.numberOfRoads + " roads, lookahead " + part.lookahead + "[s]");
+		}
+	}
+
+	/**
+	 * recursive coordinate bisection: the roads are sorted along the wider extent of their coordinates and split in
+	 * proportion to the number of parts on each side.
+	 */
+	private void assignRoads(List<Road> roads, int firstPart, int numberOfParts) {
+		if (numberOfParts == 1) {
+			for (Road road : roads) {
+				this.partOfRoad.put(road, this.parts[firstPart]);
+			}
+			this.parts[firstPart].numberOfRoads = roads.size();
+			return;
+		}
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Road road : roads) {
+			minX = Math.min(minX, road.getLink().getCoord().getX());
+			maxX = Math.max(maxX, road.getLink().getCoord().getX());
+			minY = Math.min(minY, road.getLink().getCoord().getY());
+			maxY = Math.max(maxY, road.getLink().getCoord().getY());
+		}
+		Comparator<Road> comparator = maxX - minX >= maxY - minY ?
+				Comparator.comparingDouble(road -> road.getLink().getCoord().getX()) :
+				Comparator.comparingDouble(road -> road.getLink().getCoord().getY());
+		// the ids make the order, and thereby the parts, independent of the order of the given roads
+		roads.sort(comparator.thenComparing(road -> road.getLink().getId()));
+
+		int lowerParts = numberOfParts / 2;
+		int split = (int) ((long) roads.size() * lowerParts / numberOfParts);
+		assignRoads(roads.subList(0, split), firstPart, lowerParts);
+		assignRoads(roads.subList(split, roads.size()), firstPart + lowerParts, numberOfParts - lowerParts);
+	}
+
+	@Override
+	public void schedule(Message m) {
+		Part homePart = getHomePart(m);
+		Part part = this.currentPart.get();
+		if (part == null || part == homePart) {
+			homePart.put(m);
+		} else {
+			if (m instanceof EndRoadMessage) {
+				// the vehicle may leave its road in this part at the time of the message
+				part.horizon = Math.min(part.horizon, m.getMessageArrivalTime());
+			}
+			part.outboxes[homePart.index].add(m);
+		}
+	}
+
+	@Override
+	public void unschedule(Message m) {
+		// only used by a road for its own deadlock prevention messages, i.e. in the part of the road
+		getHomePart(m).queue.removeMessage(m);
+	}
+
+	/**
+	 * @return the part of the road, whose state is changed by the message
+	 */
+	private Part getHomePart(Message m) {
+		if (m instanceof EndRoadMessage) {
+			return this.partOfRoad.get(((EndRoadMessage) m).vehicle.getNextRoad());
+		}
+		return this.partOfRoad.get(m.getReceivingUnit());
+	}
+
+	@Override
+	public double getSimTime() {
+		Part part = this.currentPart.get();
+		return part == null ? this.simTime : part.simTime;
+	}
+
+	@Override
+	public void startSimulation() {
+		Message.setEventsManager(new EventsBuffer());
+		this.running = true;
+		List<Thread> threads = new ArrayList<>();
+		for (Part part : this.parts) {
+			Thread thread = new Thread(part, "JDEQSimPart_" + part.index);
+			thread.setDaemon(true);
+			thread.start();
+			threads.add(thread);
+		}
+
+		try {
+			while (true) {
+				double nextTime = passOnMessages();
+				passOnEvents(nextTime);
+				if (!(nextTime < this.simulationEndTime)) {
+					break;
+				}
+				setHorizons();
+				this.startBarrier.arriveAndAwaitAdvance();
+				this.endBarrier.arriveAndAwaitAdvance();
+				if (this.exception.get() != null) {
+					throw new RuntimeException(this.exception.get());
+				}
+				printLog();
+			}
+			if (this.simulationEndTime > 0) {
+				// the Scheduler starts at time 0
+				processFirstMessageAfterEnd();
+			}
+			passOnEvents(Double.POSITIVE_INFINITY);
+		} finally {
+			this.running = false;
+			this.startBarrier.arriveAndAwaitAdvance();
+			for (Thread thread : threads) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			Message.setEventsManager(this.events);
+		}
+	}
+
+	/**
+	 * Puts the messages sent in the last time window into the queues of their parts.
+	 *
+	 * @return the time of the next message
+	 */
+	private double passOnMessages() {
+		for (Part part : this.parts) {
+			for (Part homePart : this.parts) {
+				for (Message m : part.outboxes[homePart.index]) {
+					homePart.put(m);
+				}
+				part.outboxes[homePart.index].clear();
+			}
+		}
+		double nextTime = Double.POSITIVE_INFINITY;
+		for (Part part : this.parts) {
+			Message m = part.queue.peekNextMessage();
+			part.nextTime = m == null ? Double.POSITIVE_INFINITY : m.getMessageArrivalTime();
+			// the messages before the next message have been processed or killed
+			while (!part.crossingTimes.isEmpty() && part.crossingTimes.peek() < part.nextTime) {
+				part.crossingTimes.poll();
+			}
+			nextTime = Math.min(nextTime, part.nextTime);
+		}
+		return nextTime;
+	}
+
+	private void setHorizons() {
+		// the earliest time, at which a part may send a message to another part, as long as it gets no new messages
+		double[] earliestSendingTimes = new double[this.parts.length];
+		for (Part part : this.parts) {
+			earliestSendingTimes[part.index] = part.nextTime + part.lookahead;
+			if (!part.crossingTimes.isEmpty()) {
+				earliestSendingTimes[part.index] = Math.min(earliestSendingTimes[part.index], part.crossingTimes.peek());
+			}
+		}
+		for (Part part : this.parts) {
+			part.horizon = Double.POSITIVE_INFINITY;
+			for (Part other : this.parts) {
+				if (other != part) {
+					part.horizon = Math.min(part.horizon, earliestSendingTimes[other.index]);
+				}
+			}
+		}
+		// a message received at the horizon of a part may make it send a message after its lookahead
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Part part : this.parts) {
+				for (Part other : this.parts) {
+					if (other != part && other.horizon + other.lookahead < part.horizon) {
+						part.horizon = other.horizon + other.lookahead;
+						changed = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Like the {@link Scheduler}, the first message at or after the end of the simulation is processed as well.
+	 */
+	private void processFirstMessageAfterEnd() {
+		Part firstPart = null;
+		Message first = null;
+		for (Part part : this.parts) {
+			Message m = part.queue.peekNextMessage();
+			if (m != null && (first == null || m.compareTo(first) < 0)) {
+				first = m;
+				firstPart = part;
+			}
+		}
+		if (firstPart != null) {
+			this.currentPart.set(firstPart);
+			try {
+				firstPart.process(firstPart.queue.getNextMessage());
+			} finally {
+				this.currentPart.remove();
+			}
+		}
+	}
+
+	/**
+	 * Passes on the buffered events of all messages before the given time, in the order of the message times. Events
+	 * of messages with the same time are passed on in the order of the parts.
+	 */
+	private void passOnEvents(double time) {
+		while (true) {
+			Part first = null;
+			for (Part part : this.parts) {
+				if (part.eventsPassedOn < part.eventCount && part.eventTimes[part.eventsPassedOn] < time
+						&& (first == null || part.eventTimes[part.eventsPassedOn] < first.eventTimes[first.eventsPassedOn])) {
+					first = part;
+				}
+			}
+			if (first == null) {
+				break;
+			}
+			this.simTime = first.eventTimes[first.eventsPassedOn];
+			this.events.processEvent(first.events[first.eventsPassedOn]);
+			first.eventsPassedOn++;
+		}
+		for (Part part : this.parts) {
+			part.removePassedOnEvents();
+		}
+	}
+
+	private void printLog() {
+		// print output each hour
+		if (this.simTime / this.hourlyLogTime > 1) {
+			this.hourlyLogTime = this.simTime + 3600;
+			log.info("Simulation at " + this.simTime / 3600 + "[h]; s/r:" + this.simTime / (System.currentTimeMillis() - this.simulationStartTime) * 1000);
+			Gbl.printMemoryUsage();
+		}
+	}
+
+	/**
+	 * The roads of one part, simulated by one thread.
+	 */
+	private final class Part implements Runnable {
+
+		private final int index;
+		private final MessageQueue queue;
+		/** the messages to the other parts (by index), sent in the current time window */
+		private final List<Message>[] outboxes;
+		/** the times of the messages, which may make a vehicle leave a road of another part without lookahead */
+		private final PriorityQueue<Double> crossingTimes = new PriorityQueue<>();
+		private double lookahead = Double.POSITIVE_INFINITY;
+		private int numberOfRoads = 0;
+
+		private double simTime = 0;
+		private double nextTime;
+		/** the messages up to this time (inclusive) are processed in the current time window */
+		private double horizon;
+
+		/** the events of the processed messages, which have not yet been passed on to the events manager */
+		private Event[] events = new Event[256];
+		private double[] eventTimes = new double[256];
+		private int eventCount = 0;
+		private int eventsPassedOn = 0;
+
+		@SuppressWarnings("unchecked")
+		Part(int index, MessageQueue queue) {
+			this.index = index;
+			this.queue = queue;
+			this.outboxes = new List[ParallelScheduler.this.parts.length];
+			for (int i = 0; i < this.outboxes.length; i++) {
+				this.outboxes[i] = new ArrayList<>();
+			}
+		}
+
+		void put(Message m) {
+			if (m instanceof EndRoadMessage && partOfRoad.get(m.getReceivingUnit()) != this
+					|| m instanceof DeadlockPreventionMessage && isWaitingToComeFromOtherPart(((DeadlockPreventionMessage) m).vehicle)) {
+				this.crossingTimes.add(m.getMessageArrivalTime());
+			}
+			// a message from another part must not arrive in the past of this part
+			assert m.getMessageArrivalTime() >= this.simTime;
+			this.queue.putMessage(m);
+		}
+
+		private boolean isWaitingToComeFromOtherPart(Vehicle vehicle) {
+			// on the first road of a leg, there is no road to leave
+			return vehicle.getLinkIndex() >= 0 && partOfRoad.get(vehicle.getPreviousRoad()) != this;
+		}
+
+		@Override
+		public void run() {
+			currentPart.set(this);
+			while (true) {
+				startBarrier.arriveAndAwaitAdvance();
+				if (!running) {
+					return;
+				}
+				try {
+					if (exception.get() == null) {
+						processMessages();
+					}
+				} catch (Throwable t) {
+					exception.compareAndSet(null, t);
+				}
+				endBarrier.arriveAndAwaitAdvance();
+			}
+		}
+
+		private void processMessages() {
+			Message m;
+			while ((m = this.queue.peekNextMessage()) != null && m.getMessageArrivalTime() <= this.horizon
+					&& m.getMessageArrivalTime() < simulationEndTime) {
+				process(this.queue.getNextMessage());
+			}
+		}
+
+		void process(Message m) {
+			this.simTime = m.getMessageArrivalTime();
+			m.processEvent();
+			m.handleMessage();
+		}
+
+		void addEvent(Event event) {
+			if (this.eventCount == this.events.length) {
+				this.events = Arrays.copyOf(this.events, 2 * this.events.length);
+				this.eventTimes = Arrays.copyOf(this.eventTimes, 2 * this.eventTimes.length);
+			}
+			this.events[this.eventCount] = event;
+			this.eventTimes[this.eventCount] = this.simTime;
+			this.eventCount++;
+		}
+
+		void removePassedOnEvents() {
+			int remaining = this.eventCount - this.eventsPassedOn;
+			System.arraycopy(this.events, this.eventsPassedOn, this.events, 0, remaining);
+			System.arraycopy(this.eventTimes, this.eventsPassedOn, this.eventTimes, 0, remaining);
+			Arrays.fill(this.events, remaining, this.eventCount, null);
+			this.eventCount = remaining;
+			this.eventsPassedOn = 0;
+		}
+	}
+
+	/**
+	 * Collects the events of the messages in the part processing them. Everything else is delegated to the events
+	 * manager of the simulation.
+	 */
+	private final class EventsBuffer implements EventsManager {
+
+		@Override
+		public void processEvent(Event event) {
+			currentPart.get().addEvent(event);
+		}
+
+		@Override
+		public void addHandler(EventHandler handler) {
+			events.addHandler(handler);
+		}
+
+		@Override
+		public void removeHandler(EventHandler handler) {
+			events.removeHandler(handler);
+		}
+
+		@Override
+		public void resetHandlers(int iteration) {
+			events.resetHandlers(iteration);
+		}
+
+		@Override
+		public void initProcessing() {
+			events.initProcessing();
+		}
+
+		@Override
+		public void afterSimStep(double time) {
+			// the events before this time may still be buffered, they are passed on by the scheduler
+		}
+
+		@Override
+		public void finishProcessing() {
+			events.finishProcessing();
+		}
+	}
+
+}
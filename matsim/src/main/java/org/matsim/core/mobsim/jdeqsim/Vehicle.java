@@ -246,6 +246,15 @@ public class Vehicle extends SimUnit {
 	}
 
 	public void scheduleLeavePreviousRoadMessage(double scheduleTime) {
+		scheduleLeaveRoadMessage(scheduleTime, getPreviousRoad());
+	}
+
+	/**
+	 * @return the road, which the vehicle leaves when entering the road of its
+	 *         current link (the road of the last act for the first link in a
+	 *         leg)
+	 */
+	public Road getPreviousRoad() {
 		Road previousRoad = null;
 		Id<Link> previousLinkId = null;
 		/*
@@ -263,8 +272,20 @@ public class Vehicle extends SimUnit {
 		} else {
 			log.error("Some thing is wrong with the simulation: Why is this.getLinkIndex() negative");
 		}
+		return previousRoad;
+	}
 
-		scheduleLeaveRoadMessage(scheduleTime, previousRoad);
+	/**
+	 * @return the road, which the vehicle requests to enter when it reaches
+	 *         the end of its current road (see {@link EndRoadMessage})
+	 */
+	public Road getNextRoad() {
+		if (isCurrentLegFinished()) {
+			Plan plan = ownerPerson.getSelectedPlan();
+			List<? extends PlanElement> actsLegs = plan.getPlanElements();
+			return Road.getRoad(((Activity) actsLegs.get(legIndex + 1)).getLinkId());
+		}
+		return Road.getRoad(this.getCurrentLinkRoute()[this.getLinkIndex() + 1]);
 	}
 
 	protected void _scheduleEnterRoadMessage(double scheduleTime, Road road) {
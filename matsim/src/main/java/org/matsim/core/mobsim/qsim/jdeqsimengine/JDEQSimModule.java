@@ -2,7 +2,7 @@ package org.matsim.core.mobsim.qsim.jdeqsimengine;
 
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.mobsim.jdeqsim.JDEQSimConfigGroup;
-import org.matsim.core.mobsim.jdeqsim.MessageQueue;
+import org.matsim.core.mobsim.jdeqsim.JDEQSimulation;
 import org.matsim.core.mobsim.qsim.AbstractQSimModule;
 import org.matsim.core.mobsim.qsim.QSim;
 
@@ -20,10 +20,9 @@ public class JDEQSimModule extends AbstractQSimModule {
 	@Provides
 	@Singleton
 	public JDEQSimEngine provideJDEQSimulation(QSim qsim) {
-		SteppableScheduler scheduler = new SteppableScheduler(new MessageQueue());
-		return new JDEQSimEngine(
-				ConfigUtils.addOrGetModule(qsim.getScenario().getConfig(), JDEQSimConfigGroup.NAME,
-						JDEQSimConfigGroup.class),
-				qsim.getScenario(), qsim.getEventsManager(), qsim.getAgentCounter(), scheduler);
+		JDEQSimConfigGroup config = ConfigUtils.addOrGetModule(qsim.getScenario().getConfig(), JDEQSimConfigGroup.NAME,
+				JDEQSimConfigGroup.class);
+		SteppableScheduler scheduler = new SteppableScheduler(JDEQSimulation.createMessageQueue(config));
+		return new JDEQSimEngine(config, qsim.getScenario(), qsim.getEventsManager(), qsim.getAgentCounter(), scheduler);
 	}
 }
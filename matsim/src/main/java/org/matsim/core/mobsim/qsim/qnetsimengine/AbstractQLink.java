@@ -103,6 +103,9 @@ abstract class AbstractQLink implements QLinkI {
 
 	private boolean active = false;
 
+	// see AbstractQNode
+	private long moveTime = 0;
+
 	private TransitQLink transitQLink;
 	
 	private final QNodeI toQNode ;
@@ -409,6 +412,20 @@ abstract class AbstractQLink implements QLinkI {
 		this.netElementActivationRegistry = qSimEngineRunner;
 	}
 
+	/*package*/ NetElementActivationRegistry getNetElementActivationRegistry() {
+		return this.netElementActivationRegistry;
+	}
+
+	/*package*/ void addMoveTime(long nanos) {
+		this.moveTime += nanos;
+	}
+
+	/*package*/ long getAndResetMoveTime() {
+		long time = this.moveTime;
+		this.moveTime = 0;
+		return time;
+	}
+
 	@Override
 	public void registerDriverAgentWaitingForCar(final MobsimDriverAgent agent) {
 		final Id<Vehicle> vehicleId = agent.getPlannedVehicleId() ;
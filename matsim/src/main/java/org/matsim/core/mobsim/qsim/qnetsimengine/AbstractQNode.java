@@ -25,6 +25,13 @@ abstract class AbstractQNode implements QNodeI {
 	 */
 	private final AtomicBoolean active = new AtomicBoolean(false);
 
+	/*
+	 * Time (in nanoseconds) spent moving this node, only measured if the QNetsimEngine
+	 * redistributes the nodes among its runners. A node is only moved by a single runner
+	 * at a time, thus no synchronization is needed.
+	 */
+	private long moveTime = 0;
+
 	// for Customizable
 	private final Map<String, Object> customAttributes = new HashMap<>();
 	
@@ -52,6 +59,20 @@ abstract class AbstractQNode implements QNodeI {
 		
 		this.activator = activator;
 	}
+
+	/*package*/ NetElementActivationRegistry getNetElementActivationRegistry() {
+		return this.activator;
+	}
+
+	/*package*/ void addMoveTime(long nanos) {
+		this.moveTime += nanos;
+	}
+
+	/*package*/ long getAndResetMoveTime() {
+		long time = this.moveTime;
+		this.moveTime = 0;
+		return time;
+	}
 	
 	/**
 	 * This method is called from QueueWithBuffer.addToBuffer(...) which is triggered at 
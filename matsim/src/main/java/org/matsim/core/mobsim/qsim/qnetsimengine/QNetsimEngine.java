@@ -22,9 +22,11 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
@@ -50,7 +52,6 @@ import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -95,7 +96,8 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 	private QNetwork network;
 
-	private final Map<Id<Vehicle>, QVehicle> vehicles = new HashMap<>();
+	private final Map<Id<Vehicle>, QVehicle> vehicles = new IdMap<>(Vehicle.class);
+	private final Map<Id<Vehicle>, QVehicle> unmodifiableVehicles = Collections.unmodifiableMap(this.vehicles);
 
 	private final QSim qsim;
 
@@ -119,6 +121,14 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	private ExecutorService pool;
 
 	private final boolean usingThreadpool;
+
+	private final QNetworkPartitioner partitioner;
+	private final double runnerRebalancingInterval;
+	private QNetsimEngineRebalancer rebalancer = null;
+	// the nodes in the order of network.getNetsimNodes(), and the runner each of them is assigned to
+	private List<QNodeI> partitionedNodes;
+	private int[] nodeAssignment;
+	private int numberOfReassignedLinks = 0;
 	
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
@@ -177,6 +187,18 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		network.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
 
 		this.numOfThreads = sim.getScenario().getConfig().qsim().getNumberOfThreads();
+
+		switch (qSimConfigGroup.getNetworkPartitioning()) {
+		case roundRobin:
+			this.partitioner = new RoundRobinQNetworkPartitioner();
+			break;
+		case spatial:
+			this.partitioner = new SpatialQNetworkPartitioner();
+			break;
+		default:
+			throw new RuntimeException("Unknown network partitioning option.");
+		}
+		this.runnerRebalancingInterval = qSimConfigGroup.getRunnerRebalancingInterval();
 	}
 
 	private static int wrnCnt = 0;
@@ -188,7 +210,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 				log.warn(Gbl.ONLYONCE);
 			}
 		}
-		QLinkI qlink = network.getNetsimLinks().get(startLinkId);
+		QLinkI qlink = network.getNetsimLink(startLinkId);
 		if (qlink == null) {
 			throw new RuntimeException("requested link with id=" + startLinkId + " does not exist in network. Possible vehicles "
 					+ "or activities or facilities are registered to a different network.") ;
@@ -239,6 +261,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		for (QNetsimEngineRunner engine : this.engines) {
 			engine.afterSim();
 		}
+		printRunnerLoads();
 
 		if (this.usingThreadpool) {
 			this.pool.shutdown();
@@ -307,6 +330,15 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		// So make sure that no thread sticks out in terms of slowness.  Difficult to achieve, though.  A decade back, we used a "typical" run
 		// as input for the domain decomposition under (b).
 
+		// (b) is now available with config.qsim().setNetworkPartitioning(spatial), and the runner rebalancing addresses (c).
+
+		if (this.rebalancer != null && this.rebalancer.isRebalancingDue(time)) {
+			int[] newAssignment = this.rebalancer.rebalance(time, this.nodeAssignment, this.numOfRunners);
+			if (newAssignment != null) {
+				reassignNetElements(newAssignment);
+			}
+		}
+
 		// set current Time
 		for (QNetsimEngineRunner engine : this.engines) {
 			engine.setTime(time);
@@ -317,15 +349,11 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 				for (QNetsimEngineRunner engine : this.engines) {
 					engine.setMovingNodes(true);
 				}
-				for (Future<Boolean> future : pool.invokeAll(this.engines)) {
-					future.get();
-				}
+				invokeAllRunners();
 				for (QNetsimEngineRunner engine : this.engines) {
 					engine.setMovingNodes(false);
 				}
-				for (Future<Boolean> future : pool.invokeAll(this.engines)) {
-					future.get();
-				}
+				invokeAllRunners();
 			} catch (InterruptedException e) {
 				throw new RuntimeException(e) ;
 			} catch (ExecutionException e) {
@@ -338,6 +366,21 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	}
 
 
+	/*
+	 * The runners do not wait for each other at a barrier when using the thread pool. Here, a runner's
+	 * waiting time is the time from finishing its own work until all runners have finished.
+	 */
+	private void invokeAllRunners() throws InterruptedException, ExecutionException {
+		long start = System.nanoTime();
+		for (Future<Boolean> future : pool.invokeAll(this.engines)) {
+			future.get();
+		}
+		long duration = System.nanoTime() - start;
+		for (QNetsimEngineRunner engine : this.engines) {
+			engine.addWaitTime(Math.max(0, duration - engine.getLastPhaseTime()));
+		}
+	}
+
 	/*package*/ void printSimLog(double time) {
 		if (time >= this.infoTime) {
 			this.infoTime += INFO_PERIOD;
@@ -385,7 +428,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	}
 
 	public final Map<Id<Vehicle>, QVehicle> getVehicles() {
-		return Collections.unmodifiableMap(this.vehicles);
+		return this.unmodifiableVehicles;
 	}
 
 	public final void registerAdditionalAgentOnLink(final MobsimAgent planAgent) {
@@ -456,6 +499,14 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		 *  should become obsolete.
 		 */
 		assignNetElementActivators();
+
+		if (this.runnerRebalancingInterval > 0 && this.numOfRunners > 1) {
+			this.rebalancer = new QNetsimEngineRebalancer(this.partitionedNodes, this.network,
+					new SpatialQNetworkPartitioner(), this.runnerRebalancingInterval);
+			for (QNetsimEngineRunner engine : this.engines) {
+				engine.setMeasuringMoveTimes(true);
+			}
+		}
 	}
 
 	/*
@@ -469,9 +520,12 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
 
-		int roundRobin = 0;
-		for (QNodeI node : network.getNetsimNodes().values()) {
-			int i = roundRobin % this.numOfRunners;
+		this.partitionedNodes = new ArrayList<>(network.getNetsimNodes().values());
+		this.nodeAssignment = this.partitioner.partition(getNodes(this.partitionedNodes), getInitialWeights(this.partitionedNodes), this.numOfRunners);
+
+		int position = 0;
+		for (QNodeI node : this.partitionedNodes) {
+			int i = this.nodeAssignment[position];
 			if( node instanceof AbstractQNode){
 				((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
 			}
@@ -498,7 +552,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 			}
 
-			roundRobin++;
+			position++;
 		}
 
 		// print some statistics
@@ -509,6 +563,92 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		this.linksToActivateInitially.clear();
 	}
 
+	private static List<Node> getNodes(List<QNodeI> qNodes) {
+		List<Node> nodes = new ArrayList<>(qNodes.size());
+		for (QNodeI qNode : qNodes) {
+			nodes.add(qNode.getNode());
+		}
+		return nodes;
+	}
+
+	/*
+	 * Before anything was measured, the work for moving a node and its out-links is
+	 * assumed to grow with the number of links connected to the node.
+	 */
+	private static double[] getInitialWeights(List<QNodeI> qNodes) {
+		double[] weights = new double[qNodes.size()];
+		for (int i = 0; i < weights.length; i++) {
+			Node node = qNodes.get(i).getNode();
+			weights[i] = 1 + node.getInLinks().size() + node.getOutLinks().size();
+		}
+		return weights;
+	}
+
+	/*
+	 * Only called between two time steps, while the runners are waiting. Nodes and links which are
+	 * currently active are handed over to their new runner.
+	 */
+	private void reassignNetElements(int[] newAssignment) {
+		int movedNodes = 0;
+		for (int position = 0; position < newAssignment.length; position++) {
+			if (newAssignment[position] == this.nodeAssignment[position]) {
+				continue;
+			}
+			// the rebalancer only reassigns nodes which are AbstractQNodes and have only AbstractQLinks as out-links
+			QNodeI node = this.partitionedNodes.get(position);
+			QNetsimEngineRunner engine = this.engines.get(newAssignment[position]);
+			if (node instanceof AbstractQNode) {
+				((AbstractQNode) node).setNetElementActivationRegistry(engine);
+			}
+			for (Link outLink : node.getNode().getOutLinks().values()) {
+				QLinkI qLink = network.getNetsimLink(outLink.getId());
+				if (qLink instanceof AbstractQLink) {
+					((AbstractQLink) qLink).setNetElementActivationRegistry(engine);
+					this.numberOfReassignedLinks++;
+				}
+			}
+			movedNodes++;
+		}
+		this.nodeAssignment = newAssignment;
+
+		List<QNodeI> activeNodes = new ArrayList<>();
+		List<QLinkI> activeLinks = new ArrayList<>();
+		for (QNetsimEngineRunner engine : this.engines) {
+			engine.removeReassignedElements(activeNodes, activeLinks);
+		}
+		for (QNodeI node : activeNodes) {
+			((AbstractQNode) node).getNetElementActivationRegistry().registerNodeAsActive(node);
+		}
+		for (QLinkI link : activeLinks) {
+			((AbstractQLink) link).getNetElementActivationRegistry().registerLinkAsActive(link);
+		}
+		log.info("Moved " + movedNodes + " nodes to another QNetsimEngineRunner, of which " + activeNodes.size()
+				+ " were active, together with " + activeLinks.size() + " active links.");
+	}
+
+	/**
+	 * @return how often a link was handed over to another runner so far
+	 */
+	/*package*/ int getNumberOfReassignedLinks() {
+		return this.numberOfReassignedLinks;
+	}
+
+	/**
+	 * Logs how long each runner was moving nodes and links, and how long it was waiting for the other runners.
+	 * A runner that waits much longer than the others has less work than them.
+	 */
+	private void printRunnerLoads() {
+		for (int i = 0; i < this.engines.size(); i++) {
+			QNetsimEngineRunner engine = this.engines.get(i);
+			double nodesTime = engine.getMoveNodesTime() / 1e9;
+			double linksTime = engine.getMoveLinksTime() / 1e9;
+			double waitTime = engine.getWaitTime() / 1e9;
+			double total = nodesTime + linksTime + waitTime;
+			log.info("QNetsimEngineRunner #" + i + ": moving nodes " + nodesTime + " s, moving links " + linksTime
+					+ " s, waiting for other runners " + waitTime + " s (" + (total > 0 ? Math.round(100 * waitTime / total) : 0) + "%).");
+		}
+	}
+
 	public void printEngineRunTimes() {
 		if (!QSim.analyzeRunTimes) return;
 		
@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineRebalancer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.utils.misc.Time;
+
+/**
+ * Periodically redistributes the nodes (and their out-links) among the runners of the {@link QNetsimEngine}.
+ * The weight of a node is the time it took to move the node and its out-links since the last
+ * redistribution, as measured by the runners. The nodes are then partitioned again with these weights,
+ * unless the load of the runners is already balanced well enough.
+ */
+final class QNetsimEngineRebalancer {
+
+	private static final Logger log = Logger.getLogger(QNetsimEngineRebalancer.class);
+
+	/**
+	 * The nodes are only redistributed if the most loaded runner has more than this factor times the average load.
+	 */
+	private static final double IMBALANCE_THRESHOLD = 1.1;
+
+	private final List<Node> nodes;
+	private final AbstractQNode[] qNodes;
+	private final AbstractQLink[][] outLinks;
+	private final QNetworkPartitioner partitioner;
+	private final double interval;
+
+	private double nextRebalancingTime = Time.UNDEFINED_TIME;
+
+	QNetsimEngineRebalancer(final List<QNodeI> qNodes, final QNetwork network, final QNetworkPartitioner partitioner, final double interval) {
+		this.nodes = new ArrayList<>(qNodes.size());
+		this.qNodes = new AbstractQNode[qNodes.size()];
+		this.outLinks = new AbstractQLink[qNodes.size()][];
+		for (int i = 0; i < qNodes.size(); i++) {
+			QNodeI qNode = qNodes.get(i);
+			this.nodes.add(qNode.getNode());
+			// nodes of other types, or with out-links of other types, cannot be reassigned; they keep their runner
+			boolean reassignable = qNode instanceof AbstractQNode;
+			List<AbstractQLink> links = new ArrayList<>();
+			for (Link link : qNode.getNode().getOutLinks().values()) {
+				QLinkI qLink = network.getNetsimLink(link.getId());
+				if (qLink instanceof AbstractQLink) {
+					links.add((AbstractQLink) qLink);
+				} else {
+					reassignable = false;
+				}
+			}
+			this.qNodes[i] = reassignable ? (AbstractQNode) qNode : null;
+			this.outLinks[i] = links.toArray(new AbstractQLink[links.size()]);
+		}
+		this.partitioner = partitioner;
+		this.interval = interval;
+	}
+
+	boolean isRebalancingDue(final double time) {
+		if (this.nextRebalancingTime == Time.UNDEFINED_TIME) {
+			this.nextRebalancingTime = time + this.interval;
+		}
+		return time >= this.nextRebalancingTime;
+	}
+
+	/**
+	 * Collects the measured times and resets them.
+	 *
+	 * @return the new assignment of the nodes to the runners, or <code>null</code> if the nodes should stay where they are.
+	 */
+	int[] rebalance(final double time, final int[] assignment, final int numberOfRunners) {
+		this.nextRebalancingTime = time + this.interval;
+
+		double[] weights = new double[this.nodes.size()];
+		double[] runnerLoads = new double[numberOfRunners];
+		double totalWeight = 0;
+		for (int i = 0; i < weights.length; i++) {
+			if (this.qNodes[i] != null) {
+				weights[i] = this.qNodes[i].getAndResetMoveTime();
+			}
+			for (AbstractQLink link : this.outLinks[i]) {
+				weights[i] += link.getAndResetMoveTime();
+			}
+			runnerLoads[assignment[i]] += weights[i];
+			totalWeight += weights[i];
+		}
+		if (totalWeight == 0) {
+			return null;
+		}
+
+		double maxLoad = 0;
+		for (double load : runnerLoads) {
+			maxLoad = Math.max(maxLoad, load);
+		}
+		double imbalance = maxLoad / (totalWeight / numberOfRunners);
+		if (imbalance <= IMBALANCE_THRESHOLD) {
+			log.info("At " + Time.writeTime(time) + ": the most loaded QNetsimEngineRunner has " + imbalance
+					+ " times the average load; keeping the assignment of nodes and links.");
+			return null;
+		}
+
+		/*
+		 * Nodes without any traffic since the last redistribution would not matter for the partitioning.
+		 * As traffic may reach them later, they get a small base weight, which also keeps the parts compact.
+		 */
+		double baseWeight = totalWeight / weights.length / 100;
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] += baseWeight;
+		}
+		int[] newAssignment = this.partitioner.partition(this.nodes, weights, numberOfRunners);
+		for (int i = 0; i < newAssignment.length; i++) {
+			if (this.qNodes[i] == null) {
+				newAssignment[i] = assignment[i];
+			}
+		}
+		log.info("At " + Time.writeTime(time) + ": the most loaded QNetsimEngineRunner has " + imbalance
+				+ " times the average load; redistributing nodes and links.");
+		return newAssignment;
+	}
+
+}
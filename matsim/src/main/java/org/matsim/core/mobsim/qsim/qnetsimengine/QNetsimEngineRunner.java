@@ -76,6 +76,18 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	private boolean movingNodes;
 
+	/*
+	 * If set, the time needed to move each node and link is added up in the node or link,
+	 * which allows the QNetsimEngine to redistribute them among the runners.
+	 */
+	private boolean measuringMoveTimes = false;
+
+	// for the load statistics of the runners, in nanoseconds
+	private long moveNodesTime = 0;
+	private long moveLinksTime = 0;
+	private long waitTime = 0;
+	private long lastPhaseTime = 0;
+
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
 	{	
@@ -147,7 +159,9 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			moveNodes();
 
 			// After moving the QNodes all we use a Phaser to synchronize the threads.
+			long waitStart = System.nanoTime();
 			this.separationBarrier.arriveAndAwaitAdvance();
+			this.waitTime += System.nanoTime() - waitStart;
 
 			moveLinks();
 
@@ -161,34 +175,123 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			 * The end of moving is synchronized with the endBarrier. If all threads 
 			 * reach this barrier the main thread can go on.
 			 */
+			waitStart = System.nanoTime();
 			this.endBarrier.arriveAndAwaitAdvance();
+			this.waitTime += System.nanoTime() - waitStart;
 		}
 	}
 	private void moveNodes() {
+		long start = System.nanoTime();
 		boolean remainsActive;
 		this.lockNodes = true;
 		QNodeI node;
 		Iterator<QNodeI> simNodes = this.nodesQueue.iterator();
-		while (simNodes.hasNext()) {
-			node = simNodes.next();
-			remainsActive = node.doSimStep(time);
-			if (!remainsActive) simNodes.remove();
+		if (this.measuringMoveTimes) {
+			long nodeStart = start;
+			while (simNodes.hasNext()) {
+				node = simNodes.next();
+				remainsActive = node.doSimStep(time);
+				long nodeEnd = System.nanoTime();
+				if (node instanceof AbstractQNode) ((AbstractQNode) node).addMoveTime(nodeEnd - nodeStart);
+				nodeStart = nodeEnd;
+				if (!remainsActive) simNodes.remove();
+			}
+		} else {
+			while (simNodes.hasNext()) {
+				node = simNodes.next();
+				remainsActive = node.doSimStep(time);
+				if (!remainsActive) simNodes.remove();
+			}
 		}
 		this.lockNodes = false;
+		this.lastPhaseTime = System.nanoTime() - start;
+		this.moveNodesTime += this.lastPhaseTime;
 	}
 	private void moveLinks() {
+		long start = System.nanoTime();
 		boolean remainsActive;
 		lockLinks = true;
 		QLinkI link;
 		ListIterator<QLinkI> simLinks = this.linksList.listIterator();
-		while (simLinks.hasNext()) {
-			link = simLinks.next();
+		if (this.measuringMoveTimes) {
+			long linkStart = start;
+			while (simLinks.hasNext()) {
+				link = simLinks.next();
+
+				remainsActive = link.doSimStep();
+				long linkEnd = System.nanoTime();
+				if (link instanceof AbstractQLink) ((AbstractQLink) link).addMoveTime(linkEnd - linkStart);
+				linkStart = linkEnd;
+
+				if (!remainsActive) simLinks.remove();
+			}
+		} else {
+			while (simLinks.hasNext()) {
+				link = simLinks.next();
 
-			remainsActive = link.doSimStep();
+				remainsActive = link.doSimStep();
 
-			if (!remainsActive) simLinks.remove();
+				if (!remainsActive) simLinks.remove();
+			}
 		}
 		lockLinks = false;
+		this.lastPhaseTime = System.nanoTime() - start;
+		this.moveLinksTime += this.lastPhaseTime;
+	}
+
+	/*
+	 * Only called between two time steps, while neither nodes nor links are moved.
+	 * Removes the active nodes and links which were assigned to another runner
+	 * meanwhile, so that they can be registered at their new runner.
+	 */
+	/*package*/ void removeReassignedElements(final Collection<QNodeI> reassignedNodes, final Collection<QLinkI> reassignedLinks) {
+		Iterator<QNodeI> nodes = this.nodesQueue.iterator();
+		while (nodes.hasNext()) {
+			QNodeI node = nodes.next();
+			if (node instanceof AbstractQNode && ((AbstractQNode) node).getNetElementActivationRegistry() != this) {
+				nodes.remove();
+				reassignedNodes.add(node);
+			}
+		}
+		Iterator<QLinkI> links = this.linksList.iterator();
+		while (links.hasNext()) {
+			QLinkI link = links.next();
+			if (link instanceof AbstractQLink && ((AbstractQLink) link).getNetElementActivationRegistry() != this) {
+				links.remove();
+				reassignedLinks.add(link);
+			}
+		}
+	}
+
+	/*package*/ void setMeasuringMoveTimes(final boolean measuringMoveTimes) {
+		this.measuringMoveTimes = measuringMoveTimes;
+	}
+
+	/*package*/ long getMoveNodesTime() {
+		return this.moveNodesTime;
+	}
+
+	/*package*/ long getMoveLinksTime() {
+		return this.moveLinksTime;
+	}
+
+	/**
+	 * @return the time this runner spent waiting for the other runners, in nanoseconds.
+	 */
+	/*package*/ long getWaitTime() {
+		return this.waitTime;
+	}
+
+	/*
+	 * When running in the thread pool, the runners do not wait at a barrier themselves.
+	 * The QNetsimEngine then computes the waiting time from the duration of each phase.
+	 */
+	/*package*/ void addWaitTime(final long waitTime) {
+		this.waitTime += waitTime;
+	}
+
+	/*package*/ long getLastPhaseTime() {
+		return this.lastPhaseTime;
 	}
 
 	/*
@@ -25,6 +25,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
@@ -44,8 +45,18 @@ import org.matsim.vis.snapshotwriters.VisLink;
 public class QNetwork implements NetsimNetwork {
 
 	private final Map<Id<Link>, QLinkI> links;
+	private final Map<Id<Link>, QLinkI> unmodifiableLinks;
 
 	private final Map<Id<Node>, QNodeI> nodes;
+	private final Map<Id<Node>, QNodeI> unmodifiableNodes;
+
+	/*
+	 * The insertion-ordered maps above define the order in which links and nodes are iterated
+	 * (e.g. when vehicles are cleared at the end of the simulation), while the look-ups by id
+	 * during the simulation go through these array-based maps.
+	 */
+	private final IdMap<Link, QLinkI> linksByIndex = new IdMap<>(Link.class);
+	private final IdMap<Node, QNodeI> nodesByIndex = new IdMap<>(Node.class);
 
 	private final Network network;
 
@@ -57,17 +68,22 @@ public class QNetwork implements NetsimNetwork {
 		this.queueNetworkFactory = netsimNetworkFactory;
 		this.links = new LinkedHashMap<>((int)(network.getLinks().size()*1.1), 0.95f);
 		this.nodes = new LinkedHashMap<>((int)(network.getLinks().size()*1.1), 0.95f);
+		this.unmodifiableLinks = Collections.unmodifiableMap(this.links);
+		this.unmodifiableNodes = Collections.unmodifiableMap(this.nodes);
 	}
 
 	public void initialize(QNetsimEngine simEngine1, AgentCounter agentCounter, MobsimTimer simTimer) {
 		this.simEngine = simEngine1;
 		this.queueNetworkFactory.initializeFactory( agentCounter, simTimer, simEngine1.ii );
 		for (Node n : network.getNodes().values()) {
-			this.nodes.put(n.getId(), this.queueNetworkFactory.createNetsimNode(n));
+			final QNodeI qnode = this.queueNetworkFactory.createNetsimNode(n);
+			this.nodes.put(n.getId(), qnode);
+			this.nodesByIndex.put(n.getId(), qnode);
 		}
 		for (Link l : network.getLinks().values()) {
-			final QLinkI qlink = this.queueNetworkFactory.createNetsimLink(l, this.nodes.get(l.getToNode().getId()));
+			final QLinkI qlink = this.queueNetworkFactory.createNetsimLink(l, this.nodesByIndex.get(l.getToNode().getId()));
 			this.links.put(l.getId(), qlink);
+			this.linksByIndex.put(l.getId(), qlink);
 		}
 		for (QNodeI n : this.nodes.values()) {
 			n.init();
@@ -81,27 +97,27 @@ public class QNetwork implements NetsimNetwork {
 
 	@Override
 	public Map<Id<Link>, QLinkI> getNetsimLinks() {
-		return Collections.unmodifiableMap(this.links);
+		return this.unmodifiableLinks;
 	}
 
 	@Override
 	public Map<Id<Link>, ? extends VisLink> getVisLinks() {
-		return Collections.unmodifiableMap(this.links);
+		return this.unmodifiableLinks;
 	}
 
 	@Override
 	public Map<Id<Node>, QNodeI> getNetsimNodes() {
-		return Collections.unmodifiableMap(this.nodes);
+		return this.unmodifiableNodes;
 	}
 
 	@Override
 	public QLinkI getNetsimLink(final Id<Link> id) {
-		return this.links.get(id);
+		return this.linksByIndex.get(id);
 	}
 
 	@Override
 	public NetsimNode getNetsimNode(final Id<Node> id) {
-		return this.nodes.get(id);
+		return this.nodesByIndex.get(id);
 	}
 
 
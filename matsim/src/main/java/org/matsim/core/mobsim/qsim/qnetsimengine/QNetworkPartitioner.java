@@ -0,0 +1,43 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Decides which {@link QNetsimEngineRunner} moves which node. The out-links of a node are
+ * always moved by the same runner as the node.
+ *
+ * @see QNetsimEngine
+ */
+interface QNetworkPartitioner {
+
+	/**
+	 * @param nodes the nodes to distribute
+	 * @param weights the expected work for moving each node and its out-links, in the same order as the nodes
+	 * @param numberOfParts the number of runners
+	 * @return for each node, in the same order as the nodes, the index of the runner, between 0 and <code>numberOfParts - 1</code>
+	 */
+	int[] partition(List<? extends Node> nodes, double[] weights, int numberOfParts);
+
+}
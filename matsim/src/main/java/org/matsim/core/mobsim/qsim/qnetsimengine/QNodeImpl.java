@@ -101,7 +101,7 @@ final class QNodeImpl extends AbstractQNode {
 		int i = 0;
 		for (Link l : this.node.getInLinks().values()) {
 			QNetwork network = netsimEngine.getNetsimNetwork() ;
-			this.inLinksArrayCache[i] = network.getNetsimLinks().get(l.getId());
+			this.inLinksArrayCache[i] = network.getNetsimLink(l.getId());
 			i++;
 		}
 		/* As the order of links has an influence on the simulation results,
@@ -204,7 +204,7 @@ final class QNodeImpl extends AbstractQNode {
 			return false;
 		}
 		
-		QLinkI nextQueueLink = this.netsimEngine.getNetsimNetwork().getNetsimLinks().get(nextLinkId);
+		QLinkI nextQueueLink = this.netsimEngine.getNetsimNetwork().getNetsimLink(nextLinkId);
 		QLaneI nextQueueLane = nextQueueLink.getAcceptingQLane() ;
 		if (nextQueueLane.isAcceptingFromUpstream()) {
 			moveVehicleFromInlinkToOutlink(veh, currentLink.getId(), fromLane, nextLinkId, nextQueueLane);
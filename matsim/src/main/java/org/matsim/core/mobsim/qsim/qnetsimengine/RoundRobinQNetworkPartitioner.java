@@ -0,0 +1,42 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RoundRobinQNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Assigns the nodes one after the other to the next runner, ignoring the weights.
+ * Neighbouring nodes typically end up at different runners.
+ */
+final class RoundRobinQNetworkPartitioner implements QNetworkPartitioner {
+
+	@Override
+	public int[] partition(final List<? extends Node> nodes, final double[] weights, final int numberOfParts) {
+		int[] parts = new int[nodes.size()];
+		for (int i = 0; i < parts.length; i++) {
+			parts[i] = i % numberOfParts;
+		}
+		return parts;
+	}
+
+}
@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SpatialQNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Partitions the network by recursive coordinate bisection: the nodes are split along the longer
+ * side of their bounding box such that both halves carry the share of the total weight that
+ * corresponds to the number of runners on that side. This is repeated until there is one part
+ * per runner.
+ * <p>
+ * Each part is a compact region of the network, so most links connect nodes of the same runner.
+ * The result only depends on the coordinates and weights, so it is reproducible.
+ */
+final class SpatialQNetworkPartitioner implements QNetworkPartitioner {
+
+	@Override
+	public int[] partition(final List<? extends Node> nodes, final double[] weights, final int numberOfParts) {
+		final int n = nodes.size();
+		final double[] x = new double[n];
+		final double[] y = new double[n];
+		Integer[] indices = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			Coord coord = nodes.get(i).getCoord();
+			x[i] = coord.getX();
+			y[i] = coord.getY();
+			indices[i] = i;
+		}
+		int[] parts = new int[n];
+		bisect(indices, 0, n, 0, numberOfParts, x, y, weights, parts);
+		return parts;
+	}
+
+	private static void bisect(final Integer[] indices, final int from, final int to, final int firstPart, final int numberOfParts,
+			final double[] x, final double[] y, final double[] weights, final int[] parts) {
+		if (from >= to) {
+			return;
+		}
+		if (numberOfParts == 1) {
+			for (int i = from; i < to; i++) {
+				parts[indices[i]] = firstPart;
+			}
+			return;
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double totalWeight = 0;
+		for (int i = from; i < to; i++) {
+			int index = indices[i];
+			minX = Math.min(minX, x[index]);
+			maxX = Math.max(maxX, x[index]);
+			minY = Math.min(minY, y[index]);
+			maxY = Math.max(maxY, y[index]);
+			totalWeight += weights[index];
+		}
+
+		final double[] primary = (maxX - minX >= maxY - minY) ? x : y;
+		final double[] secondary = (primary == x) ? y : x;
+		Arrays.sort(indices, from, to, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				int cmp = Double.compare(primary[i1], primary[i2]);
+				if (cmp == 0) {
+					cmp = Double.compare(secondary[i1], secondary[i2]);
+				}
+				return cmp != 0 ? cmp : Integer.compare(i1, i2);
+			}
+		});
+
+		int leftParts = numberOfParts / 2;
+		double leftWeight = totalWeight * leftParts / numberOfParts;
+		double sum = 0;
+		int split = from;
+		// a node goes to the left side if its center of mass is within the left side's share
+		while (split < to && sum + weights[indices[split]] / 2 <= leftWeight) {
+			sum += weights[indices[split]];
+			split++;
+		}
+
+		bisect(indices, from, split, firstPart, leftParts, x, y, weights, parts);
+		bisect(indices, split, to, firstPart + leftParts, numberOfParts - leftParts, x, y, weights, parts);
+	}
+
+}
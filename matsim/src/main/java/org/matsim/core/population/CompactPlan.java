@@ -0,0 +1,225 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlan.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * A plan whose activities and legs are stored in a {@link CompactPlanStore}.  Changing the values of the activities
+ * and legs writes them to the store.  The views of the activities and legs are created when they are first accessed
+ * and kept, so a plan element is the same object each time.  Only when plan elements are added, removed or replaced,
+ * the plan keeps its plan elements in a list of its own, as {@link PlanImpl} does.  This is typically the case for
+ * plans which are modified in replanning, which are however usually copies in the form of {@link PlanImpl}s anyway.
+ *
+ * @see CompactPopulationImpl
+ */
+/* deliberately package */ final class CompactPlan implements Plan {
+
+	private final CompactPlanStore store;
+	private final int firstElement;
+	private final int elementCount;
+
+	/** <code>null</code> as long as the plan elements have not been added, removed or replaced */
+	private List<PlanElement> elements = null;
+	/** the views of the stored plan elements, <code>null</code> as long as none was accessed */
+	private PlanElement[] views = null;
+
+	private Double score;
+	private Person person;
+	private String type;
+
+	private Customizable customizableDelegate;
+	private Attributes attributes;
+
+	CompactPlan(CompactPlanStore store, Plan plan) {
+		this.store = store;
+		this.elementCount = plan.getPlanElements().size();
+		this.firstElement = store.add(plan);
+		this.score = plan.getScore();
+		this.person = plan.getPerson();
+		this.type = plan.getType();
+		this.attributes = plan.getAttributes().isEmpty() ? null : plan.getAttributes();
+		if (!plan.getCustomAttributes().isEmpty()) {
+			getCustomAttributes().putAll(plan.getCustomAttributes());
+		}
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		return this.elements == null ? new StoredPlanElements() : this.elements;
+	}
+
+	@Override
+	public void addLeg(Leg leg) {
+		materialize().add(leg);
+	}
+
+	@Override
+	public void addActivity(Activity act) {
+		materialize().add(act);
+	}
+
+	private List<PlanElement> materialize() {
+		if (this.elements == null) {
+			List<PlanElement> elements = new ArrayList<>(this.elementCount + 2);
+			for (int i = 0; i < this.elementCount; i++) {
+				elements.add(getView(i));
+			}
+			this.elements = elements;
+			this.views = null;
+		}
+		return this.elements;
+	}
+
+	private PlanElement getView(int index) {
+		if (this.views == null) {
+			this.views = new PlanElement[this.elementCount];
+		}
+		PlanElement view = this.views[index];
+		if (view == null) {
+			view = this.store.getElement(this.firstElement + index);
+			this.views[index] = view;
+		}
+		return view;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public void setPerson(Person person) {
+		this.person = person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.score;
+	}
+
+	@Override
+	public void setScore(Double score) {
+		this.score = score;
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.attributes == null) {
+			this.attributes = new Attributes();
+		}
+		return this.attributes;
+	}
+
+	@Override
+	public String toString() {
+		String scoreString = "undefined";
+		if (this.getScore() != null) {
+			scoreString = this.getScore().toString();
+		}
+		String personIdString = "undefined" ;
+		if ( this.getPerson() != null ) {
+			personIdString = this.getPerson().getId().toString() ;
+		}
+
+		return "[score=" + scoreString + "]" +
+				"[nof_acts_legs=" + getPlanElements().size() + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + personIdString + "]" ;
+	}
+
+	/**
+	 * The plan elements as long as they are in the store.  Structural changes move them to a list of the plan.
+	 */
+	private final class StoredPlanElements extends AbstractList<PlanElement> {
+
+		@Override
+		public PlanElement get(int index) {
+			if (elements != null) {
+				return elements.get(index);
+			}
+			if (index < 0 || index >= elementCount) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + elementCount);
+			}
+			return getView(index);
+		}
+
+		@Override
+		public int size() {
+			return elements != null ? elements.size() : elementCount;
+		}
+
+		@Override
+		public PlanElement set(int index, PlanElement element) {
+			return materialize().set(index, element);
+		}
+
+		@Override
+		public void add(int index, PlanElement element) {
+			materialize().add(index, element);
+			this.modCount++;
+		}
+
+		@Override
+		public PlanElement remove(int index) {
+			PlanElement removed = materialize().remove(index);
+			this.modCount++;
+			return removed;
+		}
+
+		@Override
+		public void clear() {
+			materialize().clear();
+			this.modCount++;
+		}
+	}
+
+}
@@ -0,0 +1,467 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlanStore.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Stores the plan elements of many plans in primitive arrays, one entry per activity or leg, instead of
+ * one object per activity or leg.  Activity types and leg modes are stored as codes into a dictionary, link and
+ * facility ids by their {@link Id#index()}.  The routes are kept as objects; with the network route type
+ * {@link org.matsim.core.config.groups.PlansConfigGroup.NetworkRouteType#PackedNetworkRoute} they are compact as well.
+ * <p></p>
+ * The activities and legs are handed out as views ({@link StoredActivity}, {@link StoredLeg}) which read from and write
+ * to the arrays.  {@link CompactPlan} creates one view per plan element and keeps it, so the same plan element is
+ * always the same object.  The attributes of an activity or leg are only created when they are first asked for.
+ * <p></p>
+ * Plans can be added concurrently.  Adding plans and changing the stored values synchronize on the store, as adding
+ * plans may replace the arrays.  Reading values is only thread-safe for plans which were added before, e.g. when the
+ * population was read.
+ *
+ * @see CompactPlan
+ */
+/* deliberately package */ final class CompactPlanStore {
+
+	private static final int NO_INDEX = -1;
+
+	// the plan elements of a plan are consecutive entries.  >= 0: index of an activity; < 0: ~index of a leg
+	private int[] elements = new int[1024];
+	private int elementCount = 0;
+
+	private int[] actType = new int[512];
+	private int[] actLink = new int[512];
+	private int[] actFacility = new int[512];
+	private double[] actX = new double[512]; // NaN: no coord
+	private double[] actY = new double[512];
+	private double[] actZ = null; // only created if there is a coord with elevation
+	private double[] actEndTime = new double[512];
+	private double[] actStartTime = new double[512];
+	private double[] actMaxDuration = new double[512];
+	private Attributes[] actAttributes = new Attributes[512];
+	private int actCount = 0;
+
+	private int[] legMode = new int[512];
+	private double[] legDepartureTime = new double[512];
+	private double[] legTravelTime = new double[512];
+	private Route[] legRoute = new Route[512];
+	private Attributes[] legAttributes = new Attributes[512];
+	private int legCount = 0;
+
+	private final Map<String, Integer> codes = new HashMap<>();
+	private volatile String[] strings = new String[64];
+
+	/**
+	 * @return whether all plan elements of the plan are activities or legs
+	 */
+	static boolean canStore(Plan plan) {
+		for (PlanElement pe : plan.getPlanElements()) {
+			if (!(pe instanceof Activity) && !(pe instanceof Leg)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the plan elements of the plan into this store.
+	 *
+	 * @return the index of the first plan element of the plan
+	 */
+	synchronized int add(Plan plan) {
+		int first = this.elementCount;
+		for (PlanElement pe : plan.getPlanElements()) {
+			if (pe instanceof Activity) {
+				addElement(addActivity((Activity) pe));
+			} else {
+				addElement(~addLeg((Leg) pe));
+			}
+		}
+		return first;
+	}
+
+	private void addElement(int element) {
+		if (this.elementCount == this.elements.length) {
+			this.elements = Arrays.copyOf(this.elements, grow(this.elements.length));
+		}
+		this.elements[this.elementCount++] = element;
+	}
+
+	private int addActivity(Activity act) {
+		if (this.actCount == this.actType.length) {
+			int length = grow(this.actCount);
+			this.actType = Arrays.copyOf(this.actType, length);
+			this.actLink = Arrays.copyOf(this.actLink, length);
+			this.actFacility = Arrays.copyOf(this.actFacility, length);
+			this.actX = Arrays.copyOf(this.actX, length);
+			this.actY = Arrays.copyOf(this.actY, length);
+			if (this.actZ != null) {
+				this.actZ = Arrays.copyOf(this.actZ, length);
+			}
+			this.actEndTime = Arrays.copyOf(this.actEndTime, length);
+			this.actStartTime = Arrays.copyOf(this.actStartTime, length);
+			this.actMaxDuration = Arrays.copyOf(this.actMaxDuration, length);
+			this.actAttributes = Arrays.copyOf(this.actAttributes, length);
+		}
+		int index = this.actCount++;
+		this.actType[index] = code(act.getType());
+		this.actLink[index] = act.getLinkId() == null ? NO_INDEX : act.getLinkId().index();
+		this.actFacility[index] = act.getFacilityId() == null ? NO_INDEX : act.getFacilityId().index();
+		setCoord(index, act.getCoord());
+		this.actEndTime[index] = act.getEndTime();
+		this.actStartTime[index] = act.getStartTime();
+		this.actMaxDuration[index] = act.getMaximumDuration();
+		this.actAttributes[index] = act.getAttributes().isEmpty() ? null : act.getAttributes();
+		return index;
+	}
+
+	private int addLeg(Leg leg) {
+		if (this.legCount == this.legMode.length) {
+			int length = grow(this.legCount);
+			this.legMode = Arrays.copyOf(this.legMode, length);
+			this.legDepartureTime = Arrays.copyOf(this.legDepartureTime, length);
+			this.legTravelTime = Arrays.copyOf(this.legTravelTime, length);
+			this.legRoute = Arrays.copyOf(this.legRoute, length);
+			this.legAttributes = Arrays.copyOf(this.legAttributes, length);
+		}
+		int index = this.legCount++;
+		this.legMode[index] = code(leg.getMode());
+		this.legDepartureTime[index] = leg.getDepartureTime();
+		this.legTravelTime[index] = leg.getTravelTime();
+		this.legRoute[index] = leg.getRoute();
+		this.legAttributes[index] = leg.getAttributes().isEmpty() ? null : leg.getAttributes();
+		return index;
+	}
+
+	private static int grow(int length) {
+		return length + (length >> 1);
+	}
+
+	// callers synchronize on the store
+	private void setCoord(int index, Coord coord) {
+		if (coord == null) {
+			this.actX[index] = Double.NaN;
+			this.actY[index] = Double.NaN;
+			return;
+		}
+		this.actX[index] = coord.getX();
+		this.actY[index] = coord.getY();
+		if (coord.hasZ()) {
+			if (this.actZ == null) {
+				this.actZ = new double[this.actX.length];
+				Arrays.fill(this.actZ, Double.NEGATIVE_INFINITY);
+			}
+			this.actZ[index] = coord.getZ();
+		} else if (this.actZ != null) {
+			this.actZ[index] = Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	private Coord getCoord(int index) {
+		double x = this.actX[index];
+		if (Double.isNaN(x)) {
+			return null;
+		}
+		if (this.actZ != null && this.actZ[index] != Double.NEGATIVE_INFINITY) {
+			return new Coord(x, this.actY[index], this.actZ[index]);
+		}
+		return new Coord(x, this.actY[index]);
+	}
+
+	private synchronized int code(String string) {
+		if (string == null) {
+			return NO_INDEX;
+		}
+		Integer code = this.codes.get(string);
+		if (code == null) {
+			code = this.codes.size();
+			if (code == this.strings.length) {
+				this.strings = Arrays.copyOf(this.strings, this.strings.length * 2);
+			}
+			this.strings[code] = string.intern();
+			this.codes.put(string, code);
+		}
+		return code;
+	}
+
+	private String string(int code) {
+		return code == NO_INDEX ? null : this.strings[code];
+	}
+
+	/**
+	 * @return a new view of the plan element, see {@link CompactPlan} for keeping it
+	 */
+	PlanElement getElement(int index) {
+		int element = this.elements[index];
+		return element >= 0 ? new StoredActivity(element) : new StoredLeg(~element);
+	}
+
+	final class StoredActivity implements Activity {
+
+		private final int index;
+		private Coord coord = null; // the coord handed out before, so it is the same object each time
+
+		private StoredActivity(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public double getEndTime() {
+			return actEndTime[this.index];
+		}
+
+		@Override
+		public void setEndTime(double seconds) {
+			synchronized (CompactPlanStore.this) {
+				actEndTime[this.index] = seconds;
+			}
+		}
+
+		@Override
+		public String getType() {
+			return string(actType[this.index]);
+		}
+
+		@Override
+		public void setType(String type) {
+			int code = code(type);
+			synchronized (CompactPlanStore.this) {
+				actType[this.index] = code;
+			}
+		}
+
+		@Override
+		public Coord getCoord() {
+			if (this.coord == null) {
+				this.coord = CompactPlanStore.this.getCoord(this.index);
+			}
+			return this.coord;
+		}
+
+		@Override
+		public void setCoord(Coord coord) {
+			synchronized (CompactPlanStore.this) {
+				CompactPlanStore.this.setCoord(this.index, coord);
+			}
+			this.coord = coord;
+		}
+
+		@Override
+		public double getStartTime() {
+			return actStartTime[this.index];
+		}
+
+		@Override
+		public void setStartTime(double seconds) {
+			synchronized (CompactPlanStore.this) {
+				actStartTime[this.index] = seconds;
+			}
+		}
+
+		@Override
+		public double getMaximumDuration() {
+			return actMaxDuration[this.index];
+		}
+
+		@Override
+		public void setMaximumDuration(double seconds) {
+			synchronized (CompactPlanStore.this) {
+				actMaxDuration[this.index] = seconds;
+			}
+		}
+
+		@Override
+		public Id<Link> getLinkId() {
+			int link = actLink[this.index];
+			return link == NO_INDEX ? null : Id.get(link, Link.class);
+		}
+
+		@Override
+		public void setLinkId(Id<Link> id) {
+			synchronized (CompactPlanStore.this) {
+				actLink[this.index] = id == null ? NO_INDEX : id.index();
+			}
+		}
+
+		@Override
+		public Id<ActivityFacility> getFacilityId() {
+			int facility = actFacility[this.index];
+			return facility == NO_INDEX ? null : Id.get(facility, ActivityFacility.class);
+		}
+
+		@Override
+		public void setFacilityId(Id<ActivityFacility> id) {
+			synchronized (CompactPlanStore.this) {
+				actFacility[this.index] = id == null ? NO_INDEX : id.index();
+			}
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			Attributes attributes = actAttributes[this.index];
+			if (attributes == null) {
+				synchronized (CompactPlanStore.this) {
+					attributes = actAttributes[this.index];
+					if (attributes == null) {
+						attributes = new Attributes();
+						actAttributes[this.index] = attributes;
+					}
+				}
+			}
+			return attributes;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof StoredActivity && ((StoredActivity) obj).index == this.index && ((StoredActivity) obj).store() == CompactPlanStore.this;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.index;
+		}
+
+		private CompactPlanStore store() {
+			return CompactPlanStore.this;
+		}
+
+		@Override
+		public String toString() {
+			return "act [type=" + this.getType() + "]" +
+					"[coord=" + this.getCoord() + "]" +
+					"[linkId=" + this.getLinkId() + "]" +
+					"[startTime=" + Time.writeTime(this.getStartTime()) + "]" +
+					"[endTime=" + Time.writeTime(this.getEndTime()) + "]" +
+					"[duration=" + Time.writeTime(this.getMaximumDuration()) + "]" +
+					"[facilityId=" + this.getFacilityId() + "]" ;
+		}
+	}
+
+	final class StoredLeg implements Leg {
+
+		private final int index;
+
+		private StoredLeg(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public String getMode() {
+			return string(legMode[this.index]);
+		}
+
+		@Override
+		public void setMode(String mode) {
+			int code = code(mode);
+			synchronized (CompactPlanStore.this) {
+				legMode[this.index] = code;
+			}
+		}
+
+		@Override
+		public Route getRoute() {
+			return legRoute[this.index];
+		}
+
+		@Override
+		public void setRoute(Route route) {
+			synchronized (CompactPlanStore.this) {
+				legRoute[this.index] = route;
+			}
+		}
+
+		@Override
+		public double getDepartureTime() {
+			return legDepartureTime[this.index];
+		}
+
+		@Override
+		public void setDepartureTime(double seconds) {
+			synchronized (CompactPlanStore.this) {
+				legDepartureTime[this.index] = seconds;
+			}
+		}
+
+		@Override
+		public double getTravelTime() {
+			return legTravelTime[this.index];
+		}
+
+		@Override
+		public void setTravelTime(double seconds) {
+			synchronized (CompactPlanStore.this) {
+				legTravelTime[this.index] = seconds;
+			}
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			Attributes attributes = legAttributes[this.index];
+			if (attributes == null) {
+				synchronized (CompactPlanStore.this) {
+					attributes = legAttributes[this.index];
+					if (attributes == null) {
+						attributes = new Attributes();
+						legAttributes[this.index] = attributes;
+					}
+				}
+			}
+			return attributes;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof StoredLeg && ((StoredLeg) obj).index == this.index && ((StoredLeg) obj).store() == CompactPlanStore.this;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.index;
+		}
+
+		private CompactPlanStore store() {
+			return CompactPlanStore.this;
+		}
+
+		@Override
+		public String toString() {
+			return "leg [mode=" + this.getMode() + "]" +
+					"[depTime=" + Time.writeTime(this.getDepartureTime()) + "]" +
+					"[travTime=" + Time.writeTime(this.getTravelTime()) + "]" +
+					"[arrTime=" + Time.writeTime(this.getDepartureTime() + this.getTravelTime()) + "]" +
+					"[route=" + this.getRoute() + "]";
+		}
+	}
+
+}
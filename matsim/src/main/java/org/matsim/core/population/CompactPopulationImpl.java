@@ -0,0 +1,68 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPopulationImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.groups.PlansConfigGroup;
+
+/**
+ * A population which moves the activities and legs of the plans of the persons added to it into primitive arrays
+ * (see {@link CompactPlanStore}), and replaces the plans by {@link CompactPlan}s.  This saves the object headers, the
+ * {@link org.matsim.api.core.v01.Coord}s and the empty attributes of all activities and legs, which make up most of
+ * the memory of large populations.
+ * <p></p>
+ * Only the plans which are there when the person is added are stored compactly.  Plans which are added later, e.g.
+ * the copies created in replanning, remain normal plans.
+ *
+ * @see PlansConfigGroup#getPlansStorage()
+ */
+/* deliberately package */ final class CompactPopulationImpl extends PopulationImpl {
+
+	private final CompactPlanStore store = new CompactPlanStore();
+
+	CompactPopulationImpl(PopulationFactory populationFactory) {
+		super(populationFactory);
+	}
+
+	@Override
+	public void addPerson(final Person p) {
+		if (p instanceof PersonImpl) {
+			List<Plan> plans = ((PersonImpl) p).getPlans();
+			Plan selectedPlan = p.getSelectedPlan();
+			for (int i = 0; i < plans.size(); i++) {
+				Plan plan = plans.get(i);
+				if (plan instanceof PlanImpl && CompactPlanStore.canStore(plan)) {
+					CompactPlan compactPlan = new CompactPlan(this.store, plan);
+					plans.set(i, compactPlan);
+					if (plan == selectedPlan) {
+						p.setSelectedPlan(compactPlan);
+					}
+				}
+			}
+		}
+		super.addPerson(p);
+	}
+
+}
@@ -0,0 +1,519 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelPopulationReaderMatsimV6.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.config.Config;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.households.Households;
+import org.matsim.lanes.Lanes;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributes;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.Vehicles;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Parallel implementation of the {@link PopulationReaderMatsimV6}. The work is split into a pipeline:
+ * <ul>
+ * <li>the input is read and decompressed in a separate thread (see {@link MatsimXmlParser#setReadingAhead(boolean)}),</li>
+ * <li>the main thread parses the xml and collects the tags of each person, in chunks of {@value #PERSONS_PER_CHUNK} persons,</li>
+ * <li>worker threads create the persons with their plans, attributes and routes from the collected tags, each worker
+ * 		using its own {@link PopulationReaderMatsimV6}, so the result is the same as with the non-parallel reader,</li>
+ * <li>the main thread adds the created persons to the population, in the order they appear in the file.</li>
+ * </ul>
+ * As the persons are added to the population by the main thread and in the order of the file, this reader also
+ * works with the {@link StreamingPopulationReader}. The attributes of the population itself are read by the main
+ * thread before any person, so a coordinate reference system defined in them is also used by the workers.
+ * <p>
+ * The Ids of the persons, and the Ids of the links, vehicles and facilities referenced by the activities and network
+ * routes, are created by the main thread in the order of the file, so the indices of the Ids are the same as with the
+ * non-parallel reader. Other route descriptions, e.g. of transit routes, usually refer to Ids created when reading
+ * the transit schedule.
+ * <p>
+ * The reader is used by the {@link PopulationReader} if
+ * {@link org.matsim.core.config.groups.PlansConfigGroup#getNumberOfThreadsForReading()} is larger than 1.
+ */
+/* deliberately package */ final class ParallelPopulationReaderMatsimV6 extends MatsimXmlParser implements MatsimReader {
+
+	private static final Logger log = Logger.getLogger(ParallelPopulationReaderMatsimV6.class);
+
+	private final static String POPULATION = "population";
+	private final static String PERSON = "person";
+	private final static String ACTIVITY = "activity";
+	private final static String LEG = "leg";
+	private final static String ROUTE = "route";
+	private final static String ATTR_PERSON_ID = "id";
+	private final static String ATTR_ACT_LINK = "link";
+	private final static String ATTR_ACT_FACILITY = "facility";
+	private final static String ATTR_LEG_MODE = "mode";
+	private final static String ATTR_ROUTE_STARTLINK = "start_link";
+	private final static String ATTR_ROUTE_ENDLINK = "end_link";
+	private final static String ATTR_ROUTE_TYPE = "type";
+	private final static String ATTR_ROUTE_VEHICLE = "vehicleRefId";
+
+	private static final int PERSONS_PER_CHUNK = 100;
+	private static final int MAX_PENDING_CHUNKS_PER_THREAD = 8;
+
+	private final String inputCRS;
+	private final String targetCRS;
+	private final Scenario scenario;
+	private final int numberOfThreads;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
+
+	/** reads everything but the persons */
+	private final PopulationReaderMatsimV6 delegate;
+
+	private BlockingQueue<PersonChunk> queue = null;
+	private Thread[] threads = null;
+	private final Deque<PersonChunk> pendingChunks = new ArrayDeque<>();
+	private PersonChunk currentChunk = new PersonChunk();
+	private List<Tag> currentPersonTags = null;
+	private String currentLegMode = null;
+	private boolean currentRouteIsNetworkRoute = false;
+
+	ParallelPopulationReaderMatsimV6(
+			final String inputCRS,
+			final String targetCRS,
+			final Scenario scenario,
+			final int numberOfThreads) {
+		this.inputCRS = inputCRS;
+		this.targetCRS = targetCRS;
+		this.scenario = scenario;
+		this.numberOfThreads = numberOfThreads;
+		this.delegate = new PopulationReaderMatsimV6(inputCRS, targetCRS, scenario);
+	}
+
+	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
+		this.attributeConverters.put( clazz , converter );
+		this.delegate.putAttributeConverter( clazz , converter );
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributeConverters.putAll( converters );
+		this.delegate.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (this.currentPersonTags != null) {
+			createIds(name, atts);
+			this.currentPersonTags.add(new StartTag(name, new AttributesImpl(atts)));
+		} else if (PERSON.equals(name)) {
+			if (this.threads == null) {
+				startThreads();
+			}
+			Id.create(atts.getValue(ATTR_PERSON_ID), Person.class);
+			this.currentPersonTags = new ArrayList<>();
+			this.currentPersonTags.add(new StartTag(name, new AttributesImpl(atts)));
+		} else {
+			this.delegate.startTag(name, atts, context);
+		}
+	}
+
+	@Override
+	public void endTag(final String name, final String content, final Stack<String> context) {
+		if (this.currentPersonTags != null) {
+			if (ROUTE.equals(name) && this.currentRouteIsNetworkRoute) {
+				NetworkUtils.getLinkIds(content);
+			}
+			this.currentPersonTags.add(new EndTag(name, content));
+			if (PERSON.equals(name)) {
+				this.currentChunk.persons.add(this.currentPersonTags);
+				this.currentPersonTags = null;
+				if (this.currentChunk.persons.size() == PERSONS_PER_CHUNK) {
+					submitCurrentChunk();
+				}
+			}
+		} else {
+			if (POPULATION.equals(name)) {
+				finishPersons();
+			}
+			this.delegate.endTag(name, content, context);
+		}
+	}
+
+	@Override
+	public void endDocument() {
+		finishPersons();
+	}
+
+	/**
+	 * Creates the Ids the {@link PopulationReaderMatsimV6} of the workers will create for this tag, in the same order.
+	 */
+	private void createIds(final String name, final Attributes atts) {
+		if (ACTIVITY.equals(name)) {
+			String linkId = atts.getValue(ATTR_ACT_LINK);
+			if (linkId != null) {
+				Id.create(linkId, Link.class);
+			}
+			String facilityId = atts.getValue(ATTR_ACT_FACILITY);
+			if (facilityId != null) {
+				Id.create(facilityId, ActivityFacility.class);
+			}
+		} else if (LEG.equals(name)) {
+			this.currentLegMode = atts.getValue(ATTR_LEG_MODE);
+		} else if (ROUTE.equals(name)) {
+			String startLinkId = atts.getValue(ATTR_ROUTE_STARTLINK);
+			if (startLinkId != null) {
+				Id.create(startLinkId, Link.class);
+			}
+			String endLinkId = atts.getValue(ATTR_ROUTE_ENDLINK);
+			if (endLinkId != null) {
+				Id.create(endLinkId, Link.class);
+			}
+			String routeType = atts.getValue(ATTR_ROUTE_TYPE);
+			if (routeType == null) {
+				// same defaults as in PopulationReaderMatsimV6
+				if ("pt".equals(this.currentLegMode)) {
+					routeType = "experimentalPt1";
+				} else if ("car".equals(this.currentLegMode)) {
+					routeType = "links";
+				} else {
+					routeType = "generic";
+				}
+			}
+			Class<? extends Route> routeClass = this.scenario.getPopulation().getFactory().getRouteFactories().getRouteClassForType(routeType);
+			this.currentRouteIsNetworkRoute = NetworkRoute.class.isAssignableFrom(routeClass);
+			String vehicleId = atts.getValue(ATTR_ROUTE_VEHICLE);
+			if (vehicleId != null && !vehicleId.equals("null") && this.currentRouteIsNetworkRoute) {
+				Id.create(vehicleId, Vehicle.class);
+			}
+		}
+	}
+
+	private void startThreads() {
+		this.queue = new LinkedBlockingQueue<>();
+		this.threads = new Thread[this.numberOfThreads];
+		for (int i = 0; i < this.numberOfThreads; i++) {
+			// the coordinate transformation is taken from the delegate, it might be defined in the population's attributes
+			WorkerPopulation population = new WorkerPopulation(this.scenario.getPopulation());
+			PopulationReaderMatsimV6 reader = new PopulationReaderMatsimV6(null, null, new WorkerScenario(this.scenario, population));
+			reader.putAttributeConverters(this.attributeConverters);
+			reader.setCoordinateTransformation(this.delegate.getCoordinateTransformation());
+			Thread thread = new Thread(new PersonWorker(reader, population, this.queue), "ParallelPopulationReaderMatsimV6-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			this.threads[i] = thread;
+		}
+		log.info("started " + this.numberOfThreads + " threads to read persons.");
+	}
+
+	private void submitCurrentChunk() {
+		this.queue.add(this.currentChunk);
+		this.pendingChunks.addLast(this.currentChunk);
+		this.currentChunk = new PersonChunk();
+		// hand over finished persons, wait if the workers are too far behind
+		boolean tooManyPending = this.pendingChunks.size() > this.numberOfThreads * MAX_PENDING_CHUNKS_PER_THREAD;
+		while (!this.pendingChunks.isEmpty() && (tooManyPending || this.pendingChunks.peekFirst().done.getCount() == 0)) {
+			addPersons(this.pendingChunks.removeFirst());
+			tooManyPending = false;
+		}
+	}
+
+	private void finishPersons() {
+		if (this.threads == null) {
+			return;
+		}
+		if (this.currentPersonTags != null) {
+			throw new RuntimeException("The end of the population was reached within a person.");
+		}
+		if (!this.currentChunk.persons.isEmpty()) {
+			this.queue.add(this.currentChunk);
+			this.pendingChunks.addLast(this.currentChunk);
+			this.currentChunk = new PersonChunk();
+		}
+		while (!this.pendingChunks.isEmpty()) {
+			addPersons(this.pendingChunks.removeFirst());
+		}
+		stopThreads();
+	}
+
+	/**
+	 * Stops the worker threads, if they are running. Called at the end of the persons, and by the
+	 * {@link PopulationReader} after the parsing, in case the parsing was aborted by an exception.
+	 */
+	void stopThreads() {
+		if (this.threads == null) {
+			return;
+		}
+		this.queue.clear();
+		for (int i = 0; i < this.threads.length; i++) {
+			this.queue.add(PersonChunk.END);
+		}
+		for (Thread thread : this.threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		this.threads = null;
+	}
+
+	private void addPersons(final PersonChunk chunk) {
+		try {
+			chunk.done.await();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		if (chunk.exception != null) {
+			this.pendingChunks.clear();
+			stopThreads();
+			throw new RuntimeException("Exception while reading persons.", chunk.exception);
+		}
+		Population population = this.scenario.getPopulation();
+		for (Person person : chunk.result) {
+			population.addPerson(person);
+		}
+	}
+
+	private static final class PersonWorker implements Runnable {
+
+		private final PopulationReaderMatsimV6 reader;
+		private final WorkerPopulation population;
+		private final BlockingQueue<PersonChunk> queue;
+		private final Stack<String> context = new Stack<>();
+
+		PersonWorker(final PopulationReaderMatsimV6 reader, final WorkerPopulation population, final BlockingQueue<PersonChunk> queue) {
+			this.reader = reader;
+			this.population = population;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				PersonChunk chunk;
+				try {
+					chunk = this.queue.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (chunk == PersonChunk.END) {
+					return;
+				}
+				this.population.persons = chunk.result;
+				try {
+					for (List<Tag> tags : chunk.persons) {
+						this.context.clear();
+						this.context.push(POPULATION);
+						for (Tag tag : tags) {
+							if (tag instanceof StartTag) {
+								this.reader.startTag(tag.name, ((StartTag) tag).atts, this.context);
+								this.context.push(tag.name);
+							} else {
+								this.context.pop();
+								this.reader.endTag(tag.name, ((EndTag) tag).content, this.context);
+							}
+						}
+					}
+				} catch (Throwable t) {
+					chunk.exception = t;
+				} finally {
+					this.population.persons = null;
+					chunk.done.countDown();
+				}
+			}
+		}
+	}
+
+	private static final class PersonChunk {
+		static final PersonChunk END = new PersonChunk();
+
+		final List<List<Tag>> persons = new ArrayList<>(PERSONS_PER_CHUNK);
+		final List<Person> result = new ArrayList<>(PERSONS_PER_CHUNK);
+		final CountDownLatch done = new CountDownLatch(1);
+		Throwable exception = null;
+	}
+
+	private abstract static class Tag {
+		final String name;
+
+		Tag(final String name) {
+			this.name = name;
+		}
+	}
+
+	private static final class StartTag extends Tag {
+		final Attributes atts;
+
+		StartTag(final String name, final Attributes atts) {
+			super(name);
+			this.atts = atts;
+		}
+	}
+
+	private static final class EndTag extends Tag {
+		final String content;
+
+		EndTag(final String name, final String content) {
+			super(name);
+			this.content = content;
+		}
+	}
+
+	/**
+	 * Scenario for the readers of the worker threads, collects the read persons instead of adding them to the population.
+	 */
+	private static final class WorkerScenario implements Scenario {
+
+		private final Scenario delegate;
+		private final WorkerPopulation population;
+
+		WorkerScenario(final Scenario scenario, final WorkerPopulation population) {
+			this.delegate = scenario;
+			this.population = population;
+		}
+
+		@Override
+		public Network getNetwork() {
+			return this.delegate.getNetwork();
+		}
+
+		@Override
+		public Population getPopulation() {
+			return this.population;
+		}
+
+		@Override
+		public ActivityFacilities getActivityFacilities() {
+			return this.delegate.getActivityFacilities();
+		}
+
+		@Override
+		public TransitSchedule getTransitSchedule() {
+			return this.delegate.getTransitSchedule();
+		}
+
+		@Override
+		public Config getConfig() {
+			return this.delegate.getConfig();
+		}
+
+		@Override
+		public void addScenarioElement(String name, Object o) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Object getScenarioElement(String name) {
+			return this.delegate.getScenarioElement(name);
+		}
+
+		@Override
+		public Vehicles getTransitVehicles() {
+			return this.delegate.getTransitVehicles();
+		}
+
+		@Override
+		public Households getHouseholds() {
+			return this.delegate.getHouseholds();
+		}
+
+		@Override
+		public Lanes getLanes() {
+			return this.delegate.getLanes();
+		}
+
+		@Override
+		public Vehicles getVehicles() {
+			return this.delegate.getVehicles();
+		}
+	}
+
+	private static final class WorkerPopulation implements Population {
+
+		private final Population population;
+		private List<Person> persons = null;
+
+		WorkerPopulation(final Population population) {
+			this.population = population;
+		}
+
+		@Override
+		public PopulationFactory getFactory() {
+			return this.population.getFactory();
+		}
+
+		@Override
+		public ObjectAttributes getPersonAttributes() {
+			return this.population.getPersonAttributes();
+		}
+
+		@Override
+		public org.matsim.utils.objectattributes.attributable.Attributes getAttributes() {
+			return this.population.getAttributes();
+		}
+
+		@Override
+		public String getName() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public void setName(String name) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Map<Id<Person>, ? extends Person> getPersons() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public void addPerson(Person p) {
+			this.persons.add(p);
+		}
+
+		@Override
+		public Person removePerson(Id<Person> personId) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+	}
+
+}
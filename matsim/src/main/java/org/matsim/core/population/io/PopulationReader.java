@@ -81,6 +81,8 @@ public final class PopulationReader extends MatsimXmlParser {
 		this.inputCRS = inputCRS;
 		this.targetCRS = targetCRS;
 		this.scenario = scenario;
+		// decompress in a separate thread; the v6 reader also parses the persons in parallel
+		setReadingAhead(scenario.getConfig().plans().getNumberOfThreadsForReading() > 1);
 	}
 
 	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
@@ -114,13 +116,25 @@ public final class PopulationReader extends MatsimXmlParser {
 
 		switch ( doctype ) {
 			case POPULATION_V6:
-				this.delegate =
-						new PopulationReaderMatsimV6(
-						        inputCRS,
-						        targetCRS,
-								this.scenario);
-				((PopulationReaderMatsimV6) delegate).putAttributeConverters( attributeConverters );
-				log.info("using population_v6-reader.");
+				int numberOfThreads = this.scenario.getConfig().plans().getNumberOfThreadsForReading();
+				if (numberOfThreads > 1) {
+					this.delegate =
+							new ParallelPopulationReaderMatsimV6(
+									inputCRS,
+									targetCRS,
+									this.scenario,
+									numberOfThreads);
+					((ParallelPopulationReaderMatsimV6) delegate).putAttributeConverters( attributeConverters );
+					log.info("using parallel population_v6-reader with " + numberOfThreads + " threads.");
+				} else {
+					this.delegate =
+							new PopulationReaderMatsimV6(
+									inputCRS,
+									targetCRS,
+									this.scenario);
+					((PopulationReaderMatsimV6) delegate).putAttributeConverters( attributeConverters );
+					log.info("using population_v6-reader.");
+				}
 				break;
 			case POPULATION_V5:
 				this.delegate =
@@ -168,4 +182,12 @@ public final class PopulationReader extends MatsimXmlParser {
 			ProjectionUtils.putCRS(scenario.getPopulation(), targetCRS);
 		}
 	}
+
+	@Override
+	protected void parsingFinished() {
+		if (this.delegate instanceof ParallelPopulationReaderMatsimV6) {
+			// stops the threads if the parsing was aborted
+			((ParallelPopulationReaderMatsimV6) this.delegate).stopThreads();
+		}
+	}
 }
@@ -137,6 +137,14 @@ import java.util.Stack;
 		attributesReader.putAttributeConverters( converters );
 	}
 
+	/* deliberately package */ CoordinateTransformation getCoordinateTransformation() {
+		return this.coordinateTransformation;
+	}
+
+	/* deliberately package */ void setCoordinateTransformation(final CoordinateTransformation coordinateTransformation) {
+		this.coordinateTransformation = coordinateTransformation;
+	}
+
 	@Override
 	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
 		switch( name ) {
@@ -20,10 +20,22 @@
 
 package org.matsim.core.population.io;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Network;
@@ -35,12 +47,15 @@ import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.AbstractMatsimWriter;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.core.utils.misc.Counter;
 import org.matsim.utils.objectattributes.AttributeConverter;
 
 public final class PopulationWriter extends AbstractMatsimWriter implements MatsimWriter {
 
+	private static final int PERSONS_PER_CHUNK = 100;
+
 	private final double write_person_fraction;
 
 	private final CoordinateTransformation coordinateTransformation;
@@ -51,6 +66,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private final static Logger log = Logger.getLogger(PopulationWriter.class);
 	private Map<Class<?>,AttributeConverter<?>> converters = new HashMap<>();
+	private int numberOfThreads = 1;
 
 
 	public PopulationWriter(final Population population) {
@@ -128,6 +144,17 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		this.converters.put( key, converter );
 	}
 
+	/**
+	 * Sets the number of threads used to write the persons. With more than one thread, the persons are
+	 * converted to xml in chunks by several threads, and gzip-compressed files are compressed in blocks by
+	 * several threads (see {@link org.matsim.core.utils.io.ParallelGzipOutputStream}). The written file is
+	 * the same, except for the structure of the gzip-compressed data. This is only supported for the
+	 * population_v5 and population_v6 formats, other formats are always written by a single thread.
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Writes all plans to the file.
 	 */
@@ -135,7 +162,17 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	public final void write(final String filename) {
 		try {
 			this.handler.putAttributeConverters(converters);
-			this.openFile(filename);
+			if (this.numberOfThreads > 1 && createHandler() != null) {
+				String file = filename;
+				if (this.useCompression != null && this.useCompression && !file.endsWith(".gz")) {
+					file = file + ".gz";
+				} else if (this.useCompression != null && !this.useCompression && file.endsWith(".gz")) {
+					file = file.substring(0, file.length() - 3);
+				}
+				this.writer = new BufferedWriter(new OutputStreamWriter(IOUtils.getParallelOutputStream(file, this.numberOfThreads), StandardCharsets.UTF_8));
+			} else {
+				this.openFile(filename);
+			}
 			this.handler.writeHeaderAndStartElement(this.writer);
 			this.handler.startPlans(this.population, this.writer);
 			this.handler.writeSeparator(this.writer);
@@ -175,11 +212,99 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 
 	private  final void writePersons() {
+		if (this.numberOfThreads > 1 && createHandler() != null) {
+			writePersonsInParallel();
+			return;
+		}
 		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
 			writePerson(p);
 		}
 	}
 
+	/**
+	 * Converts chunks of persons to xml in several threads, each with its own handler. The chunks are
+	 * written in the order of the persons, so the result is the same as when writing the persons one by one.
+	 */
+	private void writePersonsInParallel() {
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads, r -> {
+			Thread thread = new Thread(r, "PopulationWriter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ThreadLocal<PopulationWriterHandler> handlers = ThreadLocal.withInitial(this::createHandler);
+		Deque<Future<String>> pendingChunks = new ArrayDeque<>();
+		try {
+			List<Person> chunk = new ArrayList<>(PERSONS_PER_CHUNK);
+			for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
+				if ((this.write_person_fraction < 1.0) && (MatsimRandom.getRandom().nextDouble() >= this.write_person_fraction)) {
+					continue;
+				}
+				chunk.add(p);
+				counter.incCounter();
+				if (chunk.size() == PERSONS_PER_CHUNK) {
+					pendingChunks.addLast(submitChunk(executor, handlers, chunk));
+					chunk = new ArrayList<>(PERSONS_PER_CHUNK);
+					// write finished chunks, and wait for the first one if the threads are too far behind
+					boolean waitForFirst = pendingChunks.size() > 4 * this.numberOfThreads;
+					while (!pendingChunks.isEmpty() && (waitForFirst || pendingChunks.peekFirst().isDone())) {
+						writeChunk(pendingChunks.removeFirst());
+						waitForFirst = false;
+					}
+				}
+			}
+			if (!chunk.isEmpty()) {
+				pendingChunks.addLast(submitChunk(executor, handlers, chunk));
+			}
+			while (!pendingChunks.isEmpty()) {
+				writeChunk(pendingChunks.removeFirst());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Future<String> submitChunk(final ExecutorService executor, final ThreadLocal<PopulationWriterHandler> handlers, final List<Person> persons) {
+		return executor.submit(() -> {
+			StringWriter chunk = new StringWriter(PERSONS_PER_CHUNK * 2048);
+			try (BufferedWriter out = new BufferedWriter(chunk)) {
+				PopulationWriterHandler handler = handlers.get();
+				for (Person person : persons) {
+					handler.writePerson(person, out);
+				}
+			}
+			return chunk.toString();
+		});
+	}
+
+	private void writeChunk(final Future<String> chunk) {
+		try {
+			this.writer.write(chunk.get());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Exception while writing persons.", e.getCause());
+		}
+	}
+
+	/**
+	 * @return a new handler for the same format as the current one, or <code>null</code> if the
+	 * 		format cannot be written by several threads
+	 */
+	private PopulationWriterHandler createHandler() {
+		PopulationWriterHandler copy;
+		if (this.handler.getClass() == PopulationWriterHandlerImplV6.class) {
+			copy = new PopulationWriterHandlerImplV6(this.coordinateTransformation);
+		} else if (this.handler.getClass() == PopulationWriterHandlerImplV5.class) {
+			copy = new PopulationWriterHandlerImplV5(this.coordinateTransformation);
+		} else {
+			return null;
+		}
+		copy.putAttributeConverters(this.converters);
+		return copy;
+	}
+
 	private final void writePerson(final Person person) {
 		try {
 			if ((this.write_person_fraction < 1.0) && (MatsimRandom.getRandom().nextDouble() >= this.write_person_fraction)) {
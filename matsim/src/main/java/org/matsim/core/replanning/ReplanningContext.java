@@ -19,6 +19,8 @@
 
 package org.matsim.core.replanning;
 
+import org.matsim.analysis.IterationStopWatch;
+
 /**
  * A partial, inside view of the Controler which is available during replanning.
  * @author michaz
@@ -31,4 +33,12 @@ public interface ReplanningContext {
 	 */
 	int getIteration();
 
+	/**
+	 * The stop watch of the current iteration, e.g. to measure the time spent in a strategy module,
+	 * or <code>null</code> if none is available.
+	 */
+	default IterationStopWatch getStopWatch() {
+		return null;
+	}
+
 }
@@ -22,6 +22,7 @@
 
 package org.matsim.core.replanning;
 
+import org.matsim.analysis.IterationStopWatch;
 import org.matsim.core.controler.ControlerListenerManager;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
@@ -34,6 +35,9 @@ class ReplanningContextImpl implements ReplanningContext, IterationStartsListene
 
     private int iteration;
 
+    @com.google.inject.Inject(optional = true)
+    private IterationStopWatch stopWatch = null;
+
     @Inject
     ReplanningContextImpl(ControlerListenerManager controlerListenerManager) {
         controlerListenerManager.addControlerListener(this);
@@ -44,6 +48,11 @@ class ReplanningContextImpl implements ReplanningContext, IterationStartsListene
         return iteration;
     }
 
+    @Override
+    public IterationStopWatch getStopWatch() {
+        return stopWatch;
+    }
+
     @Override
     public void notifyIterationStarts(IterationStartsEvent event) {
         this.iteration = event.getIteration();
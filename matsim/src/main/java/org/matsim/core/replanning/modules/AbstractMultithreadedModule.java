@@ -21,16 +21,25 @@
 package org.matsim.core.replanning.modules;
 
 import org.apache.log4j.Logger;
+import org.matsim.analysis.IterationStopWatch;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningExecution;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -50,6 +59,19 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * With {@link ReplanningExecution#workStealing}, the plans are collected in a list instead, and
+ * <code>finishReplanning()</code> lets the threads of a pool take chunks of plans from this list until all
+ * plans are handled.  Threads that got cheap plans thus simply
+ * handle more of them, at the cost of a non-reproducible assignment of plans to threads.  If
+ * {@link #isReusingPlanAlgoInstances()} returns <code>true</code>, the plan algorithms of the threads are
+ * also kept over the iterations.
+ * <p></p>
+ * If the replanning context provides an {@link IterationStopWatch}, the time needed to handle the plans in
+ * <code>finishReplanning()</code> is recorded as operation "replanning: " followed by the name of the plan algorithm.
+ * If several modules with the same plan algorithm (e.g. in strategies for different subpopulations) replan in the
+ * same iteration, the later ones are numbered in the order they finish, e.g. "replanning: PlanRouter (2)", so
+ * they are measured separately.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -58,7 +80,14 @@ import java.util.concurrent.atomic.AtomicReference;
  * @author mrieser
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
+	/**
+	 * The plans are split into about this many chunks per thread, so that threads finishing early can still help the others.
+	 */
+	private static final int CHUNKS_PER_THREAD = 16;
+	private static final int MAX_CHUNK_SIZE = 256;
+
 	private final int numOfThreads;
+	private final ReplanningExecution replanningExecution;
 
 	private PlanAlgoThread[] algothreads = null;
 	private Thread[] threads = null;
@@ -67,6 +96,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	private int count = 0;
 
+	// work stealing:
+	private ThreadPoolExecutor executor = null;
+	private PlanAlgorithm[] planAlgoInstances = null;
+	private final List<Plan> plans = new ArrayList<>();
+
 	private final AtomicReference<Throwable> hadException = new AtomicReference<>(null);
 	private final ExceptionHandler exceptionHandler = new ExceptionHandler(this.hadException);
 
@@ -83,11 +117,26 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	abstract public PlanAlgorithm getPlanAlgoInstance();
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
-		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this(globalConfigGroup.getNumberOfThreads(), globalConfigGroup.getReplanningExecution());
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
+		this(numOfThreads, ReplanningExecution.roundRobin);
+	}
+
+	public AbstractMultithreadedModule(final int numOfThreads, final ReplanningExecution replanningExecution) {
 		this.numOfThreads = numOfThreads;
+		this.replanningExecution = replanningExecution;
+	}
+
+	/**
+	 * Only used with {@link ReplanningExecution#workStealing}: if <code>true</code>, the instances returned by
+	 * {@link #getPlanAlgoInstance()} are created once and then used in all iterations, instead of being created
+	 * anew in every iteration.  Only override this if the plan algorithms do not depend on the state of the
+	 * iteration they were created in, e.g. on {@link #getReplanningContext()}.
+	 */
+	protected boolean isReusingPlanAlgoInstances() {
+		return false;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -105,6 +154,8 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		if (this.numOfThreads == 0) {
 			// it seems, no threads are desired :(
 			this.directAlgo = getPlanAlgoInstance();
+		} else if (this.replanningExecution == ReplanningExecution.workStealing) {
+			initWorkStealing();
 		} else {
 			initThreads();
 		}
@@ -117,11 +168,13 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	@Override
 	public final void handlePlan(final Plan plan) {
-		if (this.directAlgo == null) {
+		if (this.directAlgo != null) {
+			this.directAlgo.run(plan);
+		} else if (this.algothreads != null) {
 			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
 			this.count++;
 		} else {
-			this.directAlgo.run(plan);
+			this.plans.add(plan);
 		}
 	}
 
@@ -138,22 +191,19 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		
 		if (this.directAlgo == null) {
 			// only try to start threads if we did not directly work on all the plans
-			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
-
-			// start threads
-			for (Thread thread : this.threads) {
-				thread.start();
+			IterationStopWatch stopWatch = this.replanningContext == null ? null : this.replanningContext.getStopWatch();
+			String operation = getStopWatchOperation(stopWatch, this.name);
+			if (stopWatch != null) {
+				stopWatch.beginOperation(operation);
 			}
-
-			// wait until each thread is finished
-			try {
-				for (Thread thread : this.threads) {
-					thread.join();
-				}
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+			if (this.threads != null) {
+				runThreads();
+			} else {
+				runWorkStealing();
+			}
+			if (stopWatch != null) {
+				stopWatch.endOperation(operation);
 			}
-			log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
 			Throwable throwable = this.hadException.get();
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
@@ -162,6 +212,10 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		// reset
 		this.algothreads = null;
 		this.threads = null;
+		this.plans.clear();
+		if (!isReusingPlanAlgoInstances()) {
+			this.planAlgoInstances = null;
+		}
 		this.replanningContext = null;
 		this.count = 0;
 		
@@ -193,6 +247,92 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 	}
 
+	/*package*/ static String getStopWatchOperation(IterationStopWatch stopWatch, String name) {
+		String operation = "replanning: " + name;
+		for (int i = 2; stopWatch != null && stopWatch.isOperationBegun(operation); i++) {
+			operation = "replanning: " + name + " (" + i + ")";
+		}
+		return operation;
+	}
+
+	private void runThreads() {
+		log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
+
+		// start threads
+		for (Thread thread : this.threads) {
+			thread.start();
+		}
+
+		// wait until each thread is finished
+		try {
+			for (Thread thread : this.threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+	}
+
+	private void initWorkStealing() {
+		this.hadException.set(null);
+		if (this.planAlgoInstances == null) {
+			this.planAlgoInstances = new PlanAlgorithm[this.numOfThreads];
+			for (int i = 0; i < this.numOfThreads; i++) {
+				this.planAlgoInstances[i] = getPlanAlgoInstance();
+			}
+			this.name = this.planAlgoInstances[0].getClass().getSimpleName();
+		}
+		// the pool is shut down at the end of finishReplanning(), so that modules which are not used anymore do not keep threads
+		final String threadNamePrefix = this.name + ".";
+		final AtomicInteger threadCount = new AtomicInteger(0);
+		this.executor = new ThreadPoolExecutor(this.numOfThreads, this.numOfThreads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, threadNamePrefix + threadCount.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	private void runWorkStealing() {
+		final List<Plan> plans = this.plans;
+		final int chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, plans.size() / (this.numOfThreads * CHUNKS_PER_THREAD)));
+		final AtomicInteger nextIndex = new AtomicInteger(0);
+		final Counter counter = new Counter("[" + this.name + "] handled plan # ");
+		log.info("[" + this.name + "] " + this.numOfThreads + " threads handling " + plans.size() + " plans in chunks of " + chunkSize + " plans");
+
+		List<Future<?>> futures = new ArrayList<>(this.numOfThreads);
+		for (PlanAlgorithm planAlgo : this.planAlgoInstances) {
+			futures.add(this.executor.submit(() -> {
+				try {
+					int start;
+					while ((start = nextIndex.getAndAdd(chunkSize)) < plans.size()) {
+						int end = Math.min(start + chunkSize, plans.size());
+						for (int i = start; i < end; i++) {
+							planAlgo.run(plans.get(i));
+							counter.incCounter();
+						}
+					}
+				} catch (Throwable e) {
+					this.exceptionHandler.uncaughtException(Thread.currentThread(), e);
+				}
+			}));
+		}
+
+		// wait until each task is finished
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+		log.info("[" + this.name + "] all " + this.numOfThreads + " threads finished.");
+	}
+
 	/* package (for a test) */ final int getNumOfThreads() {
 		return numOfThreads;
 	}
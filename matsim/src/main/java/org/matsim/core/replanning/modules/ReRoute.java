@@ -59,4 +59,10 @@ public class ReRoute extends AbstractMultithreadedModule {
 					facilities);
 	}
 
+	@Override
+	protected boolean isReusingPlanAlgoInstances() {
+		// the trip routers work on the travel times and disutilities of the controler, which are updated in place
+		return true;
+	}
+
 }
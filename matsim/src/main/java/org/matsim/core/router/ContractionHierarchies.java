@@ -0,0 +1,228 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchies.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.ContractionHierarchiesCustomization.Weights;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Least cost path calculator based on a customizable contraction hierarchy.
+ * <p>
+ * The hierarchy ({@link ContractionHierarchiesGraph}) only depends on the network and is created
+ * once.  The costs of its arcs ({@link ContractionHierarchiesCustomization}) are computed per time bin,
+ * using the travel disutility of the links at the start of the time bin.  A query searches upwards
+ * from both the start and the end node, which only touches the ancestors of the two nodes in the
+ * elimination tree of the hierarchy, and thus a tiny part of the network.
+ * <p>
+ * The route is optimal with respect to the link costs of the time bin of the departure.  Unlike
+ * {@link Dijkstra}, the costs are not evaluated at the time the links are entered, so routes of long trips
+ * in congested networks may differ.  The travel time and cost of the returned path are evaluated
+ * along the path in the same way as by {@link Dijkstra}.  The link costs used for the
+ * hierarchy are requested without a person and vehicle, so person-dependent travel disutilities are
+ * not supported.
+ * <p>
+ * This class is not thread-safe.  Use {@link ContractionHierarchiesFactory} to create instances
+ * which share the hierarchy and its costs.
+ *
+ * @see ContractionHierarchiesFactory
+ */
+public final class ContractionHierarchies implements LeastCostPathCalculator {
+
+	private static final Logger log = Logger.getLogger(ContractionHierarchies.class);
+
+	private final ContractionHierarchiesGraph graph;
+	private final ContractionHierarchiesCustomization customization;
+	private final TravelDisutility travelCosts;
+	private final TravelTime travelTimes;
+
+	private final double[] forwardCost;
+	private final double[] backwardCost;
+	private final int[] forwardArc;
+	private final int[] backwardArc;
+	private int[] stack = new int[64];
+
+	/*package*/ ContractionHierarchies(final ContractionHierarchiesCustomization customization, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		this.graph = customization.getGraph();
+		this.customization = customization;
+		this.travelCosts = travelCosts;
+		this.travelTimes = travelTimes;
+		int nodeCount = this.graph.nodes.length;
+		this.forwardCost = new double[nodeCount];
+		this.backwardCost = new double[nodeCount];
+		Arrays.fill(this.forwardCost, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.backwardCost, Double.POSITIVE_INFINITY);
+		this.forwardArc = new int[nodeCount];
+		this.backwardArc = new int[nodeCount];
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+		int source = this.graph.getRank(fromNode);
+		int target = this.graph.getRank(toNode);
+		if (source == target) {
+			List<Node> nodes = new ArrayList<>(1);
+			nodes.add(fromNode);
+			return new Path(nodes, new ArrayList<>(0), 0.0, 0.0);
+		}
+		Weights weights = this.customization.getWeights(starttime);
+
+		search(source, weights.up, this.forwardCost, this.forwardArc);
+		search(target, weights.down, this.backwardCost, this.backwardArc);
+
+		double bestCost = Double.POSITIVE_INFINITY;
+		int meetingNode = -1;
+		for (int v = source; v >= 0; v = this.graph.parent[v]) {
+			double cost = this.forwardCost[v] + this.backwardCost[v];
+			if (cost < bestCost) {
+				bestCost = cost;
+				meetingNode = v;
+			}
+		}
+
+		List<Link> links = null;
+		if (meetingNode >= 0) {
+			links = unpack(source, target, meetingNode, weights);
+		}
+		reset(source, this.forwardCost);
+		reset(target, this.backwardCost);
+
+		if (links == null) {
+			log.warn("No route was found from node " + fromNode.getId() + " to node " + toNode.getId() + ". Some possible reasons:");
+			log.warn("  * Network is not connected.  Run NetworkCleaner().") ;
+			log.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
+			log.warn("This will now return null, but it may fail later with a null pointer exception.");
+			return null;
+		}
+
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(fromNode);
+		double time = starttime;
+		double cost = 0.0;
+		for (Link link : links) {
+			nodes.add(link.getToNode());
+			cost += this.travelCosts.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.travelTimes.getLinkTravelTime(link, time, person, vehicle);
+		}
+		return new Path(nodes, links, time - starttime, cost);
+	}
+
+	/**
+	 * Relaxes the arcs of all ancestors of <code>start</code> in the elimination tree, in order of their rank.
+	 */
+	private void search(final int start, final double[] arcCost, final double[] cost, final int[] arcs) {
+		int[] parent = this.graph.parent;
+		int[] firstArc = this.graph.firstArc;
+		int[] arcHead = this.graph.arcHead;
+		cost[start] = 0.0;
+		for (int v = start; v >= 0; v = parent[v]) {
+			double costV = cost[v];
+			if (costV == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			for (int arc = firstArc[v], last = firstArc[v + 1]; arc < last; arc++) {
+				int w = arcHead[arc];
+				double costW = costV + arcCost[arc];
+				if (costW < cost[w]) {
+					cost[w] = costW;
+					arcs[w] = arc;
+				}
+			}
+		}
+	}
+
+	private void reset(final int start, final double[] cost) {
+		for (int v = start; v >= 0; v = this.graph.parent[v]) {
+			cost[v] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	private List<Link> unpack(final int source, final int target, final int meetingNode, final Weights weights) {
+		int[] arcTail = this.graph.arcTail;
+		List<Link> links = new ArrayList<>();
+
+		// from the source up to the meeting node, collected backwards
+		int size = 0;
+		for (int v = meetingNode; v != source; v = arcTail[this.forwardArc[v]]) {
+			size = push(size, this.forwardArc[v]);
+		}
+		int[] upArcs = Arrays.copyOf(this.stack, size);
+		for (int i = size - 1; i >= 0; i--) {
+			unpackArc(upArcs[i], true, weights, links);
+		}
+
+		// from the meeting node down to the target
+		for (int v = meetingNode; v != target; v = arcTail[this.backwardArc[v]]) {
+			unpackArc(this.backwardArc[v], false, weights, links);
+		}
+		return links;
+	}
+
+	/**
+	 * Adds the links represented by the arc to the list, in driving direction.  Shortcuts are replaced by their two
+	 * arcs using an explicit stack, where each entry is an arc, with the complement of the arc for the downward direction.
+	 */
+	private void unpackArc(final int arc, final boolean upward, final Weights weights, final List<Link> links) {
+		int size = push(0, upward ? arc : ~arc);
+		while (size > 0) {
+			int entry = this.stack[--size];
+			boolean up = entry >= 0;
+			int a = up ? entry : ~entry;
+			int via = up ? weights.upVia[a] : weights.downVia[a];
+			if (via < 0) {
+				links.add(this.graph.links[-(via + 1)]);
+				continue;
+			}
+			int lower = this.graph.arcTail[a];
+			int upper = this.graph.arcHead[a];
+			int toLower = this.graph.getArc(via, lower);
+			int toUpper = this.graph.getArc(via, upper);
+			if (up) {
+				// lower -> via -> upper; push the second part first
+				size = push(size, toUpper);
+				size = push(size, ~toLower);
+			} else {
+				// upper -> via -> lower
+				size = push(size, toLower);
+				size = push(size, ~toUpper);
+			}
+		}
+	}
+
+	private int push(final int size, final int entry) {
+		if (size == this.stack.length) {
+			this.stack = Arrays.copyOf(this.stack, size * 2);
+		}
+		this.stack[size] = entry;
+		return size + 1;
+	}
+
+}
@@ -0,0 +1,250 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesCustomization.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.trafficmonitoring.TimeBinUtils;
+
+/**
+ * The metric-dependent part of the {@link ContractionHierarchies}: the costs of the arcs of a
+ * {@link ContractionHierarchiesGraph}, for each time bin.
+ * <p>
+ * The costs of a time bin are computed when they are needed for the first time, from the travel
+ * disutilities of the links at the start of the time bin.  Costs which are computed once are used
+ * until {@link #invalidate()} is called, e.g. because the travel times changed, or until they are
+ * dropped by the {@link MemoryLimit} shared with other customizations.
+ * <p>
+ * This class is thread-safe.
+ */
+/*package*/ final class ContractionHierarchiesCustomization {
+
+	/** Marks an arc which does not represent any path. */
+	/*package*/ static final int NO_VIA = Integer.MIN_VALUE;
+
+	private final ContractionHierarchiesGraph graph;
+	private final TravelDisutility travelDisutility;
+	private final int timeBinSize;
+	private final int timeBinCount;
+	private final MemoryLimit memoryLimit;
+	private final AtomicReferenceArray<Weights> weights;
+	/** the time of the last use of each time bin, in nanoseconds, to find the least recently used one */
+	private final AtomicLongArray lastUse;
+	private final Object[] locks;
+
+	/*package*/ ContractionHierarchiesCustomization(final ContractionHierarchiesGraph graph, final TravelDisutility travelDisutility,
+			final int timeBinSize, final int timeBinCount, final MemoryLimit memoryLimit) {
+		this.graph = graph;
+		this.travelDisutility = travelDisutility;
+		this.timeBinSize = timeBinSize;
+		this.timeBinCount = timeBinCount;
+		this.memoryLimit = memoryLimit;
+		this.weights = new AtomicReferenceArray<>(timeBinCount);
+		this.lastUse = new AtomicLongArray(timeBinCount);
+		this.locks = new Object[timeBinCount];
+		for (int i = 0; i < timeBinCount; i++) {
+			this.locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * @return the costs of the arcs in the time bin of <code>time</code>, computed if not yet available
+	 */
+	/*package*/ Weights getWeights(final double time) {
+		int bin = Math.max(0, TimeBinUtils.getTimeBinIndex(time, this.timeBinSize, this.timeBinCount));
+		this.lastUse.lazySet(bin, System.nanoTime());
+		Weights binWeights = this.weights.get(bin);
+		if (binWeights == null) {
+			synchronized (this.locks[bin]) {
+				binWeights = this.weights.get(bin);
+				if (binWeights == null) {
+					binWeights = customize((double) bin * this.timeBinSize, this.travelDisutility);
+					this.weights.set(bin, binWeights);
+					this.memoryLimit.add(this, bin);
+				}
+			}
+		}
+		return binWeights;
+	}
+
+	/**
+	 * Drops the costs of all time bins, so they get computed anew when they are needed the next time.
+	 */
+	/*package*/ void invalidate() {
+		this.memoryLimit.remove(this);
+		for (int i = 0; i < this.timeBinCount; i++) {
+			this.weights.set(i, null);
+		}
+	}
+
+	/**
+	 * @return the memory needed for the costs of one time bin, in bytes
+	 */
+	private long getBytesPerTimeBin() {
+		// two double and two int arrays
+		return 24L * this.graph.getNumberOfArcs();
+	}
+
+	/*package*/ ContractionHierarchiesGraph getGraph() {
+		return this.graph;
+	}
+
+	private Weights customize(final double time, final TravelDisutility travelDisutility) {
+		ContractionHierarchiesGraph graph = this.graph;
+		int arcCount = graph.getNumberOfArcs();
+		double[] up = new double[arcCount];
+		double[] down = new double[arcCount];
+		int[] upVia = new int[arcCount];
+		int[] downVia = new int[arcCount];
+		Arrays.fill(up, Double.POSITIVE_INFINITY);
+		Arrays.fill(down, Double.POSITIVE_INFINITY);
+		Arrays.fill(upVia, NO_VIA);
+		Arrays.fill(downVia, NO_VIA);
+
+		// the links
+		Link[] links = graph.links;
+		for (int l = 0; l < links.length; l++) {
+			int arc = graph.linkArc[l];
+			if (arc < 0) {
+				continue;
+			}
+			double cost = travelDisutility.getLinkTravelDisutility(links[l], time, null, null);
+			if (graph.linkUpward[l]) {
+				if (cost < up[arc]) {
+					up[arc] = cost;
+					upVia[arc] = -(l + 1);
+				}
+			} else if (cost < down[arc]) {
+				down[arc] = cost;
+				downVia[arc] = -(l + 1);
+			}
+		}
+
+		// the shortcuts, by the lower triangles in order of the lowest node
+		int[] firstArc = graph.firstArc;
+		int[] arcHead = graph.arcHead;
+		for (int v = 0; v < graph.nodes.length; v++) {
+			int last = firstArc[v + 1];
+			for (int i = firstArc[v]; i < last; i++) {
+				int u = arcHead[i];
+				double upToV = down[i];
+				double downFromV = up[i];
+				int k = firstArc[u];
+				for (int j = i + 1; j < last; j++) {
+					int w = arcHead[j];
+					while (arcHead[k] != w) {
+						// exists, as the upper neighbors of v are neighbors of each other
+						k++;
+					}
+					double cost = upToV + up[j];
+					if (cost < up[k]) {
+						up[k] = cost;
+						upVia[k] = v;
+					}
+					cost = down[j] + downFromV;
+					if (cost < down[k]) {
+						down[k] = cost;
+						downVia[k] = v;
+					}
+				}
+			}
+		}
+		return new Weights(up, down, upVia, downVia);
+	}
+
+	/**
+	 * Limits the memory used by the costs of all customizations sharing it.  When a time bin is customized and the
+	 * limit is exceeded, the costs of the time bins which were not used for the longest time are dropped.  The
+	 * limit is exceeded if the costs of a single time bin need more memory than the limit.
+	 */
+	/*package*/ static final class MemoryLimit {
+		private final long maxBytes;
+		private long usedBytes = 0;
+		/** the customized time bins, as pairs of customization and time bin */
+		private final List<ContractionHierarchiesCustomization> customizations = new ArrayList<>();
+		private final List<Integer> bins = new ArrayList<>();
+
+		/*package*/ MemoryLimit(final long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		/*package*/ synchronized void add(final ContractionHierarchiesCustomization customization, final int bin) {
+			long bytes = customization.getBytesPerTimeBin();
+			while (this.usedBytes + bytes > this.maxBytes && !this.customizations.isEmpty()) {
+				int leastRecentlyUsed = 0;
+				for (int i = 1; i < this.customizations.size(); i++) {
+					if (this.customizations.get(i).lastUse.get(this.bins.get(i))
+							< this.customizations.get(leastRecentlyUsed).lastUse.get(this.bins.get(leastRecentlyUsed))) {
+						leastRecentlyUsed = i;
+					}
+				}
+				ContractionHierarchiesCustomization evicted = this.customizations.remove(leastRecentlyUsed);
+				int evictedBin = this.bins.remove(leastRecentlyUsed);
+				evicted.weights.set(evictedBin, null);
+				this.usedBytes -= evicted.getBytesPerTimeBin();
+			}
+			this.customizations.add(customization);
+			this.bins.add(bin);
+			this.usedBytes += bytes;
+		}
+
+		/*package*/ synchronized void remove(final ContractionHierarchiesCustomization customization) {
+			for (int i = this.customizations.size() - 1; i >= 0; i--) {
+				if (this.customizations.get(i) == customization) {
+					this.customizations.remove(i);
+					this.bins.remove(i);
+					this.usedBytes -= customization.getBytesPerTimeBin();
+				}
+			}
+		}
+
+		/*package*/ synchronized long getUsedBytes() {
+			return this.usedBytes;
+		}
+	}
+
+	/**
+	 * The costs of the arcs for one time bin.  For each arc, <code>up</code> is the cost from its lower
+	 * to its upper node, and <code>down</code> the cost in the opposite direction.  The via arrays tell
+	 * how to unpack the arc: a value <code>&gt;= 0</code> is the node in between, a negative value
+	 * <code>-(l + 1)</code> refers to link <code>l</code>.
+	 */
+	/*package*/ static final class Weights {
+		/*package*/ final double[] up;
+		/*package*/ final double[] down;
+		/*package*/ final int[] upVia;
+		/*package*/ final int[] downVia;
+
+		Weights(final double[] up, final double[] down, final int[] upVia, final int[] downVia) {
+			this.up = up;
+			this.down = down;
+			this.upVia = upVia;
+			this.downVia = downVia;
+		}
+	}
+
+}
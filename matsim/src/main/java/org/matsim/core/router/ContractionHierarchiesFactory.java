@@ -0,0 +1,142 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.trafficmonitoring.TimeBinUtils;
+
+/**
+ * Creates {@link ContractionHierarchies}.  The hierarchy of a network is created once and shared by
+ * all calculators for this network.  The costs of the hierarchy are shared by all calculators for the
+ * same network, the same {@link TravelTime} object and the same {@link TravelDisutility} object.  As
+ * travel disutilities are typically created for each thread, each thread then computes the costs of
+ * the time bins it needs.
+ * <p>
+ * The costs are computed per time bin as defined in the {@link TravelTimeCalculatorConfigGroup}.  The costs
+ * of one time bin need about 24 bytes per arc of the hierarchy, which has about two to three times as many
+ * arcs as the network has links.  The memory used by the costs of all calculators of the factory is limited;
+ * when the limit is reached, the costs of the least recently used time bins are dropped and computed
+ * anew when they are needed again.  By default, the limit is a quarter of the maximum heap size.
+ * <p>
+ * When used within the controler, the costs are dropped at the start of each iteration, so the
+ * calculators use the travel times of the last iteration.
+ *
+ * @see ContractionHierarchies
+ */
+@Singleton
+public class ContractionHierarchiesFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private final int timeBinSize;
+	private final int timeBinCount;
+	private final ContractionHierarchiesCustomization.MemoryLimit memoryLimit;
+	private final Map<Network, ContractionHierarchiesGraph> graphs = new HashMap<>();
+	private final Map<CustomizationKey, ContractionHierarchiesCustomization> customizations = new HashMap<>();
+
+	@Inject
+	public ContractionHierarchiesFactory(final TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup) {
+		this(travelTimeCalculatorConfigGroup.getTraveltimeBinSize(), travelTimeCalculatorConfigGroup.getMaxTime());
+	}
+
+	public ContractionHierarchiesFactory() {
+		this(new TravelTimeCalculatorConfigGroup());
+	}
+
+	public ContractionHierarchiesFactory(final int timeBinSize, final int maxTime) {
+		this(timeBinSize, maxTime, Runtime.getRuntime().maxMemory() / 4);
+	}
+
+	/**
+	 * @param maxCostBytes the memory, which the costs of all calculators created by this factory may use, in bytes
+	 */
+	public ContractionHierarchiesFactory(final int timeBinSize, final int maxTime, final long maxCostBytes) {
+		this.timeBinSize = timeBinSize;
+		this.timeBinCount = TimeBinUtils.getTimeBinCount(maxTime, timeBinSize);
+		this.memoryLimit = new ContractionHierarchiesCustomization.MemoryLimit(maxCostBytes);
+	}
+
+	@com.google.inject.Inject(optional = true)
+	/*package*/ void setControlerListenerManager(final ControlerListenerManager controlerListenerManager) {
+		controlerListenerManager.addControlerListener(this);
+	}
+
+	@Override
+	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		ContractionHierarchiesGraph graph = this.graphs.computeIfAbsent(network, ContractionHierarchiesGraph::new);
+		ContractionHierarchiesCustomization customization = this.customizations.computeIfAbsent(
+				new CustomizationKey(network, travelTimes, travelCosts),
+				key -> new ContractionHierarchiesCustomization(graph, travelCosts, this.timeBinSize, this.timeBinCount, this.memoryLimit));
+		return new ContractionHierarchies(customization, travelCosts, travelTimes);
+	}
+
+	@Override
+	public synchronized void notifyIterationStarts(final IterationStartsEvent event) {
+		for (ContractionHierarchiesCustomization customization : this.customizations.values()) {
+			customization.invalidate();
+		}
+		// the calculators of the last iteration keep their customizations, new ones get new customizations
+		this.customizations.clear();
+	}
+
+	/*package*/ long getUsedCostBytes() {
+		return this.memoryLimit.getUsedBytes();
+	}
+
+	private static final class CustomizationKey {
+		private final Network network;
+		private final TravelTime travelTimes;
+		private final TravelDisutility travelCosts;
+
+		CustomizationKey(final Network network, final TravelTime travelTimes, final TravelDisutility travelCosts) {
+			this.network = network;
+			this.travelTimes = travelTimes;
+			this.travelCosts = travelCosts;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof CustomizationKey)) {
+				return false;
+			}
+			CustomizationKey other = (CustomizationKey) o;
+			return this.network == other.network && this.travelTimes == other.travelTimes && this.travelCosts == other.travelCosts;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.network) * 31 * 31 + System.identityHashCode(this.travelTimes) * 31 + System.identityHashCode(this.travelCosts);
+		}
+	}
+
+}
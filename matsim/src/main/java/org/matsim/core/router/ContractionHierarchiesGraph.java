@@ -0,0 +1,388 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesGraph.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The metric-independent part of the {@link ContractionHierarchies}: the order of the nodes and
+ * the graph of upward arcs (links and shortcuts) resulting from contracting the nodes in this order.
+ * <p>
+ * The order is found by a geometric nested dissection: the nodes are split at the median of their
+ * coordinates, the nodes along the cut are put on top of the hierarchy, and both halves are handled
+ * recursively.  Contracting a node connects all its higher neighbors with each other, independent
+ * of the costs of the links, so the same graph can be customized with any travel disutility.
+ * <p>
+ * All nodes are referred to by their rank in the order.  Arcs are stored by their lower node, and
+ * the arcs of a node are sorted by the rank of their upper node.  The lowest upper neighbor of a node
+ * is its parent in the elimination tree; all upper neighbors of a node are ancestors of it in this tree.
+ *
+ * @see ContractionHierarchiesCustomization
+ */
+/*package*/ final class ContractionHierarchiesGraph {
+
+	private static final Logger log = Logger.getLogger(ContractionHierarchiesGraph.class);
+
+	/** Parts with at most this number of nodes are not dissected any further. */
+	private static final int LEAF_SIZE = 16;
+
+	private final Network network;
+
+	/*package*/ final Node[] nodes;
+	/*package*/ final Link[] links;
+	private final int[] rankByIdIndex;
+
+	/*package*/ final int[] parent;
+	/*package*/ final int[] firstArc;
+	/*package*/ final int[] arcHead;
+	/*package*/ final int[] arcTail;
+
+	/** For each link, the arc between its from- and to-node, or -1 for loops. */
+	/*package*/ final int[] linkArc;
+	/** For each link, whether it leads from the lower to the upper node of its arc. */
+	/*package*/ final boolean[] linkUpward;
+
+	/*package*/ ContractionHierarchiesGraph(final Network network) {
+		long start = System.currentTimeMillis();
+		this.network = network;
+
+		// index the nodes and links in the order of the network
+		int nodeCount = network.getNodes().size();
+		Node[] nodesByIndex = network.getNodes().values().toArray(new Node[nodeCount]);
+		int maxIdIndex = 0;
+		for (Node node : nodesByIndex) {
+			maxIdIndex = Math.max(maxIdIndex, node.getId().index());
+		}
+		int[] indexById = new int[maxIdIndex + 1];
+		Arrays.fill(indexById, -1);
+		for (int i = 0; i < nodeCount; i++) {
+			indexById[nodesByIndex[i].getId().index()] = i;
+		}
+		this.links = network.getLinks().values().toArray(new Link[0]);
+		int[] linkFrom = new int[this.links.length];
+		int[] linkTo = new int[this.links.length];
+		for (int l = 0; l < this.links.length; l++) {
+			linkFrom[l] = indexById[this.links[l].getFromNode().getId().index()];
+			linkTo[l] = indexById[this.links[l].getToNode().getId().index()];
+		}
+
+		// order the nodes
+		int[] order = new NestedDissection(nodesByIndex, linkFrom, linkTo).order();
+		this.nodes = new Node[nodeCount];
+		int[] rankByIndex = new int[nodeCount];
+		for (int rank = 0; rank < nodeCount; rank++) {
+			this.nodes[rank] = nodesByIndex[order[rank]];
+			rankByIndex[order[rank]] = rank;
+		}
+		this.rankByIdIndex = new int[maxIdIndex + 1];
+		Arrays.fill(this.rankByIdIndex, -1);
+		for (int i = 0; i < nodeCount; i++) {
+			this.rankByIdIndex[nodesByIndex[i].getId().index()] = rankByIndex[i];
+		}
+
+		// contract the nodes: the upper neighbors of a node become neighbors of its lowest upper neighbor
+		int[][] up = new int[nodeCount][];
+		int[] upSize = new int[nodeCount];
+		for (int l = 0; l < this.links.length; l++) {
+			int from = rankByIndex[linkFrom[l]];
+			int to = rankByIndex[linkTo[l]];
+			if (from != to) {
+				addNeighbor(up, upSize, Math.min(from, to), Math.max(from, to));
+			}
+		}
+		this.parent = new int[nodeCount];
+		int arcCount = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			int size = upSize[v];
+			if (size == 0) {
+				this.parent[v] = -1;
+				continue;
+			}
+			int[] neighbors = up[v];
+			Arrays.sort(neighbors, 0, size);
+			int distinct = 1;
+			for (int i = 1; i < size; i++) {
+				if (neighbors[i] != neighbors[distinct - 1]) {
+					neighbors[distinct++] = neighbors[i];
+				}
+			}
+			upSize[v] = distinct;
+			arcCount += distinct;
+			int lowest = neighbors[0];
+			this.parent[v] = lowest;
+			for (int i = 1; i < distinct; i++) {
+				addNeighbor(up, upSize, lowest, neighbors[i]);
+			}
+		}
+
+		// store the arcs
+		this.firstArc = new int[nodeCount + 1];
+		this.arcHead = new int[arcCount];
+		this.arcTail = new int[arcCount];
+		int arc = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			this.firstArc[v] = arc;
+			for (int i = 0; i < upSize[v]; i++) {
+				this.arcHead[arc] = up[v][i];
+				this.arcTail[arc] = v;
+				arc++;
+			}
+			up[v] = null;
+		}
+		this.firstArc[nodeCount] = arc;
+
+		this.linkArc = new int[this.links.length];
+		this.linkUpward = new boolean[this.links.length];
+		for (int l = 0; l < this.links.length; l++) {
+			int from = rankByIndex[linkFrom[l]];
+			int to = rankByIndex[linkTo[l]];
+			if (from == to) {
+				this.linkArc[l] = -1;
+			} else {
+				this.linkArc[l] = getArc(Math.min(from, to), Math.max(from, to));
+				this.linkUpward[l] = from < to;
+			}
+		}
+
+		log.info("contraction hierarchy for " + nodeCount + " nodes and " + this.links.length + " links has "
+				+ arcCount + " arcs, created in " + (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+	}
+
+	private static void addNeighbor(final int[][] up, final int[] upSize, final int node, final int neighbor) {
+		int[] neighbors = up[node];
+		int size = upSize[node];
+		if (neighbors == null) {
+			neighbors = new int[4];
+			up[node] = neighbors;
+		} else if (size == neighbors.length) {
+			neighbors = Arrays.copyOf(neighbors, size * 2);
+			up[node] = neighbors;
+		}
+		neighbors[size] = neighbor;
+		upSize[node] = size + 1;
+	}
+
+	/**
+	 * @return the rank of the node
+	 * @throws IllegalArgumentException if the node is not part of the network this hierarchy was created for
+	 */
+	/*package*/ int getRank(final Node node) {
+		int idIndex = node.getId().index();
+		int rank = idIndex < this.rankByIdIndex.length ? this.rankByIdIndex[idIndex] : -1;
+		if (rank < 0 || this.nodes[rank] != node) {
+			throw new IllegalArgumentException("The nodes passed as parameters are not part of the network stored by "
+					+ ContractionHierarchies.class.getSimpleName() + ": the validity of the results cannot be guaranteed. Aborting!");
+		}
+		return rank;
+	}
+
+	/**
+	 * @return the arc from <code>lower</code> to <code>upper</code>, or -1 if there is none
+	 */
+	/*package*/ int getArc(final int lower, final int upper) {
+		int arc = Arrays.binarySearch(this.arcHead, this.firstArc[lower], this.firstArc[lower + 1], upper);
+		return arc < 0 ? -1 : arc;
+	}
+
+	/*package*/ int getNumberOfArcs() {
+		return this.arcHead.length;
+	}
+
+	/*package*/ Network getNetwork() {
+		return this.network;
+	}
+
+	/**
+	 * Recursive coordinate bisection, which puts the nodes of each cut after the nodes of both halves.
+	 */
+	private static final class NestedDissection {
+
+		private final double[] x;
+		private final double[] y;
+		private final int[] firstNeighbor;
+		private final int[] neighbors;
+		private final int[] mark;
+		private int markCount = 0;
+
+		private final int[] order;
+		private int orderSize = 0;
+
+		NestedDissection(final Node[] nodes, final int[] linkFrom, final int[] linkTo) {
+			int nodeCount = nodes.length;
+			this.x = new double[nodeCount];
+			this.y = new double[nodeCount];
+			for (int i = 0; i < nodeCount; i++) {
+				this.x[i] = nodes[i].getCoord().getX();
+				this.y[i] = nodes[i].getCoord().getY();
+			}
+			// undirected adjacency
+			this.firstNeighbor = new int[nodeCount + 1];
+			for (int l = 0; l < linkFrom.length; l++) {
+				if (linkFrom[l] != linkTo[l]) {
+					this.firstNeighbor[linkFrom[l] + 1]++;
+					this.firstNeighbor[linkTo[l] + 1]++;
+				}
+			}
+			for (int i = 0; i < nodeCount; i++) {
+				this.firstNeighbor[i + 1] += this.firstNeighbor[i];
+			}
+			this.neighbors = new int[this.firstNeighbor[nodeCount]];
+			int[] next = Arrays.copyOf(this.firstNeighbor, nodeCount);
+			for (int l = 0; l < linkFrom.length; l++) {
+				if (linkFrom[l] != linkTo[l]) {
+					this.neighbors[next[linkFrom[l]]++] = linkTo[l];
+					this.neighbors[next[linkTo[l]]++] = linkFrom[l];
+				}
+			}
+			this.mark = new int[nodeCount];
+			this.order = new int[nodeCount];
+		}
+
+		int[] order() {
+			int[] part = new int[this.x.length];
+			for (int i = 0; i < part.length; i++) {
+				part[i] = i;
+			}
+			dissect(part, 0, part.length, new int[part.length]);
+			return this.order;
+		}
+
+		private void dissect(final int[] part, final int from, final int to, final int[] buffer) {
+			int size = to - from;
+			if (size <= LEAF_SIZE) {
+				for (int i = from; i < to; i++) {
+					this.order[this.orderSize++] = part[i];
+				}
+				return;
+			}
+
+			// split at the median of the longer side of the bounding box
+			double minX = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				int node = part[i];
+				minX = Math.min(minX, this.x[node]);
+				maxX = Math.max(maxX, this.x[node]);
+				minY = Math.min(minY, this.y[node]);
+				maxY = Math.max(maxY, this.y[node]);
+			}
+			double[] coords = (maxX - minX) >= (maxY - minY) ? this.x : this.y;
+			int mid = from + size / 2;
+			select(part, from, to - 1, mid, coords);
+
+			// the cut consists of the nodes on the smaller side of the border between the two halves
+			int markLeft = ++this.markCount;
+			int markRight = ++this.markCount;
+			for (int i = from; i < mid; i++) {
+				this.mark[part[i]] = markLeft;
+			}
+			for (int i = mid; i < to; i++) {
+				this.mark[part[i]] = markRight;
+			}
+			int leftBorder = 0;
+			int rightBorder = 0;
+			for (int i = from; i < to; i++) {
+				int node = part[i];
+				int otherMark = this.mark[node] == markLeft ? markRight : markLeft;
+				if (hasNeighborWithMark(node, otherMark)) {
+					if (i < mid) {
+						leftBorder++;
+					} else {
+						rightBorder++;
+					}
+				}
+			}
+			int cutMark = leftBorder <= rightBorder ? markLeft : markRight;
+			int otherMark = cutMark == markLeft ? markRight : markLeft;
+
+			// move the nodes of the cut to the end, keeping the order of the other nodes
+			int left = from;
+			int cutSize = 0;
+			for (int i = from; i < to; i++) {
+				int node = part[i];
+				if (this.mark[node] == cutMark && hasNeighborWithMark(node, otherMark)) {
+					buffer[cutSize++] = node;
+				} else {
+					part[left++] = node;
+				}
+			}
+			System.arraycopy(buffer, 0, part, left, cutSize);
+			int newMid = cutMark == markLeft ? mid - cutSize : mid;
+
+			dissect(part, from, newMid, buffer);
+			dissect(part, newMid, left, buffer);
+			for (int i = left; i < to; i++) {
+				this.order[this.orderSize++] = part[i];
+			}
+		}
+
+		private boolean hasNeighborWithMark(final int node, final int mark) {
+			for (int n = this.firstNeighbor[node]; n < this.firstNeighbor[node + 1]; n++) {
+				if (this.mark[this.neighbors[n]] == mark) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Partially sorts <code>part[from..to]</code> (inclusive), such that the element at <code>k</code> is the one that would be
+		 * there if the range were sorted by the given coordinates, with smaller or equal elements before and larger or equal after it.
+		 */
+		private static void select(final int[] part, int from, int to, final int k, final double[] coords) {
+			while (from < to) {
+				double pivot = coords[part[(from + to) >>> 1]];
+				int i = from;
+				int j = to;
+				while (i <= j) {
+					while (coords[part[i]] < pivot) {
+						i++;
+					}
+					while (coords[part[j]] > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						int tmp = part[i];
+						part[i] = part[j];
+						part[j] = tmp;
+						i++;
+						j--;
+					}
+				}
+				if (k <= j) {
+					to = j;
+				} else if (k >= i) {
+					from = i;
+				} else {
+					return;
+				}
+			}
+		}
+	}
+
+}
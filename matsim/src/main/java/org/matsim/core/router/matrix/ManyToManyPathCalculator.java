@@ -0,0 +1,308 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ManyToManyPathCalculator.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.matrix;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.priorityqueue.BinaryMinHeap;
+import org.matsim.core.router.util.ArrayRoutingNetwork;
+import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
+import org.matsim.core.router.util.ArrayRoutingNetworkNode;
+import org.matsim.core.router.util.RoutingNetworkLink;
+import org.matsim.core.router.util.RoutingNetworkNode;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Calculates the least-cost paths from many origin nodes to many destination nodes and returns the
+ * travel times, travel disutilities and distances along these paths as {@link NodeMatrix NodeMatrices}.
+ * <p>
+ * As the other routers, the search is time-dependent: each link is evaluated at the time it is entered,
+ * starting at the given departure time at the origin.  The origins are searched in parallel, each one by a
+ * Dijkstra which stops as soon as all destinations are settled.  The network is copied once into arrays,
+ * based on the node order of an {@link ArrayRoutingNetwork}, so the searches do not need any per-node objects
+ * besides the {@link ArrayRoutingNetworkNode ArrayRoutingNetworkNodes} in their {@link BinaryMinHeap}.
+ * <p>
+ * The {@link TravelTime} and {@link TravelDisutility} are used by several threads at the same time, and
+ * are called without person and vehicle.
+ */
+public final class ManyToManyPathCalculator {
+
+	private static final Logger log = Logger.getLogger(ManyToManyPathCalculator.class);
+
+	private final ArrayRoutingNetwork routingNetwork;
+	private final TravelDisutility travelDisutility;
+	private final TravelTime travelTime;
+	private final int numberOfThreads;
+
+	private final int nodeCount;
+	private final ArrayRoutingNetworkNode[] nodes;
+	private final int[] outStart;
+	private final int[] outToNodes;
+	private final Link[] outLinks;
+
+	public ManyToManyPathCalculator(final Network network, final TravelDisutility travelDisutility, final TravelTime travelTime, final int numberOfThreads) {
+		this.routingNetwork = new ArrayRoutingNetworkFactory().createRoutingNetwork(network);
+		this.travelDisutility = travelDisutility;
+		this.travelTime = travelTime;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+
+		this.nodeCount = this.routingNetwork.getNodes().size();
+		this.outStart = new int[this.nodeCount + 1];
+		this.nodes = new ArrayRoutingNetworkNode[this.nodeCount];
+		int linkCount = 0;
+		for (RoutingNetworkNode node : this.routingNetwork.getNodes().values()) {
+			this.nodes[getIndex(node)] = (ArrayRoutingNetworkNode) node;
+			linkCount += node.getOutLinksArray().length;
+		}
+		this.outToNodes = new int[linkCount];
+		this.outLinks = new Link[linkCount];
+		int l = 0;
+		for (int i = 0; i < this.nodeCount; i++) {
+			this.outStart[i] = l;
+			for (RoutingNetworkLink link : this.nodes[i].getOutLinksArray()) {
+				this.outToNodes[l] = getIndex(link.getToNode());
+				this.outLinks[l] = link.getLink();
+				l++;
+			}
+		}
+		this.outStart[this.nodeCount] = l;
+	}
+
+	private static int getIndex(final RoutingNetworkNode node) {
+		return ((ArrayRoutingNetworkNode) node).getArrayIndex();
+	}
+
+	private int getIndex(final Node node) {
+		RoutingNetworkNode routingNode = this.routingNetwork.getNodes().get(node.getId());
+		if (routingNode == null) {
+			throw new IllegalArgumentException("Node " + node.getId() + " is not part of the network.");
+		}
+		return getIndex(routingNode);
+	}
+
+	/**
+	 * @return the travel times, travel disutilities and distances of the least-cost paths from each origin to each destination,
+	 * when departing at <code>departureTime</code> from the origins.
+	 */
+	public Matrices calcMatrices(final List<? extends Node> origins, final List<? extends Node> destinations, final double departureTime) {
+		long start = System.currentTimeMillis();
+		int[] originIndices = new int[origins.size()];
+		List<Id<Node>> originIds = new ArrayList<>(origins.size());
+		for (int i = 0; i < originIndices.length; i++) {
+			originIndices[i] = getIndex(origins.get(i));
+			originIds.add(origins.get(i).getId());
+		}
+		int[] destinationIndices = new int[destinations.size()];
+		List<Id<Node>> destinationIds = new ArrayList<>(destinations.size());
+		boolean[] isDestination = new boolean[this.nodeCount];
+		for (int i = 0; i < destinationIndices.length; i++) {
+			destinationIndices[i] = getIndex(destinations.get(i));
+			destinationIds.add(destinations.get(i).getId());
+			isDestination[destinationIndices[i]] = true;
+		}
+		int destinationNodeCount = (int) Arrays.stream(destinationIndices).distinct().count();
+
+		long size = (long) originIndices.length * destinationIndices.length;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many origins and destinations: " + originIndices.length + " x " + destinationIndices.length);
+		}
+		float[] travelTimes = new float[(int) size];
+		float[] travelDisutilities = new float[(int) size];
+		float[] distances = new float[(int) size];
+
+		AtomicInteger nextOrigin = new AtomicInteger();
+		Runnable worker = () -> {
+			Search search = new Search(isDestination, destinationNodeCount);
+			int row;
+			while ((row = nextOrigin.getAndIncrement()) < originIndices.length) {
+				search.run(originIndices[row], departureTime);
+				int offset = row * destinationIndices.length;
+				for (int j = 0; j < destinationIndices.length; j++) {
+					int node = destinationIndices[j];
+					if (search.isReached(node)) {
+						travelTimes[offset + j] = (float) (search.times[node] - departureTime);
+						travelDisutilities[offset + j] = (float) search.costs[node];
+						distances[offset + j] = (float) search.distances[node];
+					} else {
+						travelTimes[offset + j] = Float.POSITIVE_INFINITY;
+						travelDisutilities[offset + j] = Float.POSITIVE_INFINITY;
+						distances[offset + j] = Float.POSITIVE_INFINITY;
+					}
+				}
+			}
+		};
+		run(worker, Math.min(this.numberOfThreads, originIndices.length));
+
+		log.info("calculated " + originIndices.length + " x " + destinationIndices.length + " matrices in " + (System.currentTimeMillis() - start) + " ms.");
+		return new Matrices(
+				new NodeMatrix(originIds, destinationIds, FloatBuffer.wrap(travelTimes)),
+				new NodeMatrix(originIds, destinationIds, FloatBuffer.wrap(travelDisutilities)),
+				new NodeMatrix(originIds, destinationIds, FloatBuffer.wrap(distances)));
+	}
+
+	private static void run(final Runnable worker, final int numberOfThreads) {
+		if (numberOfThreads <= 1) {
+			worker.run();
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<?>> futures = new ArrayList<>(numberOfThreads);
+			for (int i = 0; i < numberOfThreads; i++) {
+				futures.add(executor.submit(worker));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * The state of the searches of one thread.  The arrays are not reset between the searches:
+	 * a node's values are only valid if its mark equals the number of the current search.
+	 */
+	private final class Search {
+
+		private final boolean[] isDestination;
+		private final int destinationNodeCount;
+
+		private final double[] costs = new double[ManyToManyPathCalculator.this.nodeCount];
+		private final double[] times = new double[ManyToManyPathCalculator.this.nodeCount];
+		private final double[] distances = new double[ManyToManyPathCalculator.this.nodeCount];
+		private final int[] reached = new int[ManyToManyPathCalculator.this.nodeCount];
+		private final int[] settled = new int[ManyToManyPathCalculator.this.nodeCount];
+		private int searchNumber = 0;
+
+		private final BinaryMinHeap<ArrayRoutingNetworkNode> heap = new BinaryMinHeap<>(ManyToManyPathCalculator.this.nodeCount);
+
+		Search(final boolean[] isDestination, final int destinationNodeCount) {
+			this.isDestination = isDestination;
+			this.destinationNodeCount = destinationNodeCount;
+		}
+
+		boolean isReached(final int node) {
+			return this.reached[node] == this.searchNumber;
+		}
+
+		void run(final int origin, final double departureTime) {
+			if (++this.searchNumber == Integer.MAX_VALUE) {
+				Arrays.fill(this.reached, 0);
+				Arrays.fill(this.settled, 0);
+				this.searchNumber = 1;
+			}
+			int[] outStart = ManyToManyPathCalculator.this.outStart;
+			int[] outToNodes = ManyToManyPathCalculator.this.outToNodes;
+			Link[] outLinks = ManyToManyPathCalculator.this.outLinks;
+			TravelTime travelTime = ManyToManyPathCalculator.this.travelTime;
+			TravelDisutility travelDisutility = ManyToManyPathCalculator.this.travelDisutility;
+
+			ArrayRoutingNetworkNode[] nodes = ManyToManyPathCalculator.this.nodes;
+			BinaryMinHeap<ArrayRoutingNetworkNode> heap = this.heap;
+
+			int remainingDestinations = this.destinationNodeCount;
+			heap.reset();
+			this.reached[origin] = this.searchNumber;
+			this.costs[origin] = 0.0;
+			this.times[origin] = departureTime;
+			this.distances[origin] = 0.0;
+			heap.add(nodes[origin], 0.0);
+			while (!heap.isEmpty() && remainingDestinations > 0) {
+				int node = heap.poll().getArrayIndex();
+				double cost = this.costs[node];
+				this.settled[node] = this.searchNumber;
+				if (this.isDestination[node]) {
+					remainingDestinations--;
+				}
+				double time = this.times[node];
+				double distance = this.distances[node];
+				for (int l = outStart[node]; l < outStart[node + 1]; l++) {
+					int toNode = outToNodes[l];
+					if (this.settled[toNode] == this.searchNumber) {
+						continue;
+					}
+					Link link = outLinks[l];
+					double newCost = cost + travelDisutility.getLinkTravelDisutility(link, time, null, null);
+					if (this.reached[toNode] != this.searchNumber) {
+						this.reached[toNode] = this.searchNumber;
+						heap.add(nodes[toNode], newCost);
+					} else if (newCost < this.costs[toNode]) {
+						heap.decreaseKey(nodes[toNode], newCost);
+					} else {
+						continue;
+					}
+					this.costs[toNode] = newCost;
+					this.times[toNode] = time + travelTime.getLinkTravelTime(link, time, null, null);
+					this.distances[toNode] = distance + link.getLength();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The results of {@link ManyToManyPathCalculator#calcMatrices(List, List, double)}: travel times in seconds,
+	 * travel disutilities, and distances in the length unit of the network.
+	 */
+	public static final class Matrices {
+
+		private final NodeMatrix travelTimes;
+		private final NodeMatrix travelDisutilities;
+		private final NodeMatrix distances;
+
+		Matrices(final NodeMatrix travelTimes, final NodeMatrix travelDisutilities, final NodeMatrix distances) {
+			this.travelTimes = travelTimes;
+			this.travelDisutilities = travelDisutilities;
+			this.distances = distances;
+		}
+
+		public NodeMatrix getTravelTimes() {
+			return this.travelTimes;
+		}
+
+		public NodeMatrix getTravelDisutilities() {
+			return this.travelDisutilities;
+		}
+
+		public NodeMatrix getDistances() {
+			return this.distances;
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NodeMatrix.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.matrix;
+
+import java.nio.FloatBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * A dense matrix of float values from a list of origin nodes to a list of destination nodes,
+ * e.g. travel times between zones represented by nodes.  The values are stored row by row,
+ * one row per origin, either on the heap or in a memory-mapped file (see {@link NodeMatrixIO}).
+ * <p>
+ * Destinations which cannot be reached have the value {@link Float#POSITIVE_INFINITY}.
+ * If a node is listed several times as origin (or destination), the lookup by Id uses its first row (or column).
+ * <p>
+ * The matrix is not modified after creation and may be read by several threads at the same time.
+ */
+public final class NodeMatrix {
+
+	private final List<Id<Node>> origins;
+	private final List<Id<Node>> destinations;
+	private final FloatBuffer values;
+	private final IdMap<Node, Integer> originIndices;
+	private final IdMap<Node, Integer> destinationIndices;
+
+	/*package*/ NodeMatrix(final List<Id<Node>> origins, final List<Id<Node>> destinations, final FloatBuffer values) {
+		if ((long) origins.size() * destinations.size() != values.limit()) {
+			throw new IllegalArgumentException("Expected " + ((long) origins.size() * destinations.size()) + " values, got " + values.limit());
+		}
+		this.origins = Collections.unmodifiableList(origins);
+		this.destinations = Collections.unmodifiableList(destinations);
+		this.values = values;
+		this.originIndices = indexOf(origins);
+		this.destinationIndices = indexOf(destinations);
+	}
+
+	private static IdMap<Node, Integer> indexOf(final List<Id<Node>> nodeIds) {
+		IdMap<Node, Integer> indices = new IdMap<>(Node.class);
+		for (int i = 0; i < nodeIds.size(); i++) {
+			indices.putIfAbsent(nodeIds.get(i), i);
+		}
+		return indices;
+	}
+
+	public List<Id<Node>> getOrigins() {
+		return this.origins;
+	}
+
+	public List<Id<Node>> getDestinations() {
+		return this.destinations;
+	}
+
+	public float get(final int originIndex, final int destinationIndex) {
+		return this.values.get(originIndex * this.destinations.size() + destinationIndex);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the origin or destination is not part of this matrix
+	 */
+	public float get(final Id<Node> origin, final Id<Node> destination) {
+		Integer originIndex = this.originIndices.get(origin);
+		Integer destinationIndex = this.destinationIndices.get(destination);
+		if (originIndex == null || destinationIndex == null) {
+			throw new IllegalArgumentException("No value from node " + origin + " to node " + destination + " in this matrix.");
+		}
+		return get(originIndex, destinationIndex);
+	}
+
+	/**
+	 * @return a read-only view on all values, row by row
+	 */
+	public FloatBuffer getValues() {
+		return this.values.asReadOnlyBuffer();
+	}
+
+}
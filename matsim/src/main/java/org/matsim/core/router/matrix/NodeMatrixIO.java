@@ -0,0 +1,167 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NodeMatrixIO.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.matrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes and reads {@link NodeMatrix NodeMatrices} in a binary format that can be memory-mapped,
+ * so even large matrices can be opened without reading them into the heap:
+ * <pre>
+ * int    magic number 0x4e4d5458 ("NMTX")
+ * int    version (1)
+ * int    number of origins
+ * int    number of destinations
+ * long   offset of the values from the start of the file, a multiple of 8
+ * origin Ids and destination Ids, each as int length followed by the UTF-8 bytes
+ * padding
+ * float  values, row by row
+ * </pre>
+ * All numbers are in little-endian byte order.  The values of a matrix must not exceed 2 GB.
+ */
+public final class NodeMatrixIO {
+
+	private static final int MAGIC = 0x4e4d5458;
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private NodeMatrixIO() {
+	}
+
+	public static void writeMatrix(final NodeMatrix matrix, final String filename) {
+		ByteBuffer header = createHeader(matrix);
+		FloatBuffer values = matrix.getValues();
+		try (OutputStream out = Files.newOutputStream(Paths.get(filename))) {
+			out.write(header.array(), 0, header.limit());
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			FloatBuffer floats = buffer.asFloatBuffer();
+			while (values.hasRemaining()) {
+				int count = Math.min(values.remaining(), floats.capacity());
+				floats.clear();
+				for (int i = 0; i < count; i++) {
+					floats.put(values.get());
+				}
+				out.write(buffer.array(), 0, count * 4);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static ByteBuffer createHeader(final NodeMatrix matrix) {
+		List<byte[]> ids = new ArrayList<>();
+		int length = 24;
+		for (Id<Node> id : matrix.getOrigins()) {
+			ids.add(id.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		for (Id<Node> id : matrix.getDestinations()) {
+			ids.add(id.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		for (byte[] id : ids) {
+			length += 4 + id.length;
+		}
+		int dataOffset = (length + 7) & ~7;
+		ByteBuffer header = ByteBuffer.allocate(dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION);
+		header.putInt(matrix.getOrigins().size()).putInt(matrix.getDestinations().size());
+		header.putLong(dataOffset);
+		for (byte[] id : ids) {
+			header.putInt(id.length).put(id);
+		}
+		header.clear();
+		return header;
+	}
+
+	/**
+	 * Maps the values of the given file into memory.  The values are only read from the file
+	 * when they are accessed.
+	 */
+	public static NodeMatrix readMatrix(final String filename) {
+		Path path = Paths.get(filename);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer start = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, start, 0);
+			if (start.getInt() != MAGIC || start.getInt() != VERSION) {
+				throw new IllegalArgumentException(filename + " is not a node matrix file.");
+			}
+			int originCount = start.getInt();
+			int destinationCount = start.getInt();
+			long dataOffset = start.getLong();
+			long dataLength = (long) originCount * destinationCount * 4;
+			if (dataLength > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("The values in " + filename + " are too large to be mapped into memory.");
+			}
+			if (channel.size() < dataOffset + dataLength) {
+				throw new IllegalArgumentException(filename + " is truncated.");
+			}
+
+			ByteBuffer header = ByteBuffer.allocate((int) dataOffset - 24).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, header, 24);
+			List<Id<Node>> origins = readIds(header, originCount);
+			List<Id<Node>> destinations = readIds(header, destinationCount);
+
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, dataLength);
+			return new NodeMatrix(origins, destinations, data.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+		long pos = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, pos);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+			pos += read;
+		}
+		buffer.flip();
+	}
+
+	private static List<Id<Node>> readIds(final ByteBuffer header, final int count) {
+		List<Id<Node>> ids = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] bytes = new byte[header.getInt()];
+			header.get(bytes);
+			ids.add(Id.create(new String(bytes, StandardCharsets.UTF_8), Node.class));
+		}
+		return ids;
+	}
+
+}
@@ -0,0 +1,96 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IntBinaryMinHeap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+/**
+ * A wrapper class that allows to use a BinaryMinHeap for int indices, e.g. of
+ * nodes stored in arrays, without creating objects while it is used. The
+ * HasIndex entries for all indices are created once, in the constructor.
+ *
+ * @see BinaryMinHeap
+ */
+public final class IntBinaryMinHeap {
+
+	private final BinaryMinHeap<IntEntry> delegate;
+	private final IntEntry[] entries;
+
+	/**
+	 * @param maxSize the number of indices, i.e. the heap accepts the indices 0 to maxSize - 1.
+	 */
+	public IntBinaryMinHeap(int maxSize) {
+		this.delegate = new BinaryMinHeap<>(maxSize);
+		this.entries = new IntEntry[maxSize];
+		for (int i = 0; i < maxSize; i++) {
+			this.entries[i] = new IntEntry(i);
+		}
+	}
+
+	/**
+	 * @return <tt>true</tt> if the index was added, <tt>false</tt> if it is already part of the heap.
+	 */
+	public boolean add(int index, double priority) {
+		return this.delegate.add(this.entries[index], priority);
+	}
+
+	/**
+	 * Decreases the priority of the index, or adds it if it is not part of the heap.
+	 *
+	 * @return <tt>true</tt> if the priority was decreased.
+	 * @see BinaryMinHeap#decreaseKey(HasIndex, double)
+	 */
+	public boolean decreaseKey(int index, double priority) {
+		return this.delegate.decreaseKey(this.entries[index], priority);
+	}
+
+	/**
+	 * @return the index with the lowest priority, which is removed from the heap, or -1 if the heap is empty.
+	 */
+	public int poll() {
+		IntEntry entry = this.delegate.poll();
+		return entry == null ? -1 : entry.index;
+	}
+
+	public int size() {
+		return this.delegate.size();
+	}
+
+	public boolean isEmpty() {
+		return this.delegate.isEmpty();
+	}
+
+	public void reset() {
+		this.delegate.reset();
+	}
+
+	private static final class IntEntry implements HasIndex {
+
+		private final int index;
+
+		IntEntry(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int getArrayIndex() {
+			return this.index;
+		}
+	}
+}
@@ -21,18 +21,32 @@
 package org.matsim.core.router.util;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
-import org.matsim.core.api.internal.MatsimComparator;
+import org.matsim.core.router.priorityqueue.IntBinaryMinHeap;
 
 import java.awt.geom.Rectangle2D;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.PriorityQueue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
 /**
  * Pre-processes a given network, gathering information which can be used by
@@ -40,19 +54,38 @@ import java.util.concurrent.TimeUnit;
  * between a start and an end node. Specifically, designates some
  * nodes in the network that act as landmarks and computes the last-cost-path
  * from and to each node in the network to each of the landmarks.
+ * <p>
+ * The travel costs are stored in one flat array, with the minimal and maximal cost
+ * of all landmarks of a node next to each other. The landmarks are processed in parallel,
+ * each one by a forward and a backward Dijkstra over an array representation of the network.
+ * <p>
+ * If a cache directory is set, the computed travel costs are stored there and re-used
+ * by later runs, as long as the network, the minimal link travel disutilities and the
+ * chosen landmarks are the same.
  *
  * @author lnicolas
  */
 public class PreProcessLandmarks extends PreProcessEuclidean {
 
+	private static final int CACHE_FILE_MAGIC = 0x4d4c4d4b; // "MLMK"
+	private static final int CACHE_FILE_VERSION = 1;
+	private static final int CACHE_BUFFER_SIZE = 64 * 1024;
+
 	private final int landmarkCount;
 
 	private final Landmarker landmarker;
 
 	private Node[] landmarks;
-	
+
+	/**
+	 * min and max travel cost per node and landmark: [(nodeIndex * landmarkCount + landmarkIndex) * 2 + {0, 1}]
+	 */
+	private double[] travelCosts;
+
 	private int numberOfThreads = 8;
 
+	private String cacheDirectory = null;
+
 	private static final Logger log = Logger.getLogger(PreProcessLandmarks.class);
 
 	public PreProcessLandmarks(final TravelDisutility costFunction) {
@@ -83,6 +116,16 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		this.numberOfThreads = numberOfThreads;
 	}
 	
+	/**
+	 * Sets the directory where the landmark travel costs are cached between runs.
+	 * Default is <code>null</code>, i.e. no caching.
+	 *
+	 * @param cacheDirectory
+	 */
+	public void setCacheDirectory(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
 	/**
 	 * @param costFunction
 	 * @param travelZone The area within which the landmarks should lie. Narrowing the zone where the landmarks should
@@ -105,6 +148,7 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		this.landmarker = landmarker;
 	}
 
+
 	@Override
 	public void run(final Network network) {
 		super.run(network);
@@ -114,11 +158,35 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		landmarks = landmarker.identifyLandmarks( landmarkCount , network );
 		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 
-		log.info("Initializing landmarks data");
-		for (Node node : network.getNodes().values()) {
-			this.nodeData.put(node, new LandmarksData(this.landmarkCount));
+		Graph graph = new Graph(network, this.costFunction);
+		int[] landmarkIndices = new int[this.landmarks.length];
+		for (int i = 0; i < this.landmarks.length; i++) {
+			landmarkIndices[i] = graph.getIndex(this.landmarks[i]);
 		}
-		
+
+		this.travelCosts = null;
+		Path cacheFile = null;
+		long hash = 0;
+		if (this.cacheDirectory != null) {
+			hash = graph.hash(landmarkIndices);
+			cacheFile = Paths.get(this.cacheDirectory, "landmarks-" + Long.toHexString(hash) + ".bin");
+			this.travelCosts = readCacheFile(cacheFile, hash, graph.nodes.length, this.landmarks.length);
+		}
+		if (this.travelCosts == null) {
+			calculateTravelCosts(graph, landmarkIndices);
+			if (cacheFile != null) {
+				writeCacheFile(cacheFile, hash, graph.nodes.length, this.landmarks.length);
+			}
+		}
+
+		for (int i = 0; i < graph.nodes.length; i++) {
+			this.nodeData.put(graph.nodes[i], new LandmarksData(this.travelCosts, i * this.landmarks.length * 2));
+		}
+	}
+
+	private void calculateTravelCosts(final Graph graph, final int[] landmarkIndices) {
+		this.travelCosts = new double[graph.nodes.length * this.landmarks.length * 2];
+
 		int nOfThreads = this.numberOfThreads;
 		if (nOfThreads > this.landmarks.length) {
 			nOfThreads = this.landmarks.length;
@@ -127,109 +195,120 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 			nOfThreads = 2; // always use at least two threads
 		}
  		log.info("Calculating distance from each node to each of the " + this.landmarkCount + " landmarks using " + nOfThreads + " threads...");
-		now = System.currentTimeMillis();
+		long now = System.currentTimeMillis();
 
-		
 		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
-		for (int i = 0; i < this.landmarks.length; i++) {
-			executor.execute(new Calculator(i, this.landmarks[i], this.nodeData, this.costFunction));
-		}
-		executor.shutdown();
-		while (!executor.isTerminated()) {
-			log.info("wait for landmarks Calculator to finish...");
-			try {
-				executor.awaitTermination(10, TimeUnit.MINUTES);
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
-			}
-		}
-
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
-			r.updateMinMaxTravelTimes();
-		}
-
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
+		try {
+			List<Future<?>> futures = new ArrayList<>(this.landmarks.length);
 			for (int i = 0; i < this.landmarks.length; i++) {
-				if (r.getMinLandmarkTravelTime(i) > r.getMaxLandmarkTravelTime(i)) {
-					log.info("Min > max for node " + node.getId() + " and landmark " + i);
-				}
+				futures.add(executor.submit(new Calculator(i, landmarkIndices[i], this.landmarks.length, graph, this.travelCosts)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
 			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdown();
 		}
 
 		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 	}
 
-	private static class Calculator implements Runnable {
-		
-		private final int landmarkIdx;
-		private final Node landmark;
-		private final Map<Node, DeadEndData> nodeData;
-		private final TravelDisutility costFunction;
-		
-		public Calculator(final int landmarkIdx, final Node landmark, final Map<Node, DeadEndData> nodeData, final TravelDisutility costFunction) {
-			this.landmarkIdx = landmarkIdx;
-			this.landmark = landmark;
-			this.nodeData = nodeData;
-			this.costFunction = costFunction;
+	private static double[] readCacheFile(final Path file, final long hash, final int nodeCount, final int landmarkCount) {
+		if (!Files.isRegularFile(file)) {
+			return null;
 		}
-		
-		@Override
-		public void run() {
-			expandLandmarkFrom();
-			expandLandmarkTo();
+		log.info("Reading landmarks from " + file);
+		double[] data = new double[nodeCount * landmarkCount * 2];
+		CRC32 crc = new CRC32();
+		try (InputStream in = Files.newInputStream(file)) {
+			ByteBuffer buffer = ByteBuffer.allocate(CACHE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(in, buffer, 24, crc);
+			if (buffer.getInt() != CACHE_FILE_MAGIC || buffer.getInt() != CACHE_FILE_VERSION || buffer.getLong() != hash
+					|| buffer.getInt() != nodeCount || buffer.getInt() != landmarkCount) {
+				log.warn("Landmarks in " + file + " do not match the network, they will be calculated again.");
+				return null;
+			}
+			for (int pos = 0; pos < data.length; ) {
+				int count = Math.min(data.length - pos, CACHE_BUFFER_SIZE / 8);
+				readFully(in, buffer, count * 8, crc);
+				buffer.asDoubleBuffer().get(data, pos, count);
+				pos += count;
+			}
+			long checksum = crc.getValue();
+			readFully(in, buffer, 8, null);
+			if (buffer.getLong() != checksum) {
+				log.warn("Landmarks in " + file + " have a wrong checksum, they will be calculated again.");
+				return null;
+			}
+		} catch (IOException e) {
+			log.warn("Could not read landmarks from " + file + ", they will be calculated again.", e);
+			return null;
 		}
-	
-		private void expandLandmarkFrom() {
-			LandmarksFromTravelTimeComparator comparator = new LandmarksFromTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double fromTravTime = ((LandmarksData) this.nodeData.get(node)).getFromLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getOutLinks().values()) {
-					Node n;
-					n = l.getToNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = fromTravTime + linkTravTime;
-					if (role2.getFromLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setFromLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
-					}
-				}
+		return data;
+	}
+
+	private static void readFully(final InputStream in, final ByteBuffer buffer, final int length, final CRC32 crc) throws IOException {
+		byte[] bytes = buffer.array();
+		int pos = 0;
+		while (pos < length) {
+			int read = in.read(bytes, pos, length - pos);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file.");
 			}
+			pos += read;
 		}
+		if (crc != null) {
+			crc.update(bytes, 0, length);
+		}
+		buffer.clear();
+		buffer.limit(length);
+	}
 
-		private void expandLandmarkTo() {
-			LandmarksToTravelTimeComparator comparator = new LandmarksToTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double toTravTime = ((LandmarksData) this.nodeData.get(node)).getToLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getInLinks().values()) {
-					Node n = l.getFromNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = toTravTime + linkTravTime;
-					if (role2.getToLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setToLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
+	private void writeCacheFile(final Path file, final long hash, final int nodeCount, final int landmarkCount) {
+		log.info("Writing landmarks to " + file);
+		CRC32 crc = new CRC32();
+		try {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			Path tmpFile = Files.createTempFile(file.toAbsolutePath().getParent(), "landmarks", ".tmp");
+			try {
+				try (OutputStream out = Files.newOutputStream(tmpFile)) {
+					ByteBuffer buffer = ByteBuffer.allocate(CACHE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+					buffer.putInt(CACHE_FILE_MAGIC).putInt(CACHE_FILE_VERSION).putLong(hash).putInt(nodeCount).putInt(landmarkCount);
+					write(out, buffer, crc);
+					for (int pos = 0; pos < this.travelCosts.length; ) {
+						int count = Math.min(this.travelCosts.length - pos, CACHE_BUFFER_SIZE / 8);
+						buffer.asDoubleBuffer().put(this.travelCosts, pos, count);
+						buffer.position(count * 8);
+						write(out, buffer, crc);
+						pos += count;
 					}
+					buffer.putLong(crc.getValue());
+					write(out, buffer, null);
 				}
+				// other runs may read the cache at the same time, so only complete files are moved there
+				try {
+					Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tmpFile);
 			}
+		} catch (IOException e) {
+			log.warn("Could not write landmarks to " + file, e);
 		}
-	
+	}
+
+	private static void write(final OutputStream out, final ByteBuffer buffer, final CRC32 crc) throws IOException {
+		if (crc != null) {
+			crc.update(buffer.array(), 0, buffer.position());
+		}
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
 	}
 
 	public Node[] getLandmarks() {
@@ -251,122 +330,170 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		return (LandmarksData) r;
 	}
 
+	/**
+	 * The landmark travel costs of one node, as a view on the array of {@link PreProcessLandmarks}.
+	 */
 	public static class LandmarksData extends DeadEndData {
 
-		private final double[] landmarkTravelTime1;
-		private final double[] landmarkTravelTime2;
+		private final double[] travelCosts;
+		private final int offset;
 
 		LandmarksData(final int landmarkCount) {
-			this.landmarkTravelTime2 = new double[landmarkCount];
-			this.landmarkTravelTime1 = new double[landmarkCount];
-			for (int i = 0; i < this.landmarkTravelTime2.length; i++) {
-				this.landmarkTravelTime2[i] = Double.POSITIVE_INFINITY;
-				this.landmarkTravelTime1[i] = Double.POSITIVE_INFINITY;
-			}
-		}
-
-		void setToLandmarkTravelTime(final int landmarkIndex, final double travelTime) {
-			this.landmarkTravelTime2[landmarkIndex] = travelTime;
-		}
-
-		void setFromLandmarkTravelTime(final int landmarkIndex, final double travelTime) {
-			this.landmarkTravelTime1[landmarkIndex] = travelTime;
+			this(new double[landmarkCount * 2], 0);
+			Arrays.fill(this.travelCosts, Double.POSITIVE_INFINITY);
 		}
 
-		double getToLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime2[landmarkIndex];
-		}
-
-		double getFromLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime1[landmarkIndex];
-		}
-
-		void updateMinMaxTravelTimes() {
-			for (int i = 0; i < this.landmarkTravelTime1.length; i++) {
-				setTravelTimes(i, this.landmarkTravelTime2[i], this.landmarkTravelTime1[i]);
-			}
-		}
-
-		private void setTravelTimes(final int landmarkIndex, final double travelTime1,
-				final double travelTime2) {
-			if (travelTime1 > travelTime2) {
-				this.landmarkTravelTime2[landmarkIndex] = travelTime1;
-				this.landmarkTravelTime1[landmarkIndex] = travelTime2;
-			} else {
-				this.landmarkTravelTime1[landmarkIndex] = travelTime1;
-				this.landmarkTravelTime2[landmarkIndex] = travelTime2;
-			}
+		LandmarksData(final double[] travelCosts, final int offset) {
+			this.travelCosts = travelCosts;
+			this.offset = offset;
 		}
 
 		public double getMinLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime1[landmarkIndex];
+			return this.travelCosts[this.offset + landmarkIndex * 2];
 		}
 
 		public double getMaxLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime2[landmarkIndex];
+			return this.travelCosts[this.offset + landmarkIndex * 2 + 1];
 		}
 	}
 
-    /**
-	 * Sorts the Nodes ascending according to their ToLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
+	/**
+	 * The network as arrays, with the nodes and links in the iteration order of the network.
 	 */
-	private static class LandmarksToTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
+	private static final class Graph {
+
+		private final Node[] nodes;
+		private final int[] nodeIndices;
+		private final int[] outStart;
+		private final int[] outToNodes;
+		private final double[] outCosts;
+		private final int[] inStart;
+		private final int[] inFromNodes;
+		private final double[] inCosts;
+
+		Graph(final Network network, final TravelDisutility costFunction) {
+			this.nodes = network.getNodes().values().toArray(new Node[0]);
+			this.nodeIndices = new int[Id.getNumberOfIds(Node.class)];
+			Arrays.fill(this.nodeIndices, -1);
+			for (int i = 0; i < this.nodes.length; i++) {
+				this.nodeIndices[this.nodes[i].getId().index()] = i;
+			}
 
-		protected LandmarksToTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
+			int linkCount = network.getLinks().size();
+			this.outStart = new int[this.nodes.length + 1];
+			this.outToNodes = new int[linkCount];
+			this.outCosts = new double[linkCount];
+			this.inStart = new int[this.nodes.length + 1];
+			this.inFromNodes = new int[linkCount];
+			this.inCosts = new double[linkCount];
+			int out = 0;
+			int in = 0;
+			for (int i = 0; i < this.nodes.length; i++) {
+				this.outStart[i] = out;
+				for (Link link : this.nodes[i].getOutLinks().values()) {
+					this.outToNodes[out] = getIndex(link.getToNode());
+					this.outCosts[out] = costFunction.getLinkMinimumTravelDisutility(link);
+					out++;
+				}
+				this.inStart[i] = in;
+				for (Link link : this.nodes[i].getInLinks().values()) {
+					this.inFromNodes[in] = getIndex(link.getFromNode());
+					this.inCosts[in] = costFunction.getLinkMinimumTravelDisutility(link);
+					in++;
+				}
+			}
+			this.outStart[this.nodes.length] = out;
+			this.inStart[this.nodes.length] = in;
 		}
 
-		@Override
-		public int compare(final Node n1, final Node n2) {
-
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getToLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getToLandmarkTravelTime(this.landmarkIndex);
+		int getIndex(final Node node) {
+			return this.nodeIndices[node.getId().index()];
+		}
 
-			if (c1 < c2) {
-				return -1;
+		/**
+		 * A 64-bit FNV-1a hash over the node ids, the links with their minimal travel
+		 * disutility, and the landmarks.
+		 */
+		long hash(final int[] landmarkIndices) {
+			long hash = 0xcbf29ce484222325L;
+			hash = hash(hash, this.nodes.length);
+			for (Node node : this.nodes) {
+				hash = hash(hash, node.getId().toString().hashCode());
 			}
-			if (c1 > c2) {
-				return +1;
+			for (int i = 0; i < this.nodes.length; i++) {
+				for (int l = this.outStart[i]; l < this.outStart[i + 1]; l++) {
+					hash = hash(hash, i);
+					hash = hash(hash, this.outToNodes[l]);
+					hash = hash(hash, Double.doubleToLongBits(this.outCosts[l]));
+				}
+			}
+			for (int landmark : landmarkIndices) {
+				hash = hash(hash, landmark);
+			}
+			return hash;
+		}
+
+		private static long hash(long hash, final long value) {
+			for (int i = 0; i < 8; i++) {
+				hash ^= (value >>> (i * 8)) & 0xff;
+				hash *= 0x100000001b3L;
 			}
-			return n1.getId().compareTo(n2.getId());
+			return hash;
 		}
 	}
 
-	/**
-	 * Sorts the Nodes ascending according to their FromLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksFromTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
+	private static class Calculator implements Callable<Void> {
+		
+		private final int landmarkIdx;
+		private final int landmark;
+		private final int landmarkCount;
+		private final Graph graph;
+		private final double[] travelCosts;
 		
-		protected LandmarksFromTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
+		public Calculator(final int landmarkIdx, final int landmark, final int landmarkCount, final Graph graph, final double[] travelCosts) {
+			this.landmarkIdx = landmarkIdx;
+			this.landmark = landmark;
+			this.landmarkCount = landmarkCount;
+			this.graph = graph;
+			this.travelCosts = travelCosts;
 		}
 		
 		@Override
-		public int compare(final Node n1, final Node n2) {
-			
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getFromLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getFromLandmarkTravelTime(this.landmarkIndex);
-			
-			if (c1 < c2) {
-				return -1;
+		public Void call() {
+			IntBinaryMinHeap pendingNodes = new IntBinaryMinHeap(this.graph.nodes.length);
+			double[] fromCosts = expand(pendingNodes, this.graph.outStart, this.graph.outToNodes, this.graph.outCosts);
+			pendingNodes.reset();
+			double[] toCosts = expand(pendingNodes, this.graph.inStart, this.graph.inFromNodes, this.graph.inCosts);
+			for (int i = 0; i < fromCosts.length; i++) {
+				int pos = (i * this.landmarkCount + this.landmarkIdx) * 2;
+				this.travelCosts[pos] = Math.min(fromCosts[i], toCosts[i]);
+				this.travelCosts[pos + 1] = Math.max(fromCosts[i], toCosts[i]);
 			}
-			if (c1 > c2) {
-				return +1;
+			return null;
+		}
+
+		/**
+		 * Dijkstra from the landmark over the given adjacency arrays.
+		 */
+		private double[] expand(final IntBinaryMinHeap pendingNodes, final int[] start, final int[] adjacentNodes, final double[] costs) {
+			double[] nodeCosts = new double[this.graph.nodes.length];
+			Arrays.fill(nodeCosts, Double.POSITIVE_INFINITY);
+			nodeCosts[this.landmark] = 0.0;
+			pendingNodes.add(this.landmark, 0.0);
+			while (!pendingNodes.isEmpty()) {
+				int node = pendingNodes.poll();
+				double nodeCost = nodeCosts[node];
+				for (int l = start[node]; l < start[node + 1]; l++) {
+					int n = adjacentNodes[l];
+					double totalCost = nodeCost + costs[l];
+					if (nodeCosts[n] > totalCost) {
+						nodeCosts[n] = totalCost;
+						pendingNodes.decreaseKey(n, totalCost);
+					}
+				}
 			}
-			return n1.getId().compareTo(n2.getId());
+			return nodeCosts;
 		}
 	}
-	
+
 }
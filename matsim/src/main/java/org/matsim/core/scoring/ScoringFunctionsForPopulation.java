@@ -26,6 +26,8 @@ import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
@@ -41,7 +43,9 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.HasPersonId;
 import org.matsim.core.controler.ControlerListenerManager;
 import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.population.PopulationUtils;
@@ -53,11 +57,14 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.matsim.core.router.TripStructureUtils.Trip;
@@ -66,6 +73,13 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p></p>
+ * With {@link org.matsim.core.config.groups.PlanCalcScoreConfigGroup#getNumberOfScoringThreads()} &gt; 1, the persons are
+ * distributed by their {@link Id#index()} to that number of scoring threads. This class then only passes the events, and the
+ * legs and activities of the bound {@link EventsToLegs} and {@link EventsToActivities}, on to the thread of the person they
+ * belong to, where they are scored. As all of them are handled by the same thread in the same order, the scores are the
+ * same as when scoring on the events handling thread. {@link #finishScoringFunctions()} waits until all threads have
+ * handled everything passed on so far; the threads are stopped on shutdown.
  * 
  * @author michaz
  *
@@ -92,10 +106,15 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	 *
 	 * cdobler, nov'15
 	 */
-	private final Map<Id<Person>, ScoringFunction> agentScorers = new HashMap<>();
+	private final Map<Id<Person>, ScoringFunction> agentScorers = new IdMap<>(Person.class);
 	private final Map<Id<Person>, TDoubleCollection> partialScores = new LinkedHashMap<>();
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
-	private final Map<Id<Person>, Plan> tripRecords = new LinkedHashMap<>() ;
+	private final Map<Id<Person>, Plan> tripRecords = new IdMap<>(Person.class) ;
+	// (the trip records are needed for ScoringFunction.handleTrip(...), so they are always collected.  The partial scores are only
+	// collected if they are written out, together with the experienced plans.)
+	private final boolean collectingPartialScores;
+
+	private final ScoringShard[] shards;
 	
 //	/**
 //	 * For something like the bicycle scoring, we need to know individual links at the level of the scoring function.  This is a first sketch how this could be implemented.
@@ -108,31 +127,68 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	private TripRouter tripRouter;
 
 	@Inject
+	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+						 Scenario scenario, ScoringFunctionFactory scoringFunctionFactory) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, scenario.getPopulation(), scoringFunctionFactory,
+				scenario.getConfig().planCalcScore().getNumberOfScoringThreads(), scenario.getConfig().planCalcScore().isWriteExperiencedPlans());
+	}
+
 	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 						 Population population, ScoringFunctionFactory scoringFunctionFactory) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, 0, true);
+	}
+
+	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+						 Population population, ScoringFunctionFactory scoringFunctionFactory, int numberOfScoringThreads,
+						 boolean collectingPartialScores ) {
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
-				init();
+				init(event.getIteration());
 			}
 		});
 		this.population = population;
 		this.scoringFunctionFactory = scoringFunctionFactory;
+		this.collectingPartialScores = collectingPartialScores;
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this);
 		eventsToLegs.addLegHandler(this);
-//		if ( passLinkEventsToPerson ) {
+		if (numberOfScoringThreads > 1) {
+			this.shards = new ScoringShard[numberOfScoringThreads];
+			for (int i = 0; i < numberOfScoringThreads; i++) {
+				this.shards[i] = new ScoringShard("ScoringThread." + i);
+			}
+			// the vehicles are assigned to their drivers in handleEvent(...), on the events handling thread
+			controlerListenerManager.addControlerListener(new ShutdownListener() {
+				@Override
+				public void notifyShutdown(ShutdownEvent event) {
+					stopShards();
+				}
+			});
+		} else {
+			this.shards = null;
+//			if ( passLinkEventsToPerson ) {
 			eventsManager.addHandler(this.vehicles2Drivers);
-//		}
+//			}
+		}
 	}
 
-	private void init() {
+	private void init(int iteration) {
 		for (Person person : this.population.getPersons().values()) {
 			ScoringFunction data = this.scoringFunctionFactory.createNewScoringFunction(person);
 			this.agentScorers.put(person.getId(), data);
-			this.partialScores.put(person.getId(), new TDoubleArrayList());
+			if (this.collectingPartialScores) {
+				this.partialScores.put(person.getId(), new TDoubleArrayList());
+			}
 			this.tripRecords.put(person.getId(), PopulationUtils.createPlan());
 		}
+		if (this.shards != null) {
+			getStageActivities(); // initialize before the threads use it
+			this.vehicles2Drivers.reset(iteration);
+			for (ScoringShard shard : this.shards) {
+				shard.reset(iteration);
+			}
+		}
 	}
 
 	private StageActivityTypes getStageActivities() {
@@ -158,6 +214,37 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleEvent(Event o) {
+		if (this.shards != null) {
+			dispatchEvent(o);
+		} else {
+			scoreEvent(o, this.vehicles2Drivers);
+		}
+	}
+
+	/**
+	 * Passes the event to the scoring thread of the person it belongs to. Events which belong to no person are not scored.
+	 */
+	private void dispatchEvent(Event o) {
+		if (o instanceof HasPersonId) {
+			if (o instanceof VehicleEntersTrafficEvent) {
+				this.vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+			} else if (o instanceof VehicleLeavesTrafficEvent) {
+				this.vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+			}
+			getShard(((HasPersonId) o).getPersonId()).add(o);
+		} else if (o instanceof LinkEnterEvent) {
+			Id<Person> driverId = this.vehicles2Drivers.getDriverOfVehicle(((LinkEnterEvent) o).getVehicleId());
+			if (driverId != null) {
+				getShard(driverId).add(o);
+			}
+		}
+	}
+
+	private ScoringShard getShard(Id<Person> personId) {
+		return this.shards[personId.index() % this.shards.length];
+	}
+
+	private void scoreEvent(Event o, Vehicle2DriverEventHandler vehicles2Drivers) {
 		// this is for the stuff that is directly based on events.
 		// note that this passes on _all_ person events, even those which are aggregated into legs and activities.
 		// for the time being, not all PersonEvents may "implement HasPersonId".
@@ -182,15 +269,15 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 //		if ( passLinkEventsToPerson ) {
 			// Establish and end connection between driver and vehicle
 			if (o instanceof VehicleEntersTrafficEvent) {
-				this.vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+				vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
 			}
 			if (o instanceof VehicleLeavesTrafficEvent) {
-				this.vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+				vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
 			}
 			// Pass LinkEnterEvent to person scoring, required e.g. for bicycle where link attributes are observed in scoring
 			if ( o instanceof LinkEnterEvent ) {
 				Id<Vehicle> vehicleId = ((LinkEnterEvent)o).getVehicleId() ;
-				Id<Person> driverId = this.vehicles2Drivers.getDriverOfVehicle(vehicleId) ;
+				Id<Person> driverId = vehicles2Drivers.getDriverOfVehicle(vehicleId) ;
 				ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 				// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 				if (scoringFunction != null) {
@@ -209,13 +296,23 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
+		if (this.shards != null) {
+			getShard(o.getAgentId()).add(o);
+		} else {
+			scoreLeg(o);
+		}
+	}
+
+	private void scoreLeg(PersonExperiencedLeg o) {
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
 			scoringFunction.handleLeg(leg);
-			TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			if (this.collectingPartialScores) {
+				TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
+				partialScoresForAgent.add(scoringFunction.getScore());
+			}
 		}
 		Plan plan = this.tripRecords.get( agentId ) ; // as container for trip
 		if ( plan!=null ) {
@@ -225,13 +322,23 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleActivity(PersonExperiencedActivity o) {
+		if (this.shards != null) {
+			getShard(o.getAgentId()).add(o);
+		} else {
+			scoreActivity(o);
+		}
+	}
+
+	private void scoreActivity(PersonExperiencedActivity o) {
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
 			scoringFunction.handleActivity(activity);
-			TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			if (this.collectingPartialScores) {
+				TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
+				partialScoresForAgent.add(scoringFunction.getScore());
+			}
 		}
 		
 		Plan plan = this.tripRecords.get( agentId ); // as container for trip
@@ -281,6 +388,14 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	public void finishScoringFunctions() {
+		if (this.shards != null) {
+			for (ScoringShard shard : this.shards) {
+				shard.finish();
+			}
+			for (ScoringShard shard : this.shards) {
+				shard.awaitFinished();
+			}
+		}
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = this.exception.get();
 		if (throwable != null) {
@@ -298,6 +413,12 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		}
 	}
 
+	private void stopShards() {
+		for (ScoringShard shard : this.shards) {
+			shard.stop();
+		}
+	}
+
 	public void writePartialScores(String iterationFilename) {
 		try ( BufferedWriter out = IOUtils.getBufferedWriter(iterationFilename) ) {
 			for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
@@ -318,6 +439,122 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	}
 
+	/**
+	 * Scores the persons of one scoring thread. The events, legs and activities are passed in batches from the events
+	 * handling thread.
+	 */
+	private final class ScoringShard implements Runnable {
+
+		private static final int BATCH_SIZE = 1024;
+
+		private final Object[] resetMarker = new Object[0];
+		private final Object[] finishMarker = new Object[0];
+		private final Object[] stopMarker = new Object[0];
+
+		private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(64);
+		private Object[] batch = new Object[BATCH_SIZE];
+		private int batchSize = 0;
+		private volatile CountDownLatch finished = new CountDownLatch(1);
+		private int iteration = 0;
+
+		private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+		private final Thread thread;
+
+		ScoringShard(String name) {
+			this.thread = new Thread(this, name);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		/** called by the events handling thread, with an {@link Event}, a {@link PersonExperiencedLeg} or a {@link PersonExperiencedActivity} */
+		void add(Object o) {
+			this.batch[this.batchSize++] = o;
+			if (this.batchSize == BATCH_SIZE) {
+				put(this.batch);
+				this.batch = new Object[BATCH_SIZE];
+				this.batchSize = 0;
+			}
+		}
+
+		void reset(int iteration) {
+			this.iteration = iteration;
+			put(this.resetMarker);
+		}
+
+		void finish() {
+			if (this.batchSize > 0) {
+				put(Arrays.copyOf(this.batch, this.batchSize));
+				this.batchSize = 0;
+			}
+			this.finished = new CountDownLatch(1);
+			put(this.finishMarker);
+		}
+
+		void awaitFinished() {
+			try {
+				this.finished.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		void stop() {
+			put(this.stopMarker);
+			try {
+				this.thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		private void put(Object[] batch) {
+			try {
+				this.queue.put(batch);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				Object[] batch;
+				try {
+					batch = this.queue.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (batch == this.stopMarker) {
+					return;
+				}
+				try {
+					if (batch == this.resetMarker) {
+						this.vehicles2Drivers.reset(this.iteration);
+					} else if (batch != this.finishMarker && exception.get() == null) {
+						for (Object o : batch) {
+							handle(o);
+						}
+					}
+				} catch (Throwable t) {
+					exception.compareAndSet(null, t);
+				}
+				if (batch == this.finishMarker) {
+					this.finished.countDown();
+				}
+			}
+		}
+
+		private void handle(Object o) {
+			if (o instanceof Event) {
+				scoreEvent((Event) o, this.vehicles2Drivers);
+			} else if (o instanceof PersonExperiencedLeg) {
+				scoreLeg((PersonExperiencedLeg) o);
+			} else {
+				scoreActivity((PersonExperiencedActivity) o);
+			}
+		}
+	}
+
 //	public boolean isPassLinkEventsToPerson() {
 //		return passLinkEventsToPerson;
 //	}
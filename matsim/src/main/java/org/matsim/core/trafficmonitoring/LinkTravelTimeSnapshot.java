@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkTravelTimeSnapshot.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * Immutable, consolidated link travel times per time bin, as published by {@link StripedLinkTravelTimes}.
+ * The travel times of each link are exposed as read-only {@link TravelTimeData}, so the configured
+ * {@link TravelTimeGetter} can be applied to them. Can be used by any number of threads concurrently.
+ */
+final class LinkTravelTimeSnapshot {
+
+	private final TravelTimeData[] linkData;
+	private final double[] travelTimes;
+
+	LinkTravelTimeSnapshot(final Link[] links, final double[] travelTimes, final int numSlots) {
+		this.travelTimes = travelTimes;
+		this.linkData = new TravelTimeData[links.length];
+		for (int i = 0; i < links.length; i++) {
+			if (links[i] != null) {
+				this.linkData[i] = new SnapshotTravelTimeData(travelTimes, i * numSlots);
+			}
+		}
+	}
+
+	/**
+	 * @return the travel times of the link, or <code>null</code> if the link is not known.
+	 */
+	TravelTimeData getTravelTimeData(final Link link) {
+		int index = link.getId().index();
+		return index < this.linkData.length ? this.linkData[index] : null;
+	}
+
+	/** @return the travel times of all links, with the time bins of each link following each other. Must not be modified. */
+	double[] getTravelTimes() {
+		return this.travelTimes;
+	}
+
+	/**
+	 * Read-only travel times of one link, stored in an array from <code>offset</code> on.
+	 */
+	static final class SnapshotTravelTimeData extends TravelTimeData {
+
+		private final double[] travelTimes;
+		private final int offset;
+
+		SnapshotTravelTimeData(final double[] travelTimes, final int offset) {
+			this.travelTimes = travelTimes;
+			this.offset = offset;
+			setNeedsConsolidation(false);
+		}
+
+		@Override
+		public void resetTravelTimes() {
+			throw new UnsupportedOperationException("Snapshots cannot be modified.");
+		}
+
+		@Override
+		void addTravelTime(final int timeSlot, final double traveltime) {
+			throw new UnsupportedOperationException("Snapshots cannot be modified.");
+		}
+
+		@Override
+		void setTravelTime(final int timeSlot, final double traveltime) {
+			throw new UnsupportedOperationException("Snapshots cannot be modified.");
+		}
+
+		@Override
+		double getTravelTime(final int timeSlot, final double now) {
+			return this.travelTimes[this.offset + timeSlot];
+		}
+	}
+
+}
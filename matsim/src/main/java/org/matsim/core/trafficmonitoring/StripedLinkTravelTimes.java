@@ -0,0 +1,248 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StripedLinkTravelTimes.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeSmoothing;
+
+/**
+ * Collects the link travel times of the {@link TravelTimeCalculator} in flat arrays, with one entry per link
+ * and time bin, indexed by {@link Id#index()} of the links. This replaces one {@link TravelTimeData} object per
+ * link.
+ * <p>
+ * Travel times are added under one of {@value #STRIPES} locks, chosen by the link index, so concurrent writers
+ * or a concurrent {@link #getSnapshot()} only block each other when they access links of the same stripe.
+ * Between the iterations, queries read an immutable {@link LinkTravelTimeSnapshot} with the consolidated
+ * travel times of all links, so all router threads read the same snapshot without any locking. The snapshot
+ * is built explicitly by {@link #getSnapshot()}, usually at the end of an iteration. Once travel times were
+ * added after the snapshot was built, e.g. during the mobsim, {@link #getTravelTimeData(Link)} consolidates the
+ * travel times of the requested link only, so single queries never pay for consolidating the whole network.
+ * <p>
+ * Travel times on links that were not part of the network when this object was created are ignored, queries
+ * for such links return the free speed travel time.
+ * <p>
+ * With a {@link TravelTimeSmoothing} other than <code>none</code>, the travel times are kept over the iterations:
+ * {@link #reset()} does not throw them away, but stores the travel times of the last snapshot, and the travel times
+ * collected afterwards are blended into them.
+ */
+final class StripedLinkTravelTimes {
+
+	private static final int STRIPES = 64;
+
+	private final int numSlots;
+	private final int timeSlice;
+	private final Link[] links;
+	private final double[] timeSum;
+	private final int[] timeCnt;
+	private final Object[] locks = new Object[STRIPES];
+
+	private volatile boolean changed = true;
+	private volatile LinkTravelTimeSnapshot snapshot = null;
+
+	private final TravelTimeSmoothing smoothing;
+	private final double smoothingFactor;
+	/** the travel times of the previous iterations, if smoothing is enabled and at least one iteration was stored */
+	private volatile double[] previousTravelTimes = null;
+	private volatile int numberOfPreviousIterations = 0;
+	private volatile boolean hasNewTravelTimes = false;
+
+	StripedLinkTravelTimes(final Network network, final int numSlots, final int timeSlice) {
+		this(network, numSlots, timeSlice, TravelTimeSmoothing.none, 1.0);
+	}
+
+	StripedLinkTravelTimes(final Network network, final int numSlots, final int timeSlice,
+			final TravelTimeSmoothing smoothing, final double smoothingFactor) {
+		this.numSlots = numSlots;
+		this.timeSlice = timeSlice;
+		this.smoothing = smoothing;
+		this.smoothingFactor = smoothingFactor;
+		int maxIndex = -1;
+		for (Link link : network.getLinks().values()) {
+			maxIndex = Math.max(maxIndex, link.getId().index());
+		}
+		this.links = new Link[maxIndex + 1];
+		for (Link link : network.getLinks().values()) {
+			this.links[link.getId().index()] = link;
+		}
+		this.timeSum = new double[this.links.length * numSlots];
+		this.timeCnt = new int[this.links.length * numSlots];
+		for (int i = 0; i < STRIPES; i++) {
+			this.locks[i] = new Object();
+		}
+		// the free speed travel times, for the queries before the first iteration
+		getSnapshot();
+	}
+
+	void addTravelTime(final Id<Link> linkId, final int timeSlot, final double travelTime) {
+		int index = linkId.index();
+		if (index >= this.links.length || this.links[index] == null) {
+			return;
+		}
+		int pos = index * this.numSlots + timeSlot;
+		synchronized (this.locks[index % STRIPES]) {
+			this.timeSum[pos] += travelTime;
+			this.timeCnt[pos]++;
+		}
+		this.changed = true;
+		this.hasNewTravelTimes = true;
+	}
+
+	void reset() {
+		if (this.smoothing != TravelTimeSmoothing.none && this.hasNewTravelTimes) {
+			synchronized (this) {
+				this.previousTravelTimes = getSnapshot().getTravelTimes();
+				this.numberOfPreviousIterations++;
+			}
+		}
+		this.hasNewTravelTimes = false;
+		for (int stripe = 0; stripe < STRIPES; stripe++) {
+			synchronized (this.locks[stripe]) {
+				for (int index = stripe; index < this.links.length; index += STRIPES) {
+					int from = index * this.numSlots;
+					Arrays.fill(this.timeSum, from, from + this.numSlots, 0.0);
+					Arrays.fill(this.timeCnt, from, from + this.numSlots, 0);
+				}
+			}
+		}
+		this.changed = true;
+	}
+
+	/**
+	 * @return the travel times of the link, or <code>null</code> if the link is not known. These are taken from the
+	 * current snapshot if no travel times were added since it was built, otherwise they are consolidated for this link.
+	 */
+	TravelTimeData getTravelTimeData(final Link link) {
+		LinkTravelTimeSnapshot current = this.snapshot;
+		if (!this.changed && current != null) {
+			return current.getTravelTimeData(link);
+		}
+		int index = link.getId().index();
+		if (index >= this.links.length || this.links[index] == null) {
+			return null;
+		}
+		double[] travelTimes = new double[this.numSlots];
+		synchronized (this.locks[index % STRIPES]) {
+			consolidate(index, travelTimes, 0);
+		}
+		if (this.smoothing != TravelTimeSmoothing.none) {
+			blendWithPreviousTravelTimes(index, travelTimes, 0);
+		}
+		return new LinkTravelTimeSnapshot.SnapshotTravelTimeData(travelTimes, 0);
+	}
+
+	/**
+	 * Builds a new snapshot of all links if travel times were added since the current one was built. This takes
+	 * time proportional to the number of links and time bins, so it should be called once after the travel times
+	 * of an iteration are complete, not per query.
+	 *
+	 * @return a snapshot containing all travel times added before this call.
+	 */
+	LinkTravelTimeSnapshot getSnapshot() {
+		LinkTravelTimeSnapshot current = this.snapshot;
+		if (!this.changed && current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (!this.changed && this.snapshot != null) {
+				return this.snapshot;
+			}
+			// reset the flag before reading the data, so travel times added while reading lead to a new snapshot later on
+			this.changed = false;
+			double[] travelTimes = new double[this.timeSum.length];
+			for (int stripe = 0; stripe < STRIPES; stripe++) {
+				synchronized (this.locks[stripe]) {
+					for (int index = stripe; index < this.links.length; index += STRIPES) {
+						if (this.links[index] != null) {
+							consolidate(index, travelTimes, index * this.numSlots);
+						}
+					}
+				}
+			}
+			if (this.smoothing != TravelTimeSmoothing.none) {
+				blendWithPreviousTravelTimes(travelTimes);
+			}
+			this.snapshot = new LinkTravelTimeSnapshot(this.links, travelTimes, this.numSlots);
+			return this.snapshot;
+		}
+	}
+
+	/**
+	 * Blends the travel times of all links with the ones of the previous iterations.
+	 */
+	private void blendWithPreviousTravelTimes(final double[] travelTimes) {
+		for (int index = 0; index < this.links.length; index++) {
+			if (this.links[index] != null) {
+				blendWithPreviousTravelTimes(index, travelTimes, index * this.numSlots);
+			}
+		}
+	}
+
+	/**
+	 * Blends the travel times of one link, stored in <code>travelTimes</code> from <code>offset</code> on, with the ones
+	 * of the previous iterations.
+	 */
+	private void blendWithPreviousTravelTimes(final int index, final double[] travelTimes, final int offset) {
+		double[] previous = this.previousTravelTimes;
+		if (previous == null) {
+			// the first iteration, nothing to blend with
+			return;
+		}
+		int from = index * this.numSlots;
+		if (!this.hasNewTravelTimes) {
+			// nothing collected since the last reset, so keep the travel times of the previous iterations
+			System.arraycopy(previous, from, travelTimes, offset, this.numSlots);
+			return;
+		}
+		double weight = this.smoothing == TravelTimeSmoothing.msa ? 1.0 / (this.numberOfPreviousIterations + 1) : this.smoothingFactor;
+		for (int i = 0; i < this.numSlots; i++) {
+			double previousTravelTime = previous[from + i];
+			travelTimes[offset + i] = previousTravelTime + weight * (travelTimes[offset + i] - previousTravelTime);
+		}
+	}
+
+	/**
+	 * Calculates the average travel time per time bin, uses the free speed travel time for empty bins, and
+	 * makes sure the travel time does not drop faster than the time passes, the same way as the
+	 * {@link TravelTimeCalculator} consolidates its {@link TravelTimeData}. The travel times of the link are
+	 * written to <code>travelTimes</code> from <code>offset</code> on. The caller must hold the lock of the link's stripe.
+	 */
+	private void consolidate(final int index, final double[] travelTimes, final int offset) {
+		Link link = this.links[index];
+		int from = index * this.numSlots;
+		double prevTravelTime = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < this.numSlots; i++) {
+			int pos = from + i;
+			int cnt = this.timeCnt[pos];
+			double travelTime = cnt == 0 ? link.getLength() / link.getFreespeed(i * this.timeSlice) : this.timeSum[pos] / cnt;
+			double minTravelTime = prevTravelTime - this.timeSlice;
+			if (travelTime < minTravelTime) {
+				travelTime = minTravelTime;
+			}
+			travelTimes[offset + i] = travelTime;
+			prevTravelTime = travelTime;
+		}
+	}
+
+}
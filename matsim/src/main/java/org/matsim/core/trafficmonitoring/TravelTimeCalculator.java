@@ -22,6 +22,7 @@ package org.matsim.core.trafficmonitoring;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdSet;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
 import org.matsim.api.core.v01.network.Link;
@@ -32,6 +33,8 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeSmoothing;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
@@ -40,7 +43,6 @@ import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -56,6 +58,15 @@ import java.util.concurrent.ConcurrentHashMap;
  * use {@link TravelTimeDataHashMap},}
  * as that one does not use any memory to time bins where no traffic occurred. By default,
  * {@link TravelTimeDataArray} is used.
+ * <br>
+ * With {@link TravelTimeCalculatorType#TravelTimeCalculatorStripedArray}, the link travel times are instead
+ * collected in flat arrays over all links, see {@link StripedLinkTravelTimes}. After
+ * {@link #publishLinkTravelTimes()}, queries read an immutable snapshot of the consolidated travel times and do not
+ * need to synchronize, which is faster when many router threads ask for the travel times of the same links.
+ * <br>
+ * With a {@link TravelTimeSmoothing} other than <code>none</code>, the link travel times are not thrown away
+ * between the iterations, but blended with the ones of the previous iterations. This is only implemented for
+ * {@link TravelTimeCalculatorType#TravelTimeCalculatorStripedArray}.
  *
  * @author dgrether
  * @author mrieser
@@ -79,6 +90,8 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private final DataContainerProvider dataContainerProvider;
 
+	private StripedLinkTravelTimes stripedLinkData = null;
+
 	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
 
 	private final Set<Id<Vehicle>> vehiclesToIgnore;
@@ -106,6 +119,11 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	private static TravelTimeCalculator configure(TravelTimeCalculator calculator, TravelTimeCalculatorConfigGroup config, Network network) {
 		// This should be replaced by a builder if we need the functionality.  kai/mads, feb'19
 
+		if (config.getTravelTimeSmoothing() != TravelTimeSmoothing.none
+				&& config.getTravelTimeCalculatorType() != TravelTimeCalculatorType.TravelTimeCalculatorStripedArray) {
+			throw new RuntimeException("travel time smoothing " + config.getTravelTimeSmoothing() + " is only implemented for "
+					+ TravelTimeCalculatorType.TravelTimeCalculatorStripedArray + ", but " + config.getTravelTimeCalculatorType() + " is configured.");
+		}
 
 		// Customize micro-behavior of the TravelTimeCalculator based on config. Should not be necessary for most use cases.
 		switch ( config.getTravelTimeCalculatorType() ) {
@@ -115,6 +133,14 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			case TravelTimeCalculatorHashMap:
 				calculator.ttDataFactory = new TravelTimeDataHashMapFactory(network);
 				break;
+			case TravelTimeCalculatorStripedArray:
+				calculator.ttDataFactory = new TravelTimeDataArrayFactory(network, calculator.numSlots);
+				// (still used for link-to-link travel times)
+				if (calculator.calculateLinkTravelTimes) {
+					calculator.stripedLinkData = new StripedLinkTravelTimes(network, calculator.numSlots, calculator.timeSlice,
+							config.getTravelTimeSmoothing(), config.getTravelTimeSmoothingFactor());
+				}
+				break;
 			default:
 				throw new RuntimeException(config.getTravelTimeCalculatorType() + " is unknown!");
 		}
@@ -255,7 +281,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.vehiclesToIgnore = new IdSet<>(Vehicle.class);
 
 
 		this.reset(0);
@@ -286,10 +312,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		if (this.calculateLinkTravelTimes) {
 			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
 			if (oldEvent != null) {
-				TravelTimeData data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
 				double enterTime = oldEvent.getTime();
-
 				final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
+				if (this.stripedLinkData != null) {
+					this.stripedLinkData.addTravelTime(e.getLinkId(), timeSlot, e.getTime() - enterTime);
+					return;
+				}
+				TravelTimeData data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
 				data.addTravelTime(timeSlot, e.getTime() - enterTime );
 				data.setNeedsConsolidation( true );
 			}
@@ -329,8 +358,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	public void handleEvent(VehicleAbortsEvent event) {
 		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
 		if (e != null) {
-			TravelTimeData data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
-			data.setNeedsConsolidation( true );
+			if (this.stripedLinkData == null) {
+				TravelTimeData data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
+				data.setNeedsConsolidation( true );
+			}
 
 			//			this.aggregator.addStuckEventTravelTime(data, e.getTime(), event.getTime());
 			// this functionality is no longer there.
@@ -367,6 +398,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	private double getLinkTravelTime(final Link link, final double time) {
 		if (this.calculateLinkTravelTimes) {
 
+			if (this.stripedLinkData != null) {
+				TravelTimeData data = this.stripedLinkData.getTravelTimeData(link);
+				if (data == null) {
+					return link.getLength() / link.getFreespeed(time);
+				}
+				return this.travelTimeGetter.getTravelTime( data, time );
+			}
 			TravelTimeData data = this.dataContainerProvider.getTravelTimeData(link, true);
 			if ( data.isNeedingConsolidation() ) {
 				consolidateData(data);
@@ -420,6 +458,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	@Override
 	public void reset(int iteration) {
+		if (this.stripedLinkData != null) {
+			this.stripedLinkData.reset();
+		}
 		if (this.calculateLinkTravelTimes) {
 			for (TravelTimeData data : this.linkData.values()){
 				data.resetTravelTimes();
@@ -540,6 +581,19 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	}
 
+	/**
+	 * Consolidates the link travel times collected so far into one snapshot, which is read by all queries until
+	 * further travel times are added. Until the next call, e.g. during the mobsim, queries consolidate the travel
+	 * times of the requested link only. Has only an effect with
+	 * {@link TravelTimeCalculatorType#TravelTimeCalculatorStripedArray} or travel time smoothing.
+	 * {@link TravelTimeCalculatorModule} calls this at the end of each iteration.
+	 */
+	public void publishLinkTravelTimes() {
+		if (this.stripedLinkData != null) {
+			this.stripedLinkData.getSnapshot();
+		}
+	}
+
 	public LinkToLinkTravelTime getLinkToLinkTravelTimes() {
 		return new LinkToLinkTravelTime() {
 
@@ -30,11 +30,17 @@ import com.google.inject.name.Names;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType;
 import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Provider;
 
@@ -50,6 +56,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 	@Override
 	public void install() {
+		List<Key<TravelTimeCalculator>> calculatorKeys = new ArrayList<>();
 		if (getConfig().travelTimeCalculator().getSeparateModes()) {
 			if (getConfig().travelTimeCalculator().isCalculateLinkToLinkTravelTimes()) {
 				throw new RuntimeException("separate modes together with link2link routing currently not implemented. doesn't look difficult, "
@@ -61,6 +68,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 				// generate and bind the observer:
 				bind(TravelTimeCalculator.class).annotatedWith(Names.named(mode)).toProvider(new SingleModeTravelTimeCalculatorProvider(mode)).in(Singleton.class);
+				calculatorKeys.add(Key.get(TravelTimeCalculator.class, Names.named(mode)));
 
 				// bind the observer to travel time provider (for router):
 				addTravelTimeBinding(mode).toProvider(new Provider<TravelTime>() {
@@ -76,6 +84,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 			
 			// bind the TravelTimeCalculator, which is the observer and aggregator:
 			bind(TravelTimeCalculator.class).in(Singleton.class);
+			calculatorKeys.add(Key.get(TravelTimeCalculator.class));
 			
 			// bind the TravelTime objects.  In this case, this just passes on the same information from TravelTimeCalculator to each individual mode:
 			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
@@ -89,6 +98,31 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 			}
 		}
 
+		if (getConfig().travelTimeCalculator().getTravelTimeCalculatorType() == TravelTimeCalculatorType.TravelTimeCalculatorStripedArray) {
+			addControlerListenerBinding().toInstance(new LinkTravelTimesPublisher(calculatorKeys));
+		}
+	}
+
+	/**
+	 * Publishes the link travel times of the iteration once all its events are handled, so the router threads of the
+	 * next iteration read the same snapshot instead of consolidating the travel times per query.
+	 */
+	private static class LinkTravelTimesPublisher implements IterationEndsListener {
+
+		@Inject Injector injector;
+
+		private final List<Key<TravelTimeCalculator>> calculatorKeys;
+
+		LinkTravelTimesPublisher(List<Key<TravelTimeCalculator>> calculatorKeys) {
+			this.calculatorKeys = calculatorKeys;
+		}
+
+		@Override
+		public void notifyIterationEnds(IterationEndsEvent event) {
+			for (Key<TravelTimeCalculator> key : this.calculatorKeys) {
+				this.injector.getInstance(key).publishLinkTravelTimes();
+			}
+		}
 	}
 
 	private static class SingleModeTravelTimeCalculatorProvider implements Provider<TravelTimeCalculator> {
@@ -0,0 +1,657 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedQuadTree.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link QuadTree} which stores its points in flat arrays of primitive coordinates, organized
+ * as an implicit kd-tree: the points are ordered such that the middle point of every range splits
+ * the range along x or y, alternating by level. There are no node or leaf objects, so this needs
+ * much less memory than the {@link QuadTree} and the queries mostly scan contiguous memory.
+ * <p>
+ * The index is built in bulk: {@link #put(double, double, Object)} only appends the point, the
+ * kd-tree is (re-)built at the next query. This makes the class well suited for data which is
+ * added once and then queried many times (facilities, transit stops), but expensive if points are
+ * added between queries. Removing points is cheap, they are only marked as removed.
+ * <p>
+ * As in the {@link QuadTree}, {@link #put(double, double, Object)} returns <code>false</code> if
+ * the same (equal) object is already stored at the same location. The points added since the
+ * index was last built are found by a hash table of their positions in the arrays, which is
+ * dropped when the index is built. Different from the {@link QuadTree}, the iterator of
+ * {@link #values()} supports {@link Iterator#remove()}. The order of {@link #values()} and of
+ * objects at the same distance differs from the one of the {@link QuadTree}.
+ * <p>
+ * Like the {@link QuadTree}, this class is not thread-safe when points are added or removed.
+ * Queries can be run concurrently by several threads.
+ *
+ * @param <T> The type of data to be stored in the QuadTree.
+ */
+public class PackedQuadTree<T> extends QuadTree<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** ranges with at most so many points are scanned linearly instead of being split further. */
+	private static final int LEAF_SIZE = 64;
+
+	private double[] xs = new double[16];
+	private double[] ys = new double[16];
+	private Object[] objects = new Object[16];
+	/** number of used entries in the arrays, including removed ones */
+	private int count = 0;
+	/** number of entries which are organized as kd-tree, the ones after were added since the index was built */
+	private int indexed = 0;
+	/** open addressing hash table of the entries added since the index was built, storing index + 1 */
+	private int[] added = null;
+	private int size = 0;
+	private transient int modCount = 0;
+	private volatile boolean dirty = false;
+
+	/**
+	 * Creates an empty PackedQuadTree with the bounds minX/minY -- maxX/maxY.
+	 *
+	 * @param minX The smallest x coordinate (easting, longitude) expected
+	 * @param minY The smallest y coordinate (northing, latitude) expected
+	 * @param maxX The largest x coordinate (easting, longitude) expected
+	 * @param maxY The largest y coordinate (northing, latitude) expected
+	 */
+	public PackedQuadTree(final double minX, final double minY, final double maxX, final double maxY) {
+		super(minX, minY, maxX, maxY);
+	}
+
+	@Override
+	public boolean put(final double x, final double y, final T value) {
+		if (!this.top.getBounds().containsOrEquals(x, y)) {
+			throw new IllegalArgumentException("cannot add a point at x=" + x + ", y=" + y + " with bounds " + this.top.getBounds());
+		}
+		if (find(0, this.indexed, 0, x, y, value) >= 0 || findAdded(x, y, value) >= 0) {
+			return false;
+		}
+		if (this.count == this.xs.length) {
+			ensureCapacity(this.count + (this.count >> 1));
+		}
+		this.xs[this.count] = x;
+		this.ys[this.count] = y;
+		this.objects[this.count] = value;
+		this.count++;
+		addAdded(this.count - 1);
+		this.size++;
+		this.modCount++;
+		this.dirty = true;
+		return true;
+	}
+
+	@Override
+	public boolean remove(final double x, final double y, final T value) {
+		ensureIndex();
+		int index = find(0, this.count, 0, x, y, value);
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/** marks the entry as removed, the index stays valid. */
+	private void removeAt(final int index) {
+		this.objects[index] = null;
+		this.size--;
+		this.modCount++;
+		if (2 * this.size < this.count) {
+			// compact the arrays at the next query
+			this.dirty = true;
+		}
+	}
+
+	@Override
+	public void clear() {
+		this.xs = new double[16];
+		this.ys = new double[16];
+		this.objects = new Object[16];
+		this.count = 0;
+		this.indexed = 0;
+		this.added = null;
+		this.size = 0;
+		this.modCount++;
+		this.dirty = false;
+	}
+
+	/**
+	 * Pre-sizes the arrays, e.g. before bulk-loading a known number of points.
+	 */
+	public void ensureCapacity(final int capacity) {
+		if (capacity > this.xs.length) {
+			this.xs = Arrays.copyOf(this.xs, capacity);
+			this.ys = Arrays.copyOf(this.ys, capacity);
+			this.objects = Arrays.copyOf(this.objects, capacity);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public T getClosest(final double x, final double y) {
+		ensureIndex();
+		Closest closest = new Closest();
+		getClosest(0, this.count, 0, x, y, closest);
+		return closest.index < 0 ? null : object(closest.index);
+	}
+
+	@Override
+	public Collection<T> getDisk(final double x, final double y, final double distance) {
+		return getDisk(x, y, distance, new ArrayList<>());
+	}
+
+	@Override
+	public Collection<T> getDisk(final double x, final double y, final double distance, final Collection<T> values1) {
+		ensureIndex();
+		getDisk(0, this.count, 0, x, y, 0.0, distance, values1);
+		return values1;
+	}
+
+	@Override
+	public Collection<T> getRing(final double x, final double y, final double r_min, final double r_max) {
+		ensureIndex();
+		Collection<T> values1 = new ArrayList<>();
+		getDisk(0, this.count, 0, x, y, r_min, r_max, values1);
+		return values1;
+	}
+
+	@Override
+	public Collection<T> getElliptical(final double x1, final double y1, final double x2, final double y2, final double distance) {
+		if ( Math.pow( distance , 2 ) < Math.pow( (x1 - x2), 2 ) + Math.pow( (y1 - y2) , 2 ) ) {
+			throw new IllegalArgumentException( "wrong ellipse specification: distance must be greater than distance between foci."
+					+" x1="+x1
+					+" y1="+y1
+					+" x2="+x2
+					+" y2="+y2
+					+" distance="+distance );
+		}
+		ensureIndex();
+		Collection<T> values1 = new ArrayList<>();
+		// the ellipse lies within the square around its center with the semi-major axis as half side length
+		double centerX = (x1 + x2) / 2;
+		double centerY = (y1 + y2) / 2;
+		double a = distance / 2;
+		getElliptical(0, this.count, 0, centerX - a, centerY - a, centerX + a, centerY + a, x1, y1, x2, y2, distance, values1);
+		return values1;
+	}
+
+	@Override
+	public Collection<T> getRectangle(final Rect bounds, final Collection<T> values1) {
+		ensureIndex();
+		getRectangle(0, this.count, 0, bounds, values1);
+		return values1;
+	}
+
+	@Override
+	public List<T> getKNearest(final double x, final double y, final int k, final List<T> values1) {
+		if (k <= 0) {
+			return values1;
+		}
+		ensureIndex();
+		KNearest<T> nearest = new KNearest<>(k);
+		getKNearest(0, this.count, 0, x, y, nearest);
+		return nearest.addTo(values1);
+	}
+
+	@Override
+	public int execute(final Rect bounds, final Executor<T> executor) {
+		ensureIndex();
+		return execute(0, this.count, 0, bounds == null ? this.top.getBounds() : bounds, executor);
+	}
+
+	@Override
+	public Collection<T> values() {
+		ensureIndex();
+		return new AbstractCollection<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new Iterator<T>() {
+					private int expectedModCount = PackedQuadTree.this.modCount;
+					private int next = advance(0);
+					private int last = -1;
+
+					private int advance(final int from) {
+						int i = from;
+						while (i < PackedQuadTree.this.count && PackedQuadTree.this.objects[i] == null) {
+							i++;
+						}
+						return i;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return this.next < PackedQuadTree.this.count;
+					}
+
+					@Override
+					public T next() {
+						if (PackedQuadTree.this.modCount != this.expectedModCount) {
+							throw new ConcurrentModificationException();
+						}
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						this.last = this.next;
+						this.next = advance(this.next + 1);
+						return object(this.last);
+					}
+
+					@Override
+					public void remove() {
+						if (this.last < 0) {
+							throw new IllegalStateException();
+						}
+						if (PackedQuadTree.this.modCount != this.expectedModCount) {
+							throw new ConcurrentModificationException();
+						}
+						removeAt(this.last);
+						this.last = -1;
+						this.expectedModCount = PackedQuadTree.this.modCount;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return PackedQuadTree.this.size;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private T object(final int index) {
+		return (T) this.objects[index];
+	}
+
+	private static double distance(final double x1, final double y1, final double x2, final double y2) {
+		return Math.sqrt((x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2));
+	}
+
+	// ---------- queries on the implicit kd-tree ----------
+	/* Every method works on the range [from, to) of the arrays. If the range is larger than
+	 * LEAF_SIZE, the point in the middle of the range splits it on the given axis (0 = x, 1 = y):
+	 * all points before it have a smaller or equal coordinate, all points after it a larger or equal one. */
+
+	private static final class Closest {
+		int index = -1;
+		double distance = Double.POSITIVE_INFINITY;
+	}
+
+	private void getClosest(final int from, final int to, final int axis, final double x, final double y, final Closest closest) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (this.objects[i] != null) {
+					double distance = distance(this.xs[i], this.ys[i], x, y);
+					if (distance < closest.distance) {
+						closest.distance = distance;
+						closest.index = i;
+					}
+				}
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		double delta = (axis == 0 ? x : y) - split;
+		if (delta < 0) {
+			getClosest(from, middle, 1 - axis, x, y, closest);
+		} else {
+			getClosest(middle + 1, to, 1 - axis, x, y, closest);
+		}
+		if (this.objects[middle] != null) {
+			double distance = distance(this.xs[middle], this.ys[middle], x, y);
+			if (distance < closest.distance) {
+				closest.distance = distance;
+				closest.index = middle;
+			}
+		}
+		if (Math.abs(delta) < closest.distance) {
+			if (delta < 0) {
+				getClosest(middle + 1, to, 1 - axis, x, y, closest);
+			} else {
+				getClosest(from, middle, 1 - axis, x, y, closest);
+			}
+		}
+	}
+
+	private void getKNearest(final int from, final int to, final int axis, final double x, final double y, final KNearest<T> nearest) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (this.objects[i] != null) {
+					double distance = distance(this.xs[i], this.ys[i], x, y);
+					if (distance < nearest.maxDistance()) {
+						nearest.offer(distance, this.objects[i]);
+					}
+				}
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		double delta = (axis == 0 ? x : y) - split;
+		if (delta < 0) {
+			getKNearest(from, middle, 1 - axis, x, y, nearest);
+		} else {
+			getKNearest(middle + 1, to, 1 - axis, x, y, nearest);
+		}
+		if (this.objects[middle] != null) {
+			double distance = distance(this.xs[middle], this.ys[middle], x, y);
+			if (distance < nearest.maxDistance()) {
+				nearest.offer(distance, this.objects[middle]);
+			}
+		}
+		if (Math.abs(delta) < nearest.maxDistance()) {
+			if (delta < 0) {
+				getKNearest(middle + 1, to, 1 - axis, x, y, nearest);
+			} else {
+				getKNearest(from, middle, 1 - axis, x, y, nearest);
+			}
+		}
+	}
+
+	private void getDisk(final int from, final int to, final int axis, final double x, final double y,
+			final double minDistance, final double maxDistance, final Collection<T> values1) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				addIfInRing(i, x, y, minDistance, maxDistance, values1);
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		double coord = axis == 0 ? x : y;
+		if (coord - maxDistance <= split) {
+			getDisk(from, middle, 1 - axis, x, y, minDistance, maxDistance, values1);
+		}
+		addIfInRing(middle, x, y, minDistance, maxDistance, values1);
+		if (coord + maxDistance >= split) {
+			getDisk(middle + 1, to, 1 - axis, x, y, minDistance, maxDistance, values1);
+		}
+	}
+
+	private void addIfInRing(final int i, final double x, final double y, final double minDistance, final double maxDistance, final Collection<T> values1) {
+		if (this.objects[i] != null) {
+			double distance = distance(this.xs[i], this.ys[i], x, y);
+			if (distance <= maxDistance && distance >= minDistance) {
+				values1.add(object(i));
+			}
+		}
+	}
+
+	private void getElliptical(final int from, final int to, final int axis,
+			final double minX, final double minY, final double maxX, final double maxY,
+			final double x1, final double y1, final double x2, final double y2, final double maxDistance, final Collection<T> values1) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				addIfInEllipse(i, x1, y1, x2, y2, maxDistance, values1);
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		if ((axis == 0 ? minX : minY) <= split) {
+			getElliptical(from, middle, 1 - axis, minX, minY, maxX, maxY, x1, y1, x2, y2, maxDistance, values1);
+		}
+		addIfInEllipse(middle, x1, y1, x2, y2, maxDistance, values1);
+		if ((axis == 0 ? maxX : maxY) >= split) {
+			getElliptical(middle + 1, to, 1 - axis, minX, minY, maxX, maxY, x1, y1, x2, y2, maxDistance, values1);
+		}
+	}
+
+	private void addIfInEllipse(final int i, final double x1, final double y1, final double x2, final double y2,
+			final double maxDistance, final Collection<T> values1) {
+		if (this.objects[i] != null) {
+			double distance1 = distance(this.xs[i], this.ys[i], x1, y1);
+			if (distance1 <= maxDistance && distance1 + distance(this.xs[i], this.ys[i], x2, y2) <= maxDistance) {
+				values1.add(object(i));
+			}
+		}
+	}
+
+	private void getRectangle(final int from, final int to, final int axis, final Rect bounds, final Collection<T> values1) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (this.objects[i] != null && bounds.containsOrEquals(this.xs[i], this.ys[i])) {
+					values1.add(object(i));
+				}
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		if ((axis == 0 ? bounds.minX : bounds.minY) <= split) {
+			getRectangle(from, middle, 1 - axis, bounds, values1);
+		}
+		if (this.objects[middle] != null && bounds.containsOrEquals(this.xs[middle], this.ys[middle])) {
+			values1.add(object(middle));
+		}
+		if ((axis == 0 ? bounds.maxX : bounds.maxY) >= split) {
+			getRectangle(middle + 1, to, 1 - axis, bounds, values1);
+		}
+	}
+
+	private int execute(final int from, final int to, final int axis, final Rect bounds, final Executor<T> executor) {
+		int count = 0;
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (this.objects[i] != null && bounds.contains(this.xs[i], this.ys[i])) {
+					executor.execute(this.xs[i], this.ys[i], object(i));
+					count++;
+				}
+			}
+			return count;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		if ((axis == 0 ? bounds.minX : bounds.minY) <= split) {
+			count += execute(from, middle, 1 - axis, bounds, executor);
+		}
+		if (this.objects[middle] != null && bounds.contains(this.xs[middle], this.ys[middle])) {
+			executor.execute(this.xs[middle], this.ys[middle], object(middle));
+			count++;
+		}
+		if ((axis == 0 ? bounds.maxX : bounds.maxY) >= split) {
+			count += execute(middle + 1, to, 1 - axis, bounds, executor);
+		}
+		return count;
+	}
+
+	private int find(final int from, final int to, final int axis, final double x, final double y, final T value) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (isEntry(i, x, y, value)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		int middle = (from + to) >>> 1;
+		double split = axis == 0 ? this.xs[middle] : this.ys[middle];
+		double coord = axis == 0 ? x : y;
+		if (isEntry(middle, x, y, value)) {
+			return middle;
+		}
+		int index = -1;
+		if (coord <= split) {
+			index = find(from, middle, 1 - axis, x, y, value);
+		}
+		if (index < 0 && coord >= split) {
+			index = find(middle + 1, to, 1 - axis, x, y, value);
+		}
+		return index;
+	}
+
+	private boolean isEntry(final int i, final double x, final double y, final T value) {
+		Object o = this.objects[i];
+		return o != null && this.xs[i] == x && this.ys[i] == y && (o == value || o.equals(value));
+	}
+
+	// ---------- entries added since the index was built ----------
+
+	private static int hash(final double x, final double y, final Object value) {
+		int h = 31 * Double.hashCode(x) + Double.hashCode(y);
+		h = 31 * h + value.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private int findAdded(final double x, final double y, final T value) {
+		if (this.added == null) {
+			return -1;
+		}
+		int mask = this.added.length - 1;
+		for (int slot = hash(x, y, value) & mask; this.added[slot] != 0; slot = (slot + 1) & mask) {
+			int i = this.added[slot] - 1;
+			if (isEntry(i, x, y, value)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void addAdded(final int index) {
+		int addedCount = this.count - this.indexed;
+		if (this.added == null || 2 * addedCount > this.added.length) {
+			// grow the table, and insert the entries added so far again
+			this.added = new int[Integer.highestOneBit(Math.max(8, 4 * addedCount - 1))];
+			for (int i = this.indexed; i < index; i++) {
+				if (this.objects[i] != null) {
+					insertAdded(i);
+				}
+			}
+		}
+		insertAdded(index);
+	}
+
+	private void insertAdded(final int index) {
+		int mask = this.added.length - 1;
+		int slot = hash(this.xs[index], this.ys[index], this.objects[index]) & mask;
+		while (this.added[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		this.added[slot] = index + 1;
+	}
+
+	// ---------- building the index ----------
+
+	private void ensureIndex() {
+		if (this.dirty) {
+			buildIndex();
+		}
+	}
+
+	/**
+	 * Builds the index now instead of at the next query, e.g. before the tree is queried by several threads.
+	 */
+	public synchronized void buildIndex() {
+		if (!this.dirty) {
+			return;
+		}
+		compact();
+		build(0, this.count, 0);
+		this.indexed = this.count;
+		this.added = null;
+		this.modCount++;
+		this.dirty = false;
+	}
+
+	/** removes the entries which were marked as removed. */
+	private void compact() {
+		int n = 0;
+		for (int i = 0; i < this.count; i++) {
+			if (this.objects[i] != null) {
+				if (n != i) {
+					this.xs[n] = this.xs[i];
+					this.ys[n] = this.ys[i];
+					this.objects[n] = this.objects[i];
+					this.objects[i] = null;
+				}
+				n++;
+			}
+		}
+		this.count = n;
+		this.size = n;
+	}
+
+	private void build(final int from, final int to, final int axis) {
+		if (to - from <= LEAF_SIZE) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		select(from, to - 1, middle, axis);
+		build(from, middle, 1 - axis);
+		build(middle + 1, to, 1 - axis);
+	}
+
+	/**
+	 * Partially sorts the entries in [left, right] such that the entry at position k is the one
+	 * which would be there if the range were sorted by the given axis, with smaller or equal
+	 * entries before and larger or equal entries after it.
+	 */
+	private void select(int left, int right, final int k, final int axis) {
+		final double[] keys = axis == 0 ? this.xs : this.ys;
+		while (right > left) {
+			double pivot = keys[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (keys[i] < pivot) i++;
+				while (keys[j] > pivot) j--;
+				if (i <= j) {
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void swap(final int i, final int j) {
+		double x = this.xs[i];
+		this.xs[i] = this.xs[j];
+		this.xs[j] = x;
+		double y = this.ys[i];
+		this.ys[i] = this.ys[j];
+		this.ys[j] = y;
+		Object o = this.objects[i];
+		this.objects[i] = this.objects[j];
+		this.objects[j] = o;
+	}
+
+}
@@ -143,6 +143,39 @@ public class QuadTree<T> implements Serializable {
 		return this.top.get(x, y, distance, new ArrayList<>());
 	}
 
+	/**
+	 * Gets all objects within a certain distance around x/y and adds them to the
+	 * given collection, so the same collection can be re-used for many queries.
+	 *
+	 * @param x left-right location, longitude
+	 * @param y up-down location, latitude
+	 * @param distance the maximal distance returned objects can be away from x/y
+	 * @param values1 A collection to store the found objects in.
+	 * @return the collection with the objects found within distance to x/y
+	 */
+	public Collection<T> getDisk(final double x, final double y, final double distance, final Collection<T> values1) {
+		return this.top.get(x, y, distance, values1);
+	}
+
+	/**
+	 * Gets the k objects closest to x/y, ordered by increasing distance, and adds them
+	 * to the given list. If the QuadTree contains less than k objects, all of them are added.
+	 *
+	 * @param x easting, left-right location, longitude
+	 * @param y northing, up-down location, latitude
+	 * @param k the number of objects to find
+	 * @param values1 A list to store the found objects in.
+	 * @return the list with the objects found closest to x/y
+	 */
+	public List<T> getKNearest(final double x, final double y, final int k, final List<T> values1) {
+		if (k <= 0) {
+			return values1;
+		}
+		KNearest<T> nearest = new KNearest<>(k);
+		this.top.getKNearest(x, y, nearest);
+		return nearest.addTo(values1);
+	}
+
 	/**
 	 * Gets all objects within a linear ring (including borders).
 	 *
@@ -394,6 +427,89 @@ public class QuadTree<T> implements Serializable {
 		}
 	}
 
+	/**
+	 * Collects the k closest objects during a k-nearest search, in a binary max-heap
+	 * on the distance so the currently farthest object can be replaced quickly.
+	 */
+	/* package */ static final class KNearest<T> {
+		private final double[] distances;
+		private final Object[] values;
+		private int size = 0;
+
+		KNearest(final int k) {
+			this.distances = new double[k];
+			this.values = new Object[k];
+		}
+
+		/** @return the distance an object must fall below to be added, i.e. the current k-th distance */
+		double maxDistance() {
+			return this.size < this.distances.length ? Double.POSITIVE_INFINITY : this.distances[0];
+		}
+
+		void offer(final double distance, final Object value) {
+			if (this.size < this.distances.length) {
+				int i = this.size++;
+				while (i > 0) {
+					int parent = (i - 1) >>> 1;
+					if (this.distances[parent] >= distance) {
+						break;
+					}
+					this.distances[i] = this.distances[parent];
+					this.values[i] = this.values[parent];
+					i = parent;
+				}
+				this.distances[i] = distance;
+				this.values[i] = value;
+			} else if (distance < this.distances[0]) {
+				this.distances[0] = distance;
+				this.values[0] = value;
+				siftDown(0, this.size);
+			}
+		}
+
+		private void siftDown(final int start, final int end) {
+			int i = start;
+			double distance = this.distances[i];
+			Object value = this.values[i];
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= end) {
+					break;
+				}
+				if (child + 1 < end && this.distances[child + 1] > this.distances[child]) {
+					child++;
+				}
+				if (this.distances[child] <= distance) {
+					break;
+				}
+				this.distances[i] = this.distances[child];
+				this.values[i] = this.values[child];
+				i = child;
+			}
+			this.distances[i] = distance;
+			this.values[i] = value;
+		}
+
+		/** Adds the collected objects ordered by increasing distance. Consumes the heap. */
+		@SuppressWarnings("unchecked")
+		List<T> addTo(final List<T> list) {
+			for (int end = this.size - 1; end > 0; end--) {
+				double d = this.distances[0];
+				Object v = this.values[0];
+				this.distances[0] = this.distances[end];
+				this.values[0] = this.values[end];
+				this.distances[end] = d;
+				this.values[end] = v;
+				siftDown(0, end);
+			}
+			for (int i = 0; i < this.size; i++) {
+				list.add((T) this.values[i]);
+			}
+			this.size = 0;
+			return list;
+		}
+	}
+
 	public static class Rect implements Serializable {
 		private static final long serialVersionUID = -837712701959689133L;
 		public final double minX;
@@ -740,6 +856,42 @@ public class QuadTree<T> implements Serializable {
 			return closest;
 		}
 
+		/* default */ void getKNearest(final double x, final double y, final KNearest<T> nearest) {
+			if (this.hasChilds) {
+				Node<T> bestChild = this.getChild(x, y);
+				bestChild.getKNearest(x, y, nearest);
+				if (bestChild != this.northwest && this.northwest.bounds.calcDistance(x, y) < nearest.maxDistance()) {
+					this.northwest.getKNearest(x, y, nearest);
+				}
+				if (bestChild != this.northeast && this.northeast.bounds.calcDistance(x, y) < nearest.maxDistance()) {
+					this.northeast.getKNearest(x, y, nearest);
+				}
+				if (bestChild != this.southeast && this.southeast.bounds.calcDistance(x, y) < nearest.maxDistance()) {
+					this.southeast.getKNearest(x, y, nearest);
+				}
+				if (bestChild != this.southwest && this.southwest.bounds.calcDistance(x, y) < nearest.maxDistance()) {
+					this.southwest.getKNearest(x, y, nearest);
+				}
+				return;
+			}
+			if (this.leaves != null) {
+				for (Leaf<T> leaf : this.leaves) {
+					double distance = Math.sqrt(
+							(leaf.x - x) * (leaf.x - x)
+									+ (leaf.y - y) * (leaf.y - y));
+					if (distance < nearest.maxDistance()) {
+						if (leaf.value != null) {
+							nearest.offer(distance, leaf.value);
+						} else {
+							for (T value : leaf.values) {
+								nearest.offer(distance, value);
+							}
+						}
+					}
+				}
+			}
+		}
+
 		/* default */ Collection<T> getElliptical(
 				final double x1,
 				final double y1,
@@ -48,7 +48,6 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Locale;
-import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 /** A class with some static utility functions for file-I/O. */
@@ -324,20 +323,20 @@ public class IOUtils {
 			// search in file system
 			if (new File(filename).exists()) {
 				if (filename.endsWith(GZ)) {
-					inputStream = new GZIPInputStream(new FileInputStream(filename));
+					inputStream = new MultiMemberGZIPInputStream(new FileInputStream(filename));
 				}else if (filename.endsWith(LZ4)) {
 					inputStream = new UnicodeInputStream(new LZ4BlockInputStream(new FileInputStream(filename)));
 				} else {
 					inputStream = new FileInputStream(filename);
 				}
 			} else if (new File(filename + GZ).exists()) {
-				inputStream = new GZIPInputStream(new FileInputStream(filename + GZ));
+				inputStream = new MultiMemberGZIPInputStream(new FileInputStream(filename + GZ));
 			}  else {
 				// search in classpath
 				InputStream stream = IOUtils.class.getClassLoader().getResourceAsStream(filename);
 				if (stream != null) {
 					if (filename.endsWith(GZ)) {
-						inputStream = new GZIPInputStream(stream);
+						inputStream = new MultiMemberGZIPInputStream(stream);
 					}
 					else {
 						inputStream = stream;
@@ -345,7 +344,7 @@ public class IOUtils {
 				} else {
 					stream = IOUtils.class.getClassLoader().getResourceAsStream(filename + GZ);
 					if (stream != null) {
-						inputStream = new GZIPInputStream(stream);
+						inputStream = new MultiMemberGZIPInputStream(stream);
 					}
 				}
 				if (inputStream != null) {
@@ -364,7 +363,7 @@ public class IOUtils {
 	public static InputStream getInputStream(URL url) throws UncheckedIOException {
 		try {
 			if (url.getFile().endsWith(".gz")) {
-				return new GZIPInputStream(url.openStream());
+				return new MultiMemberGZIPInputStream(url.openStream());
 			} else {
 				return url.openStream();
 			}
@@ -411,6 +410,27 @@ public class IOUtils {
 		}
 	}
 
+	/**
+	 * Same as {@link #getOutputStream(String)}, but gzip-compressed files are compressed in blocks by
+	 * several threads, see {@link ParallelGzipOutputStream}. The files can be read like any other
+	 * gzip-compressed file.
+	 *
+	 * @throws UncheckedIOException if the file cannot be created.
+	 */
+	public static OutputStream getParallelOutputStream(final String filename, final int numberOfThreads) throws UncheckedIOException {
+		if (filename == null) {
+			throw new UncheckedIOException(new FileNotFoundException("No filename given (filename == null)"));
+		}
+		if (numberOfThreads > 1 && filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
+			try {
+				return new ParallelGzipOutputStream(new FileOutputStream(filename), numberOfThreads);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return getOutputStream(filename, false);
+	}
+
 	/**
 	 * Copy of getOutputStream and then changed to correspond to the PrintStream signature.  Device to hopefully reduce FindBugs warnings.  kai, may'17
 	 * 
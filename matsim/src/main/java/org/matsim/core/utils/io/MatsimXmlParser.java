@@ -29,13 +29,15 @@ import org.xml.sax.helpers.DefaultHandler;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.Stack;
-import java.util.zip.GZIPInputStream;
 
 /**
  * An abstract XML-Parser which can be easily extended for reading custom XML-formats. This class handles all the low level
@@ -58,6 +60,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 
 	private boolean isValidating = true;
 	private boolean isNamespaceAware = true;
+	private boolean isReadingAhead = false;
 
 	private String localDtdBase = null;
 	// yy this is NOT working for me with "dtd", but it IS working with null. 
@@ -123,6 +126,18 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.isNamespaceAware = awareness;
 	}
 
+	/**
+	 * Sets, if files and URLs should be read (and decompressed) in a separate thread, ahead of the parser.
+	 * This is useful for large, compressed files, where decompression takes a large share of the parsing time.
+	 * By default the value of this is set to <code>false</code>.
+	 *
+	 * @param readAhead Whether the input should be read ahead in a separate thread or not.
+	 * @see ReadAheadInputStream
+	 */
+	public final void setReadingAhead(final boolean readAhead) {
+		this.isReadingAhead = readAhead;
+	}
+
 	/**
 	 * Sets the directory where to look for DTD and XSD files if they are not found
 	 * at the location specified in the XML.
@@ -146,7 +161,11 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	public final void readFile(final String filename) throws UncheckedIOException {
 		log.info("starting to parse xml from file " + filename + " ...");
 		this.theSource = filename;
-		parse(new InputSource(IOUtils.getBufferedReader(filename)));
+		if (this.isReadingAhead) {
+			parseReadingAhead(IOUtils.getInputStream(filename));
+		} else {
+			parse(new InputSource(IOUtils.getBufferedReader(filename)));
+		}
 	}
 
 	@Override
@@ -159,9 +178,11 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.theSource = url.toString();
 		log.info("starting to parse xml from url " + this.theSource + " ...");
 		System.out.flush();
-		if (url.getFile().endsWith(".gz")) {
+		if (this.isReadingAhead) {
+			parseReadingAhead(IOUtils.getInputStream(url));
+		} else if (url.getFile().endsWith(".gz")) {
 			try {
-				parse(new InputSource(new GZIPInputStream(url.openStream())));
+				parse(new InputSource(new MultiMemberGZIPInputStream(url.openStream())));
 			} catch (IOException e) {
 				throw new RuntimeException(e);
 			}
@@ -170,6 +191,14 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		}
 	}
 
+	private void parseReadingAhead(final InputStream stream) throws UncheckedIOException {
+		try (InputStream in = new ReadAheadInputStream(stream)) {
+			parse(new InputSource(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	public final void parse(final InputStream stream) throws UncheckedIOException {
 		this.theSource = "stream";
 		parse(new InputSource(stream));
@@ -197,9 +226,18 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 			}
 		} catch (SAXException | ParserConfigurationException | IOException e) {
 			throw new UncheckedIOException(e);
+		} finally {
+			parsingFinished();
 		}
 	}
 
+	/**
+	 * Called after parsing, also if the parsing was aborted by an exception, in which case {@link #endDocument()} is not
+	 * called. Allows to release resources like threads.
+	 */
+	protected void parsingFinished() {
+	}
+
 	// the following may be useful.  But it is nowhere used, so I am not sure if we fully understand its longterm maintenance implications, 
 	// so I rather comment it out. If it is needed somewhere, just comment it back in (and probably (**) above) 
 	// and leave a comment.  kai, jul'16
@@ -0,0 +1,64 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MultiMemberGZIPInputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.utils.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A {@link GZIPInputStream} which reliably reads all members of a gzip file consisting of several members, like the
+ * files written by {@link ParallelGzipOutputStream}.
+ * <p>
+ * At the end of a member, {@link GZIPInputStream} only continues with the next member if
+ * {@link InputStream#available()} of the underlying stream is larger than 0. Streams from urls or the class path
+ * may return 0 even if more data follows, so the rest of the file would silently be ignored. This class therefore
+ * wraps the underlying stream, and reads ahead one byte if it reports no available bytes.
+ */
+public final class MultiMemberGZIPInputStream extends GZIPInputStream {
+
+	public MultiMemberGZIPInputStream(final InputStream in) throws IOException {
+		super(new AvailableInputStream(in));
+	}
+
+	private static final class AvailableInputStream extends PushbackInputStream {
+
+		AvailableInputStream(final InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int available() throws IOException {
+			int available = super.available();
+			if (available > 0) {
+				return available;
+			}
+			int b = read();
+			if (b == -1) {
+				return 0;
+			}
+			unread(b);
+			return 1;
+		}
+	}
+}
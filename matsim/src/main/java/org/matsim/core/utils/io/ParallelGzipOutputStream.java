@@ -0,0 +1,165 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGzipOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An OutputStream that gzip-compresses the written data in blocks of {@value #BLOCK_SIZE} bytes,
+ * using several threads. Every block is written as an independent gzip member. A file consisting
+ * of several members is a valid gzip file and can be read with {@link java.util.zip.GZIPInputStream}
+ * (and thus {@link IOUtils#getInputStream(String)}) or <code>gunzip</code>, as if it had been compressed at once.
+ * <p>
+ * The blocks are written to the underlying stream in the order they were written to this stream.
+ * The compression ratio is slightly worse than when compressing all data at once, as the
+ * dictionary is reset for every block.
+ * <p>
+ * {@link java.util.zip.GZIPInputStream} may stop reading after the first member if the underlying stream does not report
+ * the following bytes as available, as streams from urls may do. {@link IOUtils#getInputStream(URL)} therefore uses a
+ * {@link MultiMemberGZIPInputStream}, which should also be used when reading such files from other streams.
+ * This class is not thread-safe, it is meant to be written to from a single thread.
+ */
+public final class ParallelGzipOutputStream extends OutputStream {
+
+	private static final int BLOCK_SIZE = 1 << 20;
+
+	private final OutputStream out;
+	private final ExecutorService executor;
+	private final int maxPendingBlocks;
+	private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+	private byte[] buffer = new byte[BLOCK_SIZE];
+	private int length = 0;
+	private boolean closed = false;
+
+	public ParallelGzipOutputStream(final OutputStream out, final int numberOfThreads) {
+		this.out = out;
+		this.maxPendingBlocks = 2 * numberOfThreads;
+		this.executor = Executors.newFixedThreadPool(numberOfThreads, r -> {
+			Thread thread = new Thread(r, "ParallelGzipOutputStream");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		if (this.length == BLOCK_SIZE) {
+			submitBlock();
+		}
+		this.buffer[this.length++] = (byte) b;
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.length == BLOCK_SIZE) {
+				submitBlock();
+			}
+			int n = Math.min(len, BLOCK_SIZE - this.length);
+			System.arraycopy(b, off, this.buffer, this.length, n);
+			this.length += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Writes the already compressed blocks to the underlying stream. Data not yet filling a
+	 * complete block is not compressed, so as not to create many small gzip members.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeCompressedBlocks(false);
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			if (this.length > 0) {
+				submitBlock();
+			}
+			while (!this.pendingBlocks.isEmpty()) {
+				writeBlock(this.pendingBlocks.removeFirst());
+			}
+		} finally {
+			this.executor.shutdownNow();
+			this.out.close();
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		final byte[] data = this.buffer;
+		final int dataLength = this.length;
+		this.pendingBlocks.addLast(this.executor.submit(() -> compress(data, dataLength)));
+		this.buffer = new byte[BLOCK_SIZE];
+		this.length = 0;
+		writeCompressedBlocks(this.pendingBlocks.size() > this.maxPendingBlocks);
+	}
+
+	/**
+	 * @param waitForFirst whether to wait for the first pending block to be compressed, so the number of
+	 * 		blocks held in memory stays bounded
+	 */
+	private void writeCompressedBlocks(boolean waitForFirst) throws IOException {
+		while (!this.pendingBlocks.isEmpty() && (waitForFirst || this.pendingBlocks.peekFirst().isDone())) {
+			writeBlock(this.pendingBlocks.removeFirst());
+			waitForFirst = false;
+		}
+	}
+
+	private void writeBlock(final Future<byte[]> block) throws IOException {
+		try {
+			this.out.write(block.get());
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static byte[] compress(final byte[] data, final int length) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+			gzip.write(data, 0, length);
+		}
+		return compressed.toByteArray();
+	}
+
+}
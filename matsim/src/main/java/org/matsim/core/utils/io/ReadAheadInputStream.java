@@ -0,0 +1,168 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReadAheadInputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An InputStream that reads the underlying stream in a separate thread, ahead of the consumer.
+ * If the underlying stream decompresses data (e.g. a gzip-compressed file), decompression
+ * and the consumer (e.g. an xml parser) run in parallel.
+ * <p>
+ * The data is passed in chunks of {@value #CHUNK_SIZE} bytes, at most {@value #QUEUE_SIZE}
+ * chunks are read ahead. Exceptions and errors of the underlying stream are re-thrown to the consumer
+ * once it has read the data before them.
+ * This class is not thread-safe, it is meant to be read from a single thread.
+ */
+public final class ReadAheadInputStream extends InputStream {
+
+	private static final int CHUNK_SIZE = 65536;
+	private static final int QUEUE_SIZE = 16;
+	private static final byte[] EOF = new byte[0];
+
+	private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Thread thread;
+	private volatile Throwable exception = null;
+	private volatile boolean closed = false;
+
+	private byte[] chunk = null;
+	private int position = 0;
+
+	public ReadAheadInputStream(final InputStream stream) {
+		this.thread = new Thread(() -> readAhead(stream), "ReadAheadInputStream");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	private void readAhead(final InputStream stream) {
+		try (InputStream in = stream) {
+			byte[] buffer = new byte[CHUNK_SIZE];
+			int length = 0;
+			int read;
+			while (!this.closed && (read = in.read(buffer, length, CHUNK_SIZE - length)) >= 0) {
+				length += read;
+				if (length == CHUNK_SIZE) {
+					this.queue.put(buffer);
+					buffer = new byte[CHUNK_SIZE];
+					length = 0;
+				}
+			}
+			if (length > 0) {
+				this.queue.put(Arrays.copyOf(buffer, length));
+			}
+		} catch (InterruptedException e) {
+			// closed by the consumer
+		} catch (Throwable e) {
+			this.exception = e;
+		} finally {
+			if (!this.closed) {
+				try {
+					this.queue.put(EOF);
+				} catch (InterruptedException e) {
+					// closed by the consumer
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return <code>false</code> if the end of the stream is reached
+	 */
+	private boolean nextChunk() throws IOException {
+		if (this.chunk == EOF) {
+			rethrowException();
+			return false;
+		}
+		if (this.chunk == null || this.position == this.chunk.length) {
+			if (this.closed) {
+				throw new IOException("Stream closed.");
+			}
+			try {
+				this.chunk = this.queue.take();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			this.position = 0;
+			if (this.chunk == EOF) {
+				rethrowException();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rethrowException() throws IOException {
+		Throwable e = this.exception;
+		if (e == null) {
+			return;
+		}
+		if (e instanceof IOException) {
+			throw (IOException) e;
+		}
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		throw new IOException(e);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextChunk()) {
+			return -1;
+		}
+		return this.chunk[this.position++] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextChunk()) {
+			return -1;
+		}
+		int n = Math.min(len, this.chunk.length - this.position);
+		System.arraycopy(this.chunk, this.position, b, off, n);
+		this.position += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return this.chunk == null || this.chunk == EOF ? 0 : this.chunk.length - this.position;
+	}
+
+	@Override
+	public void close() {
+		if (!this.closed) {
+			this.closed = true;
+			this.thread.interrupt();
+		}
+	}
+
+}
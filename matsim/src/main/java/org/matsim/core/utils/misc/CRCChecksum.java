@@ -30,6 +30,7 @@ import java.util.zip.CheckedInputStream;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.log4j.Logger;
+import org.matsim.core.utils.io.MultiMemberGZIPInputStream;
 
 public class CRCChecksum {
 	private static final Logger log = Logger.getLogger( CRCChecksum.class );
@@ -95,7 +96,7 @@ public class CRCChecksum {
 			if (filename.endsWith(".gz")) {
 				log.info( "file ends in gz");
 				try ( InputStream stream = CRCChecksum.class.getClassLoader().getResourceAsStream(filename) ;
-					InputStream in = new GZIPInputStream(new BufferedInputStream(stream)); ) {
+					InputStream in = new MultiMemberGZIPInputStream(new BufferedInputStream(stream)); ) {
 					long result = getCRCFromStream(in);
 					in.close();
 					return result ;
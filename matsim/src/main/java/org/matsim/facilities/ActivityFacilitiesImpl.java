@@ -24,6 +24,7 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.utils.collections.PackedQuadTree;
 import org.matsim.core.utils.collections.QuadTree;
 import org.matsim.utils.objectattributes.ObjectAttributes;
 import org.matsim.utils.objectattributes.attributable.Attributes;
@@ -192,10 +193,12 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 		// yy the above four lines are problematic if the coordinate values are much smaller than one. kai, oct'15
 
 		log.info("building QuadTree for nodes: xrange(" + minx + "," + maxx + "); yrange(" + miny + "," + maxy + ")");
-		QuadTree<ActivityFacility> quadTree = new QuadTree<>(minx, miny, maxx, maxy);
+		PackedQuadTree<ActivityFacility> quadTree = new PackedQuadTree<>(minx, miny, maxx, maxy);
+		quadTree.ensureCapacity(this.facilities.size());
 		for (ActivityFacility n : this.facilities.values()) {
 			quadTree.put(n.getCoord().getX(), n.getCoord().getY(), n);
 		}
+		quadTree.buildIndex();
 		/* assign the quadTree at the very end, when it is complete.
 		 * otherwise, other threads may already start working on an incomplete quadtree
 		 */
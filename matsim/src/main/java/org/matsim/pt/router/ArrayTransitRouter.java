@@ -0,0 +1,291 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayTransitRouter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * A transit router working on the array representation of the schedule in {@link ArrayTransitRouterData},
+ * as a replacement for {@link TransitRouterImpl}.
+ * <p>
+ * The search is a Dijkstra over the same graph as the one of {@link TransitRouterImpl}: the route stops and
+ * transfers are the nodes and links of the {@link TransitRouterNetwork}, and the cost of a route stop is the
+ * generalized cost as computed by {@link TransitRouterNetworkTravelTimeAndDisutility}.  Only the storage differs:
+ * the route stops of a route, the sorted departures of a route and the transfers between route stops are kept in
+ * consecutive arrays, so the search works on int indices only and needs no lookups in maps.  It therefore finds
+ * the same least cost paths as {@link TransitRouterImpl}.  Only if several paths have exactly the same cost,
+ * another one of them may be returned.
+ * <p>
+ * The access and egress stops, the direct walk and the conversion of the route to legs are the same as in
+ * {@link TransitRouterImpl}.
+ * <p>
+ * Thread-safe: the {@link ArrayTransitRouterData} is shared by all threads, and every thread uses its own
+ * {@link ArrayTransitRouterWorkspace}. Does not expect the TransitSchedule to change once the search data is created.
+ *
+ * @see ArrayTransitRouterFactory
+ */
+public class ArrayTransitRouter extends AbstractTransitRouter implements TransitRouter {
+
+	private final ArrayTransitRouterData data;
+	private final ThreadLocal<ArrayTransitRouterWorkspace> workspaces;
+
+	public ArrayTransitRouter(final TransitRouterConfig trConfig, final TransitSchedule schedule) {
+		this(trConfig, ArrayTransitRouterData.createFromSchedule(schedule, trConfig.getBeelineWalkConnectionDistance()));
+	}
+
+	public ArrayTransitRouter(final TransitRouterConfig trConfig, final ArrayTransitRouterData data) {
+		// the disutility is only used for walk times and walk disutilities, which do not need the schedule
+		super(trConfig, new TransitRouterNetworkTravelTimeAndDisutility(trConfig, null));
+		this.data = data;
+		this.workspaces = ThreadLocal.withInitial(() -> new ArrayTransitRouterWorkspace(data));
+	}
+
+	@Override
+	public List<Leg> calcRoute(final Facility fromFacility, final Facility toFacility, final double departureTime, final Person person) {
+		ArrayTransitRouterWorkspace workspace = this.workspaces.get();
+		workspace.reset();
+
+		// find possible start stops
+		Coord fromCoord = fromFacility.getCoord();
+		for (int routeStop : locateNearestRouteStops(fromCoord)) {
+			Coord toCoord = this.data.routeStopFacility[routeStop].getCoord();
+			double initialTime = getWalkTime(person, fromCoord, toCoord);
+			double initialCost = getWalkDisutility(person, fromCoord, toCoord);
+			workspace.setLabel(routeStop, initialCost, initialTime + departureTime, ArrayTransitRouterWorkspace.ACCESS);
+		}
+
+		// find possible end stops
+		Coord toCoord = toFacility.getCoord();
+		Collection<Integer> egressRouteStops = locateNearestRouteStops(toCoord);
+		for (int routeStop : egressRouteStops) {
+			workspace.setEgressCost(routeStop, getWalkDisutility(person, toCoord, this.data.routeStopFacility[routeStop].getCoord()));
+		}
+
+		// same stop criterion as in TransitLeastCostPathTree: all end stops are settled, or no better path can be found
+		int remainingEgressRouteStops = egressRouteStops.size();
+		double minCost = Double.POSITIVE_INFINITY;
+		while (remainingEgressRouteStops > 0 && workspace.hasPendingRouteStops()) {
+			int routeStop = workspace.pollRouteStop();
+			double cost = workspace.cost[routeStop];
+			double egressCost = workspace.egressCost[routeStop];
+			if (egressCost != Double.POSITIVE_INFINITY) {
+				remainingEgressRouteStops--;
+				minCost = Math.min(minCost, cost + egressCost);
+			}
+			if (cost > minCost) {
+				break;
+			}
+			relaxRouteStop(workspace, routeStop);
+		}
+
+		// find the best end stop
+		minCost = Double.POSITIVE_INFINITY;
+		double minCostEgressCost = 0.0;
+		int minCostRouteStop = -1;
+		for (int routeStop : egressRouteStops) {
+			if (workspace.isReached(routeStop)) {
+				double egressCost = workspace.egressCost[routeStop];
+				double cost = workspace.cost[routeStop] + egressCost;
+				if (cost < minCost) {
+					minCost = cost;
+					minCostEgressCost = egressCost;
+					minCostRouteStop = routeStop;
+				}
+			}
+		}
+
+		TransitPassengerRoute transitPassengerRoute = null;
+		if (minCostRouteStop >= 0) {
+			transitPassengerRoute = createTransitPassengerRoute(workspace, minCostRouteStop, minCostEgressCost);
+		}
+
+		if (transitPassengerRoute == null) {
+			return this.createDirectWalkLegList(null, fromFacility.getCoord(), toFacility.getCoord());
+		}
+		double pathCost = transitPassengerRoute.getTravelCost();
+
+		double directWalkCost = getWalkDisutility(person, fromFacility.getCoord(), toFacility.getCoord());
+
+		if (directWalkCost * getConfig().getDirectWalkFactor() < pathCost) {
+			return this.createDirectWalkLegList(null, fromFacility.getCoord(), toFacility.getCoord());
+		}
+
+		return convertPassengerRouteToLegList(departureTime,
+				transitPassengerRoute,
+				fromFacility.getCoord(),
+				toFacility.getCoord(),
+				person);
+	}
+
+	/**
+	 * Same search area as in {@link TransitRouterImpl}.
+	 */
+	private Collection<Integer> locateNearestRouteStops(final Coord coord) {
+		Collection<Integer> nearestRouteStops = this.data.getNearestRouteStops(coord, getConfig().getSearchRadius());
+		if (nearestRouteStops.size() < 2) {
+			// also enlarge search area if only one stop found, maybe a second one is near the border of the search area
+			Integer nearestRouteStop = this.data.getNearestRouteStop(coord);
+			if (nearestRouteStop != null) { // transit schedule might be completely empty!
+				double distance = CoordUtils.calcEuclideanDistance(coord, this.data.routeStopFacility[nearestRouteStop].getCoord());
+				nearestRouteStops = this.data.getNearestRouteStops(coord, distance + getConfig().getExtensionRadius());
+			}
+		}
+		return nearestRouteStops;
+	}
+
+	/**
+	 * Relaxes the links leaving the route stop in the {@link TransitRouterNetwork}: the ride to the next stop of the
+	 * route, and the transfers. Both have the same travel time and cost as in
+	 * {@link TransitRouterNetworkTravelTimeAndDisutility}.
+	 */
+	private void relaxRouteStop(final ArrayTransitRouterWorkspace workspace, final int routeStop) {
+		final TransitRouterConfig config = getConfig();
+		final double now = workspace.time[routeStop];
+		final double currentCost = workspace.cost[routeStop];
+
+		int route = this.data.routeStopRoute[routeStop];
+		if (!this.data.isLastStopOfRoute(routeStop) && this.data.hasDepartures(route)) {
+			int nextRouteStop = routeStop + 1;
+			double departureTime = this.data.getNextDepartureTime(routeStop, now);
+			double travelTime = (departureTime - now) + (this.data.arrivalOffset[nextRouteStop] - this.data.departureOffset[routeStop]);
+			if (travelTime < 0) {
+				travelTime += ArrayTransitRouterData.MIDNIGHT;
+			}
+			double vehArrivalTime = departureTime - (this.data.departureOffset[routeStop] - this.data.arrivalOffset[routeStop]);
+			double offVehWaitTime = now < vehArrivalTime ? vehArrivalTime - now : 0;
+			double inVehTime = travelTime - offVehWaitTime;
+			double cost = currentCost
+					- inVehTime * config.getMarginalUtilityOfTravelTimePt_utl_s()
+					- offVehWaitTime * config.getMarginalUtilityOfWaitingPt_utl_s()
+					- this.data.distanceToNextStop[routeStop] * config.getMarginalUtilityOfTravelDistancePt_utl_m();
+			if (cost < workspace.cost[nextRouteStop]) {
+				workspace.setLabel(nextRouteStop, cost, now + travelTime, ArrayTransitRouterWorkspace.RIDE);
+			}
+		}
+
+		for (int transfer = this.data.firstTransfer[routeStop]; transfer < this.data.firstTransfer[routeStop + 1]; transfer++) {
+			int toRouteStop = this.data.transferTo[transfer];
+			double cost = currentCost + getTransferCost(transfer);
+			if (cost < workspace.cost[toRouteStop]) {
+				workspace.setLabel(toRouteStop, cost, now + getTransferTime(transfer), transfer);
+			}
+		}
+	}
+
+	private double getTransferTime(final int transfer) {
+		return this.data.transferDistance[transfer] / getConfig().getBeelineWalkSpeed() + getConfig().getAdditionalTransferTime();
+	}
+
+	private double getTransferCost(final int transfer) {
+		final TransitRouterConfig config = getConfig();
+		double transfertime = getTransferTime(transfer);
+		double waittime = config.getAdditionalTransferTime();
+		double walktime = transfertime - waittime;
+		if ( walktime < 0. ) {
+			throw new RuntimeException( "negative walk time; should not happen; needs to be repaired" ) ;
+		}
+		double walkDistance = this.data.transferDistance[transfer];
+		return - walktime * config.getMarginalUtilityOfTravelTimeWalk_utl_s()
+				- walkDistance * config.getMarginalUtilityOfTravelDistanceWalk_utl_m()
+				- waittime * config.getMarginalUtilityOfWaitingPt_utl_s()
+				- config.getUtilityOfLineSwitch_utl();
+	}
+
+	/**
+	 * Creates the route segments by tracing back from the egress stop, merging consecutive transfers exactly
+	 * as {@link TransitLeastCostPathTree#getTransitPassengerRoute} does. This includes adding the transfer
+	 * costs once more to the cost of the route, so the comparison with the direct walk does not change either.
+	 */
+	private TransitPassengerRoute createTransitPassengerRoute(final ArrayTransitRouterWorkspace workspace, final int egressRouteStop, final double egressCost) {
+		List<RouteSegment> routeSegments = new ArrayList<>();
+		boolean downstreamIsPt = false;
+		double transferCost = 0.;
+
+		int routeStop = egressRouteStop;
+		while (workspace.reachedBy[routeStop] != ArrayTransitRouterWorkspace.ACCESS) {
+			int reachedBy = workspace.reachedBy[routeStop];
+			boolean isTransfer = reachedBy != ArrayTransitRouterWorkspace.RIDE;
+			int fromRouteStop = isTransfer ? this.data.transferFrom[reachedBy] : routeStop - 1;
+
+			TransitStopFacility fromStop = this.data.routeStopFacility[fromRouteStop];
+			TransitStopFacility toStop = this.data.routeStopFacility[routeStop];
+			double travelTime = workspace.time[routeStop] - workspace.time[fromRouteStop];
+
+			if (!downstreamIsPt && isTransfer) {
+				// continuous transfers, or the trip ends with a transfer
+				if (!routeSegments.isEmpty()) {
+					RouteSegment routeSegment = routeSegments.remove(0);
+					travelTime = routeSegment.travelTime;
+					toStop = routeSegment.toStop;
+				}
+				routeSegments.add(0, new RouteSegment(fromStop, toStop, travelTime, null, null));
+			} else if (!downstreamIsPt || isTransfer) {
+				// very first pt leg or first pt leg after transfer, or a transfer after a pt leg
+				Id<TransitLine> transitLineId = null;
+				Id<TransitRoute> routeId = null;
+				if (!isTransfer) {
+					int route = this.data.routeStopRoute[routeStop];
+					transitLineId = this.data.lines[route].getId();
+					routeId = this.data.routes[route].getId();
+				}
+				routeSegments.add(0, new RouteSegment(fromStop, toStop, travelTime, transitLineId, routeId));
+			} else {
+				// same route, extend the top route segment
+				RouteSegment routeSegment = routeSegments.remove(0);
+				routeSegments.add(0, new RouteSegment(fromStop, routeSegment.toStop, routeSegment.travelTime + travelTime,
+						routeSegment.getLineTaken(), routeSegment.getRouteTaken()));
+			}
+
+			if (isTransfer) {
+				transferCost += getTransferCost(reachedBy);
+				downstreamIsPt = false;
+			} else {
+				downstreamIsPt = true;
+			}
+			routeStop = fromRouteStop;
+		}
+
+		if (routeSegments.isEmpty()) {
+			return null;
+		}
+		double cost = workspace.cost[egressRouteStop] + egressCost + transferCost;
+		return new TransitPassengerRoute(cost, routeSegments);
+	}
+
+	public ArrayTransitRouterData getSearchData() {
+		return this.data;
+	}
+
+}
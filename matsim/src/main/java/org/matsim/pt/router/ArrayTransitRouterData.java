@@ -0,0 +1,281 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayTransitRouterData.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * The transit schedule in the array form used by {@link ArrayTransitRouter}.
+ * <p>
+ * Every {@link TransitRouteStop} of every {@link TransitRoute} gets an index, the stops of a route having
+ * consecutive indices in the order they are served. This corresponds to the nodes of the {@link TransitRouterNetwork},
+ * and the transfers between route stops are created with the same rules as the transfer links of the
+ * {@link TransitRouterNetwork}, so that both routers search in the same graph.
+ * <p>
+ * Instances are immutable once created, and can be shared by any number of routers and threads. They
+ * do not depend on the scoring parameters, only on the schedule and the beeline walk connection distance.
+ *
+ * @see TransitRouterNetwork#createFromSchedule(TransitSchedule, double)
+ */
+public final class ArrayTransitRouterData {
+
+	private final static Logger log = Logger.getLogger(ArrayTransitRouterData.class);
+
+	/*package*/ final static double MIDNIGHT = TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
+
+	// per route: the route stops are [firstRouteStop[r], firstRouteStop[r+1]), the departures at the terminus,
+	// in increasing order, are [firstDeparture[r], firstDeparture[r+1])
+	/*package*/ final TransitLine[] lines;
+	/*package*/ final TransitRoute[] routes;
+	/*package*/ final int[] firstRouteStop;
+	/*package*/ final int[] firstDeparture;
+	/*package*/ final double[] departures;
+
+	// per route stop
+	/*package*/ final int[] routeStopRoute;
+	/*package*/ final TransitStopFacility[] routeStopFacility;
+	/*package*/ final double[] arrivalOffset;
+	/*package*/ final double[] departureOffset;
+	/*package*/ final double[] distanceToNextStop;
+
+	// per route stop: the transfers starting there are [firstTransfer[rs], firstTransfer[rs+1])
+	/*package*/ final int[] firstTransfer;
+	/*package*/ final int[] transferFrom;
+	/*package*/ final int[] transferTo;
+	/*package*/ final double[] transferDistance;
+
+	private final QuadTree<Integer> routeStopQuadTree;
+
+	private ArrayTransitRouterData(final TransitLine[] lines, final TransitRoute[] routes, final int[] firstRouteStop,
+			final int[] firstDeparture, final double[] departures, final int[] routeStopRoute,
+			final TransitStopFacility[] routeStopFacility, final double[] arrivalOffset, final double[] departureOffset,
+			final double[] distanceToNextStop, final int[] firstTransfer, final int[] transferFrom, final int[] transferTo,
+			final double[] transferDistance, final QuadTree<Integer> routeStopQuadTree) {
+		this.lines = lines;
+		this.routes = routes;
+		this.firstRouteStop = firstRouteStop;
+		this.firstDeparture = firstDeparture;
+		this.departures = departures;
+		this.routeStopRoute = routeStopRoute;
+		this.routeStopFacility = routeStopFacility;
+		this.arrivalOffset = arrivalOffset;
+		this.departureOffset = departureOffset;
+		this.distanceToNextStop = distanceToNextStop;
+		this.firstTransfer = firstTransfer;
+		this.transferFrom = transferFrom;
+		this.transferTo = transferTo;
+		this.transferDistance = transferDistance;
+		this.routeStopQuadTree = routeStopQuadTree;
+	}
+
+	public static ArrayTransitRouterData createFromSchedule(final TransitSchedule schedule, final double maxBeelineWalkConnectionDistance) {
+		log.info("start creating transit router data");
+		int numberOfRoutes = 0;
+		int numberOfRouteStops = 0;
+		int numberOfDepartures = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				numberOfRoutes++;
+				numberOfRouteStops += route.getStops().size();
+				numberOfDepartures += route.getDepartures().size();
+			}
+		}
+
+		TransitLine[] lines = new TransitLine[numberOfRoutes];
+		TransitRoute[] routes = new TransitRoute[numberOfRoutes];
+		int[] firstRouteStop = new int[numberOfRoutes + 1];
+		int[] firstDeparture = new int[numberOfRoutes + 1];
+		double[] departures = new double[numberOfDepartures];
+		int[] routeStopRoute = new int[numberOfRouteStops];
+		TransitStopFacility[] routeStopFacility = new TransitStopFacility[numberOfRouteStops];
+		double[] arrivalOffset = new double[numberOfRouteStops];
+		double[] departureOffset = new double[numberOfRouteStops];
+		double[] distanceToNextStop = new double[numberOfRouteStops];
+
+		int r = 0;
+		int rs = 0;
+		int d = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				lines[r] = line;
+				routes[r] = route;
+				firstRouteStop[r] = rs;
+				firstDeparture[r] = d;
+				for (Departure departure : route.getDepartures().values()) {
+					departures[d++] = departure.getDepartureTime();
+				}
+				Arrays.sort(departures, firstDeparture[r], d);
+				TransitStopFacility prevFacility = null;
+				for (TransitRouteStop stop : route.getStops()) {
+					if (prevFacility != null) {
+						distanceToNextStop[rs - 1] = CoordUtils.calcEuclideanDistance(stop.getStopFacility().getCoord(), prevFacility.getCoord());
+					}
+					routeStopRoute[rs] = r;
+					routeStopFacility[rs] = stop.getStopFacility();
+					// same fallback as in TransitRouterNetworkTravelTimeAndDisutility
+					arrivalOffset[rs] = (stop.getArrivalOffset() != Time.UNDEFINED_TIME) ? stop.getArrivalOffset() : stop.getDepartureOffset();
+					departureOffset[rs] = stop.getDepartureOffset();
+					prevFacility = stop.getStopFacility();
+					rs++;
+				}
+				r++;
+			}
+		}
+		firstRouteStop[r] = rs;
+		firstDeparture[r] = d;
+
+		QuadTree<Integer> quadTree = createQuadTree(routeStopFacility);
+
+		// connect all route stops with transfers if they're located less than beelineWalkConnectionDistance from each other,
+		// with the same conditions as in TransitRouterNetwork
+		int[] firstTransfer = new int[numberOfRouteStops + 1];
+		List<int[]> transfers = new ArrayList<>();
+		int numberOfTransfers = 0;
+		for (int from = 0; from < numberOfRouteStops; from++) {
+			firstTransfer[from] = numberOfTransfers;
+			int fromRoute = routeStopRoute[from];
+			if (from == firstRouteStop[fromRoute]) {
+				continue; // agents cannot arrive here
+			}
+			Coord coord = routeStopFacility[from].getCoord();
+			for (Integer to : quadTree.getDisk(coord.getX(), coord.getY(), maxBeelineWalkConnectionDistance)) {
+				int toRoute = routeStopRoute[to];
+				if ((from != to) && (to != firstRouteStop[toRoute + 1] - 1)) { // agents must be able to depart at the target
+					if ((lines[fromRoute] != lines[toRoute]) || (routeStopFacility[from] != routeStopFacility[to])) {
+						transfers.add(new int[] { from, to });
+						numberOfTransfers++;
+					}
+				}
+			}
+		}
+		firstTransfer[numberOfRouteStops] = numberOfTransfers;
+		int[] transferFrom = new int[numberOfTransfers];
+		int[] transferTo = new int[numberOfTransfers];
+		double[] transferDistance = new double[numberOfTransfers];
+		for (int i = 0; i < numberOfTransfers; i++) {
+			int[] transfer = transfers.get(i);
+			transferFrom[i] = transfer[0];
+			transferTo[i] = transfer[1];
+			transferDistance[i] = CoordUtils.calcEuclideanDistance(routeStopFacility[transfer[1]].getCoord(), routeStopFacility[transfer[0]].getCoord());
+		}
+
+		log.info("transit router data statistics:");
+		log.info(" # routes:          " + numberOfRoutes);
+		log.info(" # route stops:     " + numberOfRouteStops);
+		log.info(" # departures:      " + numberOfDepartures);
+		log.info(" # transfers:       " + numberOfTransfers);
+
+		return new ArrayTransitRouterData(lines, routes, firstRouteStop, firstDeparture, departures, routeStopRoute,
+				routeStopFacility, arrivalOffset, departureOffset, distanceToNextStop, firstTransfer, transferFrom,
+				transferTo, transferDistance, quadTree);
+	}
+
+	private static QuadTree<Integer> createQuadTree(final TransitStopFacility[] routeStopFacility) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (TransitStopFacility facility : routeStopFacility) {
+			Coord c = facility.getCoord();
+			minX = Math.min(minX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxX = Math.max(maxX, c.getX());
+			maxY = Math.max(maxY, c.getY());
+		}
+
+		QuadTree<Integer> quadTree = new QuadTree<>(minX, minY, maxX, maxY);
+		for (int rs = 0; rs < routeStopFacility.length; rs++) {
+			Coord c = routeStopFacility[rs].getCoord();
+			quadTree.put(c.getX(), c.getY(), rs);
+		}
+		return quadTree;
+	}
+
+	public int getNumberOfRouteStops() {
+		return this.routeStopRoute.length;
+	}
+
+	/*package*/ boolean isLastStopOfRoute(final int routeStop) {
+		return routeStop == this.firstRouteStop[this.routeStopRoute[routeStop] + 1] - 1;
+	}
+
+	/*package*/ Collection<Integer> getNearestRouteStops(final Coord coord, final double distance) {
+		return this.routeStopQuadTree.getDisk(coord.getX(), coord.getY(), distance);
+	}
+
+	/*package*/ Integer getNearestRouteStop(final Coord coord) {
+		return this.routeStopQuadTree.getClosest(coord.getX(), coord.getY());
+	}
+
+	/*package*/ boolean hasDepartures(final int route) {
+		return this.firstDeparture[route + 1] > this.firstDeparture[route];
+	}
+
+	/**
+	 * Same as {@link PreparedTransitSchedule#getNextDepartureTime(TransitRoute, TransitRouteStop, double)}, including
+	 * the handling of departures after midnight. The route of the route stop must have at least one departure.
+	 */
+	/*package*/ double getNextDepartureTime(final int routeStop, final double depTime) {
+		int route = this.routeStopRoute[routeStop];
+		double stopOffset = this.departureOffset[routeStop];
+
+		double earliestDepartureTimeAtTerminus = depTime - stopOffset;
+		if (earliestDepartureTimeAtTerminus >= MIDNIGHT) {
+			earliestDepartureTimeAtTerminus = earliestDepartureTimeAtTerminus % MIDNIGHT;
+		}
+		if (earliestDepartureTimeAtTerminus < 0) {
+			earliestDepartureTimeAtTerminus += MIDNIGHT;
+		}
+
+		int fromIndex = this.firstDeparture[route];
+		int toIndex = this.firstDeparture[route + 1];
+		int pos = Arrays.binarySearch(this.departures, fromIndex, toIndex, earliestDepartureTimeAtTerminus);
+		if (pos < 0) {
+			pos = -(pos + 1);
+		}
+		if (pos >= toIndex) {
+			pos = fromIndex; // there is no later departure time, take the first in the morning
+		}
+		double bestDepartureTime = this.departures[pos] + stopOffset;
+		while (bestDepartureTime < depTime) {
+			bestDepartureTime += MIDNIGHT;
+		}
+		return bestDepartureTime;
+	}
+
+}
@@ -0,0 +1,70 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayTransitRouterFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Creates {@link ArrayTransitRouter}s which all share the same {@link ArrayTransitRouterData}. The search data is
+ * created again after a {@link TransitScheduleChangedEvent}.
+ */
+@Singleton
+public class ArrayTransitRouterFactory implements Provider<TransitRouter> {
+
+	private final TransitRouterConfig config;
+	private final TransitSchedule transitSchedule;
+	private ArrayTransitRouterData searchData;
+
+	@Inject
+	ArrayTransitRouterFactory(final TransitSchedule schedule, final EventsManager events, final Config config) {
+		this(schedule, new TransitRouterConfig(
+				config.planCalcScore(),
+				config.plansCalcRoute(),
+				config.transitRouter(),
+				config.vspExperimental()));
+		events.addHandler((TransitScheduleChangedEventHandler) event -> {
+			synchronized (this) {
+				this.searchData = null;
+			}
+		});
+	}
+
+	public ArrayTransitRouterFactory(final TransitSchedule schedule, final TransitRouterConfig config) {
+		this.config = config;
+		this.transitSchedule = schedule;
+	}
+
+	@Override
+	public synchronized TransitRouter get() {
+		if (this.searchData == null) {
+			this.searchData = ArrayTransitRouterData.createFromSchedule(this.transitSchedule, this.config.getBeelineWalkConnectionDistance());
+		}
+		return new ArrayTransitRouter(this.config, this.searchData);
+	}
+
+}
@@ -0,0 +1,120 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayTransitRouterWorkspace.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import java.util.Arrays;
+
+import org.matsim.core.router.priorityqueue.IntBinaryMinHeap;
+
+/**
+ * The mutable state of a single search of the {@link ArrayTransitRouter}: one label (cost, time and
+ * how the route stop was reached) per route stop, plus the route stops whose labels are not yet final,
+ * in a {@link IntBinaryMinHeap} ordered by cost.
+ * <p>
+ * Only the labels touched by a search are reset before the next one, so the costs of a search
+ * depend on the size of the explored part of the schedule, not on the size of the whole schedule.
+ * <p>
+ * Not thread-safe, every thread needs its own instance.
+ */
+/*package*/ final class ArrayTransitRouterWorkspace {
+
+	/*package*/ final static int ACCESS = -1;
+	/*package*/ final static int RIDE = -2;
+
+	/*package*/ final double[] cost;
+	/*package*/ final double[] time;
+	/** {@link #ACCESS}, {@link #RIDE} (from the previous stop of the same route), or the index of the transfer */
+	/*package*/ final int[] reachedBy;
+
+	private final int[] touched;
+	private int touchedCount = 0;
+
+	/** the cost of walking from the route stop to the destination, or infinity if it is no egress stop */
+	/*package*/ final double[] egressCost;
+	private final int[] egressRouteStops;
+	private int egressRouteStopsCount = 0;
+
+	private final IntBinaryMinHeap heap;
+
+	/*package*/ ArrayTransitRouterWorkspace(final ArrayTransitRouterData data) {
+		int numberOfRouteStops = data.getNumberOfRouteStops();
+		this.cost = new double[numberOfRouteStops];
+		this.time = new double[numberOfRouteStops];
+		this.reachedBy = new int[numberOfRouteStops];
+		this.touched = new int[numberOfRouteStops];
+		this.egressCost = new double[numberOfRouteStops];
+		this.egressRouteStops = new int[numberOfRouteStops];
+		this.heap = new IntBinaryMinHeap(numberOfRouteStops);
+		Arrays.fill(this.cost, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.egressCost, Double.POSITIVE_INFINITY);
+	}
+
+	/*package*/ void reset() {
+		for (int i = 0; i < this.touchedCount; i++) {
+			int rs = this.touched[i];
+			this.cost[rs] = Double.POSITIVE_INFINITY;
+		}
+		this.touchedCount = 0;
+		for (int i = 0; i < this.egressRouteStopsCount; i++) {
+			this.egressCost[this.egressRouteStops[i]] = Double.POSITIVE_INFINITY;
+		}
+		this.egressRouteStopsCount = 0;
+		this.heap.reset();
+	}
+
+	/*package*/ boolean isReached(final int routeStop) {
+		return this.cost[routeStop] != Double.POSITIVE_INFINITY;
+	}
+
+	/*package*/ void setEgressCost(final int routeStop, final double egressCost) {
+		if (this.egressCost[routeStop] == Double.POSITIVE_INFINITY) {
+			this.egressRouteStops[this.egressRouteStopsCount++] = routeStop;
+		}
+		this.egressCost[routeStop] = egressCost;
+	}
+
+	/**
+	 * Sets the label of the route stop and adds it to the heap, or moves it up in the heap if it is already
+	 * contained. The cost must not be higher than the current cost of the route stop.
+	 */
+	/*package*/ void setLabel(final int routeStop, final double cost, final double time, final int reachedBy) {
+		if (this.cost[routeStop] == Double.POSITIVE_INFINITY) {
+			this.touched[this.touchedCount++] = routeStop;
+		}
+		this.cost[routeStop] = cost;
+		this.time[routeStop] = time;
+		this.reachedBy[routeStop] = reachedBy;
+		this.heap.decreaseKey(routeStop, cost);
+	}
+
+	/*package*/ boolean hasPendingRouteStops() {
+		return !this.heap.isEmpty();
+	}
+
+	/**
+	 * Removes the route stop with the lowest cost from the heap and returns it.
+	 */
+	/*package*/ int pollRouteStop() {
+		return this.heap.poll();
+	}
+
+}
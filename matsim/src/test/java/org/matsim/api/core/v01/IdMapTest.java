@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdMapTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdMapTest {
+
+	@Test
+	public void testPutGetRemove() {
+		Id<TPerson> id1 = Id.create("1", TPerson.class);
+		Id<TPerson> id2 = Id.create("2", TPerson.class);
+		Id<TPerson> id3 = Id.create("3", TPerson.class);
+
+		IdMap<TPerson, String> map = new IdMap<>(TPerson.class, 1);
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(id1, "one"));
+		Assert.assertNull(map.put(id3, "three"));
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertEquals("one", map.get(id1));
+		Assert.assertNull(map.get(id2));
+		Assert.assertEquals("three", map.get(id3));
+		Assert.assertEquals("three", map.get(id3.index()));
+		Assert.assertTrue(map.containsKey(id1));
+		Assert.assertFalse(map.containsKey(id2));
+		Assert.assertTrue(map.containsValue("three"));
+		Assert.assertFalse(map.containsValue("two"));
+
+		Assert.assertEquals("one", map.put(id1, "eins"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("eins", map.get(id1));
+
+		Assert.assertEquals("eins", map.remove(id1));
+		Assert.assertNull(map.remove(id1));
+		Assert.assertEquals(1, map.size());
+		Assert.assertNull(map.get(id1));
+
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(id3));
+	}
+
+	@Test
+	public void testGet_otherKeys() {
+		Id<TPerson> id1 = Id.create("other-1", TPerson.class);
+		IdMap<TPerson, String> map = new IdMap<>(TPerson.class);
+		map.put(id1, "one");
+
+		Assert.assertNull(map.get(null));
+		Assert.assertNull(map.get("other-1"));
+		Assert.assertNull(map.get(Id.create("other-2", TPerson.class)));
+		// Ids of different types are equal if their keys are equal
+		Assert.assertEquals("one", map.get(Id.create("other-1", TVehicle.class)));
+		Assert.assertNull(map.get(Id.create("other-3", TVehicle.class)));
+	}
+
+	@Test
+	public void testIteration() {
+		Id<TPerson> idA = Id.create("iter-a", TPerson.class);
+		Id<TPerson> idB = Id.create("iter-b", TPerson.class);
+		Id<TPerson> idC = Id.create("iter-c", TPerson.class);
+
+		IdMap<TPerson, String> map = new IdMap<>(TPerson.class);
+		map.put(idC, "c");
+		map.put(idA, "a");
+		map.put(idB, "b");
+
+		// in the order the Ids were created
+		Iterator<Map.Entry<Id<TPerson>, String>> iter = map.entrySet().iterator();
+		Map.Entry<Id<TPerson>, String> entry = iter.next();
+		Assert.assertSame(idA, entry.getKey());
+		Assert.assertEquals("a", entry.getValue());
+		entry = iter.next();
+		Assert.assertSame(idB, entry.getKey());
+		iter.remove();
+		entry = iter.next();
+		Assert.assertSame(idC, entry.getKey());
+		entry.setValue("cc");
+		Assert.assertFalse(iter.hasNext());
+
+		Assert.assertEquals(2, map.size());
+		Assert.assertNull(map.get(idB));
+		Assert.assertEquals("cc", map.get(idC));
+		Assert.assertArrayEquals(new Object[] { "a", "cc" }, map.values().toArray());
+		Assert.assertArrayEquals(new Object[] { idA, idC }, map.keySet().toArray());
+	}
+
+	@Test
+	public void testIteration_concurrentModification() {
+		Id<TPerson> id1 = Id.create("cm-1", TPerson.class);
+		Id<TPerson> id2 = Id.create("cm-2", TPerson.class);
+
+		IdMap<TPerson, String> map = new IdMap<>(TPerson.class);
+		map.put(id1, "one");
+		Iterator<String> iter = map.values().iterator();
+		iter.next();
+		map.put(id2, "two");
+		try {
+			iter.next();
+			Assert.fail("expected exception, got none");
+		} catch (ConcurrentModificationException e) {
+			// expected exception
+		}
+	}
+
+	@Test
+	public void testEqualsHashMap() {
+		Id<TPerson> id1 = Id.create("eq-1", TPerson.class);
+		Id<TPerson> id2 = Id.create("eq-2", TPerson.class);
+
+		IdMap<TPerson, String> map = new IdMap<>(TPerson.class);
+		map.put(id1, "one");
+		map.put(id2, "two");
+		Map<Id<TPerson>, String> hashMap = new HashMap<>();
+		hashMap.put(id2, "two");
+		hashMap.put(id1, "one");
+
+		Assert.assertEquals(hashMap, map);
+		Assert.assertEquals(map, hashMap);
+		Assert.assertEquals(hashMap.hashCode(), map.hashCode());
+	}
+
+	private static class TPerson {}
+	private static class TVehicle {}
+
+}
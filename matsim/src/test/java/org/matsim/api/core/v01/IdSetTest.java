@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdSetTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdSetTest {
+
+	@Test
+	public void testAddContainsRemove() {
+		Id<TVehicle> id1 = Id.create("1", TVehicle.class);
+		Id<TVehicle> id2 = Id.create("2", TVehicle.class);
+		Id<TVehicle> id3 = Id.create("3", TVehicle.class);
+
+		IdSet<TVehicle> set = new IdSet<>(TVehicle.class);
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertTrue(set.add(id1));
+		Assert.assertTrue(set.add(id3));
+		Assert.assertFalse(set.add(id3));
+		Assert.assertEquals(2, set.size());
+
+		Assert.assertTrue(set.contains(id1));
+		Assert.assertFalse(set.contains(id2));
+		Assert.assertTrue(set.contains(id3));
+		Assert.assertFalse(set.contains(null));
+		Assert.assertFalse(set.contains("1"));
+		Assert.assertTrue(set.contains(Id.create("1", TLink.class)));
+
+		Assert.assertTrue(set.remove(id1));
+		Assert.assertFalse(set.remove(id1));
+		Assert.assertEquals(1, set.size());
+
+		set.clear();
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertFalse(set.contains(id3));
+	}
+
+	@Test
+	public void testIteration() {
+		Id<TVehicle> idA = Id.create("iter-a", TVehicle.class);
+		Id<TVehicle> idB = Id.create("iter-b", TVehicle.class);
+		Id<TVehicle> idC = Id.create("iter-c", TVehicle.class);
+
+		IdSet<TVehicle> set = new IdSet<>(TVehicle.class);
+		set.add(idC);
+		set.add(idA);
+		set.add(idB);
+
+		Iterator<Id<TVehicle>> iter = set.iterator();
+		Assert.assertSame(idA, iter.next());
+		Assert.assertSame(idB, iter.next());
+		iter.remove();
+		Assert.assertSame(idC, iter.next());
+		Assert.assertFalse(iter.hasNext());
+
+		Assert.assertEquals(2, set.size());
+		Assert.assertFalse(set.contains(idB));
+
+		Set<Id<TVehicle>> hashSet = new HashSet<>();
+		hashSet.add(idC);
+		hashSet.add(idA);
+		Assert.assertEquals(hashSet, set);
+		Assert.assertEquals(set, hashSet);
+		Assert.assertEquals(hashSet.hashCode(), set.hashCode());
+	}
+
+	private static class TVehicle {}
+	private static class TLink {}
+
+}
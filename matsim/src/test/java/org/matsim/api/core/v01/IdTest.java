@@ -67,7 +67,31 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex() {
+		Id<TLink> linkId1 = Id.create("index-1", TLink.class);
+		Id<TLink> linkId2 = Id.create("index-2", TLink.class);
+		Id<TLink> linkId1again = Id.create("index-1", TLink.class);
+
+		Assert.assertEquals(linkId1.index(), linkId1again.index());
+		Assert.assertEquals(linkId1.index() + 1, linkId2.index());
+		Assert.assertTrue(Id.getNumberOfIds(TLink.class) > linkId2.index());
+		Assert.assertSame(linkId1, Id.get(linkId1.index(), TLink.class));
+		Assert.assertSame(linkId2, Id.get("index-2", TLink.class));
+		Assert.assertNull(Id.get("index-3", TLink.class));
+		Assert.assertNull(Id.get("index-3", TIndexed.class));
+		Assert.assertEquals(0, Id.getNumberOfIds(TIndexed.class));
+
+		try {
+			Id.get(Id.getNumberOfIds(TLink.class), TLink.class);
+			Assert.fail("expected exception, got none");
+		} catch (IndexOutOfBoundsException e) {
+			// expected exception
+		}
+	}
+
 	private static class TLink {}
 	private static class TNode {}
+	private static class TIndexed {}
 	
 }
@@ -24,6 +24,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 
 /**
@@ -63,6 +64,89 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	public void testProcessEvent_DispatchModes() {
+		for (EventsManagerImpl.DispatchMode mode : EventsManagerImpl.DispatchMode.values()) {
+			EventsManager manager = new EventsManagerImpl(mode);
+			CountingPublicEventHandler handler = new CountingPublicEventHandler();
+			manager.addHandler(handler);
+			manager.processEvent(new PublicEvent(1.0));
+			manager.processEvent(new PublicSubEvent(2.0));
+			manager.processEvent(new MyEvent(3.0));
+			Assert.assertEquals("wrong number of PublicEvents in mode " + mode, 2, handler.counter);
+			Assert.assertEquals("wrong number of PublicSubEvents in mode " + mode, 1, handler.subCounter);
+			Assert.assertEquals("wrong number of basic events in mode " + mode, 3, handler.basicCounter);
+		}
+	}
+
+	@Test
+	public void testProcessEvent_ExceptionInGeneratedDispatch() {
+		EventsManager manager = new EventsManagerImpl(EventsManagerImpl.DispatchMode.generated);
+		CountingPublicEventHandler handler = new CountingPublicEventHandler();
+		handler.crash = true;
+		manager.addHandler(handler);
+		try {
+			manager.processEvent(new PublicEvent(1.0));
+			Assert.fail("expected exception, but got none.");
+		} catch (final RuntimeException e) {
+			log.info("Catched expected exception.", e);
+			Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+		}
+	}
+
+	public static class PublicEvent extends Event {
+		public PublicEvent(final double time) {
+			super(time);
+		}
+		@Override
+		public String getEventType() {
+			return "publicEvent";
+		}
+	}
+
+	public static class PublicSubEvent extends PublicEvent {
+		public PublicSubEvent(final double time) {
+			super(time);
+		}
+	}
+
+	public interface PublicEventHandler extends EventHandler {
+		public void handleEvent(final PublicEvent e);
+	}
+
+	public interface PublicSubEventHandler extends EventHandler {
+		public void handleEvent(final PublicSubEvent e);
+	}
+
+	/*package*/ static class CountingPublicEventHandler implements PublicEventHandler, PublicSubEventHandler, BasicEventHandler {
+		/*package*/ int counter = 0;
+		/*package*/ int subCounter = 0;
+		/*package*/ int basicCounter = 0;
+		/*package*/ boolean crash = false;
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+			this.subCounter = 0;
+			this.basicCounter = 0;
+		}
+		@Override
+		public void handleEvent(final PublicEvent e) {
+			this.counter++;
+			if (this.crash) {
+				int i = 1 / 0; // produce ArithmeticException
+				System.out.println(i);
+			}
+		}
+		@Override
+		public void handleEvent(final PublicSubEvent e) {
+			this.subCounter++;
+		}
+		@Override
+		public void handleEvent(final Event e) {
+			this.basicCounter++;
+		}
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
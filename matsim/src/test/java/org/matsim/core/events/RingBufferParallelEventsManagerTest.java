@@ -0,0 +1,122 @@
+package org.matsim.core.events;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup.WaitStrategy;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class RingBufferParallelEventsManagerTest {
+
+	@Test
+	public void testEventHandlerCanProduceAdditionalEventLateInSimStep() {
+		final RingBufferParallelEventsManager events = new RingBufferParallelEventsManager(8, true);
+		events.addHandler(new LinkEnterEventHandler() {
+			@Override
+			public void handleEvent(LinkEnterEvent event) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				events.processEvent(new PersonStuckEvent(event.getTime(), Id.createPersonId(0), Id.createLinkId(0), "car"));
+			}
+
+			@Override
+			public void reset(int iteration) {}
+		});
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		events.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(1.0);
+		events.finishProcessing();
+
+		assertThat(collector.getEvents(),
+			contains(
+					new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(0.0, Id.createPersonId(0), Id.createLinkId(0), "car"),
+					new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car")));
+	}
+
+	@Test
+	public void testAllEventsProcessedInOrder_smallRingBuffer() {
+		for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+			for (boolean syncOnSimSteps : new boolean[] { true, false }) {
+				RingBufferParallelEventsManager events = new RingBufferParallelEventsManager(3, syncOnSimSteps, 16, waitStrategy);
+				OrderCheckingHandler[] handlers = new OrderCheckingHandler[5];
+				for (int i = 0; i < handlers.length; i++) {
+					handlers[i] = new OrderCheckingHandler();
+					events.addHandler(handlers[i]);
+				}
+				events.initProcessing();
+				for (int time = 0; time < 100; time++) {
+					for (int i = 0; i < 100; i++) {
+						events.processEvent(new LinkEnterEvent(time, Id.createVehicleId(i), Id.createLinkId(0)));
+					}
+					events.afterSimStep(time);
+				}
+				events.finishProcessing();
+
+				for (OrderCheckingHandler handler : handlers) {
+					Assert.assertEquals("wrong number of events with " + waitStrategy + ", syncOnSimSteps=" + syncOnSimSteps, 10000, handler.counter);
+					Assert.assertFalse("events not in order with " + waitStrategy + ", syncOnSimSteps=" + syncOnSimSteps, handler.outOfOrder);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testProcessEventAfterFinishProcessing() {
+		RingBufferParallelEventsManager events = new RingBufferParallelEventsManager(2, true);
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		events.finishProcessing();
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+
+		assertThat(collector.getEvents(),
+			contains(
+					new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0))));
+	}
+
+	private static class OrderCheckingHandler implements BasicEventHandler {
+		private int counter = 0;
+		private double lastTime = Double.NEGATIVE_INFINITY;
+		private boolean outOfOrder = false;
+
+		@Override
+		public void handleEvent(Event event) {
+			if (event.getTime() < this.lastTime) {
+				this.outOfOrder = true;
+			}
+			this.lastTime = event.getTime();
+			this.counter++;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			this.counter = 0;
+		}
+	}
+
+}
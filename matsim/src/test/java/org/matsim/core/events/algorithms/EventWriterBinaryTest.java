@@ -0,0 +1,158 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinaryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MappedEventsReaderBinary;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteRead() {
+		String filename = this.utils.getOutputDirectory() + "events" + BinaryEventsFormat.FILE_ENDING;
+		List<Event> written = new ArrayList<>();
+		written.add(new ActivityEndEvent(21600.0, Id.create("1", Person.class), Id.create("link<2", Link.class), null, "höme"));
+		written.add(new PersonDepartureEvent(21600.0, Id.create("1", Person.class), Id.create("link<2", Link.class), "car"));
+		written.add(new LinkLeaveEvent(21610.5, Id.create("vehicle\"4", Vehicle.class), Id.create("link<2", Link.class)));
+		written.add(new LinkEnterEvent(21610.5, Id.create("vehicle\"4", Vehicle.class), Id.create("3", Link.class)));
+		written.add(new VehicleEntersTrafficEvent(21620.0, Id.create("1", Person.class), Id.create("3", Link.class), Id.create("vehicle\"4", Vehicle.class), "car", 1.0));
+		written.add(new VehicleLeavesTrafficEvent(21630.0, Id.create("1", Person.class), Id.create("3", Link.class), Id.create("vehicle\"4", Vehicle.class), "car", 0.25));
+		written.add(new PersonArrivalEvent(21630.0, Id.create("1", Person.class), Id.create("3", Link.class), null));
+		written.add(new ActivityStartEvent(21630.0, Id.create("1", Person.class), Id.create("3", Link.class), Id.create("f3", ActivityFacility.class), "work"));
+		GenericEvent generic = new GenericEvent("TEST", 21700.25);
+		generic.getAttributes().put("x", "4.5");
+		generic.getAttributes().put("y", "1.50");
+		generic.getAttributes().put("amount", "-0.1");
+		generic.getAttributes().put("name", "1.0 m");
+		written.add(generic);
+		GenericEvent sameTypeOtherKinds = new GenericEvent("TEST", 21800.0);
+		sameTypeOtherKinds.getAttributes().put("x", "unknown");
+		written.add(sameTypeOtherKinds);
+
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : written) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename);
+
+		Assert.assertEquals(written.size(), collector.getEvents().size());
+		for (int i = 0; i < written.size(); i++) {
+			Event expected = written.get(i);
+			Event actual = collector.getEvents().get(i);
+			Assert.assertEquals(expected.getClass(), actual.getClass());
+			Assert.assertEquals(expected.getAttributes(), actual.getAttributes());
+		}
+	}
+
+	@Test
+	public void testWriteRead_nullValues() {
+		String filename = this.utils.getOutputDirectory() + "events" + BinaryEventsFormat.FILE_ENDING;
+		GenericEvent generic = new GenericEvent("TEST", 100.0);
+		generic.getAttributes().put("x", null);
+		generic.getAttributes().put("name", "null");
+
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		writer.handleEvent(new PersonDepartureEvent(100.0, Id.create("1", Person.class), Id.create("2", Link.class), null));
+		writer.handleEvent(generic);
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename);
+
+		Assert.assertEquals(2, collector.getEvents().size());
+		PersonDepartureEvent departure = (PersonDepartureEvent) collector.getEvents().get(0);
+		Assert.assertNull(departure.getLegMode());
+		GenericEvent read = (GenericEvent) collector.getEvents().get(1);
+		Assert.assertFalse(read.getAttributes().containsKey("x"));
+		Assert.assertEquals("null", read.getAttributes().get("name"));
+	}
+
+	@Test
+	public void testMappedReader_timeRange() {
+		String filename = this.utils.getOutputDirectory() + "events" + BinaryEventsFormat.FILE_ENDING;
+		int count = 3 * BinaryEventsFormat.EVENTS_PER_BLOCK + 100;
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (int i = 0; i < count; i++) {
+			writer.handleEvent(new LinkEnterEvent(i / 10, Id.create(i % 100, Vehicle.class), Id.create(i % 1000, Link.class)));
+		}
+		writer.closeFile();
+
+		try (MappedEventsReaderBinary reader = new MappedEventsReaderBinary(filename)) {
+			Assert.assertEquals(4, reader.getNumberOfBlocks());
+			Assert.assertEquals(count, reader.getNumberOfEvents());
+			Assert.assertEquals(0.0, reader.getFirstTime(), 0.0);
+			Assert.assertEquals((count - 1) / 10, reader.getLastTime(), 0.0);
+
+			EventsManager events = EventsUtils.createEventsManager();
+			EventsCollector collector = new EventsCollector();
+			events.addHandler(collector);
+			reader.readEvents(events, 5000.0, 5999.0);
+			Assert.assertEquals(10000, collector.getEvents().size());
+			LinkEnterEvent first = (LinkEnterEvent) collector.getEvents().get(0);
+			Assert.assertEquals(5000.0, first.getTime(), 0.0);
+			Assert.assertEquals("0", first.getVehicleId().toString());
+			Assert.assertEquals("0", first.getLinkId().toString());
+			LinkEnterEvent last = (LinkEnterEvent) collector.getEvents().get(9999);
+			Assert.assertEquals(5999.0, last.getTime(), 0.0);
+			Assert.assertEquals("99", last.getVehicleId().toString());
+			Assert.assertEquals("999", last.getLinkId().toString());
+
+			collector.reset(0);
+			reader.readEvents(events);
+			Assert.assertEquals(count, collector.getEvents().size());
+		}
+	}
+
+}
@@ -20,17 +20,36 @@
 package org.matsim.core.events.algorithms;
 
 import java.io.File;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacility;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.vehicles.Vehicle;
@@ -92,4 +111,111 @@ public class EventWriterXMLTest {
 		
 		Assert.assertEquals("there must be 1 event.", 1, collector.getEvents().size());
 	}
+
+	/**
+	 * The asynchronous writer must write exactly the same content, also with special characters
+	 * and more events than fit into one of its buffers.
+	 */
+	@Test
+	public void testAsyncWriter_sameContent() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "events.xml";
+		String asyncFilename = this.utils.getOutputDirectory() + "asyncEvents.xml.gz";
+		EventWriterXML writer = new EventWriterXML(filename);
+		AsyncEventWriterXML asyncWriter = new AsyncEventWriterXML(asyncFilename, 4);
+
+		for (int i = 0; i < 20000; i++) {
+			LinkLeaveEvent event = new LinkLeaveEvent(i, Id.create("vehicle<" + i + ">", Vehicle.class), Id.create("link\u00e4\u20ac\ud83d\ude97" + i, Link.class));
+			writer.handleEvent(event);
+			asyncWriter.handleEvent(event);
+		}
+		Id<Person> person = Id.create("person&1", Person.class);
+		Id<Vehicle> vehicle = Id.create("vehicle\"1", Vehicle.class);
+		Id<Link> link = Id.create("link1", Link.class);
+		Id<ActivityFacility> facility = Id.create("facility1", ActivityFacility.class);
+		double[] times = { 0.0, -0.0, 7.5, -1.0, 12345678.0, 1e-5, Double.NaN };
+		for (double time : times) {
+			List<Event> events = Arrays.asList(
+					new LinkEnterEvent(time, vehicle, link),
+					new VehicleEntersTrafficEvent(time, person, link, vehicle, "car", 1.0),
+					new VehicleEntersTrafficEvent(time, person, null, null, null, 0.25),
+					new VehicleLeavesTrafficEvent(time, person, link, vehicle, "car", 1.0),
+					new VehicleLeavesTrafficEvent(time, person, null, null, null, 0.25),
+					new PersonDepartureEvent(time, person, link, "car"),
+					new PersonDepartureEvent(time, person, null, null),
+					new PersonArrivalEvent(time, person, link, "<walk>"),
+					new PersonArrivalEvent(time, person, null, null),
+					new ActivityStartEvent(time, person, link, facility, "home"),
+					new ActivityStartEvent(time, person, null, null, "home"),
+					new ActivityEndEvent(time, person, link, facility, "work"),
+					new ActivityEndEvent(time, person, null, null, "work"),
+					new PersonEntersVehicleEvent(time, person, vehicle),
+					new PersonLeavesVehicleEvent(time, person, vehicle));
+			for (Event e : events) {
+				writer.handleEvent(e);
+				asyncWriter.handleEvent(e);
+			}
+		}
+		GenericEvent event = new GenericEvent("TEST", 3600.0);
+		event.getAttributes().put("dummy", null);
+		writer.handleEvent(event);
+		asyncWriter.handleEvent(event);
+
+		writer.closeFile();
+		asyncWriter.closeFile();
+
+		Assert.assertTrue(IOUtils.isEqual(IOUtils.getInputStream(filename), IOUtils.getInputStream(asyncFilename)));
+	}
+
+	@Test(timeout = 10000)
+	public void testAsyncWriter_exceptionOnWrite() {
+		assertAsyncWriterFails(new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("write");
+			}
+		}, IOException.class);
+	}
+
+	@Test(timeout = 10000)
+	public void testAsyncWriter_runtimeExceptionOnWrite() {
+		assertAsyncWriterFails(new OutputStream() {
+			@Override
+			public void write(int b) {
+				throw new IllegalStateException("write");
+			}
+		}, IllegalStateException.class);
+	}
+
+	@Test(timeout = 10000)
+	public void testAsyncWriter_exceptionOnClose() {
+		assertAsyncWriterFails(new ByteArrayOutputStream() {
+			@Override
+			public void close() throws IOException {
+				throw new IOException("close");
+			}
+		}, IOException.class);
+	}
+
+	/**
+	 * The exception of the stream must reach the caller, either when handling an event or when closing the file,
+	 * and neither of them may block.
+	 */
+	private static void assertAsyncWriterFails(OutputStream stream, Class<? extends Throwable> expectedCause) {
+		AsyncEventWriterXML writer = new AsyncEventWriterXML(stream);
+		UncheckedIOException exception = null;
+		try {
+			for (int i = 0; i < 100000; i++) {
+				writer.handleEvent(new LinkLeaveEvent(i, Id.create("vehicle" + i, Vehicle.class), Id.create("link" + i, Link.class)));
+			}
+		} catch (UncheckedIOException e) {
+			exception = e;
+		}
+		try {
+			writer.closeFile();
+		} catch (UncheckedIOException e) {
+			exception = e;
+		}
+		Assert.assertNotNull(exception);
+		Assert.assertEquals(expectedCause, exception.getCause().getClass());
+	}
 }
@@ -0,0 +1,139 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TestCalendarMessageQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.core.mobsim.jdeqsim.util.DummyMessage;
+
+/**
+ * Runs the tests of {@link TestMessageQueue} with the {@link CalendarMessageQueue}, plus some tests with many
+ * messages which make the queue adapt its buckets.
+ */
+public class TestCalendarMessageQueue extends TestMessageQueue {
+
+	@Override
+	protected MessageQueue createMessageQueue() {
+		return new CalendarMessageQueue();
+	}
+
+	public void testSameOrderAsPriorityQueue() {
+		Random random = new Random(4711);
+		CalendarMessageQueue mq = new CalendarMessageQueue();
+		List<Message> expected = new ArrayList<>();
+		double now = 0;
+
+		// simulate a simulation run: messages are taken from the queue and new messages are put in the future
+		for (int i = 0; i < 2000; i++) {
+			Message m = createMessage(now + random.nextInt(3600), random.nextInt(3) * 100);
+			mq.putMessage(m);
+			expected.add(m);
+		}
+		assertTrue(mq.getBucketCount() > 16);
+		Collections.sort(expected);
+		int killed = 0;
+		for (int i = 0; i < 4000; i++) {
+			Message m = mq.getNextMessage();
+			assertNotNull(m);
+			Message e = expected.remove(0);
+			assertEquals(e.getMessageArrivalTime(), m.getMessageArrivalTime(), 0.0);
+			assertEquals(e.priority, m.priority);
+			now = m.getMessageArrivalTime();
+
+			Message next = createMessage(now + random.nextDouble() * 600, random.nextInt(3) * 100);
+			mq.putMessage(next);
+			insertSorted(expected, next);
+			if (i % 100 == 0) {
+				// the message in the middle of the queue is removed
+				Message toKill = expected.remove(expected.size() / 2);
+				mq.removeMessage(toKill);
+				killed++;
+			}
+			assertEquals(expected.size(), mq.getQueueSize());
+		}
+		assertTrue(killed > 0);
+
+		while (!expected.isEmpty()) {
+			Message e = expected.remove(0);
+			Message m = mq.getNextMessage();
+			assertEquals(e.getMessageArrivalTime(), m.getMessageArrivalTime(), 0.0);
+			assertEquals(e.priority, m.priority);
+		}
+		assertNull(mq.getNextMessage());
+		assertEquals(0, mq.getQueueSize());
+		assertTrue(mq.isEmpty());
+		assertEquals(16, mq.getBucketCount());
+	}
+
+	// messages with the same time and priority come in the order they were put into the queue
+	public void testInsertionOrderOfEqualMessages() {
+		CalendarMessageQueue mq = new CalendarMessageQueue();
+		List<Message> messages = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Message m = createMessage(i % 2 == 0 ? 10 : 20, 0);
+			messages.add(m);
+			mq.putMessage(m);
+		}
+		for (int i = 0; i < 100; i += 2) {
+			assertSame(messages.get(i), mq.getNextMessage());
+		}
+		for (int i = 1; i < 100; i += 2) {
+			assertSame(messages.get(i), mq.getNextMessage());
+		}
+	}
+
+	// messages far apart and at undefined times are found nevertheless
+	public void testSparseAndInfiniteTimes() {
+		CalendarMessageQueue mq = new CalendarMessageQueue();
+		Message m1 = createMessage(1e9, 0);
+		Message m2 = createMessage(Double.NEGATIVE_INFINITY, 0);
+		Message m3 = createMessage(Double.MAX_VALUE, 0);
+		Message m4 = createMessage(5, 0);
+		mq.putMessage(m1);
+		mq.putMessage(m2);
+		mq.putMessage(m3);
+		mq.putMessage(m4);
+		assertSame(m2, mq.getNextMessage());
+		assertSame(m4, mq.getNextMessage());
+		assertSame(m1, mq.getNextMessage());
+		assertSame(m3, mq.getNextMessage());
+		assertTrue(mq.isEmpty());
+	}
+
+	private static Message createMessage(double time, int priority) {
+		Message m = new DummyMessage();
+		m.setMessageArrivalTime(time);
+		m.setPriority(priority);
+		return m;
+	}
+
+	private static void insertSorted(List<Message> messages, Message m) {
+		int pos = messages.size();
+		while (pos > 0 && messages.get(pos - 1).compareTo(m) > 0) {
+			pos--;
+		}
+		messages.add(pos, m);
+	}
+
+}
@@ -5,8 +5,13 @@ import org.matsim.testcases.MatsimTestCase;
 
 
 public class TestMessageQueue extends MatsimTestCase {
+
+	protected MessageQueue createMessageQueue() {
+		return new MessageQueue();
+	}
+
 	public void testPutMessage1(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(1);
 		
@@ -20,7 +25,7 @@ public class TestMessageQueue extends MatsimTestCase {
 	}
 	
 	public void testPutMessage2(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(2);
 		
@@ -34,7 +39,7 @@ public class TestMessageQueue extends MatsimTestCase {
 	}
 	
 	public void testPutMessage3(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(2);
 		
@@ -52,7 +57,7 @@ public class TestMessageQueue extends MatsimTestCase {
 	}
 	
 	public void testRemoveMessage1(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(1);
 		
@@ -68,7 +73,7 @@ public class TestMessageQueue extends MatsimTestCase {
 	}
 	
 	public void testRemoveMessage2(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(1);
 		
@@ -84,7 +89,7 @@ public class TestMessageQueue extends MatsimTestCase {
 	}
 	
 	public void testRemoveMessage3(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(1);
 		
@@ -103,8 +108,28 @@ public class TestMessageQueue extends MatsimTestCase {
 	
 	// a higher priority message will be at front of queue, if there are 
 	// several messages with same time
+	public void testPeekNextMessage(){
+		MessageQueue mq=createMessageQueue();
+		assertNull(mq.peekNextMessage());
+		Message m1=new DummyMessage();
+		m1.setMessageArrivalTime(1);
+		
+		Message m2=new DummyMessage();
+		m2.setMessageArrivalTime(2);
+		
+		mq.putMessage(m2);
+		mq.putMessage(m1);
+		assertEquals(true, mq.peekNextMessage()==m1);
+		assertEquals(2, mq.getQueueSize());
+		// removed messages are skipped
+		mq.removeMessage(m1);
+		assertEquals(true, mq.peekNextMessage()==m2);
+		assertEquals(true, mq.getNextMessage()==m2);
+		assertNull(mq.peekNextMessage());
+	}
+	
 	public void testMessagePriority(){
-		MessageQueue mq=new MessageQueue();
+		MessageQueue mq=createMessageQueue();
 		Message m1=new DummyMessage();
 		m1.setMessageArrivalTime(1);
 		m1.setPriority(10);
@@ -0,0 +1,113 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TestParallelScheduler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.scenario.ScenarioUtils;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the events of the {@link ParallelScheduler} to the events of the {@link Scheduler}.
+ */
+public class TestParallelScheduler extends AbstractJDEQSimTest {
+
+	@Test
+	public void test_equilPlans100_sameEventsAsScheduler() {
+		Scenario scenario = loadScenario();
+		List<Event> expected = runJDEQSim(scenario, 1);
+
+		for (int numberOfThreads = 2; numberOfThreads <= 8; numberOfThreads *= 2) {
+			List<Event> actual = runJDEQSim(scenario, numberOfThreads);
+			assertEquals(scenario.getPopulation().getPersons().size(), super.eventsByPerson.size());
+			super.checkAscendingTimeStamps();
+			super.checkEventsCorrespondToPlans(scenario.getPopulation());
+			assertEquals("number of threads: " + numberOfThreads, sortEventsWithSameTime(expected), sortEventsWithSameTime(actual));
+		}
+	}
+
+	@Test
+	public void test_equilPlans100_endTime() {
+		Scenario scenario = loadScenario();
+		ConfigUtils.addOrGetModule(scenario.getConfig(), JDEQSimConfigGroup.NAME, JDEQSimConfigGroup.class).setSimulationEndTime("07:00:00");
+		List<Event> expected = runJDEQSim(scenario, 1);
+		List<Event> actual = runJDEQSim(scenario, 4);
+		assertEquals(sortEventsWithSameTime(expected), sortEventsWithSameTime(actual));
+	}
+
+	@Test
+	public void test_equilPlans100_deterministic() {
+		Scenario scenario = loadScenario();
+		List<String> expected = toStrings(runJDEQSim(scenario, 4));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(expected, toStrings(runJDEQSim(scenario, 4)));
+		}
+	}
+
+	private static Scenario loadScenario() {
+		Config config = ConfigUtils.loadConfig("test/scenarios/equil/config.xml");
+		MatsimRandom.reset(config.global().getRandomSeed());
+		// keeps messages with the same time in the order they are scheduled, see ParallelScheduler
+		ConfigUtils.addOrGetModule(config, JDEQSimConfigGroup.NAME, JDEQSimConfigGroup.class).setMessageQueue(JDEQSimConfigGroup.MessageQueueType.calendarQueue);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		ScenarioUtils.loadScenario(scenario);
+		return scenario;
+	}
+
+	private List<Event> runJDEQSim(Scenario scenario, int numberOfThreads) {
+		this.eventsByPerson = new HashMap<>();
+		this.vehicleToDriver = new HashMap<>();
+		this.allEvents = new LinkedList<>();
+		Road.getAllRoads().clear();
+		ConfigUtils.addOrGetModule(scenario.getConfig(), JDEQSimConfigGroup.NAME, JDEQSimConfigGroup.class).setNumberOfThreads(numberOfThreads);
+		runJDEQSim(scenario);
+		return new ArrayList<>(this.allEvents);
+	}
+
+	/**
+	 * the schedulers may process messages with the same time in different order
+	 */
+	private static List<String> sortEventsWithSameTime(List<Event> events) {
+		List<Event> sorted = new ArrayList<>(events);
+		sorted.sort(Comparator.comparingDouble(Event::getTime).thenComparing(Event::toString));
+		return toStrings(sorted);
+	}
+
+	private static List<String> toStrings(List<Event> events) {
+		List<String> strings = new ArrayList<>();
+		for (Event event : events) {
+			strings.add(event.toString());
+		}
+		return strings;
+	}
+
+}
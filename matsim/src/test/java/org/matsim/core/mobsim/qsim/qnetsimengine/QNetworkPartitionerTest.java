@@ -0,0 +1,252 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetworkPartitionerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class QNetworkPartitionerTest {
+
+	private static final int GRID_SIZE = 10;
+
+	@Test
+	public void testRoundRobin() {
+		List<Node> nodes = createGridNodes();
+		int[] parts = new RoundRobinQNetworkPartitioner().partition(nodes, uniformWeights(nodes.size()), 3);
+		for (int i = 0; i < parts.length; i++) {
+			Assert.assertEquals(i % 3, parts[i]);
+		}
+	}
+
+	@Test
+	public void testSpatial_quadrants() {
+		List<Node> nodes = createGridNodes();
+		int[] parts = new SpatialQNetworkPartitioner().partition(nodes, uniformWeights(nodes.size()), 4);
+
+		int[] partSizes = new int[4];
+		int[] quadrantParts = new int[] { -1, -1, -1, -1 };
+		for (int i = 0; i < nodes.size(); i++) {
+			Coord coord = nodes.get(i).getCoord();
+			int quadrant = (coord.getX() < GRID_SIZE / 2 ? 0 : 1) + (coord.getY() < GRID_SIZE / 2 ? 0 : 2);
+			if (quadrantParts[quadrant] < 0) {
+				quadrantParts[quadrant] = parts[i];
+			}
+			Assert.assertEquals("node " + nodes.get(i).getId() + " is not in the same part as its neighbours.", quadrantParts[quadrant], parts[i]);
+			partSizes[parts[i]]++;
+		}
+		for (int size : partSizes) {
+			Assert.assertEquals(GRID_SIZE * GRID_SIZE / 4, size);
+		}
+		int[] sortedParts = quadrantParts.clone();
+		Arrays.sort(sortedParts);
+		Assert.assertArrayEquals(new int[] { 0, 1, 2, 3 }, sortedParts);
+	}
+
+	@Test
+	public void testSpatial_weights() {
+		List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			nodes.add(createNode("w" + i, i, 0));
+		}
+		int[] parts = new SpatialQNetworkPartitioner().partition(nodes, new double[] { 3, 1, 1, 1 }, 2);
+		Assert.assertArrayEquals(new int[] { 0, 1, 1, 1 }, parts);
+
+		parts = new SpatialQNetworkPartitioner().partition(nodes, new double[] { 1, 1, 1, 1 }, 2);
+		Assert.assertArrayEquals(new int[] { 0, 0, 1, 1 }, parts);
+	}
+
+	@Test
+	public void testSpatial_moreRunnersThanNodes() {
+		List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			nodes.add(createNode("m" + i, i, 0));
+		}
+		int[] parts = new SpatialQNetworkPartitioner().partition(nodes, uniformWeights(3), 8);
+		for (int part : parts) {
+			Assert.assertTrue(part >= 0 && part < 8);
+		}
+		Assert.assertNotEquals(parts[0], parts[1]);
+		Assert.assertNotEquals(parts[1], parts[2]);
+	}
+
+	@Test
+	public void testSimulation_spatialWithRebalancing_barriers() {
+		testSameEventsWithRebalancing(false);
+	}
+
+	@Test
+	public void testSimulation_spatialWithRebalancing_threadpool() {
+		testSameEventsWithRebalancing(true);
+	}
+
+	private static void testSameEventsWithRebalancing(boolean usingThreadpool) {
+		List<String> expectedEvents = new ArrayList<>();
+		runSimulation(usingThreadpool, NetworkPartitioning.roundRobin, 0, expectedEvents);
+
+		List<String> events = new ArrayList<>();
+		QNetsimEngine engine = runSimulation(usingThreadpool, NetworkPartitioning.spatial, 60, events);
+		Assert.assertTrue("no links were handed over to another runner.", engine.getNumberOfReassignedLinks() > 0);
+
+		// the runners throw the events of a time step in no particular order
+		Collections.sort(expectedEvents);
+		Collections.sort(events);
+		Assert.assertEquals(expectedEvents, events);
+	}
+
+	private static QNetsimEngine runSimulation(boolean usingThreadpool, NetworkPartitioning partitioning,
+			double rebalancingInterval, List<String> collectedEvents) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNumberOfThreads(4);
+		config.qsim().setUsingThreadpool(usingThreadpool);
+		config.qsim().setNetworkPartitioning(partitioning);
+		config.qsim().setRunnerRebalancingInterval(rebalancingInterval);
+		config.qsim().setEndTime(24 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		NetworkFactory nf = network.getFactory();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = nf.createNode(Id.create(x + "_" + y, Node.class), new Coord(x * 1000, y * 1000));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x + 1 < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				Link link = nf.createLink(Id.create(x + "_" + y + "_east", Link.class), nodes[x][y], nodes[x + 1][y]);
+				link.setCapacity(1800);
+				link.setFreespeed(10);
+				link.setLength(1000);
+				network.addLink(link);
+			}
+		}
+
+		// all agents drive from west to east at the same time, so the load moves through the runners
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		int numberOfAgents = 0;
+		for (int y = 0; y < GRID_SIZE; y++) {
+			List<Id<Link>> routeLinkIds = new ArrayList<>();
+			for (int x = 1; x + 2 < GRID_SIZE; x++) {
+				routeLinkIds.add(Id.create(x + "_" + y + "_east", Link.class));
+			}
+			Id<Link> startLinkId = Id.create(0 + "_" + y + "_east", Link.class);
+			Id<Link> endLinkId = Id.create((GRID_SIZE - 2) + "_" + y + "_east", Link.class);
+			for (int i = 0; i < 20; i++) {
+				Person person = pf.createPerson(Id.create(y + "_" + i, Person.class));
+				Plan plan = pf.createPlan();
+				Activity home = pf.createActivityFromLinkId("h", startLinkId);
+				home.setEndTime(6 * 3600 + i * 10);
+				plan.addActivity(home);
+				Leg leg = pf.createLeg(TransportMode.car);
+				NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(startLinkId, routeLinkIds, endLinkId);
+				leg.setRoute(route);
+				plan.addLeg(leg);
+				plan.addActivity(pf.createActivityFromLinkId("w", endLinkId));
+				person.addPlan(plan);
+				scenario.getPopulation().addPerson(person);
+				numberOfAgents++;
+			}
+		}
+
+		final int[] arrivals = new int[1];
+		List<String> events = Collections.synchronizedList(collectedEvents);
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				events.add(event.toString());
+				if (event instanceof PersonArrivalEvent) {
+					arrivals[0]++;
+				}
+			}
+
+			@Override
+			public void reset(int iteration) {
+			}
+		});
+
+		// the nodes draw their random numbers from local instances, which depend on the number of instances created before
+		MatsimRandom.reset();
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = new QSimBuilder(config) //
+			.useDefaults() //
+			.build(scenario, eventsManager);
+		qsim.run();
+
+		Assert.assertEquals(numberOfAgents, arrivals[0]);
+		return qsim.getChildInjector().getInstance(QNetsimEngine.class);
+	}
+
+	private static List<Node> createGridNodes() {
+		List<Node> nodes = new ArrayList<>();
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes.add(createNode(x + "_" + y, x, y));
+			}
+		}
+		return nodes;
+	}
+
+	private static Node createNode(String id, double x, double y) {
+		return NetworkUtils.createNode(Id.create(id, Node.class), new Coord(x, y));
+	}
+
+	private static double[] uniformWeights(int size) {
+		double[] weights = new double[size];
+		Arrays.fill(weights, 1.0);
+		return weights;
+	}
+
+}
@@ -0,0 +1,235 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPopulationImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+
+public class CompactPopulationImplTest {
+
+	private static Population createPopulation() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPlansStorage(PlansConfigGroup.PlansStorage.compact);
+		Population population = PopulationUtils.createPopulation(config);
+		Assert.assertEquals(CompactPopulationImpl.class, population.getClass());
+		return population;
+	}
+
+	private static Person createPerson(Population population, String id) {
+		PopulationFactory pf = population.getFactory();
+		Person person = pf.createPerson(Id.createPersonId(id));
+		for (int i = 0; i < 2; i++) {
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromCoord("home", new Coord(100, 200));
+			home.setLinkId(Id.createLinkId("1"));
+			home.setEndTime(7 * 3600 + i);
+			home.getAttributes().putAttribute("attr", "value");
+			plan.addActivity(home);
+			Leg leg = pf.createLeg("car");
+			leg.setDepartureTime(7 * 3600 + i);
+			leg.setTravelTime(600);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"), Id.createLinkId("3"));
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			Activity work = pf.createActivityFromLinkId("work", Id.createLinkId("3"));
+			work.setMaximumDuration(8 * 3600);
+			plan.addActivity(work);
+			plan.setScore(10.0 + i);
+			person.addPlan(plan);
+		}
+		person.setSelectedPlan(person.getPlans().get(1));
+		return person;
+	}
+
+	@Test
+	public void testPlansAreStoredCompactly() {
+		Population population = createPopulation();
+		Person person = createPerson(population, "1");
+		Leg originalLeg = (Leg) person.getPlans().get(1).getPlanElements().get(1);
+		population.addPerson(person);
+
+		Assert.assertEquals(2, person.getPlans().size());
+		Plan plan = person.getSelectedPlan();
+		Assert.assertEquals(CompactPlan.class, plan.getClass());
+		Assert.assertSame(person.getPlans().get(1), plan);
+		Assert.assertSame(person, plan.getPerson());
+		Assert.assertEquals(11.0, plan.getScore(), 0.0);
+		Assert.assertEquals(3, plan.getPlanElements().size());
+
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		Assert.assertEquals("home", home.getType());
+		Assert.assertEquals(new Coord(100, 200), home.getCoord());
+		Assert.assertEquals(Id.createLinkId("1"), home.getLinkId());
+		Assert.assertNull(home.getFacilityId());
+		Assert.assertEquals(7 * 3600 + 1, home.getEndTime(), 0.0);
+		Assert.assertEquals("value", home.getAttributes().getAttribute("attr"));
+
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+		Assert.assertEquals("car", leg.getMode());
+		Assert.assertEquals(7 * 3600 + 1, leg.getDepartureTime(), 0.0);
+		Assert.assertEquals(600, leg.getTravelTime(), 0.0);
+		Assert.assertSame(originalLeg.getRoute(), leg.getRoute());
+
+		Activity work = (Activity) plan.getPlanElements().get(2);
+		Assert.assertEquals("work", work.getType());
+		Assert.assertNull(work.getCoord());
+		Assert.assertEquals(8 * 3600, work.getMaximumDuration(), 0.0);
+
+		Assert.assertEquals(home, plan.getPlanElements().get(0));
+		Assert.assertEquals(0, plan.getPlanElements().indexOf(home));
+		Assert.assertNotEquals(home, person.getPlans().get(0).getPlanElements().get(0));
+	}
+
+	@Test
+	public void testChangesAreStored() {
+		Population population = createPopulation();
+		Person person = createPerson(population, "1");
+		population.addPerson(person);
+		Plan plan = person.getSelectedPlan();
+
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		home.setEndTime(8 * 3600);
+		home.setType("home2");
+		home.setCoord(new Coord(1, 2, 3));
+		home.setFacilityId(Id.create("f", org.matsim.facilities.ActivityFacility.class));
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+		leg.setMode("bike");
+		leg.setRoute(null);
+		plan.setScore(5.0);
+
+		home = (Activity) plan.getPlanElements().get(0);
+		Assert.assertEquals(8 * 3600, home.getEndTime(), 0.0);
+		Assert.assertEquals("home2", home.getType());
+		Assert.assertEquals(3, home.getCoord().getZ(), 0.0);
+		Assert.assertEquals("f", home.getFacilityId().toString());
+		leg = (Leg) plan.getPlanElements().get(1);
+		Assert.assertEquals("bike", leg.getMode());
+		Assert.assertNull(leg.getRoute());
+		Assert.assertEquals(5.0, plan.getScore(), 0.0);
+
+		// the other plan is not affected
+		Plan otherPlan = person.getPlans().get(0);
+		Assert.assertEquals(7 * 3600, ((Activity) otherPlan.getPlanElements().get(0)).getEndTime(), 0.0);
+		Assert.assertEquals("car", ((Leg) otherPlan.getPlanElements().get(1)).getMode());
+		Assert.assertFalse(((Activity) otherPlan.getPlanElements().get(0)).getCoord().hasZ());
+	}
+
+	@Test
+	public void testStructuralChanges() {
+		Population population = createPopulation();
+		Person person = createPerson(population, "1");
+		population.addPerson(person);
+		Plan plan = person.getSelectedPlan();
+		PopulationFactory pf = population.getFactory();
+
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		plan.addLeg(pf.createLeg("walk"));
+		plan.addActivity(pf.createActivityFromLinkId("home", Id.createLinkId("1")));
+		Assert.assertEquals(5, plan.getPlanElements().size());
+		Assert.assertEquals("walk", ((Leg) plan.getPlanElements().get(3)).getMode());
+		Assert.assertSame(plan.getPlanElements().get(0), plan.getPlanElements().get(0));
+
+		// views handed out before still write to the plan
+		home.setEndTime(9 * 3600);
+		Assert.assertEquals(9 * 3600, ((Activity) plan.getPlanElements().get(0)).getEndTime(), 0.0);
+
+		plan.getPlanElements().remove(4);
+		plan.getPlanElements().remove(3);
+		Assert.assertEquals(3, plan.getPlanElements().size());
+
+		// copies, as created in replanning, are normal plans
+		Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+		Assert.assertEquals(PlanImpl.class, copy.getClass());
+		Assert.assertEquals(3, copy.getPlanElements().size());
+		Assert.assertEquals(9 * 3600, ((Activity) copy.getPlanElements().get(0)).getEndTime(), 0.0);
+		Assert.assertEquals("value", ((Activity) copy.getPlanElements().get(0)).getAttributes().getAttribute("attr"));
+	}
+
+
+	@Test
+	public void testPlanElementsAreTheSameObjects() {
+		Population population = createPopulation();
+		Person person = createPerson(population, "1");
+		population.addPerson(person);
+		Plan plan = person.getSelectedPlan();
+
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+		Activity work = (Activity) plan.getPlanElements().get(2);
+		Assert.assertSame(home, plan.getPlanElements().get(0));
+		Assert.assertSame(leg, plan.getPlanElements().get(1));
+		Assert.assertSame(home.getCoord(), ((Activity) plan.getPlanElements().get(0)).getCoord());
+		Assert.assertSame(work.getAttributes(), ((Activity) plan.getPlanElements().get(2)).getAttributes());
+
+		// changes through a plan element are seen by everybody who gets it from the plan
+		home.setEndTime(6 * 3600);
+		Coord coord = new Coord(5, 6);
+		home.setCoord(coord);
+		leg.setTravelTime(900);
+		work.getAttributes().putAttribute("attr", "work");
+		Assert.assertEquals(6 * 3600, ((Activity) plan.getPlanElements().get(0)).getEndTime(), 0.0);
+		Assert.assertSame(coord, ((Activity) plan.getPlanElements().get(0)).getCoord());
+		Assert.assertEquals(900, ((Leg) plan.getPlanElements().get(1)).getTravelTime(), 0.0);
+		Assert.assertEquals("work", ((Activity) plan.getPlanElements().get(2)).getAttributes().getAttribute("attr"));
+
+		// and after structural changes of the plan
+		plan.addLeg(population.getFactory().createLeg("walk"));
+		Assert.assertSame(home, plan.getPlanElements().get(0));
+		Assert.assertSame(leg, plan.getPlanElements().get(1));
+		Assert.assertSame(work, plan.getPlanElements().get(2));
+	}
+
+	@Test
+	public void testChangesWhileAdding() throws InterruptedException {
+		Population population = createPopulation();
+		Person person = createPerson(population, "0");
+		population.addPerson(person);
+		Activity home = (Activity) person.getSelectedPlan().getPlanElements().get(0);
+
+		Thread adding = new Thread(() -> {
+			for (int i = 1; i < 2000; i++) {
+				population.addPerson(createPerson(population, Integer.toString(i)));
+			}
+		});
+		adding.start();
+		for (int i = 0; i < 100000; i++) {
+			home.setEndTime(i);
+		}
+		adding.join();
+
+		Assert.assertEquals(99999, home.getEndTime(), 0.0);
+		Assert.assertEquals(2000, population.getPersons().size());
+	}
+
+}
@@ -1,5 +1,12 @@
 package org.matsim.core.population.io;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -9,7 +16,11 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.facilities.ActivityFacility;
 import org.matsim.testcases.MatsimTestUtils;
 
 /**
@@ -208,4 +219,206 @@ public class PopulationV6IOTest {
 				population.getAttributes().getAttribute( "type" ) ,
 				readScenario.getPopulation().getAttributes().getAttribute( "type" ) );
 	}
+
+	@Test
+	public void testParallelReader() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+
+		population.getAttributes().putAttribute( "type" , "many" );
+		// more persons than fit into one chunk of the parallel reader, in an order different from the Ids
+		for ( int i = 1234 ; i > 0 ; i-- ) {
+			final Person person = factory.createPerson( Id.createPersonId( "p" + (i * 7919 % 1237) ) );
+			population.addPerson( person );
+			person.getAttributes().putAttribute( "number" , i );
+
+			final Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			final Activity home = factory.createActivityFromCoord( "home" , new Coord( i , -i ) );
+			home.setEndTime( 3600 + i );
+			home.getAttributes().putAttribute( "name" , "home of " + i );
+			plan.addActivity( home );
+			final Leg leg = factory.createLeg( "walk" );
+			leg.setRoute( factory.getRouteFactories().createRoute( Route.class , Id.createLinkId( i ) , Id.createLinkId( i + 1 ) ) );
+			leg.getRoute().setTravelTime( i );
+			plan.addLeg( leg );
+			plan.addActivity( factory.createActivityFromLinkId( "work" , Id.createLinkId( i + 1 ) ) );
+		}
+
+		final String file = utils.getOutputDirectory()+"/population.xml.gz";
+		new PopulationWriter( population ).writeV6( file );
+
+		final Scenario sequentialScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		sequentialScenario.getConfig().plans().setNumberOfThreadsForReading( 1 );
+		new PopulationReader( sequentialScenario ).readFile( file );
+
+		final Scenario parallelScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		parallelScenario.getConfig().plans().setNumberOfThreadsForReading( 4 );
+		new PopulationReader( parallelScenario ).readFile( file );
+
+		Assert.assertEquals( "many" , parallelScenario.getPopulation().getAttributes().getAttribute( "type" ) );
+		Assert.assertEquals( population.getPersons().size() , parallelScenario.getPopulation().getPersons().size() );
+
+		final Iterator<? extends Person> expected = sequentialScenario.getPopulation().getPersons().values().iterator();
+		for ( Person readPerson : parallelScenario.getPopulation().getPersons().values() ) {
+			final Person expectedPerson = expected.next();
+			Assert.assertEquals( "unexpected order of persons" , expectedPerson.getId() , readPerson.getId() );
+			Assert.assertEquals( expectedPerson.getAttributes().getAttribute( "number" ) , readPerson.getAttributes().getAttribute( "number" ) );
+
+			final List<PlanElement> expectedElements = expectedPerson.getSelectedPlan().getPlanElements();
+			final List<PlanElement> readElements = readPerson.getSelectedPlan().getPlanElements();
+			Assert.assertEquals( expectedElements.size() , readElements.size() );
+
+			final Activity expectedHome = (Activity) expectedElements.get( 0 );
+			final Activity readHome = (Activity) readElements.get( 0 );
+			Assert.assertEquals( expectedHome.getCoord() , readHome.getCoord() );
+			Assert.assertEquals( expectedHome.getEndTime() , readHome.getEndTime() , MatsimTestUtils.EPSILON );
+			Assert.assertEquals( expectedHome.getAttributes().getAttribute( "name" ) , readHome.getAttributes().getAttribute( "name" ) );
+
+			final Route expectedRoute = ((Leg) expectedElements.get( 1 )).getRoute();
+			final Route readRoute = ((Leg) readElements.get( 1 )).getRoute();
+			Assert.assertEquals( expectedRoute.getStartLinkId() , readRoute.getStartLinkId() );
+			Assert.assertEquals( expectedRoute.getEndLinkId() , readRoute.getEndLinkId() );
+			Assert.assertEquals( expectedRoute.getTravelTime() , readRoute.getTravelTime() , MatsimTestUtils.EPSILON );
+
+			Assert.assertEquals( ((Activity) expectedElements.get( 2 )).getLinkId() , ((Activity) readElements.get( 2 )).getLinkId() );
+		}
+	}
+
+	@Test
+	public void testParallelReader_idsInFileOrder() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+
+		// the Ids referenced by the persons are written to the file before they are created, by using their names only
+		final int nOfPersons = 500;
+		for ( int i = 0 ; i < nOfPersons ; i++ ) {
+			final Person person = factory.createPerson( Id.createPersonId( "idOrderPerson" + i ) );
+			population.addPerson( person );
+			final Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			plan.addActivity( factory.createActivityFromLinkId( "home" , Id.createLinkId( "idOrderLinkA" + i ) ) );
+			final Leg leg = factory.createLeg( "car" );
+			final NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl( Id.createLinkId( "idOrderLinkA" + i ) ,
+					Collections.singletonList( Id.createLinkId( "idOrderLinkB" + i ) ) , Id.createLinkId( "idOrderLinkC" + i ) );
+			route.setVehicleId( Id.createVehicleId( "idOrderVehicle" + i ) );
+			leg.setRoute( route );
+			plan.addLeg( leg );
+			final Activity work = factory.createActivityFromLinkId( "work" , Id.createLinkId( "idOrderLinkC" + i ) );
+			work.setFacilityId( Id.create( "idOrderFacility" + i , ActivityFacility.class ) );
+			plan.addActivity( work );
+		}
+		final String file = utils.getOutputDirectory()+"/population.xml.gz";
+		new PopulationWriter( population ).writeV6( file );
+		// the file is read with other names, so all Ids are created by the reader
+		final String content = readContent( file ).replace( "idOrder" , "idOrderRead" );
+		writeContent( file , content );
+
+		final Scenario parallelScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		parallelScenario.getConfig().plans().setNumberOfThreadsForReading( 4 );
+		new PopulationReader( parallelScenario ).readFile( file );
+		Assert.assertEquals( nOfPersons , parallelScenario.getPopulation().getPersons().size() );
+
+		// the end link of the route is created before the links in the route description, as with the non-parallel reader
+		int lastLinkIndex = -1;
+		for ( int i = 0 ; i < nOfPersons ; i++ ) {
+			for ( String name : new String[] { "idOrderReadLinkA" + i , "idOrderReadLinkC" + i , "idOrderReadLinkB" + i } ) {
+				final int index = Id.createLinkId( name ).index();
+				Assert.assertTrue( "link Ids are not created in the order of the file" , index > lastLinkIndex );
+				lastLinkIndex = index;
+			}
+			if ( i > 0 ) {
+				Assert.assertEquals( Id.createVehicleId( "idOrderReadVehicle" + (i - 1) ).index() + 1 ,
+						Id.createVehicleId( "idOrderReadVehicle" + i ).index() );
+				Assert.assertEquals( Id.create( "idOrderReadFacility" + (i - 1) , ActivityFacility.class ).index() + 1 ,
+						Id.create( "idOrderReadFacility" + i , ActivityFacility.class ).index() );
+			}
+		}
+	}
+
+	@Test
+	public void testParallelReader_stopsThreadsOnError() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+		for ( int i = 0 ; i < 1000 ; i++ ) {
+			final Person person = factory.createPerson( Id.createPersonId( "brokenFilePerson" + i ) );
+			population.addPerson( person );
+			final Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			plan.addActivity( factory.createActivityFromCoord( "home" , new Coord( i , -i ) ) );
+		}
+		final String file = utils.getOutputDirectory()+"/population.xml";
+		new PopulationWriter( population ).writeV6( file );
+		// cut the file within the persons
+		final String content = readContent( file );
+		writeContent( file , content.substring( 0 , content.length() / 2 ) );
+
+		final Scenario scenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		scenario.getConfig().plans().setNumberOfThreadsForReading( 4 );
+		try {
+			new PopulationReader( scenario ).readFile( file );
+			Assert.fail( "expected an exception when reading an incomplete file" );
+		} catch ( RuntimeException e ) {
+			// expected
+		}
+		for ( Thread thread : Thread.getAllStackTraces().keySet() ) {
+			Assert.assertFalse( "reader thread still running: " + thread.getName() ,
+					thread.getName().startsWith( "ParallelPopulationReaderMatsimV6" ) && thread.isAlive() );
+		}
+	}
+
+	private static String readContent( final String file ) {
+		final StringBuilder content = new StringBuilder();
+		try ( java.io.BufferedReader reader = IOUtils.getBufferedReader( file ) ) {
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				content.append( line ).append( '\n' );
+			}
+		} catch ( IOException e ) {
+			throw new UncheckedIOException( e );
+		}
+		return content.toString();
+	}
+
+	private static void writeContent( final String file , final String content ) {
+		try ( BufferedWriter writer = IOUtils.getBufferedWriter( file ) ) {
+			writer.write( content );
+		} catch ( IOException e ) {
+			throw new UncheckedIOException( e );
+		}
+	}
+
+	@Test
+	public void testParallelWriter() throws IOException {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+
+		// enough persons for several compressed blocks
+		for ( int i = 0 ; i < 10000 ; i++ ) {
+			final Person person = factory.createPerson( Id.createPersonId( i ) );
+			population.addPerson( person );
+			person.getAttributes().putAttribute( "number" , i );
+
+			final Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			plan.addActivity( factory.createActivityFromCoord( "home" , new Coord( i , -i ) ) );
+			plan.addLeg( factory.createLeg( "walk" ) );
+			plan.addActivity( factory.createActivityFromLinkId( "work" , Id.createLinkId( i ) ) );
+		}
+
+		final String sequentialFile = utils.getOutputDirectory()+"/population.xml";
+		new PopulationWriter( population ).writeV6( sequentialFile );
+
+		final String parallelFile = utils.getOutputDirectory()+"/population_parallel.xml.gz";
+		final PopulationWriter writer = new PopulationWriter( population );
+		writer.setNumberOfThreads( 4 );
+		writer.writeV6( parallelFile );
+
+		Assert.assertTrue( "the parallel writer should write the same content as the sequential one" ,
+				IOUtils.isEqual( IOUtils.getInputStream( sequentialFile ) , IOUtils.getInputStream( parallelFile ) ) );
+
+		final Scenario readScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		new PopulationReader( readScenario ).readFile( parallelFile );
+		Assert.assertEquals( population.getPersons().size() , readScenario.getPopulation().getPersons().size() );
+	}
 }
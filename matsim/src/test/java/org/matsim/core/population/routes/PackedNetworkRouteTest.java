@@ -0,0 +1,94 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedNetworkRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+public class PackedNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return new PackedNetworkRouteImpl(fromLinkId, toLinkId);
+	}
+
+	@Test
+	public void testClone() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		Id<Link> id3 = Id.create(3, Link.class);
+		Id<Link> id4 = Id.create(4, Link.class);
+		Id<Link> id5 = Id.create(5, Link.class);
+		NetworkRoute route1 = new PackedNetworkRouteImpl(id1, id2);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(id3);
+		srcRoute.add(id4);
+		route1.setLinkIds(id1, srcRoute, id2);
+		Assert.assertEquals(2, route1.getLinkIds().size());
+
+		NetworkRoute route2 = (NetworkRoute) route1.clone();
+
+		srcRoute.add(id5);
+		route1.setLinkIds(id1, srcRoute, id2);
+
+		Assert.assertEquals(3, route1.getLinkIds().size());
+		Assert.assertEquals(2, route2.getLinkIds().size());
+		Assert.assertEquals(id4, route2.getLinkIds().get(1));
+		Assert.assertEquals(id5, route1.getLinkIds().get(2));
+	}
+
+	@Test
+	public void testLinkIds_sameInstancesAsCreated() {
+		Id<Link> id1 = Id.create("p1", Link.class);
+		Id<Link> id2 = Id.create("p2", Link.class);
+		Id<Link> id3 = Id.create("p3", Link.class);
+		NetworkRoute route = new PackedNetworkRouteImpl(id1, id3);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(id2);
+		srcRoute.add(id2);
+		route.setLinkIds(id1, srcRoute, id3);
+		Assert.assertSame(id2, route.getLinkIds().get(0));
+		Assert.assertSame(id2, route.getLinkIds().get(1));
+		Assert.assertEquals("links", route.getRouteType());
+		Assert.assertEquals("p1 p2 p2 p3", route.getRouteDescription());
+	}
+
+	@Test
+	public void testLinkIds_wrongIdType() {
+		Id<Link> id1 = Id.create("w1", Link.class);
+		Id<Link> id3 = Id.create("w3", Link.class);
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Id<Link> nodeId = (Id) Id.create("w2", Node.class);
+		NetworkRoute route = new PackedNetworkRouteImpl(id1, id3);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(nodeId);
+		route.setLinkIds(id1, srcRoute, id3);
+		Assert.assertSame(Id.get("w2", Link.class), route.getLinkIds().get(0));
+	}
+
+}
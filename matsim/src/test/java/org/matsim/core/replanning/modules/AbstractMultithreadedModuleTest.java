@@ -23,10 +23,15 @@ package org.matsim.core.replanning.modules;
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
+import org.matsim.analysis.IterationStopWatch;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningExecution;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
+import org.matsim.core.replanning.ReplanningContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author mrieser
@@ -60,6 +65,80 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	public void testCrashingThread_workStealing() {
+		try {
+			DummyCrashingModule testee = new DummyCrashingModule(2, ReplanningExecution.workStealing);
+			testee.prepareReplanning(null);
+			testee.handlePlan(null);
+			testee.handlePlan(null);
+			testee.handlePlan(null);
+			testee.finishReplanning();
+			Assert.fail("expected exception, got none.");
+		} catch (Exception e) {
+			log.info("Catched expected exception.", e);
+		}
+	}
+
+	@Test
+	public void testWorkStealing() {
+		CountingModule testee = new CountingModule(3, false);
+		for (int iteration = 0; iteration < 2; iteration++) {
+			testee.prepareReplanning(null);
+			for (int i = 0; i < 1000; i++) {
+				testee.handlePlan(null);
+			}
+			testee.finishReplanning();
+			Assert.assertEquals((iteration + 1) * 1000, testee.handledPlans.get());
+		}
+		Assert.assertEquals("new plan algorithms are expected in every iteration.", 6, testee.createdInstances.get());
+	}
+
+	@Test
+	public void testWorkStealing_reusingPlanAlgoInstances() {
+		CountingModule testee = new CountingModule(3, true);
+		for (int iteration = 0; iteration < 2; iteration++) {
+			testee.prepareReplanning(null);
+			for (int i = 0; i < 10; i++) {
+				testee.handlePlan(null);
+			}
+			testee.finishReplanning();
+			Assert.assertEquals((iteration + 1) * 10, testee.handledPlans.get());
+		}
+		Assert.assertEquals("the plan algorithms are expected to be reused.", 3, testee.createdInstances.get());
+	}
+
+	@Test
+	public void testStopWatchOperation_unique() {
+		IterationStopWatch stopWatch = new IterationStopWatch();
+		ReplanningContext replanningContext = new ReplanningContext() {
+			@Override
+			public int getIteration() {
+				return 0;
+			}
+			@Override
+			public IterationStopWatch getStopWatch() {
+				return stopWatch;
+			}
+		};
+		CountingModule module1 = new CountingModule(2, false);
+		CountingModule module2 = new CountingModule(2, false);
+		for (int iteration = 0; iteration < 2; iteration++) {
+			stopWatch.beginIteration(iteration);
+			for (CountingModule module : new CountingModule[] { module1, module2 }) {
+				module.prepareReplanning(replanningContext);
+				module.handlePlan(null);
+				module.finishReplanning();
+			}
+			Assert.assertTrue(stopWatch.isOperationBegun("replanning: CountingPlanAlgo"));
+			Assert.assertTrue("modules with the same plan algorithm must not share their stop watch operation.",
+					stopWatch.isOperationBegun("replanning: CountingPlanAlgo (2)"));
+			Assert.assertFalse(stopWatch.isOperationBegun("replanning: CountingPlanAlgo (3)"));
+			stopWatch.endIteration();
+		}
+		Assert.assertEquals(4, module1.handledPlans.get() + module2.handledPlans.get());
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
@@ -74,12 +153,45 @@ public class AbstractMultithreadedModuleTest {
 		public DummyCrashingModule(final int nOfThreads) {
 			super(nOfThreads);
 		}
+		public DummyCrashingModule(final int nOfThreads, final ReplanningExecution replanningExecution) {
+			super(nOfThreads, replanningExecution);
+		}
 		@Override
 		public PlanAlgorithm getPlanAlgoInstance() {
 			return new CrashingPlanAlgo();
 		}
 	}
 
+	private static class CountingModule extends AbstractMultithreadedModule {
+		private final boolean reusingPlanAlgoInstances;
+		/*package*/ final AtomicInteger createdInstances = new AtomicInteger(0);
+		/*package*/ final AtomicInteger handledPlans = new AtomicInteger(0);
+		public CountingModule(final int nOfThreads, final boolean reusingPlanAlgoInstances) {
+			super(nOfThreads, ReplanningExecution.workStealing);
+			this.reusingPlanAlgoInstances = reusingPlanAlgoInstances;
+		}
+		@Override
+		protected boolean isReusingPlanAlgoInstances() {
+			return this.reusingPlanAlgoInstances;
+		}
+		@Override
+		public PlanAlgorithm getPlanAlgoInstance() {
+			this.createdInstances.incrementAndGet();
+			return new CountingPlanAlgo(this.handledPlans);
+		}
+	}
+
+	private static class CountingPlanAlgo implements PlanAlgorithm {
+		private final AtomicInteger handledPlans;
+		public CountingPlanAlgo(final AtomicInteger handledPlans) {
+			this.handledPlans = handledPlans;
+		}
+		@Override
+		public void run(Plan plan) {
+			this.handledPlans.incrementAndGet();
+		}
+	}
+
 	private static class CrashingPlanAlgo implements PlanAlgorithm {
 		@Override
 		public void run(Plan plan) {
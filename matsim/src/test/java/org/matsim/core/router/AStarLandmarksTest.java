@@ -20,11 +20,19 @@
 
 package org.matsim.core.router;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.PreProcessLandmarks;
+import org.matsim.core.scenario.ScenarioUtils;
 
 public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 
@@ -36,4 +44,50 @@ public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 		return new AStarLandmarks(network, preProcessData, travelTimeCostCalculator);
 	}
 
+	public void testPreProcessLandmarks_cache() throws IOException {
+		Scenario scenario = ScenarioUtils.createScenario(loadConfig(null));
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		String cacheDirectory = getOutputDirectory() + "landmarks";
+
+		PreProcessLandmarks expected = new PreProcessLandmarks(travelTimeCostCalculator, 4);
+		expected.run(network);
+
+		PreProcessLandmarks calculated = new PreProcessLandmarks(travelTimeCostCalculator, 4);
+		calculated.setCacheDirectory(cacheDirectory);
+		calculated.run(network);
+		File[] cacheFiles = new File(cacheDirectory).listFiles();
+		assertEquals("there should be exactly one cache file.", 1, cacheFiles.length);
+		assertSameLandmarksData(expected, calculated, network);
+
+		PreProcessLandmarks cached = new PreProcessLandmarks(travelTimeCostCalculator, 4);
+		cached.setCacheDirectory(cacheDirectory);
+		cached.run(network);
+		assertSameLandmarksData(expected, cached, network);
+
+		try (RandomAccessFile file = new RandomAccessFile(cacheFiles[0], "rw")) {
+			file.seek(file.length() / 2);
+			int b = file.read();
+			file.seek(file.length() / 2);
+			file.write(b ^ 0xff);
+		}
+		PreProcessLandmarks corrupted = new PreProcessLandmarks(travelTimeCostCalculator, 4);
+		corrupted.setCacheDirectory(cacheDirectory);
+		corrupted.run(network);
+		assertSameLandmarksData(expected, corrupted, network);
+	}
+
+	private static void assertSameLandmarksData(PreProcessLandmarks expected, PreProcessLandmarks actual, Network network) {
+		assertEquals(4, actual.getLandmarks().length);
+		for (Node node : network.getNodes().values()) {
+			PreProcessLandmarks.LandmarksData expectedData = expected.getNodeData(node);
+			PreProcessLandmarks.LandmarksData actualData = actual.getNodeData(node);
+			for (int i = 0; i < 4; i++) {
+				assertEquals(expectedData.getMinLandmarkTravelTime(i), actualData.getMinLandmarkTravelTime(i), 0.0);
+				assertEquals(expectedData.getMaxLandmarkTravelTime(i), actualData.getMaxLandmarkTravelTime(i), 0.0);
+			}
+		}
+	}
+
 }
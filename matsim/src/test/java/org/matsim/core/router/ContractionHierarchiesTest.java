@@ -0,0 +1,244 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class ContractionHierarchiesTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new ContractionHierarchiesFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testCalcLeastCostPath_sameAsDijkstra() {
+		Network network = createGridNetwork(30, new Random(4711));
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		LeastCostPathCalculator ch = new ContractionHierarchiesFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			Node from = nodes[random.nextInt(nodes.length)];
+			Node to = nodes[random.nextInt(nodes.length)];
+			Path expected = dijkstra.calcLeastCostPath(from, to, 8.0 * 3600, null, null);
+			Path path = ch.calcLeastCostPath(from, to, 8.0 * 3600, null, null);
+			if (expected == null) {
+				assertNull(path);
+				continue;
+			}
+			assertEquals("different costs from " + from.getId() + " to " + to.getId(), expected.travelCost, path.travelCost, 1e-6);
+			assertEquals(expected.travelTime, path.travelTime, 1e-6);
+			assertEquals(from, path.getFromNode());
+			assertEquals(to, path.getToNode());
+			assertEquals(path.links.size() + 1, path.nodes.size());
+			for (int l = 0; l < path.links.size(); l++) {
+				assertEquals(path.nodes.get(l), path.links.get(l).getFromNode());
+				assertEquals(path.nodes.get(l + 1), path.links.get(l).getToNode());
+			}
+		}
+	}
+
+	public void testCalcLeastCostPath_unreachable() {
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), node1, node2, 1000, 10, 1000, 1);
+
+		LeastCostPathCalculator ch = getLeastCostPathCalculator(network);
+		assertNotNull(ch.calcLeastCostPath(node1, node2, 0, null, null));
+		assertNull(ch.calcLeastCostPath(node2, node1, 0, null, null));
+	}
+
+	public void testCalcLeastCostPath_timeBins() {
+		// two parallel routes from 1 to 3: via 2 is cheaper before 8am, via 4 afterwards
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 1000));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(2000, 0));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.create("4", Node.class), new Coord(1000, -1000));
+		Link link12 = NetworkUtils.createAndAddLink(network, Id.create("12", Link.class), node1, node2, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("23", Link.class), node2, node3, 1000, 10, 1000, 1);
+		Link link14 = NetworkUtils.createAndAddLink(network, Id.create("14", Link.class), node1, node4, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("43", Link.class), node4, node3, 1000, 10, 1000, 1);
+
+		TravelTime travelTime = (link, time, person, vehicle) -> {
+			if (link == link12 && time >= 8 * 3600) {
+				return 500;
+			}
+			if (link == link14 && time < 8 * 3600) {
+				return 500;
+			}
+			return 100;
+		};
+		TravelDisutility travelDisutility = new TravelDisutility() {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				return travelTime.getLinkTravelTime(link, time, person, vehicle);
+			}
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return 100;
+			}
+		};
+		LeastCostPathCalculator ch = new ContractionHierarchiesFactory(3600, 24 * 3600).createPathCalculator(network, travelDisutility, travelTime);
+
+		Path path = ch.calcLeastCostPath(node1, node3, 7 * 3600, null, null);
+		assertEquals(node2, path.nodes.get(1));
+		assertEquals(200.0, path.travelTime, 1e-9);
+
+		path = ch.calcLeastCostPath(node1, node3, 9 * 3600, null, null);
+		assertEquals(node4, path.nodes.get(1));
+		assertEquals(200.0, path.travelCost, 1e-9);
+	}
+
+	public void testCalcLeastCostPath_differentDisutilities() {
+		Network network = createDiamondNetwork();
+		TravelTime travelTime = (link, time, person, vehicle) -> 100;
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory();
+		// two disutilities of the same class, but with different parameters
+		LeastCostPathCalculator avoiding12 = factory.createPathCalculator(network,
+				new PenaltyDisutility(network.getLinks().get(Id.create("12", Link.class))), travelTime);
+		LeastCostPathCalculator avoiding14 = factory.createPathCalculator(network,
+				new PenaltyDisutility(network.getLinks().get(Id.create("14", Link.class))), travelTime);
+
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node3 = network.getNodes().get(Id.create("3", Node.class));
+		assertEquals(Id.create("4", Node.class), avoiding12.calcLeastCostPath(node1, node3, 0, null, null).nodes.get(1).getId());
+		assertEquals(Id.create("2", Node.class), avoiding14.calcLeastCostPath(node1, node3, 0, null, null).nodes.get(1).getId());
+	}
+
+	public void testCalcLeastCostPath_memoryLimit() {
+		Network network = createDiamondNetwork();
+		Link link12 = network.getLinks().get(Id.create("12", Link.class));
+		TravelTime travelTime = (link, time, person, vehicle) -> link == link12 && time >= 8 * 3600 ? 500 : 100;
+		TravelDisutility travelDisutility = new PenaltyDisutility(null) {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				return travelTime.getLinkTravelTime(link, time, person, vehicle);
+			}
+		};
+		ContractionHierarchiesFactory unlimited = new ContractionHierarchiesFactory(3600, 24 * 3600);
+		unlimited.createPathCalculator(network, travelDisutility, travelTime).calcLeastCostPath(
+				network.getNodes().get(Id.create("1", Node.class)), network.getNodes().get(Id.create("3", Node.class)), 0, null, null);
+		long bytesPerTimeBin = unlimited.getUsedCostBytes();
+		assertTrue(bytesPerTimeBin > 0);
+
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600, 24 * 3600, 2 * bytesPerTimeBin);
+		LeastCostPathCalculator ch = factory.createPathCalculator(network, travelDisutility, travelTime);
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node3 = network.getNodes().get(Id.create("3", Node.class));
+		for (int hour : new int[] { 7, 9, 10, 11, 7, 9, 6 }) {
+			Path path = ch.calcLeastCostPath(node1, node3, hour * 3600, null, null);
+			assertEquals("hour " + hour, hour < 8 ? Id.create("2", Node.class) : Id.create("4", Node.class), path.nodes.get(1).getId());
+			assertTrue(factory.getUsedCostBytes() <= 2 * bytesPerTimeBin);
+		}
+		assertEquals(2 * bytesPerTimeBin, factory.getUsedCostBytes());
+	}
+
+	/**
+	 * Two parallel routes from node 1 to node 3, via node 2 or via node 4.
+	 */
+	private static Network createDiamondNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 1000));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(2000, 0));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.create("4", Node.class), new Coord(1000, -1000));
+		NetworkUtils.createAndAddLink(network, Id.create("12", Link.class), node1, node2, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("23", Link.class), node2, node3, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("14", Link.class), node1, node4, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("43", Link.class), node4, node3, 1000, 10, 1000, 1);
+		return network;
+	}
+
+	/**
+	 * 100 per link, and 1000 more for one link.
+	 */
+	private static class PenaltyDisutility implements TravelDisutility {
+		private final Link penalizedLink;
+
+		PenaltyDisutility(final Link penalizedLink) {
+			this.penalizedLink = penalizedLink;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return link == this.penalizedLink ? 1100 : 100;
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return 100;
+		}
+	}
+
+	/**
+	 * A grid with random link lengths and speeds, where some links are one-way.
+	 */
+	private static Network createGridNetwork(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.create(x + "_" + y, Node.class), new Coord(x * 100, y * 100));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y], random);
+				}
+				if (y + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinks(final Network network, final Node node1, final Node node2, final Random random) {
+		double length = 100 + random.nextInt(100);
+		double freespeed = 5 + random.nextInt(25);
+		NetworkUtils.createAndAddLink(network, Id.create(node1.getId() + "-" + node2.getId(), Link.class), node1, node2, length, freespeed, 1000, 1);
+		if (random.nextDouble() < 0.9) {
+			NetworkUtils.createAndAddLink(network, Id.create(node2.getId() + "-" + node1.getId(), Link.class), node2, node1, length, freespeed, 1000, 1);
+		}
+	}
+
+}
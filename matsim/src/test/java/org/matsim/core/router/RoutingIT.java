@@ -27,11 +27,14 @@ import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.controler.Injector;
 import org.matsim.core.network.io.MatsimNetworkReader;
@@ -39,12 +42,14 @@ import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PersonAlgorithm;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.costcalculators.RandomizingTimeDistanceTravelDisutilityFactory;
 import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.scenario.ScenarioByInstanceModule;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
 import org.matsim.testcases.MatsimTestUtils;
 
 public class RoutingIT {
@@ -161,6 +166,62 @@ public class RoutingIT {
 		});
 	}
 
+	@Test
+	public void testContractionHierarchies() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "ContractionHierarchies";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new ContractionHierarchiesFactory();
+			}
+		});
+	}
+
+	@Test
+	public void testContractionHierarchies_defaultRoutingRandomness() {
+		final Config config = ConfigUtils.loadConfig( utils.getClassInputDirectory() + "/config.xml" );
+		config.controler().setRoutingAlgorithmType(ControlerConfigGroup.RoutingAlgorithmType.ContractionHierarchies);
+		Assert.assertTrue(config.plansCalcRoute().getRoutingRandomness() != 0.);
+		try {
+			config.checkConsistency();
+			Assert.fail("expected exception, ContractionHierarchies cannot route with routingRandomness.");
+		} catch (IllegalStateException e) {
+			log.info("catched expected exception: " + e.getMessage());
+			Assert.assertTrue(e.getMessage().contains("routingRandomness"));
+		}
+
+		config.plansCalcRoute().setRoutingRandomness(0.);
+		config.checkConsistency();
+		final Scenario scenario = ScenarioUtils.createScenario(config);
+		new MatsimNetworkReader(scenario.getNetwork()).readFile(config.network().getInputFile());
+		new PopulationReader(scenario).readFile(utils.getClassInputDirectory() + "/plans.xml.gz");
+
+		// route with the default travel disutility of the config instead of the free speed one of the other tests
+		com.google.inject.Injector injector = Injector.createInjector(config, new AbstractModule() {
+			@Override
+			public void install() {
+				install(new TripRouterModule());
+				install(new ScenarioByInstanceModule(scenario));
+				addTravelTimeBinding(TransportMode.car).toInstance(new FreeSpeedTravelTime());
+				addTravelDisutilityFactoryBinding(TransportMode.car).toInstance(
+						new RandomizingTimeDistanceTravelDisutilityFactory(TransportMode.car, config.planCalcScore()));
+				bindLeastCostPathCalculatorFactory().toInstance(new ContractionHierarchiesFactory());
+			}
+		});
+		final PersonAlgorithm router = new PlanRouter(injector.getInstance(TripRouter.class));
+		for ( Person p : scenario.getPopulation().getPersons().values() ) {
+			router.run(p);
+		}
+		for ( Person p : scenario.getPopulation().getPersons().values() ) {
+			for ( Leg leg : TripStructureUtils.getLegs(p.getSelectedPlan()) ) {
+				Assert.assertNotNull("leg of person " + p.getId() + " is not routed.", leg.getRoute());
+			}
+		}
+	}
+
 	private void doTest(final RouterProvider provider) {
 //		final Config config = loadConfig("test/input/" + this.getClass().getCanonicalName().replace('.', '/') + "/config.xml");
 		final Config config = ConfigUtils.loadConfig( utils.getClassInputDirectory() + "/config.xml" );
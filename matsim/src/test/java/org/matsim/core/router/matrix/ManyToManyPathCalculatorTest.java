@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ManyToManyPathCalculatorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ManyToManyPathCalculatorTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testCalcMatrices_sameAsDijkstra() {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		FreespeedTravelTimeAndDisutility travelTimeAndDisutility = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, travelTimeAndDisutility, travelTimeAndDisutility);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		List<Node> destinations = nodes.subList(0, nodes.size() / 2);
+		double departureTime = 7 * 3600;
+		ManyToManyPathCalculator.Matrices matrices = new ManyToManyPathCalculator(network, travelTimeAndDisutility, travelTimeAndDisutility, 2)
+				.calcMatrices(nodes, destinations, departureTime);
+
+		Assert.assertEquals(nodes.size(), matrices.getTravelTimes().getOrigins().size());
+		Assert.assertEquals(destinations.size(), matrices.getTravelTimes().getDestinations().size());
+		for (Node from : nodes) {
+			for (Node to : destinations) {
+				Path path = dijkstra.calcLeastCostPath(from, to, departureTime, null, null);
+				double distance = path.links.stream().mapToDouble(link -> link.getLength()).sum();
+				Assert.assertEquals((float) path.travelTime, matrices.getTravelTimes().get(from.getId(), to.getId()), 1e-3);
+				Assert.assertEquals((float) path.travelCost, matrices.getTravelDisutilities().get(from.getId(), to.getId()), 1e-3);
+				Assert.assertEquals((float) distance, matrices.getDistances().get(from.getId(), to.getId()), 1e-3);
+			}
+		}
+	}
+
+	@Test
+	public void testCalcMatrices_unreachable() {
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(1), node1, node2, 1000, 10, 1000, 1);
+		FreespeedTravelTimeAndDisutility travelTimeAndDisutility = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		NodeMatrix travelTimes = new ManyToManyPathCalculator(network, travelTimeAndDisutility, travelTimeAndDisutility, 1)
+				.calcMatrices(nodes, nodes, 0).getTravelTimes();
+
+		Assert.assertEquals(0.0f, travelTimes.get(node1.getId(), node1.getId()), 0.0);
+		Assert.assertEquals(100.0f, travelTimes.get(node1.getId(), node2.getId()), 1e-3);
+		Assert.assertEquals(Float.POSITIVE_INFINITY, travelTimes.get(node2.getId(), node1.getId()), 0.0);
+	}
+
+	@Test
+	public void testWriteAndReadMatrix() {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		FreespeedTravelTimeAndDisutility travelTimeAndDisutility = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		NodeMatrix matrix = new ManyToManyPathCalculator(network, travelTimeAndDisutility, travelTimeAndDisutility, 2)
+				.calcMatrices(nodes, nodes.subList(3, 7), 0).getTravelTimes();
+
+		String filename = this.utils.getOutputDirectory() + "traveltimes.bin";
+		NodeMatrixIO.writeMatrix(matrix, filename);
+		NodeMatrix readMatrix = NodeMatrixIO.readMatrix(filename);
+
+		Assert.assertEquals(matrix.getOrigins(), readMatrix.getOrigins());
+		Assert.assertEquals(matrix.getDestinations(), readMatrix.getDestinations());
+		for (int i = 0; i < matrix.getOrigins().size(); i++) {
+			for (int j = 0; j < matrix.getDestinations().size(); j++) {
+				Assert.assertEquals(matrix.get(i, j), readMatrix.get(i, j), 0.0);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IntBinaryMinHeapTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntBinaryMinHeapTest {
+
+	@Test
+	public void testAddPoll() {
+		IntBinaryMinHeap heap = new IntBinaryMinHeap(10);
+		Assert.assertTrue(heap.isEmpty());
+		Assert.assertEquals(-1, heap.poll());
+
+		Assert.assertTrue(heap.add(5, 3.0));
+		Assert.assertTrue(heap.add(2, 1.0));
+		Assert.assertTrue(heap.add(7, 2.0));
+		Assert.assertFalse(heap.add(2, 0.5));
+		Assert.assertEquals(3, heap.size());
+
+		Assert.assertEquals(2, heap.poll());
+		Assert.assertEquals(7, heap.poll());
+		Assert.assertEquals(5, heap.poll());
+		Assert.assertTrue(heap.isEmpty());
+	}
+
+	@Test
+	public void testDecreaseKey() {
+		IntBinaryMinHeap heap = new IntBinaryMinHeap(10);
+		heap.add(1, 5.0);
+		heap.add(3, 4.0);
+		Assert.assertTrue(heap.decreaseKey(1, 2.0));
+		Assert.assertFalse(heap.decreaseKey(3, 6.0));
+		Assert.assertTrue(heap.decreaseKey(9, 3.0));
+		Assert.assertEquals(3, heap.size());
+
+		Assert.assertEquals(1, heap.poll());
+		Assert.assertEquals(9, heap.poll());
+		Assert.assertEquals(3, heap.poll());
+	}
+
+	@Test
+	public void testReset() {
+		IntBinaryMinHeap heap = new IntBinaryMinHeap(10);
+		heap.add(1, 5.0);
+		heap.add(3, 4.0);
+		heap.reset();
+		Assert.assertTrue(heap.isEmpty());
+		Assert.assertTrue(heap.add(1, 1.0));
+		Assert.assertEquals(1, heap.poll());
+	}
+
+	@Test
+	public void testRandomOrder() {
+		Random random = new Random(4711);
+		int n = 1000;
+		double[] costs = new double[n];
+		IntBinaryMinHeap heap = new IntBinaryMinHeap(n);
+		for (int i = 0; i < n; i++) {
+			costs[i] = random.nextDouble();
+			heap.add(i, costs[i]);
+		}
+		double[] sorted = costs.clone();
+		Arrays.sort(sorted);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals(sorted[i], costs[heap.poll()], 0.0);
+		}
+		Assert.assertTrue(heap.isEmpty());
+	}
+}
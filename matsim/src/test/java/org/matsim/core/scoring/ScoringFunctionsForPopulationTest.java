@@ -5,7 +5,21 @@ import org.junit.Test;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
@@ -15,8 +29,10 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.ControlerListenerManagerImpl;
 import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vehicles.Vehicle;
 
 /**
  * @author mrieser / Simunto GmbH
@@ -69,23 +85,106 @@ public class ScoringFunctionsForPopulationTest {
 		Assert.assertEquals("transit_walk", ((Leg) rs.lastTrip.getTripElements().get(4)).getMode());
 	}
 
+	@Test
+	public void testParallelScoring_sameScores() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Link l1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000, 10, 3600, 1);
+		Link l2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000, 10, 3600, 1);
+		Population population = scenario.getPopulation();
+		int nOfPersons = 50;
+		for (int i = 0; i < nOfPersons; i++) {
+			population.addPerson(population.getFactory().createPerson(Id.create(i, Person.class)));
+		}
+
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> new RecordingScoringFunction();
+		ControlerListenerManagerImpl sequentialListeners = new ControlerListenerManagerImpl();
+		EventsManager sequentialEvents = EventsUtils.createEventsManager();
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		sequentialEvents.addHandler(eventsToActivities);
+		sequentialEvents.addHandler(eventsToLegs);
+		ScoringFunctionsForPopulation sequential = new ScoringFunctionsForPopulation(sequentialListeners, sequentialEvents,
+				eventsToActivities, eventsToLegs, population, scoringFunctionFactory);
+
+		ControlerListenerManagerImpl parallelListeners = new ControlerListenerManagerImpl();
+		EventsManager parallelEvents = EventsUtils.createEventsManager();
+		EventsToActivities parallelEventsToActivities = new EventsToActivities();
+		EventsToLegs parallelEventsToLegs = new EventsToLegs(scenario);
+		parallelEvents.addHandler(parallelEventsToActivities);
+		parallelEvents.addHandler(parallelEventsToLegs);
+		ScoringFunctionsForPopulation parallel = new ScoringFunctionsForPopulation(parallelListeners, parallelEvents,
+				parallelEventsToActivities, parallelEventsToLegs, population, scoringFunctionFactory, 4, false);
+
+		for (int iteration = 0; iteration < 2; iteration++) {
+			sequentialListeners.fireControlerIterationStartsEvent(iteration);
+			parallelListeners.fireControlerIterationStartsEvent(iteration);
+			for (EventsManager events : new EventsManager[] { sequentialEvents, parallelEvents }) {
+				for (int i = 0; i < nOfPersons; i++) {
+					Id<Person> personId = Id.create(i, Person.class);
+					Id<Vehicle> vehicleId = Id.create(i, Vehicle.class);
+					double time = 6 * 3600 + i * 10 + iteration;
+					events.processEvent(new ActivityEndEvent(time, personId, l1.getId(), null, "home"));
+					events.processEvent(new PersonDepartureEvent(time, personId, l1.getId(), "car"));
+					events.processEvent(new PersonEntersVehicleEvent(time, personId, vehicleId));
+					events.processEvent(new VehicleEntersTrafficEvent(time, personId, l1.getId(), vehicleId, "car", 1.0));
+					events.processEvent(new LinkLeaveEvent(time + 100 + i, vehicleId, l1.getId()));
+					events.processEvent(new LinkEnterEvent(time + 100 + i, vehicleId, l2.getId()));
+					events.processEvent(new VehicleLeavesTrafficEvent(time + 150 + 2 * i, personId, l2.getId(), vehicleId, "car", 1.0));
+					events.processEvent(new PersonLeavesVehicleEvent(time + 150 + 2 * i, personId, vehicleId));
+					events.processEvent(new PersonArrivalEvent(time + 150 + 2 * i, personId, l2.getId(), "car"));
+					events.processEvent(new ActivityStartEvent(time + 150 + 2 * i, personId, l2.getId(), null, "work"));
+					events.processEvent(new PersonMoneyEvent(time + 200, personId, -i));
+				}
+			}
+			eventsToActivities.finish();
+			parallelEventsToActivities.finish();
+			sequential.finishScoringFunctions();
+			parallel.finishScoringFunctions();
+
+			for (Person person : population.getPersons().values()) {
+				double expected = sequential.getScoringFunctionForAgent(person.getId()).getScore();
+				Assert.assertNotEquals(0.0, expected, 0.0);
+				Assert.assertEquals(expected, parallel.getScoringFunctionForAgent(person.getId()).getScore(), 0.0);
+			}
+		}
+
+		parallelListeners.fireControlerShutdownEvent(false);
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			Assert.assertFalse(thread.getName().startsWith("ScoringThread."));
+		}
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
 		TripStructureUtils.Trip lastTrip = null;
+		// one score per kind of input, as in SumScoringFunction
+		double activityScore = 0;
+		double legScore = 0;
+		double eventScore = 0;
 
 		@Override
 		public void handleActivity(Activity activity) {
+			this.activityScore = record(this.activityScore, activity.getEndTime());
 		}
 
 		@Override
 		public void handleLeg(Leg leg) {
+			this.legScore = record(this.legScore, leg.getTravelTime());
+			if (leg.getRoute() != null) {
+				this.legScore = record(this.legScore, leg.getRoute().getDistance());
+			}
 		}
 
 		@Override
 		public void handleTrip(TripStructureUtils.Trip trip) {
 			this.tripCounter++;
 			this.lastTrip = trip;
+			this.activityScore = record(this.activityScore, trip.getTripElements().size());
 		}
 
 		@Override
@@ -94,6 +193,7 @@ public class ScoringFunctionsForPopulationTest {
 
 		@Override
 		public void addMoney(double amount) {
+			this.eventScore = record(this.eventScore, amount);
 		}
 
 		@Override
@@ -102,11 +202,17 @@ public class ScoringFunctionsForPopulationTest {
 
 		@Override
 		public double getScore() {
-			return 0;
+			return this.activityScore + this.legScore + this.eventScore;
 		}
 
 		@Override
 		public void handleEvent(Event event) {
+			this.eventScore = record(this.eventScore, event.getTime());
+		}
+
+		/** the order of the calls changes the score */
+		private static double record(double score, double value) {
+			return Double.isInfinite(value) ? score : score * 1.5 + value; // (undefined times)
 		}
 	}
 
@@ -46,6 +46,8 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeSmoothing;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
 import org.matsim.core.network.NetworkUtils;
@@ -165,6 +167,154 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 //				aggregator, binSize, endTime, compareFile, false);
 //	}
 
+	public final void testTravelTimeCalculator_StripedArray() {
+		doStripedArrayComparisonTest("average");
+	}
+
+	public final void testTravelTimeCalculator_StripedArray_LinearInterpolation() {
+		doStripedArrayComparisonTest("linearinterpolation");
+	}
+
+	/**
+	 * The striped arrays must return the same travel times as the default data structures, on all links and at all times.
+	 */
+	private void doStripedArrayComparisonTest(final String travelTimeGetterType) {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(network).readFile(getClassInputDirectory() + "link10_network.xml");
+
+		TravelTimeCalculatorConfigGroup arrayConfig = new TravelTimeCalculatorConfigGroup();
+		arrayConfig.setTravelTimeGetterType(travelTimeGetterType);
+		TravelTimeCalculator arrayCalc = TravelTimeCalculator.create(network, arrayConfig);
+
+		TravelTimeCalculatorConfigGroup stripedConfig = new TravelTimeCalculatorConfigGroup();
+		stripedConfig.setTravelTimeGetterType(travelTimeGetterType);
+		stripedConfig.setTravelTimeCalculatorType(TravelTimeCalculatorType.TravelTimeCalculatorStripedArray.name());
+		TravelTimeCalculator stripedCalc = TravelTimeCalculator.create(network, stripedConfig);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(arrayCalc);
+		events.addHandler(stripedCalc);
+		new MatsimEventsReader(events).readFile(getClassInputDirectory() + "link10_events.xml");
+
+		for (Link link : network.getLinks().values()) {
+			for (double time = 0; time < 30 * 3600; time += 300) {
+				assertEquals(arrayCalc.getLinkTravelTimes().getLinkTravelTime(link, time, null, null),
+						stripedCalc.getLinkTravelTimes().getLinkTravelTime(link, time, null, null), 1e-10);
+			}
+		}
+	}
+
+	/**
+	 * Travel times added after a query must be visible in the next query, i.e. a new snapshot must be published.
+	 */
+	public void testTravelTimeCalculator_StripedArray_publishesNewSnapshot() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		final Node fromNode = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		final Node toNode = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), fromNode, toNode, 1000.0, 100.0, 3600.0, 1.0 );
+		double freeSpeedTT = NetworkUtils.getFreespeedTravelTime(link1);
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTravelTimeCalculatorType(TravelTimeCalculatorType.TravelTimeCalculatorStripedArray.name());
+		TravelTimeCalculator ttcalc = TravelTimeCalculator.create(network, config);
+		double time = 7.0 * 3600;
+		assertEquals(freeSpeedTT, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 100.0, vehId, link1.getId()));
+		assertEquals(100.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 200.0, vehId, link1.getId()));
+		assertEquals(150.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.reset(1);
+		assertEquals(freeSpeedTT, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+	}
+
+	/**
+	 * Once the travel times are published, queries read them from the snapshot; travel times added afterwards, e.g.
+	 * during the mobsim, are visible to the queries before the next publication.
+	 */
+	public void testTravelTimeCalculator_StripedArray_publishLinkTravelTimes() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		final Node fromNode = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		final Node toNode = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), fromNode, toNode, 1000.0, 100.0, 3600.0, 1.0 );
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTravelTimeCalculatorType(TravelTimeCalculatorType.TravelTimeCalculatorStripedArray.name());
+		TravelTimeCalculator ttcalc = TravelTimeCalculator.create(network, config);
+		double time = 7.0 * 3600;
+
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 100.0, vehId, link1.getId()));
+		ttcalc.publishLinkTravelTimes();
+		assertEquals(100.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 200.0, vehId, link1.getId()));
+		assertEquals("not yet published", 150.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+		ttcalc.publishLinkTravelTimes();
+		assertEquals(150.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+	}
+
+	/**
+	 * With smoothing, the travel times of one iteration are blended into the ones of the previous iterations.
+	 */
+	public void testTravelTimeCalculator_Smoothing() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		final Node fromNode = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		final Node toNode = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), fromNode, toNode, 1000.0, 100.0, 3600.0, 1.0 );
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+		double time = 7.0 * 3600;
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTravelTimeCalculatorType(TravelTimeCalculatorType.TravelTimeCalculatorStripedArray.name());
+		config.setTravelTimeSmoothing(TravelTimeSmoothing.exponential);
+		config.setTravelTimeSmoothingFactor(0.5);
+		TravelTimeCalculator ttcalc = TravelTimeCalculator.create(network, config);
+
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 100.0, vehId, link1.getId()));
+		assertEquals(100.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.reset(1);
+		assertEquals("travel times must be kept over the iterations", 100.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 200.0, vehId, link1.getId()));
+		assertEquals(150.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		ttcalc.reset(2);
+		ttcalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(time + 152.0, vehId, link1.getId()));
+		assertEquals(151.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		config.setTravelTimeSmoothing(TravelTimeSmoothing.msa);
+		TravelTimeCalculator msaCalc = TravelTimeCalculator.create(network, config);
+		for (int iteration = 1; iteration <= 3; iteration++) {
+			msaCalc.reset(iteration);
+			msaCalc.handleEvent(new LinkEnterEvent(time, vehId, link1.getId()));
+			msaCalc.handleEvent(new LinkLeaveEvent(time + iteration * 100.0, vehId, link1.getId()));
+		}
+		assertEquals("average of 100, 200 and 300", 200.0, msaCalc.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), EPSILON);
+
+		config.setTravelTimeCalculatorType(TravelTimeCalculatorType.TravelTimeCalculatorArray.name());
+		try {
+			TravelTimeCalculator.create(network, config);
+			fail("smoothing is only implemented for the striped arrays, so other types must not be silently replaced.");
+		} catch (RuntimeException expected) {
+		}
+	}
+
 	private static void doTravelTimeCalculatorTest( final MutableScenario scenario, final TravelTimeDataFactory ttDataFactory,
 									final TimeSlotComputation aggregator, final int timeBinSize, final int endTime,
 									final String compareFile, final boolean generateNewData, String inputDirectory,
@@ -35,6 +35,7 @@ import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -711,6 +712,143 @@ public class QuadTreeTest {
 		}
 	}
 
+	@Test
+	public void testGetKNearest() {
+		QuadTree<String> qt = getTestTree();
+
+		List<String> nearest = qt.getKNearest(12.0, 12.0, 3, new ArrayList<>());
+		assertEquals(3, nearest.size());
+		assertEquals("10.0, 10.0", nearest.get(0));
+		assertTrue(nearest.contains("15.0, 15.0"));
+		assertTrue(nearest.contains("15.0, 15.0 B"));
+
+		nearest.clear();
+		qt.getKNearest(150.0, 150.0, 10, nearest);
+		assertEquals(6, nearest.size());
+		assertEquals("100.0, 0.0", nearest.get(0));
+		assertEquals("20.0, 10.0", nearest.get(3));
+		assertEquals("-15.0, 0.0", nearest.get(5));
+	}
+
+	@Test
+	public void testPackedQuadTree() {
+		QuadTree<String> qt = new PackedQuadTree<>(-50.0, -50.0, +150.0, +150.0);
+		qt.put(10.0, 10.0, "10.0, 10.0");
+		qt.put(15.0, 15.0, "15.0, 15.0");
+		qt.put(-15.0, 0.0, "-15.0, 0.0");
+		qt.put(20.0, 10.0, "20.0, 10.0");
+		qt.put(100.0, 0.0, "100.0, 0.0");
+		assertFalse(qt.put(15.0, 15.0, "15.0, 15.0")); // duplicate
+		assertTrue(qt.put(15.0, 15.0, "15.0, 15.0 B"));
+		assertEquals(6, qt.size());
+
+		assertEquals("10.0, 10.0", qt.getClosest(0.0, 0.0));
+		assertEquals("-15.0, 0.0", qt.getClosest(-5.0, 0.0));
+		assertEquals(3, qt.getDisk(12.5, 12.5, 4.0).size());
+		assertEquals("10.0, 10.0", qt.getKNearest(12.0, 12.0, 3, new ArrayList<>()).get(0));
+
+		assertTrue(qt.remove(15.0, 15.0, "15.0, 15.0"));
+		assertFalse(qt.remove(15.0, 15.0, "15.0, 15.0"));
+		assertEquals(5, qt.size());
+		assertEquals("15.0, 15.0 B", qt.getClosest(16.0, 16.0));
+
+		qt.clear();
+		assertEquals(0, qt.size());
+		assertEquals(null, qt.getClosest(0.0, 0.0));
+	}
+
+	@Test
+	public void testPackedQuadTree_putDuplicates() {
+		QuadTree<String> qt = new PackedQuadTree<>(0.0, 0.0, 1000.0, 1000.0);
+		for (int i = 0; i < 200; i++) {
+			assertTrue(qt.put(i, i, "p" + i));
+		}
+		for (int i = 0; i < 200; i++) {
+			assertFalse(qt.put(i, i, "p" + i)); // not yet in the index
+		}
+		assertEquals(200, qt.size());
+		assertEquals("p50", qt.getClosest(50.2, 50.2));
+
+		assertFalse(qt.put(50, 50, "p50")); // in the index
+		assertTrue(qt.put(50, 50, "q50"));
+		assertFalse(qt.put(50, 50, "q50"));
+		assertTrue(qt.put(51, 50, "p50")); // other location
+		assertEquals(202, qt.size());
+		assertEquals(202, qt.values().size());
+
+		assertTrue(qt.remove(50, 50, "p50"));
+		assertTrue(qt.put(50, 50, "p50"));
+		assertEquals(202, qt.size());
+	}
+
+	@Test
+	public void testPackedQuadTree_valuesIteratorRemove() {
+		QuadTree<String> qt = new PackedQuadTree<>(0.0, 0.0, 1000.0, 1000.0);
+		for (int i = 0; i < 200; i++) {
+			qt.put(i, i, "p" + i);
+		}
+		Iterator<String> iter = qt.values().iterator();
+		while (iter.hasNext()) {
+			String value = iter.next();
+			if (Integer.parseInt(value.substring(1)) % 2 == 0) {
+				iter.remove();
+				try {
+					iter.remove();
+					fail("expected IllegalStateException when removing the same element twice.");
+				} catch (IllegalStateException expected) {
+				}
+			}
+		}
+		assertEquals(100, qt.size());
+		assertEquals(100, qt.values().size());
+		assertEquals("p51", qt.getClosest(50.0, 50.0));
+		assertFalse(qt.remove(50, 50, "p50"));
+		assertTrue(qt.put(50, 50, "p50"));
+		assertEquals("p50", qt.getClosest(50.0, 50.0));
+		assertEquals(101, qt.size());
+	}
+
+	/**
+	 * tests that the PackedQuadTree returns the same results as the QuadTree.
+	 */
+	@Test
+	public void testPackedQuadTree_sameResultsAsQuadTree() {
+		double minX = -1000;
+		double minY = -5000;
+		double maxX = 20000;
+		double maxY = 12000;
+
+		Random r = new Random(20190412L);
+		QuadTree<Coord> qt = new QuadTree<>(minX, minY, maxX, maxY);
+		QuadTree<Coord> packed = new PackedQuadTree<>(minX, minY, maxX, maxY);
+		List<Coord> coords = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Coord coord = new Coord(minX + r.nextDouble() * (maxX - minX), minY + r.nextDouble() * (maxY - minY));
+			coords.add(coord);
+			qt.put(coord.getX(), coord.getY(), coord);
+			packed.put(coord.getX(), coord.getY(), coord);
+		}
+		for (int i = 0; i < 5000; i += 3) {
+			Coord coord = coords.get(i);
+			assertTrue(qt.remove(coord.getX(), coord.getY(), coord));
+			assertTrue(packed.remove(coord.getX(), coord.getY(), coord));
+		}
+		assertEquals(qt.size(), packed.size());
+
+		for (int i = 0; i < 500; i++) {
+			double x = minX + r.nextDouble() * (maxX - minX);
+			double y = minY + r.nextDouble() * (maxY - minY);
+			double distance = r.nextDouble() * 1000;
+			assertEquals(qt.getClosest(x, y), packed.getClosest(x, y));
+			assertEquals(qt.getKNearest(x, y, 5, new ArrayList<>()), packed.getKNearest(x, y, 5, new ArrayList<>()));
+			assertEquals(new HashSet<>(qt.getDisk(x, y, distance)), new HashSet<>(packed.getDisk(x, y, distance)));
+			assertEquals(new HashSet<>(qt.getRing(x, y, distance / 2, distance)), new HashSet<>(packed.getRing(x, y, distance / 2, distance)));
+			Rect rect = new Rect(x, y, x + distance, y + distance);
+			assertEquals(new HashSet<>(qt.getRectangle(rect, new ArrayList<>())), new HashSet<>(packed.getRectangle(rect, new ArrayList<>())));
+			assertEquals(qt.execute(rect, (cx, cy, c) -> {}), packed.execute(rect, (cx, cy, c) -> {}));
+		}
+	}
+
 	/**
 	 * A kind of performance test, but not marked as test, as there is no need
 	 * to run it in every check as there is not assert statement.
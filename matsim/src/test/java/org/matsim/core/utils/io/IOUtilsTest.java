@@ -19,15 +19,20 @@
  * *********************************************************************** */
 package org.matsim.core.utils.io;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
 
@@ -415,6 +420,60 @@ public class IOUtilsTest {
 		Assert.assertEquals("test+test.txt", file.getCanonicalFile().getName());
 	}
 
+	/**
+	 * Files written with {@link IOUtils#getParallelOutputStream(String, int)} consist of several gzip members. Streams
+	 * from urls often report no available bytes, which makes a plain {@link java.util.zip.GZIPInputStream} stop after
+	 * the first member.
+	 */
+	@Test
+	public void testGetInputStream_urlWithSeveralGzipMembers() throws IOException {
+		final String filename = this.utils.getOutputDirectory() + "members.txt.gz";
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 150000; i++) {
+			expected.append("line ").append(i).append('\n');
+		}
+		try (OutputStream out = IOUtils.getParallelOutputStream(filename, 4)) {
+			out.write(expected.toString().getBytes(Charset.forName("UTF-8")));
+		}
+		Assert.assertTrue("expected more than one block", expected.length() > (1 << 20));
+
+		// a url whose stream never reports available bytes and returns the data in small pieces, like many network streams
+		final File file = new File(filename);
+		URL url = new URL(null, "test:" + file.getName(), new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(URL u) {
+				return new URLConnection(u) {
+					@Override
+					public void connect() {
+					}
+					@Override
+					public InputStream getInputStream() throws IOException {
+						return new BufferedInputStream(new FileInputStream(file)) {
+							@Override
+							public synchronized int available() {
+								return 0;
+							}
+							@Override
+							public synchronized int read(byte[] b, int off, int len) throws IOException {
+								return super.read(b, off, Math.min(len, 1));
+							}
+						};
+					}
+				};
+			}
+		});
+
+		StringBuilder read = new StringBuilder();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(IOUtils.getInputStream(url), Charset.forName("UTF-8")))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				read.append(line).append('\n');
+			}
+		}
+		Assert.assertEquals(expected.length(), read.length());
+		Assert.assertEquals(expected.toString(), read.toString());
+	}
+
 	@Test
 	public void testNewUrl() throws MalformedURLException {
 		URL context = Paths.get("").toUri().toURL();
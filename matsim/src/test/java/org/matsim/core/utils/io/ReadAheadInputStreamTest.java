@@ -0,0 +1,132 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReadAheadInputStreamTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReadAheadInputStreamTest {
+
+	private static byte[] createData(int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (i * 31);
+		}
+		return data;
+	}
+
+	private static byte[] readAll(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int read;
+		while ((read = stream.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		byte[] data = createData(300000);
+		try (InputStream stream = new ReadAheadInputStream(new ByteArrayInputStream(data))) {
+			Assert.assertEquals(data[0] & 0xff, stream.read());
+			byte[] rest = readAll(stream);
+			Assert.assertEquals(data.length - 1, rest.length);
+			Assert.assertEquals(data[data.length - 1], rest[rest.length - 1]);
+			Assert.assertEquals(-1, stream.read());
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testIOException() throws IOException {
+		try (InputStream stream = new ReadAheadInputStream(new FailingInputStream(createData(100000), new IOException("test")))) {
+			readAll(stream);
+			Assert.fail("expected IOException");
+		} catch (IOException e) {
+			Assert.assertEquals("test", e.getMessage());
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testRuntimeException() throws IOException {
+		try (InputStream stream = new ReadAheadInputStream(new FailingInputStream(createData(100000), new IllegalStateException("test")))) {
+			readAll(stream);
+			Assert.fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("test", e.getMessage());
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testExceptionOnClose() throws IOException {
+		byte[] data = createData(1000);
+		InputStream failing = new ByteArrayInputStream(data) {
+			@Override
+			public void close() throws IOException {
+				throw new IOException("close");
+			}
+		};
+		try (InputStream stream = new ReadAheadInputStream(failing)) {
+			readAll(stream);
+			Assert.fail("expected IOException");
+		} catch (IOException e) {
+			Assert.assertEquals("close", e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the data, then throws the exception.
+	 */
+	private static class FailingInputStream extends InputStream {
+
+		private final InputStream data;
+		private final Exception exception;
+
+		FailingInputStream(byte[] data, Exception exception) {
+			this.data = new ByteArrayInputStream(data);
+			this.exception = exception;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = this.data.read(b, off, len);
+			if (read < 0) {
+				if (this.exception instanceof IOException) {
+					throw (IOException) this.exception;
+				}
+				throw (RuntimeException) this.exception;
+			}
+			return read;
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayTransitRouterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.testcases.MatsimTestCase;
+
+/**
+ * Checks that {@link ArrayTransitRouter} returns the same routes as {@link TransitRouterImpl} for many
+ * requests. The single cases are covered by {@link TransitRouterImplTest}, which runs with both routers.
+ */
+public class ArrayTransitRouterTest {
+
+	@Test
+	public void testSameRoutesAsTransitRouterImpl() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = createConfig(f);
+		assertSameRoutes(f, trConfig, 4711);
+	}
+
+	@Test
+	public void testSameRoutesAsTransitRouterImpl_transfers() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = createConfig(f);
+		trConfig.setBeelineWalkConnectionDistance(5000.0);
+		trConfig.setAdditionalTransferTime(120.0);
+		trConfig.setUtilityOfLineSwitch_utl(-0.47);
+		trConfig.setSearchRadius(3000.0);
+		assertSameRoutes(f, trConfig, 42);
+	}
+
+	@Test
+	public void testMultipleThreads() throws Exception {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = createConfig(f);
+		final ArrayTransitRouter router = new ArrayTransitRouter(trConfig, f.schedule);
+
+		final List<Request> requests = createRequests(new Random(1234), 200);
+		List<List<Leg>> expected = new ArrayList<>();
+		for (Request request : requests) {
+			expected.add(request.route(router));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<List<Leg>>>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					List<List<Leg>> results = new ArrayList<>();
+					for (Request request : requests) {
+						results.add(request.route(router));
+					}
+					return results;
+				}));
+			}
+			for (Future<List<List<Leg>>> future : futures) {
+				List<List<Leg>> results = future.get();
+				for (int i = 0; i < requests.size(); i++) {
+					assertSameLegs(requests.get(i).toString(), expected.get(i), results.get(i));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * The departures and travel times in the fixture are full minutes, so with round utilities, paths with exactly
+	 * the same cost are frequent, and which of them is found depends on the order of the labels with equal costs.
+	 * The utilities are chosen so that paths with different travel and waiting times have different costs.
+	 */
+	private static TransitRouterConfig createConfig(Fixture f) {
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		trConfig.setMarginalUtilityOfTravelTimePt_utl_s(-11.3 / 3600);
+		trConfig.setMarginalUtilityOfWaitingPt_utl_s(-6.7 / 3600);
+		trConfig.setMarginalUtilityOfTravelTimeWalk_utl_s(-13.9 / 3600);
+		trConfig.setMarginalUtilityOfTravelDistancePt_utl_m(-0.00017);
+		trConfig.setUtilityOfLineSwitch_utl(-0.93);
+		return trConfig;
+	}
+
+	private static void assertSameRoutes(Fixture f, TransitRouterConfig trConfig, long seed) {
+		TransitRouter expectedRouter = new TransitRouterImpl(trConfig, f.schedule);
+		TransitRouter router = new ArrayTransitRouter(trConfig, f.schedule);
+		int ptRoutes = 0;
+		for (Request request : createRequests(new Random(seed), 500)) {
+			List<Leg> expected = request.route(expectedRouter);
+			assertSameLegs(request.toString(), expected, request.route(router));
+			if (expected.size() > 1) {
+				ptRoutes++;
+			}
+		}
+		Assert.assertTrue("expected most requests to be routed with pt.", ptRoutes > 100);
+	}
+
+	private static List<Request> createRequests(Random random, int count) {
+		List<Request> requests = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Coord fromCoord = new Coord(random.nextDouble() * 40000, random.nextDouble() * 10000);
+			Coord toCoord = new Coord(random.nextDouble() * 40000, random.nextDouble() * 10000);
+			double departureTime = 4 * 3600 + random.nextDouble() * 22 * 3600;
+			requests.add(new Request(fromCoord, toCoord, departureTime));
+		}
+		return requests;
+	}
+
+	private static void assertSameLegs(String message, List<Leg> expected, List<Leg> actual) {
+		Assert.assertEquals(message, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Leg expectedLeg = expected.get(i);
+			Leg actualLeg = actual.get(i);
+			Assert.assertEquals(message, expectedLeg.getMode(), actualLeg.getMode());
+			Assert.assertEquals(message, expectedLeg.getTravelTime(), actualLeg.getTravelTime(), MatsimTestCase.EPSILON);
+			Assert.assertEquals(message, expectedLeg.getRoute().getStartLinkId(), actualLeg.getRoute().getStartLinkId());
+			Assert.assertEquals(message, expectedLeg.getRoute().getEndLinkId(), actualLeg.getRoute().getEndLinkId());
+			Assert.assertEquals(message, expectedLeg.getRoute().getDistance(), actualLeg.getRoute().getDistance(), MatsimTestCase.EPSILON);
+			if (expectedLeg.getRoute() instanceof ExperimentalTransitRoute) {
+				ExperimentalTransitRoute expectedRoute = (ExperimentalTransitRoute) expectedLeg.getRoute();
+				ExperimentalTransitRoute actualRoute = (ExperimentalTransitRoute) actualLeg.getRoute();
+				Assert.assertEquals(message, expectedRoute.getAccessStopId(), actualRoute.getAccessStopId());
+				Assert.assertEquals(message, expectedRoute.getEgressStopId(), actualRoute.getEgressStopId());
+				Assert.assertEquals(message, expectedRoute.getLineId(), actualRoute.getLineId());
+				Assert.assertEquals(message, expectedRoute.getRouteId(), actualRoute.getRouteId());
+			}
+		}
+	}
+
+	private static class Request {
+		private final Coord fromCoord;
+		private final Coord toCoord;
+		private final double departureTime;
+
+		Request(Coord fromCoord, Coord toCoord, double departureTime) {
+			this.fromCoord = fromCoord;
+			this.toCoord = toCoord;
+			this.departureTime = departureTime;
+		}
+
+		List<Leg> route(TransitRouter router) {
+			return router.calcRoute(new FakeFacility(this.fromCoord), new FakeFacility(this.toCoord), this.departureTime, null);
+		}
+
+		@Override
+		public String toString() {
+			return this.fromCoord + " -> " + this.toCoord + " at " + Time.writeTime(this.departureTime);
+		}
+	}
+
+}
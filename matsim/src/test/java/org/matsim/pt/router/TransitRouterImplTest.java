@@ -78,7 +78,7 @@ public class TransitRouterImplTest {
 	public static Collection<Object> createRouterTypes() {
 		Object[] router = new Object [] { 
 				"standard"
-//				,TransitRouterType.raptor
+				,"array"
 		};
 		return Arrays.asList(router);
 	}
@@ -119,14 +119,9 @@ public class TransitRouterImplTest {
 	protected TransitRouter createTransitRouter(TransitSchedule schedule, TransitRouterConfig trConfig, String routerType) {
 		TransitRouter router = null ;
 		switch( routerType ) { 
-//		case raptor:
-//			double costPerMeterTraveled = 0. ;
-//			double costPerBoarding = 0. ;
-//			RaptorDisutility raptorDisutility = new RaptorDisutility(trConfig, costPerBoarding, costPerMeterTraveled);
-//			TransitRouterQuadTree transitRouterQuadTree = new TransitRouterQuadTree(raptorDisutility);
-//			transitRouterQuadTree.initializeFromSchedule(schedule, trConfig.getBeelineWalkConnectionDistance());
-//			router = new Raptor(transitRouterQuadTree, raptorDisutility, trConfig) ;
-//			break;
+		case "array":
+			router = new ArrayTransitRouter(trConfig, schedule);
+			break;
 		case "standard":
 			router = new TransitRouterImpl(trConfig, schedule);
 			break;